@@ -31,6 +31,7 @@ import org.apache.flink.runtime.jobgraph.tasks.AbstractInvokable;
 import org.apache.flink.runtime.jobmanager.scheduler.CoLocationGroup;
 import org.apache.flink.runtime.jobmanager.scheduler.SlotSharingGroup;
 import org.apache.flink.streaming.api.collector.OutputSelector;
+import org.apache.flink.streaming.api.invokable.ChainableInvokable;
 import org.apache.flink.streaming.api.invokable.StreamInvokable;
 import org.apache.flink.streaming.api.invokable.operator.co.CoInvokable;
 import org.apache.flink.streaming.api.streamrecord.StreamRecordSerializer;
@@ -41,6 +42,7 @@ import org.apache.flink.streaming.api.streamvertex.StreamVertex;
 import org.apache.flink.streaming.partitioner.StreamPartitioner;
 import org.apache.flink.streaming.partitioner.StreamPartitioner.PartitioningStrategy;
 import org.apache.flink.streaming.state.OperatorState;
+import org.apache.flink.streaming.state.checkpoint.StateStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -62,6 +64,7 @@ public class JobGraphBuilder {
 	private Map<String, List<List<String>>> outEdgeNames;
 	private Map<String, List<Boolean>> outEdgeSelectAll;
 	private Map<String, Boolean> mutability;
+	private Map<String, Long> stateMemory;
 	private Map<String, List<String>> inEdgeList;
 	private Map<String, List<StreamPartitioner<?>>> connectionTypes;
 	private Map<String, String> operatorNames;
@@ -78,7 +81,16 @@ public class JobGraphBuilder {
 	private Map<String, String> iterationIDtoTailName;
 	private Map<String, Integer> iterationTailCount;
 	private Map<String, Long> iterationWaitTime;
+	private Map<String, Integer> iterationFeedbackCapacity;
 	private Map<String, Map<String, OperatorState<?>>> operatorStates;
+	private Map<String, String> chainHeads;
+	private Map<String, List<String>> chainedVertices;
+	private boolean chaining = true;
+	private boolean recordIds = false;
+	private long latencyTrackingInterval = 0;
+	private boolean adaptiveFlushing = false;
+	private long checkpointInterval = 0;
+	private StateStore stateStore;
 
 	/**
 	 * Creates an new {@link JobGraph} with the given name. A JobGraph is a DAG
@@ -94,6 +106,7 @@ public class JobGraphBuilder {
 		outEdgeNames = new HashMap<String, List<List<String>>>();
 		outEdgeSelectAll = new HashMap<String, List<Boolean>>();
 		mutability = new HashMap<String, Boolean>();
+		stateMemory = new HashMap<String, Long>();
 		inEdgeList = new HashMap<String, List<String>>();
 		connectionTypes = new HashMap<String, List<StreamPartitioner<?>>>();
 		operatorNames = new HashMap<String, String>();
@@ -110,7 +123,10 @@ public class JobGraphBuilder {
 		iterationIDtoTailName = new HashMap<String, String>();
 		iterationTailCount = new HashMap<String, Integer>();
 		iterationWaitTime = new HashMap<String, Long>();
+		iterationFeedbackCapacity = new HashMap<String, Integer>();
 		operatorStates = new HashMap<String, Map<String, OperatorState<?>>>();
+		chainHeads = new HashMap<String, String>();
+		chainedVertices = new HashMap<String, List<String>>();
 
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("JobGraph created");
@@ -221,6 +237,9 @@ public class JobGraphBuilder {
 
 		setBytesFrom(iterationTail, vertexName);
 		iterationWaitTime.put(iterationIDtoTailName.get(iterationID), waitTime);
+		// the tail flushes the feedback batches as often as the stream it
+		// closes the iteration with
+		setBufferTimeout(vertexName, bufferTimeout.get(iterationTail));
 
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("ITERATION SINK: {}", vertexName);
@@ -298,17 +317,25 @@ public class JobGraphBuilder {
 	 */
 	private void createVertex(String vertexName) {
 
+		// The outputs of the vertex are the ones of the last chained vertex
+		List<String> chain = chainedVertices.get(vertexName);
+		String outputVertexName = chain.isEmpty() ? vertexName : chain.get(chain.size() - 1);
+
 		// Get vertex attributes
 		Class<? extends AbstractInvokable> vertexClass = vertexClasses.get(vertexName);
 		StreamInvokable<?, ?> invokableObject = invokableObjects.get(vertexName);
 		String operatorName = operatorNames.get(vertexName);
 		byte[] serializedFunction = serializedFunctions.get(vertexName);
 		int parallelism = vertexParallelism.get(vertexName);
-		byte[] outputSelector = outputSelectors.get(vertexName);
+		byte[] outputSelector = outputSelectors.get(outputVertexName);
 		Map<String, OperatorState<?>> state = operatorStates.get(vertexName);
 
 		// Create vertex object
-		AbstractJobVertex vertex = new AbstractJobVertex(vertexName);
+		StringBuilder jobVertexName = new StringBuilder(vertexName);
+		for (String chainedVertexName : chain) {
+			jobVertexName.append(" -> ").append(chainedVertexName);
+		}
+		AbstractJobVertex vertex = new AbstractJobVertex(jobVertexName.toString());
 
 		this.jobGraph.addVertex(vertex);
 
@@ -321,12 +348,19 @@ public class JobGraphBuilder {
 		StreamConfig config = new StreamConfig(vertex.getConfiguration());
 
 		config.setMutability(mutability.get(vertexName));
-		config.setBufferTimeout(bufferTimeout.get(vertexName));
+		if (stateMemory.containsKey(vertexName)) {
+			config.setStateMemory(stateMemory.get(vertexName));
+		}
+		config.setBufferTimeout(bufferTimeout.get(outputVertexName));
+		config.setLatencyTrackingInterval(latencyTrackingInterval);
+		config.setAdaptiveFlushing(adaptiveFlushing);
+		config.setCheckpointInterval(checkpointInterval);
+		config.setStateStore(stateStore);
 
-		config.setTypeSerializerIn1(typeSerializersIn1.get(vertexName));
-		config.setTypeSerializerIn2(typeSerializersIn2.get(vertexName));
-		config.setTypeSerializerOut1(typeSerializersOut1.get(vertexName));
-		config.setTypeSerializerOut2(typeSerializersOut2.get(vertexName));
+		config.setTypeSerializerIn1(withRecordIds(typeSerializersIn1.get(vertexName)));
+		config.setTypeSerializerIn2(withRecordIds(typeSerializersIn2.get(vertexName)));
+		config.setTypeSerializerOut1(withRecordIds(typeSerializersOut1.get(outputVertexName)));
+		config.setTypeSerializerOut2(withRecordIds(typeSerializersOut2.get(outputVertexName)));
 
 		// Set vertex config
 		config.setUserInvokable(invokableObject);
@@ -335,10 +369,19 @@ public class JobGraphBuilder {
 		config.setOutputSelector(outputSelector);
 		config.setOperatorStates(state);
 
+		List<ChainableInvokable<?, ?>> chainedInvokables = new ArrayList<ChainableInvokable<?, ?>>();
+		for (String chainedVertexName : chain) {
+			chainedInvokables.add((ChainableInvokable<?, ?>) invokableObjects.get(chainedVertexName));
+		}
+		config.setChainedInvokables(chainedInvokables, chain);
+
 		if (vertexClass.equals(StreamIterationHead.class)
 				|| vertexClass.equals(StreamIterationTail.class)) {
 			config.setIterationId(iterationIds.get(vertexName));
 			config.setIterationWaitTime(iterationWaitTime.get(vertexName));
+			if (iterationFeedbackCapacity.containsKey(vertexName)) {
+				config.setIterationFeedbackCapacity(iterationFeedbackCapacity.get(vertexName));
+			}
 		}
 
 		streamVertices.put(vertexName, vertex);
@@ -357,7 +400,7 @@ public class JobGraphBuilder {
 	private <T> void connect(String upStreamVertexName, String downStreamVertexName,
 			StreamPartitioner<T> partitionerObject) {
 
-		AbstractJobVertex upStreamVertex = streamVertices.get(upStreamVertexName);
+		AbstractJobVertex upStreamVertex = streamVertices.get(chainHeads.get(upStreamVertexName));
 		AbstractJobVertex downStreamVertex = streamVertices.get(downStreamVertexName);
 
 		StreamConfig config = new StreamConfig(upStreamVertex.getConfiguration());
@@ -399,6 +442,83 @@ public class JobGraphBuilder {
 		mutability.put(vertexName, isMutable);
 	}
 
+	/**
+	 * Sets the managed memory holding the keyed state of the given vertex.
+	 * 
+	 * @param vertexName
+	 *            Name of the vertex
+	 * @param bytes
+	 *            Size of the memory in bytes, 0 to keep the state on the heap
+	 */
+	public void setStateMemory(String vertexName, long bytes) {
+		stateMemory.put(vertexName, bytes);
+	}
+
+	/**
+	 * Sets whether operators may be chained to the operator in front of them.
+	 * 
+	 * @param chaining
+	 *            <code>true</code> to chain operators where possible
+	 */
+	public void setChaining(boolean chaining) {
+		this.chaining = chaining;
+	}
+
+	/**
+	 * Sets whether the records carry IDs. Without IDs only the objects of the
+	 * records are serialized.
+	 * 
+	 * @param recordIds
+	 *            <code>true</code> to give every record an ID
+	 */
+	public void setRecordIds(boolean recordIds) {
+		this.recordIds = recordIds;
+	}
+
+	/**
+	 * Sets the interval of the latency markers emitted by the sources and of
+	 * the metrics reported by the vertices.
+	 * 
+	 * @param interval
+	 *            The interval in milliseconds, 0 to disable the metrics
+	 */
+	public void setLatencyTrackingInterval(long interval) {
+		this.latencyTrackingInterval = interval;
+	}
+
+	/**
+	 * Sets whether the vertices flush their outputs driven by the credits
+	 * announced by the receivers, using the buffer timeouts only as upper
+	 * bounds.
+	 * 
+	 * @param adaptiveFlushing
+	 *            <code>true</code> to flush adaptively
+	 */
+	public void setAdaptiveFlushing(boolean adaptiveFlushing) {
+		this.adaptiveFlushing = adaptiveFlushing;
+	}
+
+	/**
+	 * Sets the interval of the checkpoints started by the sources and the
+	 * store the snapshots of the operator states are written to.
+	 * 
+	 * @param interval
+	 *            The interval in milliseconds, 0 to disable checkpointing
+	 * @param store
+	 *            The store of the snapshots
+	 */
+	public void setCheckpointing(long interval, StateStore store) {
+		this.checkpointInterval = interval;
+		this.stateStore = store;
+	}
+
+	private StreamRecordSerializer<?> withRecordIds(StreamRecordSerializer<?> serializer) {
+		if (serializer != null) {
+			serializer.setRecordIds(recordIds);
+		}
+		return serializer;
+	}
+
 	public void setBufferTimeout(String vertexName, long bufferTimeout) {
 		this.bufferTimeout.put(vertexName, bufferTimeout);
 	}
@@ -459,6 +579,19 @@ public class JobGraphBuilder {
 		setBufferTimeout(iterationIDtoHeadName.get(iterationID), bufferTimeout.get(iterationTail));
 	}
 
+	/**
+	 * Sets the number of batches the feedback channel of the given iteration
+	 * keeps in memory, before it spills them to disk.
+	 * 
+	 * @param iterationID
+	 *            ID of the iteration
+	 * @param numberOfBatches
+	 *            Number of batches kept in memory
+	 */
+	public void setIterationFeedbackCapacity(String iterationID, int numberOfBatches) {
+		iterationFeedbackCapacity.put(iterationIDtoHeadName.get(iterationID), numberOfBatches);
+	}
+
 	/**
 	 * Sets a user defined {@link OutputSelector} for the given vertex. Used for
 	 * directed emits.
@@ -557,12 +690,70 @@ public class JobGraphBuilder {
 		return jobGraph;
 	}
 
+	/**
+	 * Groups the vertices into chains. Every chain is headed by a vertex that
+	 * cannot be chained to its input, followed by the vertices that are
+	 * chained to it, each to the one in front of it. Only the chain heads
+	 * become vertices of the {@link JobGraph}.
+	 */
+	private void setChains() {
+		chainHeads.clear();
+		chainedVertices.clear();
+
+		for (String vertexName : outEdgeList.keySet()) {
+			if (isChainable(vertexName)) {
+				continue;
+			}
+
+			List<String> chain = new ArrayList<String>();
+			String current = vertexName;
+			while (outEdgeList.get(current).size() == 1
+					&& isChainable(outEdgeList.get(current).get(0))) {
+				current = outEdgeList.get(current).get(0);
+				chain.add(current);
+				chainHeads.put(current, vertexName);
+			}
+
+			chainHeads.put(vertexName, vertexName);
+			chainedVertices.put(vertexName, chain);
+		}
+	}
+
+	/**
+	 * Checks whether the given vertex can be chained to the vertex in front of
+	 * it: it has to be a chainable operator without state that is connected
+	 * to its single input by forward partitioning, with the same parallelism,
+	 * and it has to be the only output of that input.
+	 * 
+	 * @param vertexName
+	 *            Name of the vertex
+	 */
+	private boolean isChainable(String vertexName) {
+		List<String> inputs = inEdgeList.get(vertexName);
+		if (!chaining || inputs.size() != 1) {
+			return false;
+		}
+		String upStreamVertexName = inputs.get(0);
+
+		return invokableObjects.get(vertexName) instanceof ChainableInvokable
+				&& vertexClasses.get(vertexName) == StreamVertex.class
+				&& vertexClasses.get(upStreamVertexName) == StreamVertex.class
+				&& operatorStates.get(vertexName) == null
+				&& outEdgeList.get(upStreamVertexName).size() == 1
+				&& outputSelectors.get(upStreamVertexName) == null
+				&& connectionTypes.get(upStreamVertexName).get(0).getStrategy() == PartitioningStrategy.FORWARD
+				&& vertexParallelism.get(upStreamVertexName).equals(
+						vertexParallelism.get(vertexName));
+	}
+
 	/**
 	 * Builds the {@link JobGraph} from the vertices with the edges and settings
 	 * provided.
 	 */
 	private void buildJobGraph() {
-		for (String vertexName : outEdgeList.keySet()) {
+		setChains();
+
+		for (String vertexName : chainedVertices.keySet()) {
 			createVertex(vertexName);
 		}
 
@@ -572,6 +763,12 @@ public class JobGraphBuilder {
 			List<Integer> outEdgeTypeList = outEdgeType.get(upStreamVertexName);
 
 			for (String downStreamVertexName : outEdgeList.get(upStreamVertexName)) {
+				if (!chainHeads.get(downStreamVertexName).equals(downStreamVertexName)) {
+					// chained edge, the records do not leave the task
+					i++;
+					continue;
+				}
+
 				StreamConfig downStreamVertexConfig = new StreamConfig(streamVertices.get(
 						downStreamVertexName).getConfiguration());
 
@@ -19,6 +19,7 @@ package org.apache.flink.streaming.api;
 
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -27,12 +28,14 @@ import org.apache.commons.lang3.SerializationUtils;
 import org.apache.flink.api.common.functions.AbstractRichFunction;
 import org.apache.flink.configuration.Configuration;
 import org.apache.flink.streaming.api.collector.OutputSelector;
+import org.apache.flink.streaming.api.invokable.ChainableInvokable;
 import org.apache.flink.streaming.api.invokable.StreamInvokable;
 import org.apache.flink.streaming.api.streamrecord.StreamRecordSerializer;
 import org.apache.flink.streaming.api.streamvertex.StreamVertexException;
 import org.apache.flink.streaming.partitioner.ShufflePartitioner;
 import org.apache.flink.streaming.partitioner.StreamPartitioner;
 import org.apache.flink.streaming.state.OperatorState;
+import org.apache.flink.streaming.state.checkpoint.StateStore;
 import org.apache.flink.util.InstantiationUtil;
 
 public class StreamConfig {
@@ -52,6 +55,11 @@ public class StreamConfig {
 	private static final String SERIALIZEDUDF = "serializedudf";
 	private static final String USER_FUNCTION = "userfunction";
 	private static final String BUFFER_TIMEOUT = "bufferTimeout";
+	private static final String STATE_MEMORY = "stateMemory";
+	private static final String LATENCY_TRACKING_INTERVAL = "latencyTrackingInterval";
+	private static final String ADAPTIVE_FLUSHING = "adaptiveFlushing";
+	private static final String CHECKPOINT_INTERVAL = "checkpointInterval";
+	private static final String STATE_STORE = "stateStore";
 	private static final String OPERATOR_STATES = "operatorStates";
 	private static final String TYPE_SERIALIZER_IN_1 = "typeSerializer_in_1";
 	private static final String TYPE_SERIALIZER_IN_2 = "typeSerializer_in_2";
@@ -59,6 +67,9 @@ public class StreamConfig {
 	private static final String TYPE_SERIALIZER_OUT_2 = "typeSerializer_out_2";
 	private static final String MUTABILITY = "isMutable";
 	private static final String ITERATON_WAIT = "iterationWait";
+	private static final String ITERATION_FEEDBACK_CAPACITY = "iterationFeedbackCapacity";
+	private static final String CHAINED_INVOKABLES = "chainedInvokables";
+	private static final String CHAINED_NAMES = "chainedNames";
 
 	// DEFAULT VALUES
 
@@ -66,6 +77,8 @@ public class StreamConfig {
 
 	private static final long DEFAULT_TIMEOUT = 0;
 
+	public static final int DEFAULT_FEEDBACK_CAPACITY = 32;
+
 	// CONFIG METHODS
 
 	private Configuration config;
@@ -146,6 +159,53 @@ public class StreamConfig {
 		return config.getBoolean(MUTABILITY, DEFAULT_IS_MUTABLE);
 	}
 
+	public void setStateMemory(long bytes) {
+		config.setLong(STATE_MEMORY, bytes);
+	}
+
+	public long getStateMemory() {
+		return config.getLong(STATE_MEMORY, 0);
+	}
+
+	public void setLatencyTrackingInterval(long interval) {
+		config.setLong(LATENCY_TRACKING_INTERVAL, interval);
+	}
+
+	public long getLatencyTrackingInterval() {
+		return config.getLong(LATENCY_TRACKING_INTERVAL, 0);
+	}
+
+	public void setAdaptiveFlushing(boolean adaptiveFlushing) {
+		config.setBoolean(ADAPTIVE_FLUSHING, adaptiveFlushing);
+	}
+
+	public boolean getAdaptiveFlushing() {
+		return config.getBoolean(ADAPTIVE_FLUSHING, false);
+	}
+
+	public void setCheckpointInterval(long interval) {
+		config.setLong(CHECKPOINT_INTERVAL, interval);
+	}
+
+	public long getCheckpointInterval() {
+		return config.getLong(CHECKPOINT_INTERVAL, 0);
+	}
+
+	public void setStateStore(StateStore store) {
+		if (store != null) {
+			config.setBytes(STATE_STORE, SerializationUtils.serialize(store));
+		}
+	}
+
+	public StateStore getStateStore(ClassLoader cl) {
+		try {
+			return (StateStore) InstantiationUtil.readObjectFromConfig(this.config, STATE_STORE,
+					cl);
+		} catch (Exception e) {
+			throw new StreamVertexException("Cannot deserialize state store", e);
+		}
+	}
+
 	public void setBufferTimeout(long timeout) {
 		config.setLong(BUFFER_TIMEOUT, timeout);
 	}
@@ -176,6 +236,46 @@ public class StreamConfig {
 		}
 	}
 
+	/**
+	 * Sets the invokables that are chained behind the user invokable of the
+	 * vertex, in the order in which the records pass through them.
+	 * 
+	 * @param invokables
+	 *            The chained invokables
+	 * @param names
+	 *            The names of the operators of the chained invokables
+	 */
+	public void setChainedInvokables(List<ChainableInvokable<?, ?>> invokables, List<String> names) {
+		if (!invokables.isEmpty()) {
+			try {
+				config.setBytes(CHAINED_INVOKABLES,
+						SerializationUtils.serialize(new ArrayList<ChainableInvokable<?, ?>>(invokables)));
+			} catch (SerializationException e) {
+				throw new RuntimeException("Cannot serialize chained invokables", e);
+			}
+			config.setBytes(CHAINED_NAMES,
+					SerializationUtils.serialize(new ArrayList<String>(names)));
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	public List<ChainableInvokable<?, ?>> getChainedInvokables(ClassLoader cl) {
+		try {
+			List<ChainableInvokable<?, ?>> invokables = (List<ChainableInvokable<?, ?>>) InstantiationUtil
+					.readObjectFromConfig(this.config, CHAINED_INVOKABLES, cl);
+			return invokables != null ? invokables : new ArrayList<ChainableInvokable<?, ?>>();
+		} catch (Exception e) {
+			throw new StreamVertexException("Cannot instantiate chained invokables", e);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	public List<String> getChainedNames() {
+		byte[] names = config.getBytes(CHAINED_NAMES, null);
+		return names != null ? (List<String>) SerializationUtils.deserialize(names)
+				: new ArrayList<String>();
+	}
+
 	public void setVertexName(String vertexName) {
 		config.setString(VERTEX_NAME, vertexName);
 	}
@@ -244,6 +344,14 @@ public class StreamConfig {
 		return config.getLong(ITERATON_WAIT, 0);
 	}
 
+	public void setIterationFeedbackCapacity(int numberOfBatches) {
+		config.setInteger(ITERATION_FEEDBACK_CAPACITY, numberOfBatches);
+	}
+
+	public int getIterationFeedbackCapacity() {
+		return config.getInteger(ITERATION_FEEDBACK_CAPACITY, DEFAULT_FEEDBACK_CAPACITY);
+	}
+
 	public void setNumberOfOutputChannels(int outputIndex, Integer numberOfOutputChannels) {
 		config.setInteger(NUMBER_OF_OUTPUT_CHANNELS + outputIndex, numberOfOutputChannels);
 	}
@@ -24,6 +24,7 @@ import java.util.Set;
 
 import org.apache.flink.runtime.io.network.api.RecordWriter;
 import org.apache.flink.runtime.plugable.SerializationDelegate;
+import org.apache.flink.streaming.api.streamrecord.StreamLatencyMarker;
 import org.apache.flink.streaming.api.streamrecord.StreamRecord;
 import org.apache.flink.util.StringUtils;
 import org.slf4j.Logger;
@@ -74,6 +75,24 @@ public class DirectedStreamCollector<OUT> extends StreamCollector<OUT> {
 		}
 	}
 
+	@Override
+	public void emitWatermark(long watermark) {
+		super.emitWatermark(watermark);
+		emitWatermark(watermark, selectAllOutputs);
+	}
+
+	@Override
+	public void emitCheckpointBarrier(long checkpointId) {
+		super.emitCheckpointBarrier(checkpointId);
+		emitCheckpointBarrier(checkpointId, selectAllOutputs);
+	}
+
+	@Override
+	public void emitLatencyMarker(StreamLatencyMarker marker) {
+		super.emitLatencyMarker(marker);
+		emitLatencyMarker(marker, selectAllOutputs);
+	}
+
 	/**
 	 * Emits a StreamRecord to the outputs selected by the user defined
 	 * OutputSelector
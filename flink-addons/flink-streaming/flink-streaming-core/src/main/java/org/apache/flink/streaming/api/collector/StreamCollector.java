@@ -22,9 +22,16 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.flink.runtime.AbstractID;
+import org.apache.flink.runtime.event.task.AbstractTaskEvent;
 import org.apache.flink.runtime.io.network.api.RecordWriter;
 import org.apache.flink.runtime.plugable.SerializationDelegate;
+import org.apache.flink.streaming.api.streamrecord.StreamCheckpointBarrier;
+import org.apache.flink.streaming.api.streamrecord.StreamLatencyMarker;
 import org.apache.flink.streaming.api.streamrecord.StreamRecord;
+import org.apache.flink.streaming.api.streamrecord.StreamWatermark;
+import org.apache.flink.streaming.api.streamvertex.StreamMetrics;
+import org.apache.flink.streaming.io.StreamRecordWriter;
 import org.apache.flink.util.Collector;
 import org.apache.flink.util.StringUtils;
 import org.slf4j.Logger;
@@ -47,6 +54,13 @@ public class StreamCollector<OUT> implements Collector<OUT> {
 	protected List<RecordWriter<SerializationDelegate<StreamRecord<OUT>>>> outputs;
 	protected Map<String, List<RecordWriter<SerializationDelegate<StreamRecord<OUT>>>>> outputMap;
 	protected SerializationDelegate<StreamRecord<OUT>> serializationDelegate;
+	private Map<RecordWriter<SerializationDelegate<StreamRecord<OUT>>>, AbstractID> senderIDs;
+	protected boolean recordIds;
+	private AbstractID recordIdVertex;
+	private int recordIdSubtask;
+	private long nextRecordId;
+	private StreamMetrics metrics;
+	private int nextMarkerChannel;
 
 	/**
 	 * Creates a new StreamCollector
@@ -68,6 +82,33 @@ public class StreamCollector<OUT> implements Collector<OUT> {
 		this.channelID = channelID;
 		this.outputs = new ArrayList<RecordWriter<SerializationDelegate<StreamRecord<OUT>>>>();
 		this.outputMap = new HashMap<String, List<RecordWriter<SerializationDelegate<StreamRecord<OUT>>>>>();
+		this.senderIDs = new HashMap<RecordWriter<SerializationDelegate<StreamRecord<OUT>>>, AbstractID>();
+	}
+
+	/**
+	 * Makes the collector give every emitted record an ID, made of the job
+	 * vertex ID, the subtask index and a sequence number. The channel ID is
+	 * not used, as it is only unique within one TaskManager.
+	 * 
+	 * @param vertexID
+	 *            ID of the job vertex of the task
+	 * @param subtaskIndex
+	 *            Index of the task among the subtasks of the vertex
+	 */
+	public void enableRecordIds(AbstractID vertexID, int subtaskIndex) {
+		recordIds = true;
+		recordIdVertex = vertexID;
+		recordIdSubtask = subtaskIndex;
+	}
+
+	/**
+	 * Sets the metrics counting the emitted records
+	 * 
+	 * @param metrics
+	 *            The metrics of the task
+	 */
+	public void setMetrics(StreamMetrics metrics) {
+		this.metrics = metrics;
 	}
 
 	/**
@@ -125,7 +166,12 @@ public class StreamCollector<OUT> implements Collector<OUT> {
 	 *            StreamRecord to emit.
 	 */
 	private void emit(StreamRecord<OUT> streamRecord) {
-		streamRecord.newId(channelID);
+		if (recordIds) {
+			streamRecord.newId(recordIdVertex, recordIdSubtask, nextRecordId++);
+		}
+		if (metrics != null) {
+			metrics.recordOut();
+		}
 		serializationDelegate.setInstance(streamRecord);
 		emitToOutputs();
 	}
@@ -142,6 +188,107 @@ public class StreamCollector<OUT> implements Collector<OUT> {
 		}
 	}
 
+	/**
+	 * Emits a watermark to all outputs, regardless of the output selection, as
+	 * every receiver needs the watermarks of all its input channels.
+	 * 
+	 * @param watermark
+	 *            No more elements with a lower timestamp will be emitted
+	 */
+	public void emitWatermark(long watermark) {
+		emitWatermark(watermark, outputs);
+	}
+
+	protected void emitWatermark(long watermark,
+			List<RecordWriter<SerializationDelegate<StreamRecord<OUT>>>> outputs) {
+		for (RecordWriter<SerializationDelegate<StreamRecord<OUT>>> output : outputs) {
+			emitEvent(new StreamWatermark(getSenderID(output), watermark), output);
+		}
+	}
+
+	/**
+	 * Emits a checkpoint barrier to all outputs, regardless of the output
+	 * selection, as every receiver needs the barriers of all its input
+	 * channels.
+	 * 
+	 * @param checkpointId
+	 *            The ID of the checkpoint
+	 */
+	public void emitCheckpointBarrier(long checkpointId) {
+		emitCheckpointBarrier(checkpointId, outputs);
+	}
+
+	protected void emitCheckpointBarrier(long checkpointId,
+			List<RecordWriter<SerializationDelegate<StreamRecord<OUT>>>> outputs) {
+		for (RecordWriter<SerializationDelegate<StreamRecord<OUT>>> output : outputs) {
+			emitEvent(new StreamCheckpointBarrier(getSenderID(output), checkpointId), output);
+		}
+	}
+
+	/**
+	 * Gets the ID the watermarks and barriers sent through the given output
+	 * are marked with. Every output has its own ID, so the receivers can tell
+	 * the input channels apart, even if they read several outputs of this
+	 * task on different input gates.
+	 * 
+	 * @param output
+	 *            The output of the task
+	 * @return The sender ID of the output
+	 */
+	protected AbstractID getSenderID(RecordWriter<SerializationDelegate<StreamRecord<OUT>>> output) {
+		AbstractID senderID = senderIDs.get(output);
+		if (senderID == null) {
+			senderID = new AbstractID();
+			senderIDs.put(output, senderID);
+		}
+		return senderID;
+	}
+
+	/**
+	 * Emits a latency marker to one channel of every output, regardless of the
+	 * output selection. The channels take turns, so that the markers sample
+	 * all of them without multiplying at every vertex.
+	 * 
+	 * @param marker
+	 *            The marker to emit
+	 */
+	public void emitLatencyMarker(StreamLatencyMarker marker) {
+		emitLatencyMarker(marker, outputs);
+	}
+
+	protected void emitLatencyMarker(StreamLatencyMarker marker,
+			List<RecordWriter<SerializationDelegate<StreamRecord<OUT>>>> outputs) {
+		for (RecordWriter<SerializationDelegate<StreamRecord<OUT>>> output : outputs) {
+			try {
+				if (output instanceof StreamRecordWriter) {
+					StreamRecordWriter<?> writer = (StreamRecordWriter<?>) output;
+					int channel = (nextMarkerChannel++ & Integer.MAX_VALUE)
+							% writer.getNumberOfChannels();
+					writer.sendEventToChannel(marker, channel);
+				} else {
+					output.broadcastEvent(marker);
+				}
+			} catch (Exception e) {
+				if (LOG.isErrorEnabled()) {
+					LOG.error("Emitting latency marker failed due to: {}",
+							StringUtils.stringifyException(e));
+				}
+			}
+		}
+	}
+
+	private void emitEvent(AbstractTaskEvent event,
+			RecordWriter<SerializationDelegate<StreamRecord<OUT>>> output) {
+		try {
+			output.broadcastEvent(event);
+		} catch (Exception e) {
+			if (LOG.isErrorEnabled()) {
+				LOG.error("Emitting {} failed due to: {}", event,
+						StringUtils.stringifyException(e));
+			}
+		}
+	}
+
 	@Override
 	public void close() {
 	}
@@ -58,6 +58,8 @@ import org.apache.flink.streaming.api.invokable.operator.FilterInvokable;
 import org.apache.flink.streaming.api.invokable.operator.FlatMapInvokable;
 import org.apache.flink.streaming.api.invokable.operator.MapInvokable;
 import org.apache.flink.streaming.api.invokable.operator.StreamReduceInvokable;
+import org.apache.flink.streaming.api.invokable.operator.WatermarkInvokable;
+import org.apache.flink.streaming.api.invokable.util.TimeStamp;
 import org.apache.flink.streaming.api.windowing.helper.Count;
 import org.apache.flink.streaming.api.windowing.helper.Delta;
 import org.apache.flink.streaming.api.windowing.helper.Time;
@@ -450,6 +452,27 @@ public class DataStream<OUT> {
 		return addFunction("filter", filter, getType(), getType(), new FilterInvokable<OUT>(filter));
 	}
 
+	/**
+	 * Assigns event time watermarks to the {@link DataStream}. The elements
+	 * are forwarded unchanged, followed by watermarks telling the downstream
+	 * operators that no elements with lower timestamps will arrive. Time
+	 * windows defined with {@link Time#withWatermarks()} are emitted when the
+	 * watermark passes their end, so the elements may arrive out of order.
+	 * 
+	 * @param timeStamp
+	 *            The timestamp of the elements
+	 * @param maxDelay
+	 *            The time units by which an element may arrive later than
+	 *            elements with higher timestamps. Elements arriving later are
+	 *            dropped by the windows.
+	 * @return The DataStream with watermarks.
+	 */
+	public SingleOutputStreamOperator<OUT, ?> assignWatermarks(TimeStamp<OUT> timeStamp,
+			long maxDelay) {
+		return addFunction("watermarks", null, getType(), getType(), new WatermarkInvokable<OUT>(
+				timeStamp, maxDelay, WatermarkInvokable.DEFAULT_WATERMARK_INTERVAL));
+	}
+
 	/**
 	 * Initiates a Project transformation on a {@link Tuple} {@link DataStream}.<br/>
 	 * <b>Note: Only Tuple DataStreams can be projected.</b></br> The
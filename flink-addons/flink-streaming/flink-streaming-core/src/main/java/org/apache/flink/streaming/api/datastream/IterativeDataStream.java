@@ -20,6 +20,7 @@ package org.apache.flink.streaming.api.datastream;
 import java.util.Arrays;
 import java.util.List;
 
+import org.apache.flink.streaming.api.StreamConfig;
 import org.apache.flink.streaming.partitioner.DistributePartitioner;
 
 /**
@@ -35,6 +36,7 @@ public class IterativeDataStream<IN> extends
 	static Integer iterationCount = 0;
 	protected Integer iterationID;
 	protected long waitTime;
+	protected int feedbackCapacity;
 
 	protected IterativeDataStream(DataStream<IN> dataStream) {
 		super(dataStream);
@@ -42,12 +44,15 @@ public class IterativeDataStream<IN> extends
 		iterationID = iterationCount;
 		iterationCount++;
 		waitTime = 0;
+		feedbackCapacity = StreamConfig.DEFAULT_FEEDBACK_CAPACITY;
 	}
 
-	protected IterativeDataStream(DataStream<IN> dataStream, Integer iterationID, long waitTime) {
+	protected IterativeDataStream(DataStream<IN> dataStream, Integer iterationID, long waitTime,
+			int feedbackCapacity) {
 		super(dataStream);
 		this.iterationID = iterationID;
 		this.waitTime = waitTime;
+		this.feedbackCapacity = feedbackCapacity;
 	}
 
 	/**
@@ -86,6 +91,7 @@ public class IterativeDataStream<IN> extends
 				iterationID.toString(), iterationTail.getParallelism(), waitTime);
 
 		jobGraphBuilder.setIterationSourceSettings(iterationID.toString(), iterationTail.getId());
+		jobGraphBuilder.setIterationFeedbackCapacity(iterationID.toString(), feedbackCapacity);
 
 		List<String> name = Arrays.asList(new String[] { iterationName });
 
@@ -112,8 +118,26 @@ public class IterativeDataStream<IN> extends
 		return this;
 	}
 
+	/**
+	 * Sets the number of batches of records fed back to the iteration head
+	 * that are kept in memory. If the iteration head falls further behind, the
+	 * batches are spilled to disk. A batch holds up to 32 KB of records, or
+	 * the records of one buffer timeout.
+	 * 
+	 * @param numberOfBatches
+	 *            Number of batches kept in memory
+	 * @return The modified DataStream.
+	 */
+	public IterativeDataStream<IN> setFeedbackCapacity(int numberOfBatches) {
+		if (numberOfBatches < 1) {
+			throw new IllegalArgumentException("The feedback capacity must be at least one batch");
+		}
+		this.feedbackCapacity = numberOfBatches;
+		return this;
+	}
+
 	@Override
 	protected IterativeDataStream<IN> copy() {
-		return new IterativeDataStream<IN>(this, iterationID, waitTime);
+		return new IterativeDataStream<IN>(this, iterationID, waitTime, feedbackCapacity);
 	}
 }
@@ -90,6 +90,25 @@ public class SingleOutputStreamOperator<OUT, O extends SingleOutputStreamOperato
 		return this;
 	}
 
+	/**
+	 * Sets the size of the managed memory holding the state of a grouped
+	 * operator, such as a grouped reduce. The values of the keys are stored
+	 * serialized in that memory and the least recently used ones are spilled
+	 * to disk once it is full. By default the state is kept as objects on the
+	 * heap.
+	 * 
+	 * @param megabytes
+	 *            The size of the state memory in megabytes
+	 * @return The operator with the state memory set.
+	 */
+	public SingleOutputStreamOperator<OUT, O> setStateMemory(int megabytes) {
+		if (megabytes < 0) {
+			throw new IllegalArgumentException("The state memory cannot be negative.");
+		}
+		jobGraphBuilder.setStateMemory(id, megabytes * 1024L * 1024L);
+		return this;
+	}
+
 	/**
 	 * Sets the maximum time frequency (ms) for the flushing of the output
 	 * buffer. By default the output buffers flush only when they are full.
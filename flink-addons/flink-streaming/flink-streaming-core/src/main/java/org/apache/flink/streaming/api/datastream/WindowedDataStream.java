@@ -34,11 +34,16 @@ import org.apache.flink.streaming.api.function.aggregation.ComparableAggregator;
 import org.apache.flink.streaming.api.function.aggregation.SumAggregator;
 import org.apache.flink.streaming.api.invokable.StreamInvokable;
 import org.apache.flink.streaming.api.invokable.operator.GroupedWindowInvokable;
+import org.apache.flink.streaming.api.invokable.operator.PanedWindowReduceInvokable;
 import org.apache.flink.streaming.api.invokable.operator.WindowGroupReduceInvokable;
 import org.apache.flink.streaming.api.invokable.operator.WindowReduceInvokable;
+import org.apache.flink.streaming.api.invokable.util.DefaultTimeStamp;
+import org.apache.flink.streaming.api.windowing.helper.Count;
+import org.apache.flink.streaming.api.windowing.helper.Time;
 import org.apache.flink.streaming.api.windowing.helper.WindowingHelper;
 import org.apache.flink.streaming.api.windowing.policy.CloneableEvictionPolicy;
 import org.apache.flink.streaming.api.windowing.policy.CloneableTriggerPolicy;
+import org.apache.flink.streaming.api.windowing.policy.CountTriggerPolicy;
 import org.apache.flink.streaming.api.windowing.policy.EvictionPolicy;
 import org.apache.flink.streaming.api.windowing.policy.TimeTriggerPolicy;
 import org.apache.flink.streaming.api.windowing.policy.TriggerPolicy;
@@ -569,11 +574,62 @@ public class WindowedDataStream<OUT> {
 					getCentralEvicters());
 
 		} else {
-			invokable = new WindowReduceInvokable<OUT>(reducer, getTriggers(), getEvicters());
+			invokable = getPanedReduceInvokable(reducer);
+			if (invokable == null) {
+				invokable = new WindowReduceInvokable<OUT>(reducer, getTriggers(), getEvicters());
+			}
 		}
 		return invokable;
 	}
 
+	/**
+	 * Creates an invokable that reduces the windows incrementally, pane by
+	 * pane, if the window size and the slide size are both given by a single
+	 * {@link Count} or by a single {@link Time} helper with the same
+	 * timestamp. Returns null for any other window definition.
+	 */
+	@SuppressWarnings("unchecked")
+	private StreamInvokable<OUT, OUT> getPanedReduceInvokable(ReduceFunction<OUT> reducer) {
+		if (userTriggers != null || userEvicters != null || triggerHelpers == null
+				|| triggerHelpers.size() != 1
+				|| (evictionHelpers != null && evictionHelpers.size() != 1)) {
+			return null;
+		}
+
+		WindowingHelper<OUT> trigger = triggerHelpers.get(0);
+		// Without eviction helpers the windows are tumbling
+		WindowingHelper<OUT> eviction = evictionHelpers == null ? trigger : evictionHelpers
+				.get(0);
+
+		if (trigger instanceof Count && eviction instanceof Count) {
+			Count slide = (Count) trigger;
+			Count window = (Count) eviction;
+
+			if (slide.getCount() > 0 && window.getCount() > 0
+					&& slide.getStartValue() == CountTriggerPolicy.DEFAULT_START_VALUE
+					&& (window == slide || window.getDeleteOnEviction() == 1)) {
+				return new PanedWindowReduceInvokable<OUT>(reducer, window.getCount(),
+						slide.getCount());
+			}
+		} else if (trigger instanceof Time && eviction instanceof Time) {
+			Time<OUT> slide = (Time<OUT>) trigger;
+			Time<OUT> window = (Time<OUT>) eviction;
+
+			boolean sameTimeStamp = slide.getTimeStamp() == window.getTimeStamp()
+					|| (slide.getTimeStamp() instanceof DefaultTimeStamp && window
+							.getTimeStamp() instanceof DefaultTimeStamp);
+
+			if (sameTimeStamp && slide.granularityInMillis() > 0
+					&& window.granularityInMillis() > 0) {
+				return new PanedWindowReduceInvokable<OUT>(reducer, window.granularityInMillis(),
+						slide.granularityInMillis(), slide.getTimeStamp(), slide.getDelay(),
+						slide.isWatermarkDriven() || window.isWatermarkDriven());
+			}
+		}
+
+		return null;
+	}
+
 	/**
 	 * Gets the output type.
 	 * 
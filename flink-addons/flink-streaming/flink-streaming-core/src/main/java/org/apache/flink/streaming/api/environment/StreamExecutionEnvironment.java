@@ -39,6 +39,9 @@ import org.apache.flink.streaming.api.function.source.GenSequenceFunction;
 import org.apache.flink.streaming.api.function.source.SocketTextStreamFunction;
 import org.apache.flink.streaming.api.function.source.SourceFunction;
 import org.apache.flink.streaming.api.invokable.SourceInvokable;
+import org.apache.flink.streaming.state.MapState;
+import org.apache.flink.streaming.state.checkpoint.FileSystemStateStore;
+import org.apache.flink.streaming.state.checkpoint.StateStore;
 
 /**
  * {@link ExecutionEnvironment} for streaming jobs. An instance of it is
@@ -131,6 +134,99 @@ public abstract class StreamExecutionEnvironment {
 		return this.bufferTimeout;
 	}
 
+	/**
+	 * Makes the outputs flush adaptively. The receivers announce to their
+	 * senders how many buffers they have consumed. A channel is then flushed
+	 * as soon as its receiver has consumed everything sent to it, which keeps
+	 * the latency low at light load, while the records are batched into full
+	 * buffers when the receiver falls behind, which keeps the throughput high
+	 * at peak load. The buffer timeout only bounds how long a record may wait
+	 * in a buffer. Outputs with a buffer timeout of -1 are not affected.
+	 * 
+	 * @return StreamExecutionEnvironment with adaptive flushing enabled.
+	 */
+	public StreamExecutionEnvironment enableAdaptiveFlushing() {
+		jobGraphBuilder.setAdaptiveFlushing(true);
+		return this;
+	}
+
+	/**
+	 * Disables operator chaining for streaming operators. By default, map,
+	 * filter and flatMap operators that are connected to their single input
+	 * by forward partitioning, with the same degree of parallelism, are
+	 * chained to the operator in front of them and run in its task, passing
+	 * the records without serialization.
+	 * 
+	 * @return StreamExecutionEnvironment with chaining disabled.
+	 */
+	public StreamExecutionEnvironment disableOperatorChaining() {
+		jobGraphBuilder.setChaining(false);
+		return this;
+	}
+
+	/**
+	 * Gives every record an ID, made of the ID of the emitting task and a
+	 * sequence number, for features acknowledging or deduplicating records.
+	 * By default records carry no ID and only their objects are sent.
+	 * 
+	 * @return StreamExecutionEnvironment with record IDs enabled.
+	 */
+	public StreamExecutionEnvironment enableRecordIds() {
+		jobGraphBuilder.setRecordIds(true);
+		return this;
+	}
+
+	/**
+	 * Makes the sources emit latency markers and every vertex report its
+	 * throughput and the latency of the markers to the JobManager, in the
+	 * given interval. The metrics are reported as accumulators, named after
+	 * the vertices, so they show up in the web frontend. The latencies are
+	 * measured with the clocks of the machines, so they include the clock
+	 * skew between them.
+	 * 
+	 * @param intervalMillis
+	 *            The interval of the latency markers and the reports in
+	 *            milliseconds
+	 * @return StreamExecutionEnvironment with latency tracking enabled.
+	 */
+	public StreamExecutionEnvironment enableLatencyTracking(long intervalMillis) {
+		if (intervalMillis <= 0) {
+			throw new IllegalArgumentException("The latency tracking interval must be positive.");
+		}
+		jobGraphBuilder.setLatencyTrackingInterval(intervalMillis);
+		return this;
+	}
+
+	/**
+	 * Makes the operator states recoverable. In every interval the sources
+	 * emit a checkpoint barrier. Every vertex snapshots its states when the
+	 * barrier has arrived on all of its inputs and forwards it. Only the
+	 * entries of {@link MapState}s changed since the last snapshot are
+	 * written, and they are written by a background thread, so the
+	 * processing is not stalled by large states. When a vertex is restarted,
+	 * its states are restored from the last snapshot in the store. As the
+	 * inputs are not blocked while waiting for the barriers, and the sources
+	 * are not replayed, the snapshots give at-least-once guarantees for the
+	 * states at best.
+	 * 
+	 * @param intervalMillis
+	 *            The interval of the checkpoints in milliseconds
+	 * @param store
+	 *            The store of the snapshots, for example a
+	 *            {@link FileSystemStateStore}
+	 * @return StreamExecutionEnvironment with checkpointing enabled.
+	 */
+	public StreamExecutionEnvironment enableCheckpointing(long intervalMillis, StateStore store) {
+		if (intervalMillis <= 0) {
+			throw new IllegalArgumentException("The checkpoint interval must be positive.");
+		}
+		if (store == null) {
+			throw new IllegalArgumentException("The state store must not be null.");
+		}
+		jobGraphBuilder.setCheckpointing(intervalMillis, store);
+		return this;
+	}
+
 	/**
 	 * Sets the default parallelism that will be used for the local execution
 	 * environment created by {@link #createLocalEnvironment()}.
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.invokable;
+
+import org.apache.flink.api.common.functions.Function;
+import org.apache.flink.util.Collector;
+
+/**
+ * A {@link StreamInvokable} that can be chained to the invokable in front of
+ * it. A chained invokable does not read its input from the network, it is
+ * used as the {@link Collector} of the preceding invokable instead, so the
+ * records are passed as objects, without serialization, like in the chained
+ * drivers of the batch runtime.
+ * 
+ * @param <IN>
+ *            The input type of the invokable
+ * @param <OUT>
+ *            The output type of the invokable
+ */
+public abstract class ChainableInvokable<IN, OUT> extends StreamInvokable<IN, OUT> implements
+		Collector<IN> {
+
+	private static final long serialVersionUID = 1L;
+
+	protected IN nextObject;
+
+	public ChainableInvokable(Function userFunction) {
+		super(userFunction);
+	}
+
+	/**
+	 * Sets up the invokable for running as part of a chain
+	 * 
+	 * @param collector
+	 *            Collector for the outputs of the invokable
+	 */
+	public void setup(Collector<OUT> collector) {
+		this.collector = collector;
+	}
+
+	/**
+	 * Processes one record that was collected by the preceding invokable of
+	 * the chain.
+	 */
+	@Override
+	public void collect(IN record) {
+		nextObject = record;
+		callUserFunctionAndLogException();
+	}
+
+	/**
+	 * Closes the invokable and, through its collector, the rest of the chain.
+	 * This is called by the preceding invokable of the chain when it closes
+	 * its collector.
+	 */
+	@Override
+	public void close() {
+		try {
+			super.close();
+		} catch (Exception e) {
+			throw new RuntimeException("Error while closing chained invokable: " + e.getMessage(),
+					e);
+		}
+	}
+}
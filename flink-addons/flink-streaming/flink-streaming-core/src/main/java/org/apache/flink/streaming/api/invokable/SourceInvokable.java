@@ -20,6 +20,7 @@ package org.apache.flink.streaming.api.invokable;
 import java.io.Serializable;
 
 import org.apache.flink.streaming.api.function.source.SourceFunction;
+import org.apache.flink.util.Collector;
 
 public class SourceInvokable<OUT> extends StreamInvokable<OUT,OUT> implements Serializable {
 
@@ -35,7 +36,11 @@ public class SourceInvokable<OUT> extends StreamInvokable<OUT,OUT> implements Se
 
 	@Override
 	public void invoke() throws Exception {
-		sourceFunction.invoke(collector);
+		if (metrics != null || snapshotter != null) {
+			sourceFunction.invoke(new SourceCollector());
+		} else {
+			sourceFunction.invoke(collector);
+		}
 	}
 
 	@Override
@@ -50,4 +55,24 @@ public class SourceInvokable<OUT> extends StreamInvokable<OUT,OUT> implements Se
 	protected void callUserFunction() throws Exception {
 	}
 
+	/**
+	 * Collector emitting the latency markers and the checkpoint barriers
+	 * between the records of the source, when they are due. The barriers are
+	 * emitted by the thread running the source function, so the snapshot of
+	 * the states is consistent with the records emitted before it.
+	 */
+	private class SourceCollector implements Collector<OUT> {
+
+		@Override
+		public void collect(OUT record) {
+			collector.collect(record);
+			emitLatencyMarkerIfDue();
+			emitCheckpointBarrierIfDue();
+		}
+
+		@Override
+		public void close() {
+			collector.close();
+		}
+	}
 }
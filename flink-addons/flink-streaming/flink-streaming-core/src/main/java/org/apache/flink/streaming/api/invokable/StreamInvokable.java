@@ -23,9 +23,17 @@ import org.apache.flink.api.common.functions.Function;
 import org.apache.flink.api.common.functions.RichFunction;
 import org.apache.flink.api.common.functions.RuntimeContext;
 import org.apache.flink.api.common.functions.util.FunctionUtils;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.configuration.Configuration;
+import org.apache.flink.streaming.api.collector.StreamCollector;
+import org.apache.flink.streaming.api.streamrecord.StreamLatencyMarker;
 import org.apache.flink.streaming.api.streamrecord.StreamRecord;
 import org.apache.flink.streaming.api.streamrecord.StreamRecordSerializer;
+import org.apache.flink.streaming.api.streamvertex.StreamMetrics;
+import org.apache.flink.streaming.state.HeapKeyedState;
+import org.apache.flink.streaming.state.KeyedState;
+import org.apache.flink.streaming.state.KeyedStateBackend;
+import org.apache.flink.streaming.state.checkpoint.StateSnapshotter;
 import org.apache.flink.util.Collector;
 import org.apache.flink.util.MutableObjectIterator;
 import org.apache.flink.util.StringUtils;
@@ -53,6 +61,15 @@ public abstract class StreamInvokable<IN, OUT> implements Serializable {
 	protected Function userFunction;
 	protected volatile boolean isRunning;
 
+	private transient StreamCollector<?> watermarkOutput;
+	private long currentWatermark = Long.MIN_VALUE;
+
+	private transient KeyedStateBackend stateBackend;
+
+	protected transient StreamMetrics metrics;
+
+	protected transient StateSnapshotter snapshotter;
+
 	public StreamInvokable(Function userFunction) {
 		this.userFunction = userFunction;
 	}
@@ -158,6 +175,123 @@ public abstract class StreamInvokable<IN, OUT> implements Serializable {
 		}
 	}
 
+	/**
+	 * Sets the collector of the task outputs, on which the watermarks of the
+	 * invokable are emitted
+	 * 
+	 * @param watermarkOutput
+	 *            The collector of the task outputs
+	 */
+	public void setWatermarkOutput(StreamCollector<?> watermarkOutput) {
+		this.watermarkOutput = watermarkOutput;
+	}
+
+	/**
+	 * Method that will be called when the watermark of the inputs advances.
+	 * Invokables working on event time should override it to emit the results
+	 * that the watermark completes before forwarding the watermark.
+	 * 
+	 * @param watermark
+	 *            No more input elements with a lower timestamp will arrive
+	 */
+	public void processWatermark(long watermark) throws Exception {
+		emitWatermark(watermark);
+	}
+
+	/**
+	 * Emits a watermark to the outputs, if it is higher than the last one
+	 * emitted.
+	 * 
+	 * @param watermark
+	 *            No more output elements with a lower timestamp will be
+	 *            emitted
+	 */
+	public void emitWatermark(long watermark) {
+		if (watermark > currentWatermark) {
+			currentWatermark = watermark;
+			if (watermarkOutput != null) {
+				watermarkOutput.emitWatermark(watermark);
+			}
+		}
+	}
+
+	/**
+	 * Sets the metrics of the vertex, which tell the sources when to emit
+	 * latency markers
+	 * 
+	 * @param metrics
+	 *            The metrics of the vertex, <code>null</code> if they are
+	 *            disabled
+	 */
+	public void setMetrics(StreamMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Emits a latency marker with the current time to the outputs, if one is
+	 * due
+	 */
+	protected void emitLatencyMarkerIfDue() {
+		if (metrics != null && watermarkOutput != null && metrics.pollLatencyMarker()) {
+			watermarkOutput.emitLatencyMarker(new StreamLatencyMarker(System.currentTimeMillis()));
+		}
+	}
+
+	/**
+	 * Sets the snapshotter of the states of the vertex, which tells the
+	 * sources when to start a checkpoint
+	 * 
+	 * @param snapshotter
+	 *            The snapshotter of the vertex, <code>null</code> if
+	 *            checkpointing is disabled
+	 */
+	public void setSnapshotter(StateSnapshotter snapshotter) {
+		this.snapshotter = snapshotter;
+	}
+
+	/**
+	 * Snapshots the states of the vertex and emits the barrier of the
+	 * checkpoint to the outputs, if a checkpoint is due
+	 */
+	protected void emitCheckpointBarrierIfDue() {
+		if (snapshotter != null && snapshotter.pollBarrier()) {
+			long checkpointId = snapshotter.nextCheckpointId();
+			snapshotter.snapshot(checkpointId);
+			if (watermarkOutput != null) {
+				watermarkOutput.emitCheckpointBarrier(checkpointId);
+			}
+		}
+	}
+
+	/**
+	 * Sets the backend creating the keyed states of the invokable
+	 * 
+	 * @param stateBackend
+	 *            The keyed state backend of the vertex
+	 */
+	public void setStateBackend(KeyedStateBackend stateBackend) {
+		this.stateBackend = stateBackend;
+	}
+
+	/**
+	 * Creates a keyed state through the state backend of the vertex. Without
+	 * a state backend the values are kept on the heap.
+	 * 
+	 * @param serializer
+	 *            The serializer of the values
+	 * @param memoryFraction
+	 *            The fraction of the state memory of the vertex used by the
+	 *            state
+	 * @return The keyed state
+	 */
+	protected <T> KeyedState<T> createKeyedState(TypeSerializer<T> serializer,
+			double memoryFraction) {
+		if (stateBackend == null) {
+			return new HeapKeyedState<T>();
+		}
+		return stateBackend.createKeyedState(serializer, memoryFraction);
+	}
+
 	public void setRuntimeContext(RuntimeContext t) {
 		FunctionUtils.setFunctionRuntimeContext(userFunction, t);
 	}
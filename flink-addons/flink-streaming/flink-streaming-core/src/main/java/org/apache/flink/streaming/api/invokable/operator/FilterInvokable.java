@@ -18,9 +18,9 @@
 package org.apache.flink.streaming.api.invokable.operator;
 
 import org.apache.flink.api.common.functions.FilterFunction;
-import org.apache.flink.streaming.api.invokable.StreamInvokable;
+import org.apache.flink.streaming.api.invokable.ChainableInvokable;
 
-public class FilterInvokable<IN> extends StreamInvokable<IN, IN> {
+public class FilterInvokable<IN> extends ChainableInvokable<IN, IN> {
 
 	private static final long serialVersionUID = 1L;
 
@@ -36,9 +36,10 @@ public class FilterInvokable<IN> extends StreamInvokable<IN, IN> {
 	@Override
 	protected void immutableInvoke() throws Exception {
 		while ((reuse = recordIterator.next(reuse)) != null) {
+			nextObject = reuse.getObject();
 			callUserFunctionAndLogException();
 			if (canCollect) {
-				collector.collect(reuse.getObject());
+				collector.collect(nextObject);
 			}
 			resetReuse();
 		}
@@ -47,15 +48,25 @@ public class FilterInvokable<IN> extends StreamInvokable<IN, IN> {
 	@Override
 	protected void mutableInvoke() throws Exception {
 		while ((reuse = recordIterator.next(reuse)) != null) {
+			nextObject = reuse.getObject();
 			callUserFunctionAndLogException();
 			if (canCollect) {
-				collector.collect(reuse.getObject());
+				collector.collect(nextObject);
 			}
 		}
 	}
 
+	@Override
+	public void collect(IN record) {
+		nextObject = record;
+		callUserFunctionAndLogException();
+		if (canCollect) {
+			collector.collect(nextObject);
+		}
+	}
+
 	@Override
 	protected void callUserFunction() throws Exception {
-		canCollect = filterFunction.filter(reuse.getObject());
+		canCollect = filterFunction.filter(nextObject);
 	}
 }
@@ -18,9 +18,9 @@
 package org.apache.flink.streaming.api.invokable.operator;
 
 import org.apache.flink.api.common.functions.FlatMapFunction;
-import org.apache.flink.streaming.api.invokable.StreamInvokable;
+import org.apache.flink.streaming.api.invokable.ChainableInvokable;
 
-public class FlatMapInvokable<IN, OUT> extends StreamInvokable<IN, OUT> {
+public class FlatMapInvokable<IN, OUT> extends ChainableInvokable<IN, OUT> {
 	private static final long serialVersionUID = 1L;
 
 	private FlatMapFunction<IN, OUT> flatMapper;
@@ -33,6 +33,7 @@ public class FlatMapInvokable<IN, OUT> extends StreamInvokable<IN, OUT> {
 	@Override
 	protected void immutableInvoke() throws Exception {
 		while ((reuse = recordIterator.next(reuse)) != null) {
+			nextObject = reuse.getObject();
 			callUserFunctionAndLogException();
 			resetReuse();
 		}
@@ -41,13 +42,14 @@ public class FlatMapInvokable<IN, OUT> extends StreamInvokable<IN, OUT> {
 	@Override
 	protected void mutableInvoke() throws Exception {
 		while ((reuse = recordIterator.next(reuse)) != null) {
+			nextObject = reuse.getObject();
 			callUserFunctionAndLogException();
 		}
 	}
 
 	@Override
 	protected void callUserFunction() throws Exception {
-		flatMapper.flatMap(reuse.getObject(), collector);
+		flatMapper.flatMap(nextObject, collector);
 	}
 
 }
@@ -17,23 +17,27 @@
 
 package org.apache.flink.streaming.api.invokable.operator;
 
-import java.util.HashMap;
-import java.util.Map;
-
 import org.apache.flink.api.common.functions.ReduceFunction;
 import org.apache.flink.api.java.functions.KeySelector;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.streaming.state.KeyedState;
 
 public class GroupedReduceInvokable<IN> extends StreamReduceInvokable<IN> {
 	private static final long serialVersionUID = 1L;
 
 	private KeySelector<IN, ?> keySelector;
-	private Map<Object, IN> values;
+	private transient KeyedState<IN> values;
 	private IN reduced;
 
 	public GroupedReduceInvokable(ReduceFunction<IN> reducer, KeySelector<IN, ?> keySelector) {
 		super(reducer);
 		this.keySelector = keySelector;
-		values = new HashMap<Object, IN>();
+	}
+
+	@Override
+	public void open(Configuration config) throws Exception {
+		super.open(config);
+		values = createKeyedState(inSerializer.getObjectSerializer(), 1.0);
 	}
 
 	@Override
@@ -51,6 +55,12 @@ public class GroupedReduceInvokable<IN> extends StreamReduceInvokable<IN> {
 		}
 	}
 
+	@Override
+	public void close() throws Exception {
+		values.close();
+		super.close();
+	}
+
 	@Override
 	protected void callUserFunction() throws Exception {
 		reduced = reducer.reduce(currentValue, nextValue);
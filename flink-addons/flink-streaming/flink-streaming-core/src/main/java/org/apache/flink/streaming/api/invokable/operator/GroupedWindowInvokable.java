@@ -29,6 +29,7 @@ import org.apache.flink.api.common.functions.ReduceFunction;
 import org.apache.flink.api.java.functions.KeySelector;
 import org.apache.flink.configuration.Configuration;
 import org.apache.flink.streaming.api.invokable.StreamInvokable;
+import org.apache.flink.streaming.api.invokable.util.TimerService;
 import org.apache.flink.streaming.api.streamrecord.StreamRecord;
 import org.apache.flink.streaming.api.windowing.policy.ActiveEvictionPolicy;
 import org.apache.flink.streaming.api.windowing.policy.ActiveTriggerCallback;
@@ -36,6 +37,7 @@ import org.apache.flink.streaming.api.windowing.policy.ActiveTriggerPolicy;
 import org.apache.flink.streaming.api.windowing.policy.CloneableEvictionPolicy;
 import org.apache.flink.streaming.api.windowing.policy.CloneableTriggerPolicy;
 import org.apache.flink.streaming.api.windowing.policy.EvictionPolicy;
+import org.apache.flink.streaming.api.windowing.policy.ScheduledTriggerPolicy;
 import org.apache.flink.streaming.api.windowing.policy.TriggerPolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -92,6 +94,7 @@ public class GroupedWindowInvokable<IN, OUT> extends StreamInvokable<IN, OUT> {
 	private LinkedList<CloneableEvictionPolicy<IN>> distributedEvictionPolicies;
 	private Map<Object, WindowInvokable<IN, OUT>> windowingGroups;
 	private LinkedList<Thread> activePolicyThreads;
+	private TimerService timerService;
 	private LinkedList<TriggerPolicy<IN>> currentTriggerPolicies;
 	private LinkedList<WindowInvokable<IN, OUT>> deleteOrderForCentralEviction;
 
@@ -234,91 +237,109 @@ public class GroupedWindowInvokable<IN, OUT> extends StreamInvokable<IN, OUT> {
 
 		// Continuously run
 		while (reuse != null) {
-			WindowInvokable<IN, OUT> groupInvokable = windowingGroups.get(keySelector.getKey(reuse
-					.getObject()));
-			if (groupInvokable == null) {
-				groupInvokable = makeNewGroup(reuse);
-			}
+			processRealElement(reuse);
 
-			// Run the precalls for central active triggers
-			for (ActiveTriggerPolicy<IN> trigger : activeCentralTriggerPolicies) {
-				Object[] result = trigger.preNotifyTrigger(reuse.getObject());
-				for (Object in : result) {
-
-					// If central eviction is used, handle it here
-					if (!activeCentralEvictionPolicies.isEmpty()) {
-						evictElements(centralActiveEviction(in));
-					}
-
-					// process in groups
-					for (WindowInvokable<IN, OUT> group : windowingGroups.values()) {
-						group.processFakeElement(in, trigger);
-						checkForEmptyGroupBuffer(group);
-					}
-				}
-			}
+			// Recreate the reuse-StremRecord object and load next StreamRecord
+			resetReuse();
+			reuse = recordIterator.next(reuse);
+		}
 
-			// Process non-active central triggers
-			for (TriggerPolicy<IN> triggerPolicy : centralTriggerPolicies) {
-				if (triggerPolicy.notifyTrigger(reuse.getObject())) {
-					currentTriggerPolicies.add(triggerPolicy);
-				}
-			}
+		// Stop all remaining threads from policies
+		for (Thread t : activePolicyThreads) {
+			t.interrupt();
+		}
+		timerService.shutdown();
+
+		// finally trigger the buffer.
+		for (WindowInvokable<IN, OUT> group : windowingGroups.values()) {
+			group.emitFinalWindow(centralTriggerPolicies);
+		}
 
-			if (currentTriggerPolicies.isEmpty()) {
+	}
+
+	/**
+	 * This method processes an arrived real element in its group and in the
+	 * central policies. The method is synchronized to ensure that it cannot
+	 * interleave with the timer callbacks of the scheduled policies, which are
+	 * synchronized on this invokable as well.
+	 * 
+	 * @param element
+	 *            The arrived element
+	 * @throws Exception
+	 *             In case the {@link KeySelector} throws an exception in
+	 *             {@link KeySelector#getKey(Object)}, the exception is not
+	 *             catched by this method.
+	 */
+	private synchronized void processRealElement(StreamRecord<IN> element) throws Exception {
+		WindowInvokable<IN, OUT> groupInvokable = windowingGroups.get(keySelector.getKey(element
+				.getObject()));
+		if (groupInvokable == null) {
+			groupInvokable = makeNewGroup(element);
+		}
 
-				// only add the element to its group
-				groupInvokable.processRealElement(reuse.getObject());
-				checkForEmptyGroupBuffer(groupInvokable);
+		// Run the precalls for central active triggers
+		for (ActiveTriggerPolicy<IN> trigger : activeCentralTriggerPolicies) {
+			Object[] result = trigger.preNotifyTrigger(element.getObject());
+			for (Object in : result) {
 
 				// If central eviction is used, handle it here
-				if (!centralEvictionPolicies.isEmpty()) {
-					evictElements(centralEviction(reuse.getObject(), false));
-					deleteOrderForCentralEviction.add(groupInvokable);
+				if (!activeCentralEvictionPolicies.isEmpty()) {
+					evictElements(centralActiveEviction(in));
 				}
 
-			} else {
-
-				// call user function for all groups
+				// process in groups
 				for (WindowInvokable<IN, OUT> group : windowingGroups.values()) {
-					if (group == groupInvokable) {
-						// process real with initialized policies
-						group.processRealElement(reuse.getObject(), currentTriggerPolicies);
-					} else {
-						// process like a fake but also initialized with
-						// policies
-						group.externalTriggerFakeElement(reuse.getObject(), currentTriggerPolicies);
-					}
-					
-					//remove group in case it has an empty buffer
-					//checkForEmptyGroupBuffer(group);
+					group.processFakeElement(in, trigger);
+					checkForEmptyGroupBuffer(group);
 				}
+			}
+		}
 
-				// If central eviction is used, handle it here
-				if (!centralEvictionPolicies.isEmpty()) {
-					evictElements(centralEviction(reuse.getObject(), true));
-					deleteOrderForCentralEviction.add(groupInvokable);
-				}
+		// Process non-active central triggers
+		for (TriggerPolicy<IN> triggerPolicy : centralTriggerPolicies) {
+			if (triggerPolicy.notifyTrigger(element.getObject())) {
+				currentTriggerPolicies.add(triggerPolicy);
 			}
+		}
 
-			// clear current trigger list
-			currentTriggerPolicies.clear();
+		if (currentTriggerPolicies.isEmpty()) {
 
-			// Recreate the reuse-StremRecord object and load next StreamRecord
-			resetReuse();
-			reuse = recordIterator.next(reuse);
-		}
+			// only add the element to its group
+			groupInvokable.processRealElement(element.getObject());
+			checkForEmptyGroupBuffer(groupInvokable);
 
-		// Stop all remaining threads from policies
-		for (Thread t : activePolicyThreads) {
-			t.interrupt();
-		}
+			// If central eviction is used, handle it here
+			if (!centralEvictionPolicies.isEmpty()) {
+				evictElements(centralEviction(element.getObject(), false));
+				deleteOrderForCentralEviction.add(groupInvokable);
+			}
 
-		// finally trigger the buffer.
-		for (WindowInvokable<IN, OUT> group : windowingGroups.values()) {
-			group.emitFinalWindow(centralTriggerPolicies);
+		} else {
+
+			// call user function for all groups
+			for (WindowInvokable<IN, OUT> group : windowingGroups.values()) {
+				if (group == groupInvokable) {
+					// process real with initialized policies
+					group.processRealElement(element.getObject(), currentTriggerPolicies);
+				} else {
+					// process like a fake but also initialized with
+					// policies
+					group.externalTriggerFakeElement(element.getObject(), currentTriggerPolicies);
+				}
+				
+				//remove group in case it has an empty buffer
+				//checkForEmptyGroupBuffer(group);
+			}
+
+			// If central eviction is used, handle it here
+			if (!centralEvictionPolicies.isEmpty()) {
+				evictElements(centralEviction(element.getObject(), true));
+				deleteOrderForCentralEviction.add(groupInvokable);
+			}
 		}
 
+		// clear current trigger list
+		currentTriggerPolicies.clear();
 	}
 
 	/**
@@ -359,6 +380,7 @@ public class GroupedWindowInvokable<IN, OUT> extends StreamInvokable<IN, OUT> {
 		}
 
 		groupInvokable.initialize(collector, recordIterator, inSerializer, isMutable);
+		groupInvokable.setTimerService(timerService);
 		groupInvokable.open(this.parameters);
 		windowingGroups.put(keySelector.getKey(element.getObject()), groupInvokable);
 
@@ -384,16 +406,57 @@ public class GroupedWindowInvokable<IN, OUT> extends StreamInvokable<IN, OUT> {
 	public void open(Configuration parameters) throws Exception {
 		super.open(parameters);
 		this.parameters = parameters;
+		this.timerService = new TimerService(this);
 		for (ActiveTriggerPolicy<IN> tp : activeCentralTriggerPolicies) {
-			Runnable target = tp.createActiveTriggerRunnable(new WindowingCallback(tp));
-			if (target != null) {
-				Thread thread = new Thread(target);
-				activePolicyThreads.add(thread);
-				thread.start();
+			if (tp instanceof ScheduledTriggerPolicy) {
+				scheduleTrigger((ScheduledTriggerPolicy<IN>) tp);
+			} else {
+				Runnable target = tp.createActiveTriggerRunnable(new WindowingCallback(tp));
+				if (target != null) {
+					Thread thread = new Thread(target);
+					activePolicyThreads.add(thread);
+					thread.start();
+				}
 			}
 		}
 	};
 
+	/**
+	 * Registers the next trigger time of the given central policy at the timer
+	 * service. The timer service is shared with the groups.
+	 * 
+	 * @param policy
+	 *            The scheduled central policy
+	 */
+	private void scheduleTrigger(ScheduledTriggerPolicy<IN> policy) {
+		long time = policy.getNextTriggerTime();
+		if (time >= 0) {
+			timerService.registerTimer(time, new WindowingTimer(policy));
+		}
+	}
+
+	/**
+	 * Submits a fake element of a central active trigger policy to all groups.
+	 * 
+	 * @param datapoint
+	 *            The fake element
+	 * @param policy
+	 *            The policy which produced the fake element
+	 */
+	private synchronized void processFakeElement(Object datapoint, ActiveTriggerPolicy<IN> policy) {
+
+		// If central eviction is used, handle it here
+		if (!centralEvictionPolicies.isEmpty()) {
+			evictElements(centralActiveEviction(datapoint));
+		}
+
+		// handle element in groups
+		for (WindowInvokable<IN, OUT> group : windowingGroups.values()) {
+			group.processFakeElement(datapoint, policy);
+			checkForEmptyGroupBuffer(group);
+		}
+	}
+
 	/**
 	 * This method is used to notify central eviction policies with a real
 	 * element.
@@ -507,17 +570,31 @@ public class GroupedWindowInvokable<IN, OUT> extends StreamInvokable<IN, OUT> {
 
 		@Override
 		public void sendFakeElement(Object datapoint) {
+			processFakeElement(datapoint, policy);
+		}
 
-			// If central eviction is used, handle it here
-			if (!centralEvictionPolicies.isEmpty()) {
-				evictElements(centralActiveEviction(datapoint));
-			}
+	}
 
-			// handle element in groups
-			for (WindowInvokable<IN, OUT> group : windowingGroups.values()) {
-				group.processFakeElement(datapoint, policy);
-				checkForEmptyGroupBuffer(group);
+	/**
+	 * This class is called back by the {@link TimerService} when the trigger
+	 * time of a central {@link ScheduledTriggerPolicy} has passed. It forwards
+	 * the fake element of the policy to all groups and registers the next
+	 * trigger time.
+	 */
+	private class WindowingTimer implements Runnable {
+		private ScheduledTriggerPolicy<IN> policy;
+
+		public WindowingTimer(ScheduledTriggerPolicy<IN> policy) {
+			this.policy = policy;
+		}
+
+		@Override
+		public void run() {
+			Object datapoint = policy.notifyTriggerTime(System.currentTimeMillis());
+			if (datapoint != null) {
+				processFakeElement(datapoint, policy);
 			}
+			scheduleTrigger(policy);
 		}
 
 	}
@@ -18,9 +18,9 @@
 package org.apache.flink.streaming.api.invokable.operator;
 
 import org.apache.flink.api.common.functions.MapFunction;
-import org.apache.flink.streaming.api.invokable.StreamInvokable;
+import org.apache.flink.streaming.api.invokable.ChainableInvokable;
 
-public class MapInvokable<IN, OUT> extends StreamInvokable<IN, OUT> {
+public class MapInvokable<IN, OUT> extends ChainableInvokable<IN, OUT> {
 	private static final long serialVersionUID = 1L;
 
 	private MapFunction<IN, OUT> mapper;
@@ -33,6 +33,7 @@ public class MapInvokable<IN, OUT> extends StreamInvokable<IN, OUT> {
 	@Override
 	protected void immutableInvoke() throws Exception {
 		while ((reuse = recordIterator.next(reuse)) != null) {
+			nextObject = reuse.getObject();
 			callUserFunctionAndLogException();
 			resetReuse();
 		}
@@ -41,12 +42,13 @@ public class MapInvokable<IN, OUT> extends StreamInvokable<IN, OUT> {
 	@Override
 	protected void mutableInvoke() throws Exception {
 		while ((reuse = recordIterator.next(reuse)) != null) {
+			nextObject = reuse.getObject();
 			callUserFunctionAndLogException();
 		}
 	}
 
 	@Override
 	protected void callUserFunction() throws Exception {
-		collector.collect(mapper.map(reuse.getObject()));
+		collector.collect(mapper.map(nextObject));
 	}
 }
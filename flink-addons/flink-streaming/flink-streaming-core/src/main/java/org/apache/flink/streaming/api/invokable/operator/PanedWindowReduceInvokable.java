@@ -0,0 +1,401 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.invokable.operator;
+
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.ListIterator;
+
+import org.apache.commons.math.util.MathUtils;
+import org.apache.flink.api.common.functions.ReduceFunction;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.streaming.api.invokable.StreamInvokable;
+import org.apache.flink.streaming.api.invokable.util.DefaultTimeStamp;
+import org.apache.flink.streaming.api.invokable.util.TimeStamp;
+import org.apache.flink.streaming.api.invokable.util.TimerService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reduces sliding or tumbling windows incrementally. The stream is cut into
+ * panes of gcd(window size, slide size) length, so that every window consists
+ * of whole panes. Every element is reduced into the partial aggregate of its
+ * pane right away, and when a window ends, the partial aggregates of its panes
+ * are combined. Memory and work per window are proportional to the number of
+ * panes in a window, instead of the number of elements.
+ * </br></br>
+ * The window and slide sizes are either counts of elements or time spans
+ * measured by a {@link TimeStamp}. The window ending at position p contains
+ * the elements at positions [p - window size, p). At the end of the stream the
+ * window that is due next is emitted, if it contains any elements.
+ * </br></br>
+ * Time based windows can also be emitted on the watermarks of the stream: the
+ * window ending at p is emitted once the watermark reaches p. The elements may
+ * then arrive out of order, each is reduced into the pane of its own
+ * timestamp. Only the panes of the windows that are not yet emitted are kept,
+ * elements that belong to none of these panes are dropped as late. At the end
+ * of the stream all remaining windows are emitted.
+ *
+ * @param <IN>
+ *            The type of the reduced elements
+ */
+public class PanedWindowReduceInvokable<IN> extends StreamInvokable<IN, IN> {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final Logger LOG = LoggerFactory.getLogger(PanedWindowReduceInvokable.class);
+
+	protected ReduceFunction<IN> reducer;
+
+	private long windowSize;
+	private long slideSize;
+	private long granularity;
+	private long delay;
+	private TimeStamp<IN> timeStamp;
+	private boolean onWatermarks;
+
+	private long startTime;
+	private long counter;
+	private long nextWindowEnd;
+	private LinkedList<Pane<IN>> panes;
+	private TimerService timerService;
+
+	/**
+	 * Creates an invokable for count based windows.
+	 *
+	 * @param reducer
+	 *            The user defined {@link ReduceFunction}
+	 * @param windowSize
+	 *            The number of elements in a window
+	 * @param slideSize
+	 *            The number of elements after which a window is emitted
+	 */
+	public PanedWindowReduceInvokable(ReduceFunction<IN> reducer, long windowSize, long slideSize) {
+		this(reducer, windowSize, slideSize, null, 0);
+	}
+
+	/**
+	 * Creates an invokable for time based windows.
+	 *
+	 * @param reducer
+	 *            The user defined {@link ReduceFunction}
+	 * @param windowSize
+	 *            The length of a window in time units
+	 * @param slideSize
+	 *            The time units after which a window is emitted
+	 * @param timeStamp
+	 *            The timestamp of the elements. The windows are emitted by a
+	 *            {@link TimerService} as well, if it is a
+	 *            {@link DefaultTimeStamp}.
+	 * @param delay
+	 *            The number of time units before the first window starts
+	 *            sliding
+	 */
+	public PanedWindowReduceInvokable(ReduceFunction<IN> reducer, long windowSize,
+			long slideSize, TimeStamp<IN> timeStamp, long delay) {
+		this(reducer, windowSize, slideSize, timeStamp, delay, false);
+	}
+
+	/**
+	 * Creates an invokable for time based windows, which are emitted either
+	 * when an element with a later timestamp arrives, or when the watermark
+	 * passes their end.
+	 *
+	 * @param reducer
+	 *            The user defined {@link ReduceFunction}
+	 * @param windowSize
+	 *            The length of a window in time units
+	 * @param slideSize
+	 *            The time units after which a window is emitted
+	 * @param timeStamp
+	 *            The timestamp of the elements
+	 * @param delay
+	 *            The number of time units before the first window starts
+	 *            sliding
+	 * @param onWatermarks
+	 *            Whether the windows are emitted on the watermarks
+	 */
+	public PanedWindowReduceInvokable(ReduceFunction<IN> reducer, long windowSize,
+			long slideSize, TimeStamp<IN> timeStamp, long delay, boolean onWatermarks) {
+		super(reducer);
+		if (windowSize < 1 || slideSize < 1) {
+			throw new IllegalArgumentException("Window size and slide size must be positive");
+		}
+		this.reducer = reducer;
+		this.windowSize = windowSize;
+		this.slideSize = slideSize;
+		this.granularity = MathUtils.gcd(windowSize, slideSize);
+		this.timeStamp = timeStamp;
+		this.delay = delay;
+		this.onWatermarks = onWatermarks && timeStamp != null;
+	}
+
+	@Override
+	public void open(Configuration parameters) throws Exception {
+		super.open(parameters);
+		panes = new LinkedList<Pane<IN>>();
+		counter = 0;
+		nextWindowEnd = delay + slideSize;
+
+		if (timeStamp != null) {
+			startTime = timeStamp.getStartTime();
+			if (timeStamp instanceof DefaultTimeStamp && !onWatermarks) {
+				timerService = new TimerService(this);
+				timerService.registerTimer(startTime + nextWindowEnd, new WindowTimer());
+			}
+		}
+	}
+
+	@Override
+	protected void immutableInvoke() throws Exception {
+		while ((reuse = recordIterator.next(reuse)) != null) {
+			processElement(reuse.getObject());
+			resetReuse();
+		}
+
+		if (timerService != null) {
+			timerService.shutdown();
+		}
+
+		if (onWatermarks) {
+			emitAllWindows();
+		} else {
+			emitFinalWindow();
+		}
+	}
+
+	@Override
+	protected void mutableInvoke() throws Exception {
+		if (LOG.isInfoEnabled()) {
+			LOG.info("There is currently no mutable implementation of this operator. Immutable version is used.");
+		}
+		immutableInvoke();
+	}
+
+	/**
+	 * Emits the windows that end at or before the position of the element, and
+	 * reduces the element into its pane. The method is synchronized to ensure
+	 * that it cannot interleave with the emissions of the timer service.
+	 *
+	 * @param element
+	 *            The arrived element
+	 */
+	protected synchronized void processElement(IN element) throws Exception {
+		long position = timeStamp == null ? counter++ : timeStamp.getTimestamp(element)
+				- startTime;
+
+		if (onWatermarks) {
+			addToPane(element, getPaneIndex(position));
+			return;
+		}
+
+		emitWindows(position);
+
+		long index = getPaneIndex(position);
+		if (!panes.isEmpty() && panes.getLast().index >= index) {
+			// The timestamps are expected to be non-decreasing, late
+			// elements are added to the current pane
+			Pane<IN> pane = panes.getLast();
+			pane.partial = reducer.reduce(pane.partial, element);
+		} else {
+			panes.add(new Pane<IN>(index, element));
+		}
+	}
+
+	/**
+	 * Reduces the element into the pane with the given index, which is
+	 * created if the element is the first one of the pane. The panes are kept
+	 * in the order of their indices.
+	 *
+	 * @param element
+	 *            The arrived element
+	 * @param index
+	 *            The index of the pane of the element
+	 */
+	private void addToPane(IN element, long index) throws Exception {
+		if (index < getPaneIndex(nextWindowEnd - windowSize)) {
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("Dropped late element {}, its windows are already emitted", element);
+			}
+			return;
+		}
+
+		ListIterator<Pane<IN>> paneIterator = panes.listIterator(panes.size());
+		while (paneIterator.hasPrevious()) {
+			Pane<IN> pane = paneIterator.previous();
+			if (pane.index == index) {
+				pane.partial = reducer.reduce(pane.partial, element);
+				return;
+			} else if (pane.index < index) {
+				paneIterator.next();
+				break;
+			}
+		}
+		paneIterator.add(new Pane<IN>(index, element));
+	}
+
+	/**
+	 * Emits the windows that end at or before the watermark, if the windows
+	 * are emitted on the watermarks, and forwards the watermark.
+	 *
+	 * @param watermark
+	 *            No more elements with a lower timestamp will arrive
+	 */
+	@Override
+	public synchronized void processWatermark(long watermark) throws Exception {
+		if (onWatermarks) {
+			if (watermark == Long.MAX_VALUE) {
+				emitAllWindows();
+			} else {
+				emitWindows(watermark - startTime);
+			}
+		}
+		super.processWatermark(watermark);
+	}
+
+	/**
+	 * Emits all windows that end at or before the given position. Before each
+	 * window, the panes in front of the window are evicted.
+	 *
+	 * @param position
+	 *            The current position of the stream
+	 */
+	protected synchronized void emitWindows(long position) {
+		while (position >= nextWindowEnd) {
+			evictPanes();
+
+			if (panes.isEmpty()) {
+				// Skip the empty windows
+				nextWindowEnd += ((position - nextWindowEnd) / slideSize + 1) * slideSize;
+				return;
+			}
+
+			long firstPaneStart = delay + panes.getFirst().index * granularity;
+			if (firstPaneStart >= nextWindowEnd) {
+				// Skip the empty windows in front of the first pane, which
+				// can only be there if the elements arrive on watermarks
+				nextWindowEnd += ((firstPaneStart - nextWindowEnd) / slideSize + 1) * slideSize;
+				continue;
+			}
+
+			callUserFunctionAndLogException();
+			nextWindowEnd += slideSize;
+		}
+	}
+
+	/**
+	 * Emits all windows that contain elements, at the end of the stream.
+	 */
+	protected synchronized void emitAllWindows() {
+		evictPanes();
+		while (!panes.isEmpty()) {
+			long lastPaneEnd = delay + (panes.getLast().index + 1) * granularity;
+			emitWindows(lastPaneEnd + windowSize - 1);
+			evictPanes();
+		}
+	}
+
+	/**
+	 * Evicts the panes in front of the window that is due next.
+	 */
+	private void evictPanes() {
+		long firstIndex = getPaneIndex(nextWindowEnd - windowSize);
+		while (!panes.isEmpty() && panes.getFirst().index < firstIndex) {
+			panes.removeFirst();
+		}
+	}
+
+	/**
+	 * Emits the window that is due next, at the end of the stream.
+	 */
+	protected synchronized void emitFinalWindow() {
+		evictPanes();
+		if (!panes.isEmpty()) {
+			callUserFunctionAndLogException();
+			panes.clear();
+		}
+	}
+
+	/**
+	 * Combines the partial aggregates of the panes of the current window. The
+	 * panes behind the window are only there if the elements arrive on
+	 * watermarks.
+	 */
+	@Override
+	protected void callUserFunction() throws Exception {
+		TypeSerializer<IN> serializer = inSerializer.getObjectSerializer();
+		Iterator<Pane<IN>> paneIterator = panes.iterator();
+		long endIndex = getPaneIndex(nextWindowEnd);
+
+		// The partial aggregates are copied, as they are still needed for the
+		// next windows
+		IN reduced = serializer.copy(paneIterator.next().partial);
+		while (paneIterator.hasNext()) {
+			Pane<IN> pane = paneIterator.next();
+			if (pane.index >= endIndex) {
+				break;
+			}
+			reduced = reducer.reduce(reduced, serializer.copy(pane.partial));
+		}
+		collector.collect(reduced);
+	}
+
+	private long getPaneIndex(long position) {
+		long offset = position - delay;
+		long index = offset / granularity;
+		return offset < 0 && offset % granularity != 0 ? index - 1 : index;
+	}
+
+	@Override
+	public void close() throws Exception {
+		if (timerService != null) {
+			timerService.shutdown();
+		}
+		super.close();
+	}
+
+	/**
+	 * The partial aggregate of the elements of one pane.
+	 */
+	private static class Pane<IN> implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private long index;
+		private IN partial;
+
+		public Pane(long index, IN partial) {
+			this.index = index;
+			this.partial = partial;
+		}
+	}
+
+	/**
+	 * Emits the windows of the system time when they end, even if no elements
+	 * arrive, and registers itself for the end of the next window.
+	 */
+	private class WindowTimer implements Runnable {
+
+		@Override
+		public void run() {
+			emitWindows(System.currentTimeMillis() - startTime);
+			timerService.registerTimer(startTime + nextWindowEnd, this);
+		}
+	}
+}
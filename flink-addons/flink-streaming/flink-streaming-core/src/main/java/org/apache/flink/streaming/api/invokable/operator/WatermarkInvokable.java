@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.invokable.operator;
+
+import org.apache.flink.streaming.api.invokable.StreamInvokable;
+import org.apache.flink.streaming.api.invokable.util.TimeStamp;
+import org.apache.flink.streaming.api.streamrecord.StreamWatermark;
+
+/**
+ * Forwards the elements of a stream and emits {@link StreamWatermark}s for
+ * them. The elements may arrive out of order by at most the given maximum
+ * delay, so the watermark is the highest timestamp seen so far minus the
+ * maximum delay. To keep the output buffers filled, a watermark is emitted at
+ * most once per interval of system time. The watermarks of the inputs are not
+ * forwarded, as they are replaced by the ones generated here.
+ * 
+ * @param <IN>
+ *            The type of the elements
+ */
+public class WatermarkInvokable<IN> extends StreamInvokable<IN, IN> {
+	private static final long serialVersionUID = 1L;
+
+	public static final long DEFAULT_WATERMARK_INTERVAL = 200;
+
+	private TimeStamp<IN> timeStamp;
+	private long maxDelay;
+	private long interval;
+
+	private long maxTimestamp = Long.MIN_VALUE;
+	private long lastEmitTime;
+	private IN nextObject;
+
+	/**
+	 * Creates an invokable emitting a watermark at most once per interval
+	 * 
+	 * @param timeStamp
+	 *            The timestamp of the elements
+	 * @param maxDelay
+	 *            The time units by which an element may be late compared to
+	 *            the highest timestamp seen before it
+	 * @param interval
+	 *            The milliseconds of system time between two watermarks
+	 */
+	public WatermarkInvokable(TimeStamp<IN> timeStamp, long maxDelay, long interval) {
+		super(null);
+		if (maxDelay < 0) {
+			throw new IllegalArgumentException("The maximum delay must not be negative");
+		}
+		this.timeStamp = timeStamp;
+		this.maxDelay = maxDelay;
+		this.interval = interval;
+	}
+
+	@Override
+	protected void immutableInvoke() throws Exception {
+		while ((reuse = recordIterator.next(reuse)) != null) {
+			nextObject = reuse.getObject();
+			callUserFunctionAndLogException();
+			resetReuse();
+		}
+	}
+
+	@Override
+	protected void mutableInvoke() throws Exception {
+		while ((reuse = recordIterator.next(reuse)) != null) {
+			nextObject = reuse.getObject();
+			callUserFunctionAndLogException();
+		}
+	}
+
+	@Override
+	protected void callUserFunction() throws Exception {
+		maxTimestamp = Math.max(maxTimestamp, timeStamp.getTimestamp(nextObject));
+		collector.collect(nextObject);
+
+		long now = System.currentTimeMillis();
+		if (now - lastEmitTime >= interval) {
+			lastEmitTime = now;
+			emitWatermark(maxTimestamp - maxDelay);
+		}
+	}
+
+	@Override
+	public void processWatermark(long watermark) {
+	}
+}
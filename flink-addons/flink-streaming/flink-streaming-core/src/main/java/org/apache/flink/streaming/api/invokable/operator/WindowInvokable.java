@@ -24,10 +24,12 @@ import java.util.NoSuchElementException;
 import org.apache.flink.api.common.functions.Function;
 import org.apache.flink.api.common.functions.ReduceFunction;
 import org.apache.flink.streaming.api.invokable.StreamInvokable;
+import org.apache.flink.streaming.api.invokable.util.TimerService;
 import org.apache.flink.streaming.api.windowing.policy.ActiveEvictionPolicy;
 import org.apache.flink.streaming.api.windowing.policy.ActiveTriggerCallback;
 import org.apache.flink.streaming.api.windowing.policy.ActiveTriggerPolicy;
 import org.apache.flink.streaming.api.windowing.policy.EvictionPolicy;
+import org.apache.flink.streaming.api.windowing.policy.ScheduledTriggerPolicy;
 import org.apache.flink.streaming.api.windowing.policy.TriggerPolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -48,6 +50,8 @@ public abstract class WindowInvokable<IN, OUT> extends StreamInvokable<IN, OUT>
 	private LinkedList<Thread> activePolicyTreads;
 	protected LinkedList<IN> buffer;
 	private LinkedList<TriggerPolicy<IN>> currentTriggerPolicies;
+	private TimerService timerService;
+	private boolean ownsTimerService;
 
 	/**
 	 * This constructor created a windowing invokable using trigger and eviction
@@ -92,15 +96,50 @@ public abstract class WindowInvokable<IN, OUT> extends StreamInvokable<IN, OUT>
 	public void open(org.apache.flink.configuration.Configuration parameters) throws Exception {
 		super.open(parameters);
 		for (ActiveTriggerPolicy<IN> tp : activeTriggerPolicies) {
-			Runnable target = tp.createActiveTriggerRunnable(new WindowingCallback(tp));
-			if (target != null) {
-				Thread thread = new Thread(target);
-				activePolicyTreads.add(thread);
-				thread.start();
+			if (tp instanceof ScheduledTriggerPolicy) {
+				scheduleTrigger((ScheduledTriggerPolicy<IN>) tp);
+			} else {
+				Runnable target = tp.createActiveTriggerRunnable(new WindowingCallback(tp));
+				if (target != null) {
+					Thread thread = new Thread(target);
+					activePolicyTreads.add(thread);
+					thread.start();
+				}
 			}
 		}
 	};
 
+	/**
+	 * Sets the {@link TimerService} used for the {@link ScheduledTriggerPolicy}
+	 * s. This is used by the {@link GroupedWindowInvokable} to share its timer
+	 * service with all groups. If no timer service is set, the invokable
+	 * creates its own one when needed.
+	 * 
+	 * @param timerService
+	 *            The timer service of the vertex
+	 */
+	protected void setTimerService(TimerService timerService) {
+		this.timerService = timerService;
+	}
+
+	/**
+	 * Registers the next trigger time of the given policy at the timer
+	 * service.
+	 * 
+	 * @param policy
+	 *            The scheduled policy
+	 */
+	private void scheduleTrigger(ScheduledTriggerPolicy<IN> policy) {
+		long time = policy.getNextTriggerTime();
+		if (time >= 0) {
+			if (timerService == null) {
+				timerService = new TimerService(this);
+				ownsTimerService = true;
+			}
+			timerService.registerTimer(time, new WindowingTimer(policy));
+		}
+	}
+
 	/**
 	 * This class allows the active trigger threads to call back and push fake
 	 * elements at any time.
@@ -119,6 +158,29 @@ public abstract class WindowInvokable<IN, OUT> extends StreamInvokable<IN, OUT>
 
 	}
 
+	/**
+	 * This class is called back by the {@link TimerService} when the trigger
+	 * time of a {@link ScheduledTriggerPolicy} has passed. It pushes the fake
+	 * element of the policy and registers the next trigger time.
+	 */
+	private class WindowingTimer implements Runnable {
+		private ScheduledTriggerPolicy<IN> policy;
+
+		public WindowingTimer(ScheduledTriggerPolicy<IN> policy) {
+			this.policy = policy;
+		}
+
+		@Override
+		public void run() {
+			Object datapoint = policy.notifyTriggerTime(System.currentTimeMillis());
+			if (datapoint != null) {
+				processFakeElement(datapoint, policy);
+			}
+			scheduleTrigger(policy);
+		}
+
+	}
+
 	@Override
 	protected void immutableInvoke() throws Exception {
 
@@ -137,9 +199,7 @@ public abstract class WindowInvokable<IN, OUT> extends StreamInvokable<IN, OUT>
 		}
 
 		// Stop all remaining threads from policies
-		for (Thread t : activePolicyTreads) {
-			t.interrupt();
-		}
+		stopActivePolicies();
 
 		// finally trigger the buffer.
 		emitFinalWindow(null);
@@ -154,6 +214,19 @@ public abstract class WindowInvokable<IN, OUT> extends StreamInvokable<IN, OUT>
 		immutableInvoke();
 	}
 
+	/**
+	 * Stops the threads of the active policies and the timer service, if it is
+	 * not shared with other invokables.
+	 */
+	protected void stopActivePolicies() {
+		for (Thread t : activePolicyTreads) {
+			t.interrupt();
+		}
+		if (ownsTimerService) {
+			timerService.shutdown();
+		}
+	}
+
 	/**
 	 * This method gets called in case of an grouped windowing in case central
 	 * trigger occurred and the arriving element causing the trigger is not part
@@ -17,19 +17,18 @@
 
 package org.apache.flink.streaming.api.invokable.operator.co;
 
-import java.util.HashMap;
-import java.util.Map;
-
 import org.apache.flink.api.java.functions.KeySelector;
+import org.apache.flink.configuration.Configuration;
 import org.apache.flink.streaming.api.function.co.CoReduceFunction;
+import org.apache.flink.streaming.state.KeyedState;
 
 public class CoGroupedReduceInvokable<IN1, IN2, OUT> extends CoReduceInvokable<IN1, IN2, OUT> {
 	private static final long serialVersionUID = 1L;
 
 	protected KeySelector<IN1, ?> keySelector1;
 	protected KeySelector<IN2, ?> keySelector2;
-	private Map<Object, IN1> values1;
-	private Map<Object, IN2> values2;
+	private transient KeyedState<IN1> values1;
+	private transient KeyedState<IN2> values2;
 	IN1 reduced1;
 	IN2 reduced2;
 
@@ -39,8 +38,13 @@ public class CoGroupedReduceInvokable<IN1, IN2, OUT> extends CoReduceInvokable<I
 		this.coReducer = coReducer;
 		this.keySelector1 = keySelector1;
 		this.keySelector2 = keySelector2;
-		values1 = new HashMap<Object, IN1>();
-		values2 = new HashMap<Object, IN2>();
+	}
+
+	@Override
+	public void open(Configuration parameters) throws Exception {
+		super.open(parameters);
+		values1 = createKeyedState(serializer1, 0.5);
+		values2 = createKeyedState(serializer2, 0.5);
 	}
 
 	@Override
@@ -73,6 +77,13 @@ public class CoGroupedReduceInvokable<IN1, IN2, OUT> extends CoReduceInvokable<I
 		}
 	}
 
+	@Override
+	public void close() throws Exception {
+		values1.close();
+		values2.close();
+		super.close();
+	}
+
 	@Override
 	protected void callUserFunction1() throws Exception {
 		reduced1 = coReducer.reduce1(currentValue1, nextValue1);
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.invokable.util;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.flink.util.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Calls back the invokables of a vertex at given points of the system time.
+ * All timers of the vertex are served by a single thread, instead of a thread
+ * per active trigger policy, so the number of threads does not grow with the
+ * number of groups of a grouped window. The callbacks are executed while
+ * holding the lock of the vertex' invokable, so they never interleave with the
+ * processing of the arriving elements.
+ */
+public class TimerService {
+
+	private static final Logger LOG = LoggerFactory.getLogger(TimerService.class);
+
+	private final Object lock;
+	private final ScheduledExecutorService executor;
+
+	/**
+	 * Creates a timer service. The thread of the service is started when the
+	 * first timer is registered.
+	 * 
+	 * @param lock
+	 *            The object to synchronize the callbacks on. The invokable has
+	 *            to hold the lock of this object while processing an element.
+	 */
+	public TimerService(Object lock) {
+		this.lock = lock;
+		this.executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "Window timer");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Registers a callback to be called at the given system time. If the time
+	 * has already passed, the callback is called as soon as possible.
+	 * 
+	 * @param time
+	 *            The system time in milliseconds
+	 * @param callback
+	 *            The callback
+	 */
+	public void registerTimer(long time, final Runnable callback) {
+		long delay = Math.max(0, time - System.currentTimeMillis());
+		try {
+			executor.schedule(new Runnable() {
+				@Override
+				public void run() {
+					synchronized (lock) {
+						try {
+							callback.run();
+						} catch (Exception e) {
+							if (LOG.isErrorEnabled()) {
+								LOG.error("Timer callback failed due to: {}",
+										StringUtils.stringifyException(e));
+							}
+						}
+					}
+				}
+			}, delay, TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			// the service has been shut down, the timer is not needed anymore
+		}
+	}
+
+	/**
+	 * Stops the thread of the service. Registered timers which have not been
+	 * called yet are dropped.
+	 */
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.streamrecord;
+
+import java.io.IOException;
+
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.runtime.AbstractID;
+import org.apache.flink.runtime.event.task.AbstractTaskEvent;
+
+/**
+ * Barrier separating the records before a checkpoint from the records after
+ * it. The sources inject the barriers periodically and they are sent in-band
+ * on every output channel, like the {@link StreamWatermark}s. A task
+ * snapshots its state once the barrier of a checkpoint has arrived on all of
+ * its input channels, then forwards the barrier.
+ * 
+ * The sender ID identifies the task that sent the barrier, the receivers use
+ * it to tell their input channels apart.
+ */
+public class StreamCheckpointBarrier extends AbstractTaskEvent {
+
+	private AbstractID senderID;
+	private long checkpointId;
+
+	/**
+	 * Default constructor, should only be used for deserialization.
+	 */
+	public StreamCheckpointBarrier() {
+		this.senderID = new AbstractID(0, 0);
+	}
+
+	/**
+	 * Creates a checkpoint barrier.
+	 * 
+	 * @param senderID
+	 *            The ID of the sending task
+	 * @param checkpointId
+	 *            The ID of the checkpoint, increasing with every checkpoint
+	 */
+	public StreamCheckpointBarrier(AbstractID senderID, long checkpointId) {
+		this.senderID = senderID;
+		this.checkpointId = checkpointId;
+	}
+
+	public AbstractID getSenderID() {
+		return senderID;
+	}
+
+	public long getCheckpointId() {
+		return checkpointId;
+	}
+
+	@Override
+	public void write(DataOutputView out) throws IOException {
+		senderID.write(out);
+		out.writeLong(checkpointId);
+	}
+
+	@Override
+	public void read(DataInputView in) throws IOException {
+		senderID.read(in);
+		checkpointId = in.readLong();
+	}
+
+	@Override
+	public String toString() {
+		return "StreamCheckpointBarrier(" + senderID + ", " + checkpointId + ")";
+	}
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.streamrecord;
+
+import java.io.IOException;
+
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.runtime.event.task.AbstractTaskEvent;
+import org.apache.flink.runtime.io.network.channels.ChannelID;
+
+/**
+ * Credit announced by a receiver to the sender of one of its input channels.
+ * It tells how many buffers the receiver has consumed from the channel so
+ * far, so the sender knows how many of the buffers it sent are still queued
+ * at the receiver. The count is cumulative, so a lost or reordered
+ * announcement is made up for by the next one.
+ */
+public class StreamCredit extends AbstractTaskEvent {
+
+	private ChannelID channelID;
+	private int consumedBuffers;
+
+	/**
+	 * Default constructor, should only be used for deserialization.
+	 */
+	public StreamCredit() {
+		this.channelID = new ChannelID(0, 0);
+	}
+
+	/**
+	 * Creates a credit announcement.
+	 * 
+	 * @param channelID
+	 *            The ID of the output channel of the sender
+	 * @param consumedBuffers
+	 *            The number of buffers consumed from the channel
+	 */
+	public StreamCredit(ChannelID channelID, int consumedBuffers) {
+		this.channelID = channelID;
+		this.consumedBuffers = consumedBuffers;
+	}
+
+	public ChannelID getChannelID() {
+		return channelID;
+	}
+
+	public int getConsumedBuffers() {
+		return consumedBuffers;
+	}
+
+	@Override
+	public void write(DataOutputView out) throws IOException {
+		channelID.write(out);
+		out.writeInt(consumedBuffers);
+	}
+
+	@Override
+	public void read(DataInputView in) throws IOException {
+		channelID.read(in);
+		consumedBuffers = in.readInt();
+	}
+
+	@Override
+	public String toString() {
+		return "StreamCredit(" + channelID + ", " + consumedBuffers + ")";
+	}
+}
@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.streamrecord;
+
+import java.io.IOException;
+
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.runtime.event.task.AbstractTaskEvent;
+
+/**
+ * Marker injected periodically by the sources to measure the latency of the
+ * topology. Like the {@link StreamWatermark}s it is sent in-band, behind the
+ * records already emitted, so every vertex it passes sees the time the
+ * marker, and so the records, spent on the way from the source. A vertex
+ * forwards the marker to one channel of each of its outputs.
+ * 
+ * The marked time is the wall clock time of the source, so the measured
+ * latencies include the clock skew between the machines.
+ */
+public class StreamLatencyMarker extends AbstractTaskEvent {
+
+	private long markedTime;
+
+	/**
+	 * Default constructor, should only be used for deserialization.
+	 */
+	public StreamLatencyMarker() {
+	}
+
+	/**
+	 * Creates a latency marker.
+	 * 
+	 * @param markedTime
+	 *            The time the source emitted the marker, in milliseconds
+	 */
+	public StreamLatencyMarker(long markedTime) {
+		this.markedTime = markedTime;
+	}
+
+	public long getMarkedTime() {
+		return markedTime;
+	}
+
+	@Override
+	public void write(DataOutputView out) throws IOException {
+		out.writeLong(markedTime);
+	}
+
+	@Override
+	public void read(DataInputView in) throws IOException {
+		markedTime = in.readLong();
+	}
+
+	@Override
+	public String toString() {
+		return "StreamLatencyMarker(" + markedTime + ")";
+	}
+}
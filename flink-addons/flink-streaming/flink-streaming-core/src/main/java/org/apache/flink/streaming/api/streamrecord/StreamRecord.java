@@ -21,10 +21,12 @@ import java.io.Serializable;
 
 import org.apache.flink.api.java.functions.KeySelector;
 import org.apache.flink.api.java.tuple.Tuple;
+import org.apache.flink.runtime.AbstractID;
 
 /**
- * Object for wrapping a tuple or other object with ID used for sending records
- * between streaming task in Apache Flink stream processing.
+ * Object for wrapping a tuple or other object used for sending records between
+ * streaming task in Apache Flink stream processing. The records only carry an
+ * ID if the job asks for record IDs.
  */
 public class StreamRecord<T> implements Serializable {
 	private static final long serialVersionUID = 1L;
@@ -37,25 +39,28 @@ public class StreamRecord<T> implements Serializable {
 	 * Creates an empty StreamRecord
 	 */
 	public StreamRecord() {
-		uid = new UID();
 	}
 
 	/**
-	 * @return The ID of the object
+	 * @return The ID of the object, null if the record has no ID
 	 */
 	public UID getId() {
 		return uid;
 	}
 
 	/**
-	 * Creates a new ID for the StreamRecord using the given channelID
+	 * Creates a new ID for the StreamRecord, unique within the job
 	 * 
-	 * @param channelID
-	 *            ID of the emitting task
+	 * @param vertexID
+	 *            ID of the job vertex of the emitting task
+	 * @param subtaskIndex
+	 *            Index of the emitting task among the subtasks of the vertex
+	 * @param sequenceNumber
+	 *            Number of the record among the ones emitted by the task
 	 * @return The StreamRecord object
 	 */
-	public StreamRecord<T> newId(int channelID) {
-		uid = new UID(channelID);
+	public StreamRecord<T> newId(AbstractID vertexID, int subtaskIndex, long sequenceNumber) {
+		uid = new UID(vertexID, subtaskIndex, sequenceNumber);
 		return this;
 	}
 
@@ -25,12 +25,20 @@ import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.core.memory.DataInputView;
 import org.apache.flink.core.memory.DataOutputView;
 
+/**
+ * Serializer of {@link StreamRecord}s. By default only the wrapped objects are
+ * serialized, the IDs of the records only if record IDs are enabled.
+ * 
+ * @param <T>
+ *            The type of the wrapped objects
+ */
 public final class StreamRecordSerializer<T> extends TypeSerializer<StreamRecord<T>> {
 
 	private static final long serialVersionUID = 1L;
 
 	private final TypeSerializer<T> typeSerializer;
 	private final boolean isTuple;
+	private boolean recordIds;
 
 	public StreamRecordSerializer(TypeInformation<T> typeInfo) {
 		this.typeSerializer = typeInfo.createSerializer();
@@ -41,6 +49,21 @@ public final class StreamRecordSerializer<T> extends TypeSerializer<StreamRecord
 		return typeSerializer;
 	}
 
+	/**
+	 * Sets whether the IDs of the records are serialized. The serializers of
+	 * both ends of a channel have to agree on it.
+	 * 
+	 * @param recordIds
+	 *            <code>true</code> to serialize the record IDs
+	 */
+	public void setRecordIds(boolean recordIds) {
+		this.recordIds = recordIds;
+	}
+
+	public boolean hasRecordIds() {
+		return recordIds;
+	}
+
 	@Override
 	public boolean isImmutableType() {
 		return false;
@@ -67,7 +90,9 @@ public final class StreamRecordSerializer<T> extends TypeSerializer<StreamRecord
 	public StreamRecord<T> copy(StreamRecord<T> from) {
 		StreamRecord<T> rec = new StreamRecord<T>();
 		rec.isTuple = from.isTuple;
-		rec.setId(from.getId().copy());
+		if (from.getId() != null) {
+			rec.setId(from.getId().copy());
+		}
 		rec.setObject(typeSerializer.copy(from.getObject()));
 		return rec;
 	}
@@ -75,7 +100,7 @@ public final class StreamRecordSerializer<T> extends TypeSerializer<StreamRecord
 	@Override
 	public StreamRecord<T> copy(StreamRecord<T> from, StreamRecord<T> reuse) {
 		reuse.isTuple = from.isTuple;
-		reuse.setId(from.getId().copy());
+		reuse.setId(from.getId() == null ? null : from.getId().copy());
 		reuse.setObject(typeSerializer.copy(from.getObject(), reuse.getObject()));
 		return reuse;
 	}
@@ -87,7 +112,9 @@ public final class StreamRecordSerializer<T> extends TypeSerializer<StreamRecord
 
 	@Override
 	public void serialize(StreamRecord<T> value, DataOutputView target) throws IOException {
-		value.getId().write(target);
+		if (recordIds) {
+			value.getId().write(target);
+		}
 		typeSerializer.serialize(value.getObject(), target);
 	}
 	
@@ -95,14 +122,22 @@ public final class StreamRecordSerializer<T> extends TypeSerializer<StreamRecord
 	public StreamRecord<T> deserialize(DataInputView source) throws IOException {
 		StreamRecord<T> record = new StreamRecord<T>();
 		record.isTuple = this.isTuple;
-		record.getId().read(source);
+		if (recordIds) {
+			record.setId(new UID());
+			record.getId().read(source);
+		}
 		record.setObject(typeSerializer.deserialize(source));
 		return record;
 	}
 
 	@Override
 	public StreamRecord<T> deserialize(StreamRecord<T> reuse, DataInputView source) throws IOException {
-		reuse.getId().read(source);
+		if (recordIds) {
+			if (reuse.getId() == null) {
+				reuse.setId(new UID());
+			}
+			reuse.getId().read(source);
+		}
 		reuse.setObject(typeSerializer.deserialize(reuse.getObject(), source));
 		return reuse;
 	}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.streamrecord;
+
+import java.io.IOException;
+
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.runtime.AbstractID;
+import org.apache.flink.runtime.event.task.AbstractTaskEvent;
+
+/**
+ * Low-watermark of the event time of a stream. A watermark with timestamp t
+ * promises that the sender will not emit any more elements with a timestamp
+ * lower than t. Watermarks are sent in-band on every output channel, between
+ * the {@link StreamRecord}s, so the receiver sees them in order with the
+ * records.
+ * 
+ * The sender ID identifies the task that sent the watermark, the receivers
+ * use it to tell their input channels apart.
+ */
+public class StreamWatermark extends AbstractTaskEvent {
+
+	private AbstractID senderID;
+	private long timestamp;
+
+	/**
+	 * Default constructor, should only be used for deserialization.
+	 */
+	public StreamWatermark() {
+		this.senderID = new AbstractID(0, 0);
+	}
+
+	/**
+	 * Creates a watermark.
+	 * 
+	 * @param senderID
+	 *            The ID of the sending task
+	 * @param timestamp
+	 *            The timestamp below which no more elements are sent
+	 */
+	public StreamWatermark(AbstractID senderID, long timestamp) {
+		this.senderID = senderID;
+		this.timestamp = timestamp;
+	}
+
+	public AbstractID getSenderID() {
+		return senderID;
+	}
+
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	@Override
+	public void write(DataOutputView out) throws IOException {
+		senderID.write(out);
+		out.writeLong(timestamp);
+	}
+
+	@Override
+	public void read(DataInputView in) throws IOException {
+		senderID.read(in);
+		timestamp = in.readLong();
+	}
+
+	@Override
+	public String toString() {
+		return "StreamWatermark(" + senderID + ", " + timestamp + ")";
+	}
+}
@@ -18,105 +18,97 @@
 package org.apache.flink.streaming.api.streamrecord;
 
 import java.io.IOException;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
-import java.nio.ByteBuffer;
-import java.util.Arrays;
-import java.util.Random;
 
 import org.apache.flink.core.io.IOReadableWritable;
 import org.apache.flink.core.memory.DataInputView;
 import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.runtime.AbstractID;
 
 /**
- * Object for creating unique IDs for {@link StreamRecord}s.
+ * Unique ID of a {@link StreamRecord} within a job, made of the ID of the job
+ * vertex that emitted it, the index of the emitting subtask and the sequence
+ * number of the record among the ones emitted by that subtask.
  * 
  **/
 public class UID implements IOReadableWritable, Serializable {
 	private static final long serialVersionUID = 1L;
 
-	private ByteBuffer uid;
-	private static Random random = new Random();
+	/**
+	 * Size of a serialized ID in bytes
+	 */
+	public static final int LENGTH = 28;
+
+	// the parts of the job vertex ID, kept as longs to save an object per record
+	private long vertexLowerPart;
+	private long vertexUpperPart;
+	private int subtaskIndex;
+	private long sequenceNumber;
 
 	public UID() {
-		uid = ByteBuffer.allocate(20);
 	}
 
-	// TODO: consider sequential ids
-	public UID(int channelID) {
-		byte[] uuid = new byte[16];
-		random.nextBytes(uuid);
-		uid = ByteBuffer.allocate(20).putInt(channelID).put(uuid);
+	public UID(AbstractID vertexID, int subtaskIndex, long sequenceNumber) {
+		this(vertexID.getLowerPart(), vertexID.getUpperPart(), subtaskIndex, sequenceNumber);
 	}
 
-	UID(byte[] id) {
-		uid = ByteBuffer.wrap(id);
+	private UID(long vertexLowerPart, long vertexUpperPart, int subtaskIndex, long sequenceNumber) {
+		this.vertexLowerPart = vertexLowerPart;
+		this.vertexUpperPart = vertexUpperPart;
+		this.subtaskIndex = subtaskIndex;
+		this.sequenceNumber = sequenceNumber;
 	}
 
-	public int getChannelId() {
-		uid.position(0);
-		return uid.getInt();
+	public AbstractID getVertexId() {
+		return new AbstractID(vertexLowerPart, vertexUpperPart);
 	}
 
-	public byte[] getGeneratedId() {
-		uid.position(4);
-		return uid.slice().array();
+	public int getSubtaskIndex() {
+		return subtaskIndex;
 	}
 
-	public byte[] getId() {
-		uid.position(0);
-		return uid.array();
+	public long getSequenceNumber() {
+		return sequenceNumber;
 	}
 
 	@Override
 	public void write(DataOutputView out) throws IOException {
-		out.write(uid.array());
-	}
-
-	private void writeObject(ObjectOutputStream stream) throws IOException {
-		stream.write(uid.array());
-	}
-
-	private void readObject(java.io.ObjectInputStream stream) throws IOException,
-			ClassNotFoundException {
-		byte[] uidA = new byte[20];
-		stream.read(uidA);
-		uid = ByteBuffer.allocate(20).put(uidA);
+		out.writeLong(vertexLowerPart);
+		out.writeLong(vertexUpperPart);
+		out.writeInt(subtaskIndex);
+		out.writeLong(sequenceNumber);
 	}
 
 	@Override
 	public void read(DataInputView in) throws IOException {
-		byte[] uidByteArray = new byte[20];
-		in.readFully(uidByteArray, 0, 20);
-		uid = ByteBuffer.wrap(uidByteArray);
+		vertexLowerPart = in.readLong();
+		vertexUpperPart = in.readLong();
+		subtaskIndex = in.readInt();
+		sequenceNumber = in.readLong();
 	}
 
 	@Override
 	public String toString() {
-		return getChannelId() + "-" + Long.toHexString(uid.getLong(4)) + "-"
-				+ Long.toHexString(uid.getLong(12));
+		return getVertexId() + "-" + subtaskIndex + "-" + sequenceNumber;
 	}
 
 	@Override
 	public int hashCode() {
-		return Arrays.hashCode(getId());
+		long hash = vertexLowerPart ^ vertexUpperPart ^ (31L * subtaskIndex) ^ (sequenceNumber * 1000003L);
+		return (int) (hash ^ (hash >>> 32));
 	}
 
 	@Override
 	public boolean equals(Object obj) {
-		if (obj == null) {
+		if (!(obj instanceof UID)) {
 			return false;
-		} else {
-			try {
-				UID other = (UID) obj;
-				return Arrays.equals(this.getId(), other.getId());
-			} catch (ClassCastException e) {
-				return false;
-			}
 		}
+		UID other = (UID) obj;
+		return sequenceNumber == other.sequenceNumber && subtaskIndex == other.subtaskIndex
+				&& vertexLowerPart == other.vertexLowerPart && vertexUpperPart == other.vertexUpperPart;
 	}
 
 	public UID copy() {
-		return new UID(Arrays.copyOf(uid.array(), 20));
+		return new UID(vertexLowerPart, vertexUpperPart, subtaskIndex, sequenceNumber);
 	}
 }
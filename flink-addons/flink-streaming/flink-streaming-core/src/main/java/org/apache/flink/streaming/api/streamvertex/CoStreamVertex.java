@@ -18,14 +18,24 @@
 package org.apache.flink.streaming.api.streamvertex;
 
 import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.flink.runtime.io.network.api.MutableRecordReader;
+import org.apache.flink.runtime.io.network.gates.InputGate;
 import org.apache.flink.runtime.plugable.DeserializationDelegate;
 import org.apache.flink.streaming.api.invokable.operator.co.CoInvokable;
+import org.apache.flink.streaming.api.streamrecord.StreamCheckpointBarrier;
+import org.apache.flink.streaming.api.streamrecord.StreamLatencyMarker;
 import org.apache.flink.streaming.api.streamrecord.StreamRecord;
 import org.apache.flink.streaming.api.streamrecord.StreamRecordSerializer;
+import org.apache.flink.streaming.api.streamrecord.StreamWatermark;
 import org.apache.flink.streaming.io.CoReaderIterator;
 import org.apache.flink.streaming.io.CoRecordReader;
+import org.apache.flink.streaming.io.CheckpointBarrierTracker;
+import org.apache.flink.streaming.io.CreditAnnouncer;
+import org.apache.flink.streaming.io.LatencyMarkerForwarder;
+import org.apache.flink.streaming.io.WatermarkTracker;
+import org.apache.flink.streaming.state.KeyedStateBackend;
 import org.apache.flink.util.MutableObjectIterator;
 
 public class CoStreamVertex<IN1, IN2, OUT> extends StreamVertex<IN1, OUT> {
@@ -40,6 +50,9 @@ public class CoStreamVertex<IN1, IN2, OUT> extends StreamVertex<IN1, OUT> {
 
 	CoRecordReader<DeserializationDelegate<StreamRecord<IN1>>, DeserializationDelegate<StreamRecord<IN2>>> coReader;
 	CoReaderIterator<StreamRecord<IN1>, StreamRecord<IN2>> coIter;
+	WatermarkTracker watermarkTracker;
+	LatencyMarkerForwarder latencyMarkerForwarder;
+	CheckpointBarrierTracker checkpointBarrierTracker;
 
 	private CoInvokable<IN1, IN2, OUT> userInvokable;
 	private static int numTasks;
@@ -63,6 +76,7 @@ public class CoStreamVertex<IN1, IN2, OUT> extends StreamVertex<IN1, OUT> {
 
 		coIter = new CoReaderIterator<StreamRecord<IN1>, StreamRecord<IN2>>(coReader,
 				inputDeserializer1, inputDeserializer2);
+		coIter.setMetrics(metrics);
 	}
 
 	@Override
@@ -70,6 +84,19 @@ public class CoStreamVertex<IN1, IN2, OUT> extends StreamVertex<IN1, OUT> {
 		userInvokable = configuration.getUserInvokable(userClassLoader);
 		userInvokable.initialize(outputHandler.getCollector(), coIter, inputDeserializer1,
 				inputDeserializer2, isMutable);
+		userInvokable.setWatermarkOutput(outputHandler.getCollector());
+		userInvokable.setStateBackend(new KeyedStateBackend(this, getEnvironment()
+				.getMemoryManager(), getEnvironment().getIOManager(), configuration
+				.getStateMemory()));
+		userInvokable.setMetrics(metrics);
+		userInvokable.setSnapshotter(snapshotter);
+		watermarkTracker.setInvokable(userInvokable);
+		if (latencyMarkerForwarder != null) {
+			latencyMarkerForwarder.setOutput(outputHandler.getCollector());
+		}
+		if (checkpointBarrierTracker != null) {
+			checkpointBarrierTracker.setOutput(outputHandler.getCollector());
+		}
 	}
 
 	protected void setConfigInputs() throws StreamVertexException {
@@ -98,10 +125,37 @@ public class CoStreamVertex<IN1, IN2, OUT> extends StreamVertex<IN1, OUT> {
 
 		coReader = new CoRecordReader<DeserializationDelegate<StreamRecord<IN1>>, DeserializationDelegate<StreamRecord<IN2>>>(
 				inputList1, inputList2);
+
+		List<InputGate<?>> inputGates = new ArrayList<InputGate<?>>();
+		for (MutableRecordReader<?> reader : inputList1) {
+			inputGates.add(reader.getInputGate());
+		}
+		for (MutableRecordReader<?> reader : inputList2) {
+			inputGates.add(reader.getInputGate());
+		}
+		if (configuration.getAdaptiveFlushing()) {
+			CreditAnnouncer creditAnnouncer = new CreditAnnouncer();
+			for (InputGate<?> inputGate : inputGates) {
+				inputGate.registerBufferConsumptionListener(creditAnnouncer);
+			}
+		}
+
+		watermarkTracker = new WatermarkTracker(inputGates);
+		coReader.subscribeToEvent(watermarkTracker, StreamWatermark.class);
+
+		if (metrics != null) {
+			latencyMarkerForwarder = new LatencyMarkerForwarder(metrics);
+			coReader.subscribeToEvent(latencyMarkerForwarder, StreamLatencyMarker.class);
+		}
+
+		if (snapshotter != null) {
+			checkpointBarrierTracker = new CheckpointBarrierTracker(inputGates, snapshotter);
+			coReader.subscribeToEvent(checkpointBarrierTracker, StreamCheckpointBarrier.class);
+		}
 	}
 
 	@Override
-	public void invoke() throws Exception {
+	protected void invokeVertex() throws Exception {
 		outputHandler.invokeUserFunction("CO-TASK", userInvokable);
 	}
 
@@ -17,22 +17,37 @@
 
 package org.apache.flink.streaming.api.streamvertex;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.core.io.IOReadableWritable;
 import org.apache.flink.runtime.io.network.api.MutableReader;
 import org.apache.flink.runtime.io.network.api.MutableRecordReader;
 import org.apache.flink.runtime.io.network.api.MutableUnionRecordReader;
+import org.apache.flink.runtime.io.network.gates.InputGate;
 import org.apache.flink.runtime.operators.util.ReaderIterator;
 import org.apache.flink.runtime.plugable.DeserializationDelegate;
 import org.apache.flink.streaming.api.StreamConfig;
+import org.apache.flink.streaming.api.streamrecord.StreamCheckpointBarrier;
+import org.apache.flink.streaming.api.streamrecord.StreamLatencyMarker;
 import org.apache.flink.streaming.api.streamrecord.StreamRecord;
 import org.apache.flink.streaming.api.streamrecord.StreamRecordSerializer;
+import org.apache.flink.streaming.api.streamrecord.StreamWatermark;
+import org.apache.flink.streaming.io.CheckpointBarrierTracker;
+import org.apache.flink.streaming.io.CreditAnnouncer;
+import org.apache.flink.streaming.io.LatencyMarkerForwarder;
+import org.apache.flink.streaming.io.WatermarkTracker;
 import org.apache.flink.util.MutableObjectIterator;
 
 public class InputHandler<IN> {
 	private StreamRecordSerializer<IN> inputSerializer = null;
 	private MutableObjectIterator<StreamRecord<IN>> inputIter;
 	private MutableReader<IOReadableWritable> inputs;
+	private WatermarkTracker watermarkTracker;
+	private LatencyMarkerForwarder latencyMarkerForwarder;
+	private CheckpointBarrierTracker checkpointBarrierTracker;
 
 	private StreamVertex<IN, ?> streamVertex;
 	private StreamConfig configuration;
@@ -55,21 +70,49 @@ public class InputHandler<IN> {
 
 		int numberOfInputs = configuration.getNumberOfInputs();
 		if (numberOfInputs > 0) {
+			List<InputGate<?>> inputGates = new ArrayList<InputGate<?>>();
 
 			if (numberOfInputs < 2) {
 
-				inputs = new MutableRecordReader<IOReadableWritable>(streamVertex);
+				MutableRecordReader<IOReadableWritable> recordReader = new MutableRecordReader<IOReadableWritable>(
+						streamVertex);
+				inputGates.add(recordReader.getInputGate());
+				inputs = recordReader;
 
 			} else {
 				MutableRecordReader<IOReadableWritable>[] recordReaders = (MutableRecordReader<IOReadableWritable>[]) new MutableRecordReader<?>[numberOfInputs];
 
 				for (int i = 0; i < numberOfInputs; i++) {
 					recordReaders[i] = new MutableRecordReader<IOReadableWritable>(streamVertex);
+					inputGates.add(recordReaders[i].getInputGate());
 				}
 				inputs = new MutableUnionRecordReader<IOReadableWritable>(recordReaders);
 			}
 
+			if (configuration.getAdaptiveFlushing()) {
+				CreditAnnouncer creditAnnouncer = new CreditAnnouncer();
+				for (InputGate<?> inputGate : inputGates) {
+					inputGate.registerBufferConsumptionListener(creditAnnouncer);
+				}
+			}
+
+			watermarkTracker = new WatermarkTracker(inputGates);
+			inputs.subscribeToEvent(watermarkTracker, StreamWatermark.class);
+
 			inputIter = createInputIterator();
+
+			StreamMetrics metrics = streamVertex.getMetrics();
+			if (metrics != null) {
+				latencyMarkerForwarder = new LatencyMarkerForwarder(metrics);
+				inputs.subscribeToEvent(latencyMarkerForwarder, StreamLatencyMarker.class);
+				inputIter = new CountingIterator<IN>(inputIter, metrics);
+			}
+
+			if (streamVertex.getSnapshotter() != null) {
+				checkpointBarrierTracker = new CheckpointBarrierTracker(inputGates,
+						streamVertex.getSnapshotter());
+				inputs.subscribeToEvent(checkpointBarrierTracker, StreamCheckpointBarrier.class);
+			}
 		}
 	}
 
@@ -98,4 +141,40 @@ public class InputHandler<IN> {
 	public MutableObjectIterator<StreamRecord<IN>> getInputIter() {
 		return inputIter;
 	}
+
+	public WatermarkTracker getWatermarkTracker() {
+		return watermarkTracker;
+	}
+
+	public LatencyMarkerForwarder getLatencyMarkerForwarder() {
+		return latencyMarkerForwarder;
+	}
+
+	public CheckpointBarrierTracker getCheckpointBarrierTracker() {
+		return checkpointBarrierTracker;
+	}
+
+	/**
+	 * Counts the records read by the task in its metrics
+	 */
+	private static class CountingIterator<T> implements MutableObjectIterator<StreamRecord<T>> {
+
+		private final MutableObjectIterator<StreamRecord<T>> iterator;
+		private final StreamMetrics metrics;
+
+		public CountingIterator(MutableObjectIterator<StreamRecord<T>> iterator,
+				StreamMetrics metrics) {
+			this.iterator = iterator;
+			this.metrics = metrics;
+		}
+
+		@Override
+		public StreamRecord<T> next(StreamRecord<T> reuse) throws IOException {
+			StreamRecord<T> record = iterator.next(reuse);
+			if (record != null) {
+				metrics.recordIn();
+			}
+			return record;
+		}
+	}
 }
@@ -90,6 +90,11 @@ public class OutputHandler<OUT> {
 			collector = new StreamCollector<OUT>(streamVertex.getInstanceID(),
 					outSerializationDelegate);
 		}
+		if (outSerializer != null && outSerializer.hasRecordIds()) {
+			collector.enableRecordIds(streamVertex.getEnvironment().getJobVertexId(), streamVertex
+					.getEnvironment().getIndexInSubtaskGroup());
+		}
+		collector.setMetrics(streamVertex.getMetrics());
 		return collector;
 	}
 
@@ -121,8 +126,13 @@ public class OutputHandler<OUT> {
 		RecordWriter<SerializationDelegate<StreamRecord<OUT>>> output;
 
 		if (bufferTimeout >= 0) {
-			output = new StreamRecordWriter<SerializationDelegate<StreamRecord<OUT>>>(streamVertex,
-					outputPartitioner, bufferTimeout);
+			StreamRecordWriter<SerializationDelegate<StreamRecord<OUT>>> streamRecordWriter = new StreamRecordWriter<SerializationDelegate<StreamRecord<OUT>>>(
+					streamVertex, outputPartitioner, bufferTimeout);
+			streamRecordWriter.setMetrics(streamVertex.getMetrics());
+			if (configuration.getAdaptiveFlushing()) {
+				streamRecordWriter.enableAdaptiveFlushing();
+			}
+			output = streamRecordWriter;
 
 			if (LOG.isTraceEnabled()) {
 				LOG.trace("StreamRecordWriter initiated with {} bufferTimeout for {}",
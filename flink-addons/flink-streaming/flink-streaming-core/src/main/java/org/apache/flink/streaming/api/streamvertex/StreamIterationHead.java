@@ -17,15 +17,13 @@
 
 package org.apache.flink.streaming.api.streamvertex;
 
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.TimeUnit;
-
 import org.apache.flink.api.java.tuple.Tuple;
 import org.apache.flink.runtime.io.network.api.RecordWriter;
+import org.apache.flink.runtime.io.network.serialization.DataInputDeserializer;
 import org.apache.flink.runtime.plugable.SerializationDelegate;
 import org.apache.flink.streaming.api.streamrecord.StreamRecord;
-import org.apache.flink.streaming.io.BlockingQueueBroker;
+import org.apache.flink.streaming.io.FeedbackChannel;
+import org.apache.flink.streaming.io.FeedbackChannelBroker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -37,16 +35,13 @@ public class StreamIterationHead<OUT extends Tuple> extends StreamVertex<OUT,OUT
 
 	private static int numSources;
 	private String iterationId;
-	@SuppressWarnings("rawtypes")
-	private BlockingQueue<StreamRecord> dataChannel;
+	private FeedbackChannel dataChannel;
 	private long iterationWaitTime;
 	private boolean shouldWait;
 
-	@SuppressWarnings("rawtypes")
 	public StreamIterationHead() {
 		numSources = newVertex();
 		instanceID = numSources;
-		dataChannel = new ArrayBlockingQueue<StreamRecord>(1);
 	}
 
 	@Override
@@ -57,38 +52,52 @@ public class StreamIterationHead<OUT extends Tuple> extends StreamVertex<OUT,OUT
 		iterationWaitTime = configuration.getIterationWaitTime();
 		shouldWait = iterationWaitTime > 0;
 
+		dataChannel = new FeedbackChannel(configuration.getIterationFeedbackCapacity(),
+				getEnvironment().getIOManager());
+		String brokerKey = FeedbackChannelBroker.getKey(iterationId, getEnvironment()
+				.getIndexInSubtaskGroup());
 		try {
-			BlockingQueueBroker.instance().handIn(iterationId, dataChannel);
-		} catch (Exception e) {
-
+			FeedbackChannelBroker.instance().handIn(brokerKey, dataChannel);
+		} catch (RuntimeException e) {
+			throw new StreamVertexException(String.format(
+					"Cannot register the feedback channel of StreamIterationHead %s", iterationId), e);
 		}
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
-	public void invoke() throws Exception {
+	protected void invokeVertex() throws Exception {
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("SOURCE {} invoked with instance id {}", getName(), getInstanceID());
 		}
 
 		outputHandler.initializeOutputSerializers();
 
-		StreamRecord<OUT> nextRecord;
-
-		while (true) {
-			if (shouldWait) {
-				nextRecord = dataChannel.poll(iterationWaitTime, TimeUnit.MILLISECONDS);
-			} else {
-				nextRecord = dataChannel.take();
-			}
-			if (nextRecord == null) {
-				break;
-			}
-			for (RecordWriter<SerializationDelegate<StreamRecord<OUT>>> output : outputHandler
-					.getOutputs()) {
-				outputHandler.outSerializationDelegate.setInstance(nextRecord);
-				output.emit(outputHandler.outSerializationDelegate);
+		try {
+			StreamRecord<OUT> nextRecord = outputHandler.outSerializer.createInstance();
+			FeedbackChannel.Batch batch;
+
+			while (true) {
+				if (shouldWait) {
+					batch = dataChannel.poll(iterationWaitTime);
+				} else {
+					batch = dataChannel.take();
+				}
+				if (batch == null) {
+					break;
+				}
+
+				DataInputDeserializer records = batch.open();
+				for (int i = 0; i < batch.getNumRecords(); i++) {
+					nextRecord = outputHandler.outSerializer.deserialize(nextRecord, records);
+					outputHandler.outSerializationDelegate.setInstance(nextRecord);
+					for (RecordWriter<SerializationDelegate<StreamRecord<OUT>>> output : outputHandler
+							.getOutputs()) {
+						output.emit(outputHandler.outSerializationDelegate);
+					}
+				}
 			}
+		} finally {
+			dataChannel.close();
 		}
 
 		outputHandler.flushOutputs();
@@ -17,12 +17,15 @@
 
 package org.apache.flink.streaming.api.streamvertex;
 
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.TimeUnit;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.apache.flink.api.java.tuple.Tuple;
+import org.apache.flink.runtime.io.network.serialization.DataOutputSerializer;
 import org.apache.flink.streaming.api.streamrecord.StreamRecord;
-import org.apache.flink.streaming.io.BlockingQueueBroker;
+import org.apache.flink.streaming.api.streamrecord.StreamRecordSerializer;
+import org.apache.flink.streaming.io.FeedbackChannel;
+import org.apache.flink.streaming.io.FeedbackChannelBroker;
 import org.apache.flink.util.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,13 +34,20 @@ public class StreamIterationTail<IN extends Tuple> extends StreamVertex<IN,IN> {
 
 	private static final Logger LOG = LoggerFactory.getLogger(StreamIterationTail.class);
 
+	/**
+	 * Size in bytes after which a batch of records is handed to the head
+	 */
+	private static final int BATCH_SIZE = 32 * 1024;
+
 	private InputHandler<IN> inputHandler;
 
 	private String iterationId;
-	@SuppressWarnings("rawtypes")
-	private BlockingQueue<StreamRecord> dataChannel;
-	private long iterationWaitTime;
-	private boolean shouldWait;
+	private FeedbackChannel dataChannel;
+	private long bufferTimeout;
+
+	private final DataOutputSerializer batch = new DataOutputSerializer(BATCH_SIZE);
+	private int numRecordsInBatch;
+	private BatchFlusher batchFlusher;
 
 	public StreamIterationTail() {
 	}
@@ -48,9 +58,10 @@ public class StreamIterationTail<IN extends Tuple> extends StreamVertex<IN,IN> {
 			inputHandler = new InputHandler<IN>(this);
 
 			iterationId = configuration.getIterationId();
-			iterationWaitTime = configuration.getIterationWaitTime();
-			shouldWait = iterationWaitTime > 0;
-			dataChannel = BlockingQueueBroker.instance().get(iterationId);
+			bufferTimeout = configuration.getBufferTimeout();
+			dataChannel = FeedbackChannelBroker.instance().get(
+					FeedbackChannelBroker.getKey(iterationId, getEnvironment()
+							.getIndexInSubtaskGroup()));
 		} catch (Exception e) {
 			throw new StreamVertexException(String.format(
 					"Cannot register inputs of StreamIterationSink %s", iterationId), e);
@@ -58,12 +69,25 @@ public class StreamIterationTail<IN extends Tuple> extends StreamVertex<IN,IN> {
 	}
 
 	@Override
-	public void invoke() throws Exception {
+	protected void invokeVertex() throws Exception {
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("SINK {} invoked", getName());
 		}
 
-		forwardRecords();
+		if (bufferTimeout > 0) {
+			batchFlusher = new BatchFlusher();
+			batchFlusher.start();
+		}
+
+		try {
+			forwardRecords();
+		} finally {
+			if (batchFlusher != null) {
+				batchFlusher.terminate();
+				batchFlusher.join();
+			}
+		}
+		flushBatch();
 
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("SINK {} invoke finished", getName());
@@ -71,34 +95,68 @@ public class StreamIterationTail<IN extends Tuple> extends StreamVertex<IN,IN> {
 	}
 
 	protected void forwardRecords() throws Exception {
-		StreamRecord<IN> reuse = inputHandler.getInputSerializer().createInstance();
+		StreamRecordSerializer<IN> serializer = inputHandler.getInputSerializer();
+		StreamRecord<IN> reuse = serializer.createInstance();
 		while ((reuse = inputHandler.getInputIter().next(reuse)) != null) {
-			if (!pushToQueue(reuse)) {
-				break;
+			synchronized (batch) {
+				serializer.serialize(reuse, batch);
+				numRecordsInBatch++;
+				if (batch.length() >= BATCH_SIZE || batchFlusher == null) {
+					flushBatch();
+				}
 			}
-			// TODO: Fix object reuse for iteration
-			reuse = inputHandler.getInputSerializer().createInstance();
 		}
 	}
 
-	private boolean pushToQueue(StreamRecord<IN> record) {
-		try {
-			if (shouldWait) {
-				return dataChannel.offer(record, iterationWaitTime, TimeUnit.MILLISECONDS);
-			} else {
-				dataChannel.put(record);
-				return true;
-			}
-		} catch (InterruptedException e) {
-			if (LOG.isErrorEnabled()) {
-				LOG.error("Pushing back record at iteration %s failed due to: {}", iterationId,
-						StringUtils.stringifyException(e));
+	/**
+	 * Hands the records serialized so far to the iteration head.
+	 */
+	private void flushBatch() throws IOException {
+		synchronized (batch) {
+			if (numRecordsInBatch == 0) {
+				return;
 			}
-			return false;
+			ByteBuffer records = batch.wrapAsByteBuffer();
+			byte[] data = new byte[records.remaining()];
+			records.get(data);
+			dataChannel.put(data, data.length, numRecordsInBatch);
+
+			batch.clear();
+			numRecordsInBatch = 0;
 		}
 	}
 
 	@Override
 	protected void setInvokable() {
 	}
+
+	/**
+	 * Thread handing the pending records to the head once every buffer
+	 * timeout, so a partially filled batch does not wait for more records.
+	 */
+	private class BatchFlusher extends Thread {
+
+		private volatile boolean running = true;
+
+		public void terminate() {
+			running = false;
+		}
+
+		@Override
+		public void run() {
+			while (running) {
+				try {
+					Thread.sleep(bufferTimeout);
+					flushBatch();
+				} catch (InterruptedException e) {
+					running = false;
+				} catch (IOException e) {
+					if (LOG.isErrorEnabled()) {
+						LOG.error("Feeding back records at iteration {} failed due to: {}",
+								iterationId, StringUtils.stringifyException(e));
+					}
+				}
+			}
+		}
+	}
 }
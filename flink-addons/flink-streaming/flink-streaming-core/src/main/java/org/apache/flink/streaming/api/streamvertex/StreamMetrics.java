@@ -0,0 +1,251 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.streamvertex;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.flink.api.common.accumulators.Accumulator;
+import org.apache.flink.api.common.accumulators.Histogram;
+import org.apache.flink.api.common.accumulators.LongCounter;
+import org.apache.flink.runtime.accumulators.AccumulatorEvent;
+import org.apache.flink.runtime.jobgraph.JobID;
+import org.apache.flink.runtime.protocols.AccumulatorProtocol;
+import org.apache.flink.streaming.api.streamrecord.StreamLatencyMarker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Throughput and latency metrics of a stream vertex. The task thread counts
+ * the records read and emitted, and records the latencies of the
+ * {@link StreamLatencyMarker}s and the time the output buffers waited to be
+ * sent. A reporter thread sends the changes of every interval to the
+ * JobManager as accumulators, named after the vertex, which the JobManager
+ * sums up over the parallel instances and shows in the web frontend.
+ * 
+ * The latencies and buffer waits are kept in histograms of milliseconds,
+ * bucketed by the next power of two.
+ */
+public class StreamMetrics {
+
+	private static final Logger LOG = LoggerFactory.getLogger(StreamMetrics.class);
+
+	private final String name;
+	private final long interval;
+	private final JobID jobID;
+	private final AccumulatorProtocol jobManager;
+
+	// written by the task thread only, the reporter may read a stale value
+	private long recordsIn;
+	private long recordsOut;
+
+	private long reportedRecordsIn;
+	private long reportedRecordsOut;
+	private long lastReportTime;
+
+	private Histogram latencies = new Histogram();
+	private Histogram bufferWaits = new Histogram();
+
+	private volatile boolean latencyMarkerDue;
+
+	private Reporter reporter;
+
+	/**
+	 * Creates the metrics of a vertex
+	 * 
+	 * @param name
+	 *            Name of the vertex, the prefix of the accumulator names
+	 * @param interval
+	 *            Interval of the reports and the latency markers in
+	 *            milliseconds
+	 * @param jobID
+	 *            ID of the job
+	 * @param jobManager
+	 *            Protocol to report the accumulators to the JobManager
+	 */
+	public StreamMetrics(String name, long interval, JobID jobID, AccumulatorProtocol jobManager) {
+		this.name = name;
+		this.interval = interval;
+		this.jobID = jobID;
+		this.jobManager = jobManager;
+		this.lastReportTime = System.currentTimeMillis();
+	}
+
+	public void recordIn() {
+		recordsIn++;
+	}
+
+	public void recordOut() {
+		recordsOut++;
+	}
+
+	public long getRecordsIn() {
+		return recordsIn;
+	}
+
+	public long getRecordsOut() {
+		return recordsOut;
+	}
+
+	public synchronized void addLatency(long millis) {
+		latencies.add(bucket(millis));
+	}
+
+	public synchronized void addBufferWait(long millis) {
+		bufferWaits.add(bucket(millis));
+	}
+
+	/**
+	 * Checks whether a source should emit a latency marker. It is due once in
+	 * every interval.
+	 * 
+	 * @return <code>true</code> if a marker is due, the next call returns
+	 *         <code>false</code> until the next interval
+	 */
+	public boolean pollLatencyMarker() {
+		if (latencyMarkerDue) {
+			latencyMarkerDue = false;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the histogram bucket of a duration, the next power of two not
+	 * below it
+	 * 
+	 * @param millis
+	 *            The duration in milliseconds
+	 * @return The bucket of the duration
+	 */
+	public static int bucket(long millis) {
+		if (millis <= 1) {
+			return millis < 0 ? 0 : (int) millis;
+		}
+		return (int) Long.highestOneBit(Math.min(millis - 1, (1 << 30) - 1)) << 1;
+	}
+
+	/**
+	 * Starts reporting the metrics every interval
+	 */
+	public void start() {
+		reporter = new Reporter();
+		reporter.start();
+	}
+
+	/**
+	 * Stops the reporter and reports the remaining changes
+	 */
+	public void stop() throws IOException, InterruptedException {
+		if (reporter != null) {
+			reporter.terminate();
+			reporter.join();
+			reporter = null;
+		}
+		report();
+	}
+
+	/**
+	 * Sends the changes since the last report to the JobManager
+	 */
+	void report() throws IOException {
+		long in = recordsIn;
+		long out = recordsOut;
+		long now = System.currentTimeMillis();
+
+		Histogram reportedLatencies;
+		Histogram reportedBufferWaits;
+		synchronized (this) {
+			reportedLatencies = latencies;
+			reportedBufferWaits = bufferWaits;
+			latencies = new Histogram();
+			bufferWaits = new Histogram();
+		}
+
+		LongCounter inCounter = new LongCounter();
+		inCounter.add(in - reportedRecordsIn);
+		LongCounter outCounter = new LongCounter();
+		outCounter.add(out - reportedRecordsOut);
+
+		Map<String, Accumulator<?, ?>> accumulators = new HashMap<String, Accumulator<?, ?>>();
+		accumulators.put(name + " records in", inCounter);
+		accumulators.put(name + " records out", outCounter);
+		if (!reportedLatencies.getLocalValue().isEmpty()) {
+			accumulators.put(name + " latency (ms)", reportedLatencies);
+		}
+		if (!reportedBufferWaits.getLocalValue().isEmpty()) {
+			accumulators.put(name + " buffer wait (ms)", reportedBufferWaits);
+		}
+
+		if (LOG.isInfoEnabled()) {
+			double seconds = Math.max(now - lastReportTime, 1) / 1000.0;
+			LOG.info("{}: {} records/s in, {} records/s out, latencies (ms): {}", name,
+					(long) ((in - reportedRecordsIn) / seconds),
+					(long) ((out - reportedRecordsOut) / seconds), reportedLatencies);
+		}
+
+		synchronized (jobManager) {
+			jobManager.reportAccumulatorResult(new AccumulatorEvent(jobID, accumulators));
+		}
+
+		reportedRecordsIn = in;
+		reportedRecordsOut = out;
+		lastReportTime = now;
+	}
+
+	private class Reporter extends Thread {
+
+		private volatile boolean running = true;
+
+		public Reporter() {
+			super("Metrics reporter for " + name);
+			setDaemon(true);
+		}
+
+		public synchronized void terminate() {
+			running = false;
+			notifyAll();
+		}
+
+		@Override
+		public void run() {
+			while (running) {
+				synchronized (this) {
+					try {
+						if (running) {
+							wait(interval);
+						}
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+				if (running) {
+					latencyMarkerDue = true;
+					try {
+						report();
+					} catch (IOException e) {
+						if (LOG.isWarnEnabled()) {
+							LOG.warn("Cannot report the metrics of {}: {}", name, e.getMessage());
+						}
+					}
+				}
+			}
+		}
+	}
+}
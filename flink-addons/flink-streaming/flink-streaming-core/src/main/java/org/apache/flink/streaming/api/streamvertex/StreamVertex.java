@@ -17,13 +17,22 @@
 
 package org.apache.flink.streaming.api.streamvertex;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.flink.runtime.execution.Environment;
 import org.apache.flink.runtime.jobgraph.tasks.AbstractInvokable;
 import org.apache.flink.streaming.api.StreamConfig;
+import org.apache.flink.streaming.api.invokable.ChainableInvokable;
+import org.apache.flink.streaming.api.invokable.SourceInvokable;
 import org.apache.flink.streaming.api.invokable.StreamInvokable;
+import org.apache.flink.streaming.state.KeyedStateBackend;
 import org.apache.flink.streaming.state.OperatorState;
+import org.apache.flink.streaming.state.checkpoint.StateSnapshotter;
+import org.apache.flink.streaming.state.checkpoint.StateStore;
+import org.apache.flink.util.Collector;
 
 public class StreamVertex<IN, OUT> extends AbstractInvokable {
 
@@ -40,12 +49,17 @@ public class StreamVertex<IN, OUT> extends AbstractInvokable {
 	private InputHandler<IN> inputHandler;
 	private OutputHandler<OUT> outputHandler;
 	private StreamInvokable<IN, OUT> userInvokable;
+	private List<ChainableInvokable<?, ?>> chainedInvokables = new ArrayList<ChainableInvokable<?, ?>>();
 
 	private StreamingRuntimeContext context;
 	private Map<String, OperatorState<?>> states;
 
 	protected ClassLoader userClassLoader;
 
+	protected StreamMetrics metrics;
+
+	protected StateSnapshotter snapshotter;
+
 	public StreamVertex() {
 		userInvokable = null;
 		numTasks = newVertex();
@@ -73,13 +87,59 @@ public class StreamVertex<IN, OUT> extends AbstractInvokable {
 		this.function = configuration.getFunction(userClassLoader);
 		this.states = configuration.getOperatorStates(userClassLoader);
 		this.context = createRuntimeContext(name, this.states);
+
+		long latencyTrackingInterval = configuration.getLatencyTrackingInterval();
+		if (latencyTrackingInterval > 0) {
+			Environment env = getEnvironment();
+			this.metrics = new StreamMetrics(name, latencyTrackingInterval, env.getJobID(),
+					env.getAccumulatorProtocolProxy());
+		}
+
+		StateStore stateStore = configuration.getStateStore(userClassLoader);
+		if (configuration.getCheckpointInterval() > 0 && stateStore != null) {
+			// the job ID keeps the snapshots of other jobs with the same
+			// vertex names from being restored
+			Environment env = getEnvironment();
+			this.snapshotter = new StateSnapshotter(env.getJobID() + "-" + name + "-"
+					+ env.getIndexInSubtaskGroup(), states, stateStore, userClassLoader);
+			try {
+				snapshotter.restore();
+			} catch (IOException e) {
+				throw new StreamVertexException("Cannot restore the states of " + name, e);
+			}
+		}
 	}
 
 	protected <T> void invokeUserFunction(StreamInvokable<?, T> userInvokable) throws Exception {
-		userInvokable.setRuntimeContext(context);
-		userInvokable.open(getTaskConfiguration());
-		userInvokable.invoke();
-		userInvokable.close();
+		// the chained invokables are closed through the collector of the
+		// user invokable, when it is closed
+		List<String> chainedNames = configuration.getChainedNames();
+		for (int i = 0; i < chainedInvokables.size(); i++) {
+			ChainableInvokable<?, ?> chainedInvokable = chainedInvokables.get(i);
+			chainedInvokable.setRuntimeContext(createRuntimeContext(chainedNames.get(i), null));
+			chainedInvokable.open(getTaskConfiguration());
+		}
+
+		if (metrics != null) {
+			metrics.start();
+		}
+		// the sources start the checkpoints, the other vertices snapshot on
+		// the barriers of their inputs
+		if (snapshotter != null && userInvokable instanceof SourceInvokable) {
+			snapshotter.startBarrierTimer(configuration.getCheckpointInterval());
+		}
+		try {
+			userInvokable.setRuntimeContext(context);
+			userInvokable.open(getTaskConfiguration());
+			userInvokable.invoke();
+			// the inputs are finished, so no more elements will be emitted
+			userInvokable.emitWatermark(Long.MAX_VALUE);
+			userInvokable.close();
+		} finally {
+			if (metrics != null) {
+				metrics.stop();
+			}
+		}
 	}
 
 	public void setInputsOutputs() {
@@ -87,16 +147,60 @@ public class StreamVertex<IN, OUT> extends AbstractInvokable {
 		outputHandler = new OutputHandler<OUT>(this);
 	}
 
+	@SuppressWarnings("unchecked")
 	protected void setInvokable() {
 		userInvokable = configuration.getUserInvokable(userClassLoader);
-		userInvokable.initialize(outputHandler.getCollector(), inputHandler.getInputIter(),
+		userInvokable.initialize((Collector<OUT>) setChainedInvokables(), inputHandler.getInputIter(),
 				inputHandler.getInputSerializer(), isMutable);
+		userInvokable.setWatermarkOutput(outputHandler.getCollector());
+		userInvokable.setStateBackend(new KeyedStateBackend(this, getEnvironment()
+				.getMemoryManager(), getEnvironment().getIOManager(), configuration
+				.getStateMemory()));
+		userInvokable.setMetrics(metrics);
+		userInvokable.setSnapshotter(snapshotter);
+		if (inputHandler.getWatermarkTracker() != null) {
+			inputHandler.getWatermarkTracker().setInvokable(userInvokable);
+		}
+		if (inputHandler.getLatencyMarkerForwarder() != null) {
+			inputHandler.getLatencyMarkerForwarder().setOutput(outputHandler.getCollector());
+		}
+		if (inputHandler.getCheckpointBarrierTracker() != null) {
+			inputHandler.getCheckpointBarrierTracker().setOutput(outputHandler.getCollector());
+		}
+	}
+
+	/**
+	 * Connects the invokables chained behind the user invokable, so that each
+	 * of them collects the outputs of the one in front of it and the last one
+	 * emits to the outputs of the vertex.
+	 * 
+	 * @return The collector for the outputs of the user invokable
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private Collector<?> setChainedInvokables() {
+		chainedInvokables = configuration.getChainedInvokables(userClassLoader);
+
+		Collector collector = outputHandler.getCollector();
+		for (int i = chainedInvokables.size() - 1; i >= 0; i--) {
+			ChainableInvokable chainedInvokable = chainedInvokables.get(i);
+			chainedInvokable.setup(collector);
+			collector = chainedInvokable;
+		}
+		return collector;
 	}
 
 	public String getName() {
 		return name;
 	}
 
+	public StreamMetrics getMetrics() {
+		return metrics;
+	}
+
+	public StateSnapshotter getSnapshotter() {
+		return snapshotter;
+	}
+
 	public int getInstanceID() {
 		return instanceID;
 	}
@@ -108,8 +212,22 @@ public class StreamVertex<IN, OUT> extends AbstractInvokable {
 				env.getIndexInSubtaskGroup(), getUserCodeClassLoader(), states, env.getCopyTask());
 	}
 
+	/**
+	 * Runs the vertex and closes its snapshotter afterwards, also when the
+	 * vertex fails. Subclasses implement {@link #invokeVertex()} instead.
+	 */
 	@Override
-	public void invoke() throws Exception {
+	public final void invoke() throws Exception {
+		try {
+			invokeVertex();
+		} finally {
+			if (snapshotter != null) {
+				snapshotter.close();
+			}
+		}
+	}
+
+	protected void invokeVertex() throws Exception {
 		outputHandler.invokeUserFunction("TASK", userInvokable);
 	}
 }
@@ -84,6 +84,33 @@ public class Count implements WindowingHelper {
 		return this;
 	}
 
+	/**
+	 * Gets the number of elements to count before trigger/evict.
+	 * 
+	 * @return The number of elements
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * Gets the number of elements deleted at each eviction.
+	 * 
+	 * @return The number of elements deleted at each eviction
+	 */
+	public int getDeleteOnEviction() {
+		return deleteOnEviction;
+	}
+
+	/**
+	 * Gets the initial value of the counter.
+	 * 
+	 * @return The starting value of the window counter
+	 */
+	public int getStartValue() {
+		return startValue;
+	}
+
 	/**
 	 * Specifies a count based eviction (window size) or trigger policy (slide
 	 * size). For eviction 'count' defines the number of elements in each
@@ -41,6 +41,7 @@ public class Time<DATA> implements WindowingHelper<DATA> {
 	private TimeUnit granularity;
 	private TimeStamp<DATA> timeStamp;
 	private long delay;
+	private boolean watermarks;
 
 	/**
 	 * Creates an helper representing a trigger which triggers every given
@@ -66,14 +67,24 @@ public class Time<DATA> implements WindowingHelper<DATA> {
 
 	@Override
 	public EvictionPolicy<DATA> toEvict() {
+		checkNoWatermarks();
 		return new TimeEvictionPolicy<DATA>(granularityInMillis(), timeStamp);
 	}
 
 	@Override
 	public TriggerPolicy<DATA> toTrigger() {
+		checkNoWatermarks();
 		return new TimeTriggerPolicy<DATA>(granularityInMillis(), timeStamp, delay);
 	}
 
+	private void checkNoWatermarks() {
+		// the policies only see the elements, not the watermarks
+		if (watermarks) {
+			throw new UnsupportedOperationException(
+					"Windows on watermarks are only supported for reducing the windows of a stream that is not grouped");
+		}
+	}
+
 	/**
 	 * Creates a helper representing a time trigger which triggers every given
 	 * length (slide size) or a time eviction which evicts all elements older
@@ -120,7 +131,55 @@ public class Time<DATA> implements WindowingHelper<DATA> {
 		return this;
 	}
 
-	private long granularityInMillis() {
+	/**
+	 * Emits the windows when the event time watermark of the stream passes
+	 * their end, instead of when an element with a later timestamp arrives.
+	 * The elements may then arrive out of order, as long as they are not
+	 * later than the watermark. The watermarks are assigned with
+	 * {@link org.apache.flink.streaming.api.datastream.DataStream#assignWatermarks}.
+	 * This is only supported for reducing the windows of a stream that is not
+	 * grouped.
+	 * 
+	 * @return Helper representing the time based trigger and eviction policy
+	 */
+	public Time<DATA> withWatermarks() {
+		this.watermarks = true;
+		return this;
+	}
+
+	/**
+	 * Gets the length of the window or slide in milliseconds.
+	 * 
+	 * @return The length in milliseconds
+	 */
+	public long granularityInMillis() {
 		return this.granularity.toMillis(this.length);
 	}
+
+	/**
+	 * Gets the timestamp used to extract time information from the elements.
+	 * 
+	 * @return The timestamp of the elements
+	 */
+	public TimeStamp<DATA> getTimeStamp() {
+		return timeStamp;
+	}
+
+	/**
+	 * Gets the delay before the first processed window.
+	 * 
+	 * @return The delay
+	 */
+	public long getDelay() {
+		return delay;
+	}
+
+	/**
+	 * Checks whether the windows are emitted on the watermarks of the stream.
+	 * 
+	 * @return True if the windows are emitted on the watermarks
+	 */
+	public boolean isWatermarkDriven() {
+		return watermarks;
+	}
 }
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.windowing.policy;
+
+import org.apache.flink.streaming.api.invokable.util.TimerService;
+
+/**
+ * An {@link ActiveTriggerPolicy} which triggers at given points of the system
+ * time, without a thread of its own. Instead of running the runnable created by
+ * {@link ActiveTriggerPolicy#createActiveTriggerRunnable(ActiveTriggerCallback)}
+ * in a separate thread, the invokable registers the next trigger time of the
+ * policy at the {@link TimerService} of the vertex. All scheduled policies of a
+ * vertex share the thread of this timer service, no matter how many groups
+ * there are.
+ * 
+ * @param <DATA>
+ *            The type of the incoming data points which are processed by this
+ *            policy.
+ */
+public interface ScheduledTriggerPolicy<DATA> extends ActiveTriggerPolicy<DATA> {
+
+	/**
+	 * Gets the system time at which the policy triggers next, if no element
+	 * arrives before.
+	 * 
+	 * @return The next trigger time in milliseconds or a negative value if the
+	 *         policy does not trigger on the system time.
+	 */
+	public long getNextTriggerTime();
+
+	/**
+	 * This method is called by the {@link TimerService} when the next trigger
+	 * time has passed. It returns the fake data point to be submitted to the
+	 * element buffer, if the policy still triggers. The policy might have
+	 * triggered in the meantime because of an arrived element. Triggers are not
+	 * called on fake datapoints. A fake datapoint is always considered as
+	 * triggered.
+	 * 
+	 * @param time
+	 *            The current system time in milliseconds
+	 * @return The fake data point to be submitted or null if the policy does
+	 *         not trigger.
+	 */
+	public Object notifyTriggerTime(long time);
+
+}
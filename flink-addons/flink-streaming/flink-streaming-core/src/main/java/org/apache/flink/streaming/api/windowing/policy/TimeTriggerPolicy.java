@@ -32,7 +32,7 @@ import org.apache.flink.streaming.api.invokable.util.TimeStamp;
  *            The type of the incoming data points which are processed by this
  *            policy.
  */
-public class TimeTriggerPolicy<DATA> implements ActiveTriggerPolicy<DATA>,
+public class TimeTriggerPolicy<DATA> implements ScheduledTriggerPolicy<DATA>,
 		CloneableTriggerPolicy<DATA> {
 
 	/**
@@ -134,6 +134,30 @@ public class TimeTriggerPolicy<DATA> implements ActiveTriggerPolicy<DATA>,
 		}
 	}
 
+	/**
+	 * In case {@link DefaultTimeStamp} is used, the end of the current window
+	 * is returned. If any other time measure is used the method returns -1.
+	 */
+	@Override
+	public synchronized long getNextTriggerTime() {
+		if (this.timestamp instanceof DefaultTimeStamp) {
+			return startTime + granularity;
+		} else {
+			return -1;
+		}
+	}
+
+	@Override
+	public synchronized Object notifyTriggerTime(long time) {
+		// start time is excluded, but end time is included: >=
+		if (time >= startTime + granularity) {
+			startTime += granularity;
+			return startTime - 1;
+		} else {
+			return null;
+		}
+	}
+
 	/**
 	 * This method is only called in case the runnable triggers a window end
 	 * according to the {@link DefaultTimeStamp}.
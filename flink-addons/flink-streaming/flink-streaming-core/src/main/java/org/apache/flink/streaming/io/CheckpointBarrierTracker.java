@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.io;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.flink.runtime.AbstractID;
+import org.apache.flink.runtime.event.task.AbstractTaskEvent;
+import org.apache.flink.runtime.event.task.EventListener;
+import org.apache.flink.runtime.io.network.gates.InputGate;
+import org.apache.flink.streaming.api.collector.StreamCollector;
+import org.apache.flink.streaming.api.streamrecord.StreamCheckpointBarrier;
+import org.apache.flink.streaming.state.checkpoint.StateSnapshotter;
+
+/**
+ * Collects the {@link StreamCheckpointBarrier}s arriving on the input channels
+ * of a task. Once the barrier of a checkpoint has arrived on every channel,
+ * the states of the task are snapshotted and the barrier is forwarded to the
+ * outputs. The channels are not blocked while waiting for the barrier on the
+ * other channels, so a snapshot may contain the effects of some records sent
+ * after the barrier. The channels are told apart by the sender IDs of the
+ * barriers, which the senders assign per output. The tracker is subscribed to
+ * the readers of the task, so it is called by the task thread while reading
+ * the inputs.
+ */
+public class CheckpointBarrierTracker implements EventListener {
+
+	private List<InputGate<?>> inputGates;
+	private int numberOfChannels = -1;
+
+	private Map<Long, Set<AbstractID>> pendingBarriers = new HashMap<Long, Set<AbstractID>>();
+	private long lastCheckpointId;
+
+	private StateSnapshotter snapshotter;
+	private StreamCollector<?> output;
+
+	/**
+	 * Creates a tracker for the channels of the given input gates
+	 * 
+	 * @param inputGates
+	 *            The input gates of the task. The channels of the gates are
+	 *            counted when the first barrier arrives, as they are not known
+	 *            when the readers are created.
+	 * @param snapshotter
+	 *            The snapshotter of the states of the task
+	 */
+	public CheckpointBarrierTracker(List<InputGate<?>> inputGates, StateSnapshotter snapshotter) {
+		this.inputGates = inputGates;
+		this.snapshotter = snapshotter;
+	}
+
+	/**
+	 * Sets the collector the barriers are forwarded to
+	 * 
+	 * @param output
+	 *            The collector of the task outputs
+	 */
+	public void setOutput(StreamCollector<?> output) {
+		this.output = output;
+	}
+
+	public long getLastCheckpointId() {
+		return lastCheckpointId;
+	}
+
+	@Override
+	public void eventOccurred(AbstractTaskEvent event) {
+		StreamCheckpointBarrier barrier = (StreamCheckpointBarrier) event;
+		long checkpointId = barrier.getCheckpointId();
+		if (checkpointId <= lastCheckpointId) {
+			return;
+		}
+
+		Set<AbstractID> senders = pendingBarriers.get(checkpointId);
+		if (senders == null) {
+			senders = new HashSet<AbstractID>();
+			pendingBarriers.put(checkpointId, senders);
+		}
+		senders.add(barrier.getSenderID());
+
+		if (numberOfChannels < 0) {
+			numberOfChannels = 0;
+			for (InputGate<?> inputGate : inputGates) {
+				numberOfChannels += inputGate.getNumberOfChannels();
+			}
+		}
+
+		if (senders.size() < numberOfChannels) {
+			return;
+		}
+
+		// the earlier checkpoints cannot complete anymore
+		Iterator<Long> pending = pendingBarriers.keySet().iterator();
+		while (pending.hasNext()) {
+			if (pending.next() <= checkpointId) {
+				pending.remove();
+			}
+		}
+		lastCheckpointId = checkpointId;
+
+		snapshotter.snapshot(checkpointId);
+		if (output != null) {
+			output.emitCheckpointBarrier(checkpointId);
+		}
+	}
+}
@@ -21,6 +21,7 @@ import java.io.IOException;
 
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.runtime.plugable.DeserializationDelegate;
+import org.apache.flink.streaming.api.streamvertex.StreamMetrics;
 
 /**
  * A CoReaderIterator wraps a {@link CoRecordReader} producing records of two
@@ -34,6 +35,8 @@ public class CoReaderIterator<T1, T2> {
 	protected final DeserializationDelegate<T1> delegate1;
 	protected final DeserializationDelegate<T2> delegate2;
 
+	private StreamMetrics metrics;
+
 	public CoReaderIterator(
 			CoRecordReader<DeserializationDelegate<T1>, DeserializationDelegate<T2>> reader,
 			TypeSerializer<T1> serializer1, TypeSerializer<T2> serializer2) {
@@ -42,12 +45,26 @@ public class CoReaderIterator<T1, T2> {
 		this.delegate2 = new DeserializationDelegate<T2>(serializer2);
 	}
 
+	/**
+	 * Sets the metrics counting the records read
+	 * 
+	 * @param metrics
+	 *            The metrics of the task
+	 */
+	public void setMetrics(StreamMetrics metrics) {
+		this.metrics = metrics;
+	}
+
 	public int next(T1 target1, T2 target2) throws IOException {
 		this.delegate1.setInstance(target1);
 		this.delegate2.setInstance(target2);
 
 		try {
-			return this.reader.getNextRecord(this.delegate1, this.delegate2);
+			int next = this.reader.getNextRecord(this.delegate1, this.delegate2);
+			if (metrics != null && next != 0) {
+				metrics.recordIn();
+			}
+			return next;
 
 		} catch (InterruptedException e) {
 			throw new IOException("Reader interrupted.", e);
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.io;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.flink.runtime.io.network.channels.ChannelID;
+import org.apache.flink.runtime.io.network.channels.InputChannel;
+import org.apache.flink.runtime.io.network.gates.BufferConsumptionListener;
+import org.apache.flink.streaming.api.streamrecord.StreamCredit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Announces {@link StreamCredit}s to the senders of the input channels of a
+ * task, for {@link StreamRecordWriter}s flushing adaptively. A channel is
+ * announced when the task has read all buffers queued on it, so that the
+ * sender learns that the pipe is idle, and otherwise after every few
+ * consumed buffers. The announcer is registered at the input gates of the
+ * task, so it is called by the task thread while reading the inputs.
+ * 
+ * The credits are only hints for the flushing of the senders, so an
+ * announcement that cannot be delivered, for example because the sender has
+ * already finished, is dropped.
+ */
+public class CreditAnnouncer implements BufferConsumptionListener {
+
+	private static final Logger LOG = LoggerFactory.getLogger(CreditAnnouncer.class);
+
+	/**
+	 * Number of consumed buffers after which a busy channel is announced
+	 */
+	public static final int ANNOUNCE_INTERVAL = 4;
+
+	private Map<ChannelID, Integer> announcedBuffers = new HashMap<ChannelID, Integer>();
+
+	@Override
+	public void bufferConsumed(InputChannel<?> inputChannel) throws IOException {
+		int consumedBuffers = inputChannel.getNumberOfConsumedBuffers();
+		Integer announced = announcedBuffers.get(inputChannel.getID());
+
+		if (announced == null || consumedBuffers - announced >= ANNOUNCE_INTERVAL
+				|| inputChannel.getNumberOfQueuedEnvelopes() == 0) {
+			try {
+				inputChannel.transferEvent(new StreamCredit(inputChannel.getConnectedId(),
+						consumedBuffers));
+			} catch (IOException e) {
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("Cannot announce credit to {}: {}", inputChannel.getConnectedId(),
+							e.getMessage());
+				}
+			} catch (InterruptedException e) {
+				throw new IOException("Announcing credit interrupted.", e);
+			}
+			announcedBuffers.put(inputChannel.getID(), consumedBuffers);
+		}
+	}
+}
@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.flink.runtime.io.disk.iomanager.FileIOChannel;
+import org.apache.flink.runtime.io.disk.iomanager.IOManager;
+import org.apache.flink.runtime.io.network.serialization.DataInputDeserializer;
+
+/**
+ * Channel feeding the records of a streaming iteration back from the
+ * iteration tail to the iteration head. The records are moved in serialized
+ * batches. At most the given number of batches are kept in memory, the
+ * batches handed in while the head is behind are spilled to files of the
+ * {@link IOManager}. Handing in a batch never blocks, so the tail cannot
+ * deadlock with a head that waits for its outputs to drain. The batches are
+ * handed out in the order they were handed in.
+ */
+public class FeedbackChannel {
+
+	private final LinkedBlockingQueue<Batch> batches = new LinkedBlockingQueue<Batch>();
+
+	private final int capacity;
+	private final IOManager ioManager;
+
+	private int numBatchesInMemory;
+	private volatile boolean closed;
+
+	/**
+	 * Creates a feedback channel
+	 * 
+	 * @param capacity
+	 *            The number of batches kept in memory
+	 * @param ioManager
+	 *            The {@link IOManager} providing the files for the spilled
+	 *            batches
+	 */
+	public FeedbackChannel(int capacity, IOManager ioManager) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("The capacity must be at least one batch");
+		}
+		this.capacity = capacity;
+		this.ioManager = ioManager;
+	}
+
+	/**
+	 * Hands in a batch of serialized records. The batch is spilled if the
+	 * channel already holds as many batches in memory as its capacity.
+	 * 
+	 * @param data
+	 *            The serialized records, the array is owned by the channel
+	 *            afterwards
+	 * @param length
+	 *            The number of bytes of the records
+	 * @param numRecords
+	 *            The number of records in the batch
+	 */
+	public void put(byte[] data, int length, int numRecords) throws IOException {
+		if (closed) {
+			return;
+		}
+
+		Batch batch = new Batch(numRecords);
+		synchronized (this) {
+			if (numBatchesInMemory < capacity) {
+				numBatchesInMemory++;
+				batch.data = data;
+				batch.length = length;
+			}
+		}
+
+		if (batch.data == null) {
+			batch.spillFile = ioManager.createChannel();
+			RandomAccessFile file = new RandomAccessFile(batch.spillFile.getPath(), "rw");
+			try {
+				file.getChannel().write(ByteBuffer.wrap(data, 0, length));
+			} finally {
+				file.close();
+			}
+		}
+
+		batches.add(batch);
+	}
+
+	/**
+	 * Takes the next batch, waiting if necessary.
+	 * 
+	 * @return The next batch
+	 */
+	public Batch take() throws InterruptedException {
+		return release(batches.take());
+	}
+
+	/**
+	 * Takes the next batch, waiting at most the given time.
+	 * 
+	 * @param timeout
+	 *            The maximum time to wait in milliseconds
+	 * @return The next batch or null if none arrived in time
+	 */
+	public Batch poll(long timeout) throws InterruptedException {
+		return release(batches.poll(timeout, TimeUnit.MILLISECONDS));
+	}
+
+	private Batch release(Batch batch) {
+		if (batch != null && batch.data != null) {
+			synchronized (this) {
+				numBatchesInMemory--;
+			}
+		}
+		return batch;
+	}
+
+	/**
+	 * Closes the channel. The batches handed in afterwards are dropped and the
+	 * spill files of the remaining batches are deleted.
+	 */
+	public void close() {
+		closed = true;
+		Batch batch;
+		while ((batch = batches.poll()) != null) {
+			if (batch.spillFile != null) {
+				new File(batch.spillFile.getPath()).delete();
+			}
+		}
+	}
+
+	/**
+	 * A batch of serialized records, either in memory or in a spill file.
+	 */
+	public static class Batch {
+
+		private final int numRecords;
+		private byte[] data;
+		private int length;
+		private FileIOChannel.ID spillFile;
+
+		private Batch(int numRecords) {
+			this.numRecords = numRecords;
+		}
+
+		public int getNumRecords() {
+			return numRecords;
+		}
+
+		public boolean isSpilled() {
+			return spillFile != null;
+		}
+
+		/**
+		 * Opens the serialized records of the batch for reading. A spilled
+		 * batch is read back to memory and its file is deleted.
+		 * 
+		 * @return The input view of the records
+		 */
+		public DataInputDeserializer open() throws IOException {
+			if (spillFile != null) {
+				File file = new File(spillFile.getPath());
+				RandomAccessFile input = new RandomAccessFile(file, "r");
+				try {
+					length = (int) input.length();
+					data = new byte[length];
+					input.readFully(data);
+				} finally {
+					input.close();
+					file.delete();
+				}
+				spillFile = null;
+			}
+			return new DataInputDeserializer(ByteBuffer.wrap(data, 0, length));
+		}
+	}
+}
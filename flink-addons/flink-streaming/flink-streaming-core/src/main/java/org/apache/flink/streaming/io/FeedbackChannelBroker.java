@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.io;
+
+import org.apache.flink.runtime.iterative.concurrent.Broker;
+
+/**
+ * Broker handing the {@link FeedbackChannel} of an iteration from the
+ * iteration head to the iteration tail.
+ */
+public class FeedbackChannelBroker extends Broker<FeedbackChannel> {
+	/**
+	 * Singleton instance
+	 */
+	private static final FeedbackChannelBroker INSTANCE = new FeedbackChannelBroker();
+
+	private FeedbackChannelBroker() {
+	}
+
+	/**
+	 * retrieve singleton instance
+	 */
+	public static Broker<FeedbackChannel> instance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Creates the key of the feedback channel between the head and the tail
+	 * of an iteration with the same subtask index.
+	 * 
+	 * @param iterationId
+	 *            ID of the iteration
+	 * @param subtaskIndex
+	 *            Index of the head and tail subtasks
+	 * @return The broker key
+	 */
+	public static String getKey(String iterationId, int subtaskIndex) {
+		return iterationId + "-" + subtaskIndex;
+	}
+}
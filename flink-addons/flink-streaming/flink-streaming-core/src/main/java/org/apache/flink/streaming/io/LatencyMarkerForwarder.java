@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.io;
+
+import org.apache.flink.runtime.event.task.AbstractTaskEvent;
+import org.apache.flink.runtime.event.task.EventListener;
+import org.apache.flink.streaming.api.collector.StreamCollector;
+import org.apache.flink.streaming.api.streamrecord.StreamLatencyMarker;
+import org.apache.flink.streaming.api.streamvertex.StreamMetrics;
+
+/**
+ * Records the latency of the {@link StreamLatencyMarker}s arriving at a task
+ * and forwards them to the outputs of the task. The forwarder is subscribed
+ * to the readers of the task, so it is called by the task thread while
+ * reading the inputs.
+ */
+public class LatencyMarkerForwarder implements EventListener {
+
+	private StreamMetrics metrics;
+	private StreamCollector<?> output;
+
+	/**
+	 * Creates a forwarder recording into the given metrics
+	 * 
+	 * @param metrics
+	 *            The metrics of the task
+	 */
+	public LatencyMarkerForwarder(StreamMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Sets the collector the markers are forwarded to
+	 * 
+	 * @param output
+	 *            The collector of the task outputs
+	 */
+	public void setOutput(StreamCollector<?> output) {
+		this.output = output;
+	}
+
+	@Override
+	public void eventOccurred(AbstractTaskEvent event) {
+		StreamLatencyMarker marker = (StreamLatencyMarker) event;
+
+		metrics.addLatency(System.currentTimeMillis() - marker.getMarkedTime());
+		if (output != null) {
+			output.emitLatencyMarker(marker);
+		}
+	}
+}
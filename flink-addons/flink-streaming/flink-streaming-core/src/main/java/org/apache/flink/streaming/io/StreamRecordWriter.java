@@ -19,16 +19,24 @@ package org.apache.flink.streaming.io;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.apache.flink.core.io.IOReadableWritable;
+import org.apache.flink.runtime.event.task.AbstractEvent;
+import org.apache.flink.runtime.event.task.AbstractTaskEvent;
+import org.apache.flink.runtime.event.task.EventListener;
 import org.apache.flink.runtime.io.network.Buffer;
 import org.apache.flink.runtime.io.network.api.ChannelSelector;
 import org.apache.flink.runtime.io.network.api.RecordWriter;
 import org.apache.flink.runtime.io.network.api.RoundRobinChannelSelector;
 import org.apache.flink.runtime.io.network.bufferprovider.BufferProvider;
+import org.apache.flink.runtime.io.network.channels.ChannelID;
 import org.apache.flink.runtime.io.network.serialization.RecordSerializer;
 import org.apache.flink.runtime.io.network.serialization.SpanningRecordSerializer;
 import org.apache.flink.runtime.jobgraph.tasks.AbstractInvokable;
+import org.apache.flink.streaming.api.streamrecord.StreamCredit;
+import org.apache.flink.streaming.api.streamvertex.StreamMetrics;
 
 public class StreamRecordWriter<T extends IOReadableWritable> extends RecordWriter<T> {
 
@@ -47,6 +55,12 @@ public class StreamRecordWriter<T extends IOReadableWritable> extends RecordWrit
 
 	private ArrayList<TargetChannel> targetChannels;
 
+	private StreamMetrics metrics;
+
+	private boolean adaptiveFlushing;
+
+	private Map<ChannelID, TargetChannel> targetChannelsByID;
+
 	// -----------------------------------------------------------------------------------------------------------------
 
 	public StreamRecordWriter(AbstractInvokable invokable) {
@@ -67,6 +81,29 @@ public class StreamRecordWriter<T extends IOReadableWritable> extends RecordWrit
 		this.channelSelector = channelSelector;
 	}
 
+	/**
+	 * Sets the metrics recording how long the buffers wait before they are
+	 * sent
+	 * 
+	 * @param metrics
+	 *            The metrics of the task
+	 */
+	public void setMetrics(StreamMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Makes the writer flush a channel as soon as its receiver has consumed
+	 * all buffers sent to it, and batch the records while the receiver is
+	 * busy. The receivers announce the consumed buffers as
+	 * {@link StreamCredit}s. The timeout only bounds how long a record may
+	 * wait in a buffer. Must be called before the serializers are
+	 * initialized.
+	 */
+	public void enableAdaptiveFlushing() {
+		this.adaptiveFlushing = true;
+	}
+
 	// -----------------------------------------------------------------------------------------------------------------
 
 	@SuppressWarnings("unchecked")
@@ -81,6 +118,14 @@ public class StreamRecordWriter<T extends IOReadableWritable> extends RecordWrit
 			this.targetChannels.add(new TargetChannel(i));
 		}
 
+		if (adaptiveFlushing) {
+			targetChannelsByID = new HashMap<ChannelID, TargetChannel>();
+			for (int i = 0; i < this.numChannels; i++) {
+				targetChannelsByID.put(outputGate.getChannel(i).getID(), targetChannels.get(i));
+			}
+			subscribeToEvent(new CreditListener(), StreamCredit.class);
+		}
+
 		outputFlusher = new OutputFlusher();
 		outputFlusher.start();
 	}
@@ -99,6 +144,30 @@ public class StreamRecordWriter<T extends IOReadableWritable> extends RecordWrit
 		}
 	}
 
+	@Override
+	public void broadcastEvent(AbstractEvent event) throws IOException, InterruptedException {
+		for (int targetChannel = 0; targetChannel < this.numChannels; targetChannel++) {
+			targetChannels.get(targetChannel).sendEvent(event);
+		}
+	}
+
+	/**
+	 * Sends an event to a single channel, behind the records buffered for it
+	 * 
+	 * @param event
+	 *            The event to send
+	 * @param targetChannel
+	 *            The index of the channel
+	 */
+	public void sendEventToChannel(AbstractEvent event, int targetChannel) throws IOException,
+			InterruptedException {
+		targetChannels.get(targetChannel).sendEvent(event);
+	}
+
+	public int getNumberOfChannels() {
+		return numChannels;
+	}
+
 	public void close() {
 		try {
 			if (outputFlusher != null) {
@@ -118,50 +187,187 @@ public class StreamRecordWriter<T extends IOReadableWritable> extends RecordWrit
 		private int targetChannel;
 		private RecordSerializer<T> serializer;
 
+		// time the first record was added to the current buffer, 0 if empty
+		private long bufferStartTime;
+
+		// buffers sent, and consumed as announced by the receiver
+		private volatile int sentBuffers;
+		private volatile int consumedBuffers;
+
 		public TargetChannel(int targetChannel) {
 			this.targetChannel = targetChannel;
 			this.serializer = serializers[targetChannel];
 		}
 
 		public synchronized void emit(final T record) throws IOException, InterruptedException {
+			if (metrics != null && bufferStartTime == 0) {
+				bufferStartTime = System.currentTimeMillis();
+			}
+
 			RecordSerializer.SerializationResult result = serializer.addRecord(record);
 			while (result.isFullBuffer()) {
 				Buffer buffer = serializer.getCurrentBuffer();
 				if (buffer != null) {
 					sendBuffer(buffer, targetChannel);
+					sentBuffers++;
+					if (metrics != null) {
+						// the rest of the record goes to the next buffer
+						long now = System.currentTimeMillis();
+						metrics.addBufferWait(now - bufferStartTime);
+						bufferStartTime = now;
+					}
 				}
 
 				buffer = bufferPool.requestBufferBlocking(bufferPool.getBufferSize());
 				result = serializer.setNextBuffer(buffer);
 			}
+
+			if (adaptiveFlushing && isIdle()) {
+				// the receiver waits for data, so the record is sent right away
+				flush();
+			}
+		}
+
+		/**
+		 * Flushes the channel if it has buffered records and its receiver has
+		 * consumed all buffers sent to it
+		 */
+		public synchronized void flushIfIdle() throws IOException, InterruptedException {
+			if (isIdle() && serializer.getCurrentBuffer() != null) {
+				flush();
+			}
+		}
+
+		private boolean isIdle() {
+			return sentBuffers == consumedBuffers;
+		}
+
+		/**
+		 * Updates the number of buffers the receiver has consumed, and wakes up
+		 * the flusher if the receiver waits for data
+		 * 
+		 * @param consumed
+		 *            The number of buffers consumed by the receiver
+		 */
+		public void announceConsumedBuffers(int consumed) {
+			if (consumed > consumedBuffers) {
+				consumedBuffers = consumed;
+				if (isIdle() && outputFlusher != null) {
+					outputFlusher.creditArrived();
+				}
+			}
 		}
 
 		public synchronized void flush() throws IOException, InterruptedException {
 			Buffer buffer = serializer.getCurrentBuffer();
 			if (buffer != null) {
 				sendBuffer(buffer, targetChannel);
+				sentBuffers++;
+				recordBufferWait();
 			}
 
 			serializer.clear();
 		}
+
+		public synchronized void sendEvent(AbstractEvent event) throws IOException,
+				InterruptedException {
+			// the buffered records are sent first, to keep the order
+			Buffer buffer = serializer.getCurrentBuffer();
+			if (buffer != null) {
+				sendBufferAndEvent(buffer, event, targetChannel);
+				sentBuffers++;
+				recordBufferWait();
+			} else {
+				StreamRecordWriter.this.sendEvent(event, targetChannel);
+			}
+
+			serializer.clear();
+		}
+
+		private void recordBufferWait() {
+			if (metrics != null && bufferStartTime != 0) {
+				metrics.addBufferWait(System.currentTimeMillis() - bufferStartTime);
+				bufferStartTime = 0;
+			}
+		}
 	}
 	
+	/**
+	 * Passes the credits announced by the receivers to the target channels.
+	 * It is called by the network I/O thread, so it must not send anything
+	 * itself.
+	 */
+	private class CreditListener implements EventListener {
+
+		@Override
+		public void eventOccurred(AbstractTaskEvent event) {
+			StreamCredit credit = (StreamCredit) event;
+			TargetChannel targetChannel = targetChannelsByID.get(credit.getChannelID());
+			if (targetChannel != null) {
+				targetChannel.announceConsumedBuffers(credit.getConsumedBuffers());
+			}
+		}
+	}
+
 	private class OutputFlusher extends Thread {
 
-		private boolean running = true;
+		private volatile boolean running = true;
+
+		private boolean creditArrived;
 
-		public void terminate() {
+		public synchronized void terminate() {
 			running = false;
+			notifyAll();
+		}
+
+		public synchronized void creditArrived() {
+			creditArrived = true;
+			notifyAll();
 		}
 
 		@Override
 		public void run() {
+			try {
+				if (adaptiveFlushing) {
+					flushAdaptively();
+				} else {
+					while (running && !outputGate.isClosed()) {
+						flush();
+						Thread.sleep(timeout);
+					}
+				}
+			} catch (Exception e) {
+				throw new RuntimeException(e);
+			}
+		}
+
+		/**
+		 * Flushes the idle channels whenever credit arrives, and all channels
+		 * once the timeout has passed since the last time
+		 */
+		private void flushAdaptively() throws IOException, InterruptedException {
+			long maxWait = Math.max(timeout, 1);
+			long lastFlush = System.currentTimeMillis();
+
 			while (running && !outputGate.isClosed()) {
-				try {
+				boolean flushIdle;
+				synchronized (this) {
+					long wait = lastFlush + maxWait - System.currentTimeMillis();
+					if (running && !creditArrived && wait > 0) {
+						wait(wait);
+					}
+					flushIdle = creditArrived;
+					creditArrived = false;
+				}
+
+				long now = System.currentTimeMillis();
+				if (now - lastFlush >= maxWait) {
 					flush();
-					Thread.sleep(timeout);
-				} catch (Exception e) {
-					throw new RuntimeException(e);
+					lastFlush = now;
+				} else if (flushIdle) {
+					for (TargetChannel targetChannel : targetChannels) {
+						targetChannel.flushIfIdle();
+					}
 				}
 			}
 		}
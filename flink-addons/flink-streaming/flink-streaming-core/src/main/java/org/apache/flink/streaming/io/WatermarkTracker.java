@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.io;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.flink.runtime.AbstractID;
+import org.apache.flink.runtime.event.task.AbstractTaskEvent;
+import org.apache.flink.runtime.event.task.EventListener;
+import org.apache.flink.runtime.io.network.gates.InputGate;
+import org.apache.flink.streaming.api.invokable.StreamInvokable;
+import org.apache.flink.streaming.api.streamrecord.StreamWatermark;
+
+/**
+ * Combines the {@link StreamWatermark}s arriving on the input channels of a
+ * task. The watermark of the task is the minimum of the latest watermarks of
+ * all input channels, so it is only known once every channel has sent one.
+ * The channels are told apart by the sender IDs of the watermarks, which the
+ * senders assign per output, so a task that feeds several input gates of this
+ * task still counts as one channel per gate.
+ * Whenever it advances, the invokable of the task is notified. The tracker
+ * is subscribed to the readers of the task, so it is called by the task thread
+ * while reading the inputs.
+ */
+public class WatermarkTracker implements EventListener {
+
+	private List<InputGate<?>> inputGates;
+	private int numberOfChannels = -1;
+
+	private Map<AbstractID, Long> channelWatermarks = new HashMap<AbstractID, Long>();
+	private long currentWatermark = Long.MIN_VALUE;
+
+	private StreamInvokable<?, ?> invokable;
+
+	/**
+	 * Creates a tracker for the channels of the given input gates
+	 * 
+	 * @param inputGates
+	 *            The input gates of the task. The channels of the gates are
+	 *            counted when the first watermark arrives, as they are not
+	 *            known when the readers are created.
+	 */
+	public WatermarkTracker(List<InputGate<?>> inputGates) {
+		this.inputGates = inputGates;
+	}
+
+	/**
+	 * Sets the invokable that processes the watermarks
+	 * 
+	 * @param invokable
+	 *            The invokable of the task
+	 */
+	public void setInvokable(StreamInvokable<?, ?> invokable) {
+		this.invokable = invokable;
+	}
+
+	public long getCurrentWatermark() {
+		return currentWatermark;
+	}
+
+	@Override
+	public void eventOccurred(AbstractTaskEvent event) {
+		StreamWatermark watermark = (StreamWatermark) event;
+
+		Long channelWatermark = channelWatermarks.get(watermark.getSenderID());
+		if (channelWatermark == null || channelWatermark < watermark.getTimestamp()) {
+			channelWatermarks.put(watermark.getSenderID(), watermark.getTimestamp());
+		}
+
+		if (numberOfChannels < 0) {
+			numberOfChannels = 0;
+			for (InputGate<?> inputGate : inputGates) {
+				numberOfChannels += inputGate.getNumberOfChannels();
+			}
+		}
+
+		if (channelWatermarks.size() < numberOfChannels) {
+			return;
+		}
+
+		long minWatermark = Long.MAX_VALUE;
+		for (Long timestamp : channelWatermarks.values()) {
+			minWatermark = Math.min(minWatermark, timestamp);
+		}
+
+		if (minWatermark > currentWatermark) {
+			currentWatermark = minWatermark;
+			if (invokable != null) {
+				try {
+					invokable.processWatermark(minWatermark);
+				} catch (Exception e) {
+					throw new RuntimeException("Cannot process watermark " + minWatermark, e);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.state;
+
+import java.io.IOException;
+
+import org.apache.flink.api.common.typeutils.TypeComparator;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.core.memory.MemorySegment;
+
+/**
+ * Comparator checking records for equal keys. The keys are compared with
+ * {@link Object#equals} and hashed with {@link Object#hashCode}, like the keys
+ * of a {@link java.util.HashMap}, so the comparator only supports hashing and
+ * equality, not ordering.
+ * 
+ * @param <T>
+ *            The type of the records
+ */
+abstract class KeyEqualityComparator<T> extends TypeComparator<T> {
+
+	private static final long serialVersionUID = 1L;
+
+	private Object referenceKey;
+
+	/**
+	 * Returns the key of the given record.
+	 * 
+	 * @param record
+	 *            The record
+	 * @return The key of the record
+	 */
+	protected abstract Object getKey(T record);
+
+	@Override
+	public int hash(T record) {
+		return getKey(record).hashCode();
+	}
+
+	@Override
+	public void setReference(T toCompare) {
+		referenceKey = getKey(toCompare);
+	}
+
+	@Override
+	public boolean equalToReference(T candidate) {
+		return referenceKey.equals(getKey(candidate));
+	}
+
+	@Override
+	public int compareToReference(TypeComparator<T> referencedComparator) {
+		throw new UnsupportedOperationException("The keys have no order");
+	}
+
+	@Override
+	public int compare(T first, T second) {
+		throw new UnsupportedOperationException("The keys have no order");
+	}
+
+	@Override
+	public int compareSerialized(DataInputView firstSource, DataInputView secondSource)
+			throws IOException {
+		throw new UnsupportedOperationException("The keys have no order");
+	}
+
+	@Override
+	public boolean supportsNormalizedKey() {
+		return false;
+	}
+
+	@Override
+	public boolean supportsSerializationWithKeyNormalization() {
+		return false;
+	}
+
+	@Override
+	public int getNormalizeKeyLen() {
+		return 0;
+	}
+
+	@Override
+	public boolean isNormalizedKeyPrefixOnly(int keyBytes) {
+		return true;
+	}
+
+	@Override
+	public void putNormalizedKey(T record, MemorySegment target, int offset, int numBytes) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void writeWithKeyNormalization(T record, DataOutputView target) throws IOException {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public T readWithKeyDenormalization(T reuse, DataInputView source) throws IOException {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public boolean invertNormalizedKey() {
+		return false;
+	}
+
+	@Override
+	public int extractKeys(Object record, Object[] target, int index) {
+		@SuppressWarnings("unchecked")
+		T typedRecord = (T) record;
+		target[index] = getKey(typedRecord);
+		return 1;
+	}
+
+	@SuppressWarnings("rawtypes")
+	@Override
+	public TypeComparator[] getFlatComparators() {
+		return new TypeComparator[] { this };
+	}
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.state;
+
+import java.io.IOException;
+
+/**
+ * State of a grouped operator, holding one value for every key. The keys are
+ * the ones extracted by the
+ * {@link org.apache.flink.api.java.functions.KeySelector} of the operator.
+ * 
+ * @param <T>
+ *            The type of the values
+ */
+public interface KeyedState<T> {
+
+	/**
+	 * Returns the value stored for the given key.
+	 * 
+	 * @param key
+	 *            The key to look up
+	 * @return The stored value or null if the key has no value
+	 */
+	T get(Object key) throws IOException;
+
+	/**
+	 * Stores the given value for the given key, replacing the previous value
+	 * of the key.
+	 * 
+	 * @param key
+	 *            The key of the value
+	 * @param value
+	 *            The new value
+	 */
+	void put(Object key, T value) throws IOException;
+
+	/**
+	 * Drops all values and releases the resources of the state.
+	 */
+	void close();
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.state;
+
+import java.util.List;
+
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.runtime.io.disk.iomanager.IOManager;
+import org.apache.flink.runtime.jobgraph.tasks.AbstractInvokable;
+import org.apache.flink.runtime.memorymanager.MemoryAllocationException;
+import org.apache.flink.runtime.memorymanager.MemoryManager;
+
+/**
+ * Creates the {@link KeyedState}s of the operator of a streaming vertex. If
+ * the vertex has managed memory for its state, the states are
+ * {@link ManagedKeyedState}s sharing that memory, otherwise they are
+ * {@link HeapKeyedState}s.
+ */
+public class KeyedStateBackend {
+
+	private final AbstractInvokable owner;
+	private final MemoryManager memoryManager;
+	private final IOManager ioManager;
+	private final int numPages;
+
+	/**
+	 * Creates a backend for the states of a vertex
+	 * 
+	 * @param owner
+	 *            The vertex owning the memory of the states
+	 * @param memoryManager
+	 *            The memory manager of the vertex
+	 * @param ioManager
+	 *            The I/O manager spilling the values of the states
+	 * @param memorySize
+	 *            The managed memory of the states in bytes, 0 for states on
+	 *            the heap
+	 */
+	public KeyedStateBackend(AbstractInvokable owner, MemoryManager memoryManager,
+			IOManager ioManager, long memorySize) {
+		this.owner = owner;
+		this.memoryManager = memoryManager;
+		this.ioManager = ioManager;
+		this.numPages = memorySize > 0 ? (int) (memorySize / memoryManager.getPageSize()) : 0;
+	}
+
+	/**
+	 * Creates a keyed state
+	 * 
+	 * @param serializer
+	 *            The serializer of the values
+	 * @param memoryFraction
+	 *            The fraction of the memory of the vertex used by the state
+	 * @return The keyed state
+	 */
+	public <T> KeyedState<T> createKeyedState(TypeSerializer<T> serializer, double memoryFraction) {
+		if (numPages == 0) {
+			return new HeapKeyedState<T>();
+		}
+
+		List<MemorySegment> memory;
+		try {
+			memory = memoryManager.allocatePages(owner, (int) (numPages * memoryFraction));
+		} catch (MemoryAllocationException e) {
+			throw new RuntimeException("Cannot allocate the memory of the keyed state", e);
+		}
+		return new ManagedKeyedState<T>(serializer, memory, memoryManager, ioManager);
+	}
+}
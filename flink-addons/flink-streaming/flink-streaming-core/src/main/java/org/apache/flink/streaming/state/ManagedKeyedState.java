@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.state;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.flink.api.common.typeutils.TypePairComparator;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.api.java.typeutils.TypeExtractor;
+import org.apache.flink.api.java.typeutils.runtime.TupleSerializer;
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.runtime.io.disk.iomanager.IOManager;
+import org.apache.flink.runtime.memorymanager.MemoryManager;
+import org.apache.flink.runtime.operators.hash.AbstractHashTableProber;
+import org.apache.flink.runtime.operators.hash.CompactingHashTable;
+
+/**
+ * {@link KeyedState} holding the serialized keys and values in pages of the
+ * {@link MemoryManager}, in a {@link CompactingHashTable}. Once the pages are
+ * exhausted, the entries of the least recently used partitions of the table
+ * are spilled through the {@link IOManager} and read back when one of their
+ * keys is accessed again. The serializer of the keys is derived from the type
+ * of the first key stored.
+ * 
+ * @param <T>
+ *            The type of the values
+ */
+public class ManagedKeyedState<T> implements KeyedState<T> {
+
+	private final TypeSerializer<T> valueSerializer;
+	private final List<MemorySegment> memory;
+	private final MemoryManager memoryManager;
+	private final IOManager ioManager;
+
+	private TupleSerializer<Tuple2<Object, T>> entrySerializer;
+	private CompactingHashTable<Tuple2<Object, T>> table;
+	private AbstractHashTableProber<Object, Tuple2<Object, T>> prober;
+	private Tuple2<Object, T> entry;
+	private Tuple2<Object, T> tempHolder;
+
+	/**
+	 * Creates a keyed state on the given memory. The state owns the memory
+	 * until it is closed.
+	 * 
+	 * @param valueSerializer
+	 *            The serializer of the values
+	 * @param memory
+	 *            The pages holding the entries
+	 * @param memoryManager
+	 *            The memory manager the pages are released to
+	 * @param ioManager
+	 *            The I/O manager spilling the entries, null for a state
+	 *            failing when the memory is exhausted
+	 */
+	public ManagedKeyedState(TypeSerializer<T> valueSerializer, List<MemorySegment> memory,
+			MemoryManager memoryManager, IOManager ioManager) {
+		this.valueSerializer = valueSerializer;
+		this.memory = memory;
+		this.memoryManager = memoryManager;
+		this.ioManager = ioManager;
+	}
+
+	@Override
+	public T get(Object key) {
+		if (table == null) {
+			return null;
+		}
+		Tuple2<Object, T> match = prober.getMatchFor(key, entrySerializer.createInstance());
+		return match == null ? null : match.f1;
+	}
+
+	@Override
+	public void put(Object key, T value) throws IOException {
+		if (table == null) {
+			createTable(key);
+		}
+		entry.f0 = key;
+		entry.f1 = value;
+		table.insertOrReplaceRecord(entry, tempHolder);
+	}
+
+	@Override
+	public void close() {
+		if (table != null) {
+			table.close();
+			memoryManager.release(table.getFreeMemory());
+		} else {
+			memoryManager.release(memory);
+		}
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private void createTable(Object key) {
+		TypeSerializer<?> keySerializer = TypeExtractor.getForObject(key).createSerializer();
+		entrySerializer = new TupleSerializer<Tuple2<Object, T>>((Class) Tuple2.class,
+				new TypeSerializer<?>[] { keySerializer, valueSerializer });
+		entry = entrySerializer.createInstance();
+		tempHolder = entrySerializer.createInstance();
+
+		table = new CompactingHashTable<Tuple2<Object, T>>(entrySerializer,
+				new EntryComparator<T>(), memory, ioManager);
+		table.open();
+		prober = table.getProber(new KeyComparator(), new EntryPairComparator<T>());
+	}
+
+	private static class KeyComparator extends KeyEqualityComparator<Object> {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected Object getKey(Object key) {
+			return key;
+		}
+
+		@Override
+		public KeyComparator duplicate() {
+			return new KeyComparator();
+		}
+	}
+
+	private static class EntryComparator<T> extends KeyEqualityComparator<Tuple2<Object, T>> {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected Object getKey(Tuple2<Object, T> entry) {
+			return entry.f0;
+		}
+
+		@Override
+		public EntryComparator<T> duplicate() {
+			return new EntryComparator<T>();
+		}
+	}
+
+	private static class EntryPairComparator<T> extends
+			TypePairComparator<Object, Tuple2<Object, T>> {
+
+		private Object referenceKey;
+
+		@Override
+		public void setReference(Object reference) {
+			referenceKey = reference;
+		}
+
+		@Override
+		public boolean equalToReference(Tuple2<Object, T> candidate) {
+			return referenceKey.equals(candidate.f0);
+		}
+
+		@Override
+		public int compareToReference(Tuple2<Object, T> candidate) {
+			throw new UnsupportedOperationException("The keys have no order");
+		}
+	}
+}
@@ -34,7 +34,9 @@ import org.apache.flink.streaming.state.checkpoint.StateCheckpoint;
  * of the state. The entries in the map should only be modified by using the
  * dedicated methods: {@link #put(Object, Object)},{@link #remove(Object)},
  * {@link #putAll(Map)} and {@link #clear}. Directly modifying the the entryset
- * will cause errors when checkpointing.
+ * will cause errors when checkpointing. As checkpoints share the values with
+ * the map, a value must not be modified in place after it has been put: put a
+ * changed copy instead.
  *
  * @param <K>
  *            The type of the keys.
@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.state.checkpoint;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import org.apache.flink.core.fs.FileStatus;
+import org.apache.flink.core.fs.FileSystem;
+import org.apache.flink.core.fs.Path;
+import org.apache.flink.util.InstantiationUtil;
+
+/**
+ * {@link StateStore} writing the snapshots to a {@link FileSystem}, the local
+ * file system or any other one supported by Flink. Every task has a directory
+ * under the base path, holding a file per snapshot, numbered in the order the
+ * snapshots were stored. A snapshot is written to a temporary file first and
+ * renamed when it is complete, so a failure while writing does not leave a
+ * partial snapshot behind.
+ */
+public class FileSystemStateStore implements StateStore {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final String SNAPSHOT_PREFIX = "snapshot-";
+	private static final String TEMP_SUFFIX = ".tmp";
+
+	private final String basePath;
+
+	// number of the last snapshot of each task
+	private transient Map<String, Long> snapshotNumbers;
+
+	/**
+	 * Creates a store writing under the given path
+	 * 
+	 * @param basePath
+	 *            The path of the directory of the snapshots, for example
+	 *            "file:///tmp/snapshots"
+	 */
+	public FileSystemStateStore(String basePath) {
+		this.basePath = basePath;
+	}
+
+	@Override
+	public void store(String owner, long checkpointId, Map<String, byte[]> checkpoints)
+			throws IOException {
+		Path directory = new Path(basePath, owner);
+		FileSystem fs = directory.getFileSystem();
+
+		write(fs, directory, nextSnapshotNumber(fs, directory, owner), checkpointId, checkpoints);
+	}
+
+	@Override
+	public Map<String, StateCheckpoint<?>> restore(String owner, ClassLoader classLoader)
+			throws IOException {
+		Path directory = new Path(basePath, owner);
+		FileSystem fs = directory.getFileSystem();
+
+		Map<String, StateCheckpoint<?>> folded = new LinkedHashMap<String, StateCheckpoint<?>>();
+		for (Path snapshot : listSnapshots(fs, directory).values()) {
+			fold(folded, read(fs, snapshot, classLoader));
+		}
+		return folded;
+	}
+
+	@Override
+	public void compact(String owner, ClassLoader classLoader) throws IOException {
+		Path directory = new Path(basePath, owner);
+		FileSystem fs = directory.getFileSystem();
+
+		TreeMap<Long, Path> snapshots = listSnapshots(fs, directory);
+		if (snapshots.size() < 2) {
+			return;
+		}
+
+		Map<String, StateCheckpoint<?>> folded = new LinkedHashMap<String, StateCheckpoint<?>>();
+		long checkpointId = 0;
+		for (Path snapshot : snapshots.values()) {
+			checkpointId = fold(folded, read(fs, snapshot, classLoader));
+		}
+
+		Map<String, byte[]> serialized = new HashMap<String, byte[]>();
+		for (Entry<String, StateCheckpoint<?>> checkpoint : folded.entrySet()) {
+			serialized.put(checkpoint.getKey(),
+					InstantiationUtil.serializeObject(checkpoint.getValue()));
+		}
+
+		// the compacted snapshot is complete before the old ones are deleted
+		write(fs, directory, nextSnapshotNumber(fs, directory, owner), checkpointId, serialized);
+		for (Path snapshot : snapshots.values()) {
+			fs.delete(snapshot, false);
+		}
+	}
+
+	private long nextSnapshotNumber(FileSystem fs, Path directory, String owner)
+			throws IOException {
+		if (snapshotNumbers == null) {
+			snapshotNumbers = new HashMap<String, Long>();
+		}
+
+		Long last = snapshotNumbers.get(owner);
+		if (last == null) {
+			TreeMap<Long, Path> snapshots = listSnapshots(fs, directory);
+			last = snapshots.isEmpty() ? 0L : snapshots.lastKey();
+		}
+		snapshotNumbers.put(owner, last + 1);
+		return last + 1;
+	}
+
+	private TreeMap<Long, Path> listSnapshots(FileSystem fs, Path directory) throws IOException {
+		TreeMap<Long, Path> snapshots = new TreeMap<Long, Path>();
+		if (!fs.exists(directory)) {
+			return snapshots;
+		}
+
+		for (FileStatus status : fs.listStatus(directory)) {
+			String name = status.getPath().getName();
+			if (name.startsWith(SNAPSHOT_PREFIX) && !name.endsWith(TEMP_SUFFIX)) {
+				try {
+					snapshots.put(Long.parseLong(name.substring(SNAPSHOT_PREFIX.length())),
+							status.getPath());
+				} catch (NumberFormatException e) {
+					// not a snapshot
+				}
+			}
+		}
+		return snapshots;
+	}
+
+	private void write(FileSystem fs, Path directory, long snapshotNumber, long checkpointId,
+			Map<String, byte[]> checkpoints) throws IOException {
+		Path snapshot = new Path(directory, SNAPSHOT_PREFIX + snapshotNumber);
+		Path temp = new Path(directory, SNAPSHOT_PREFIX + snapshotNumber + TEMP_SUFFIX);
+
+		DataOutputStream out = new DataOutputStream(fs.create(temp, true));
+		try {
+			out.writeLong(checkpointId);
+			out.writeInt(checkpoints.size());
+			for (Entry<String, byte[]> checkpoint : checkpoints.entrySet()) {
+				out.writeUTF(checkpoint.getKey());
+				out.writeInt(checkpoint.getValue().length);
+				out.write(checkpoint.getValue());
+			}
+		} finally {
+			out.close();
+		}
+
+		if (!fs.rename(temp, snapshot)) {
+			throw new IOException("Cannot rename " + temp + " to " + snapshot);
+		}
+	}
+
+	private Snapshot read(FileSystem fs, Path path, ClassLoader classLoader) throws IOException {
+		DataInputStream in = new DataInputStream(fs.open(path));
+		try {
+			Snapshot snapshot = new Snapshot();
+			snapshot.checkpointId = in.readLong();
+
+			int numberOfStates = in.readInt();
+			for (int i = 0; i < numberOfStates; i++) {
+				String name = in.readUTF();
+				byte[] bytes = new byte[in.readInt()];
+				in.readFully(bytes);
+				snapshot.checkpoints.put(name,
+						(StateCheckpoint<?>) InstantiationUtil.deserializeObject(bytes, classLoader));
+			}
+			return snapshot;
+		} catch (ClassNotFoundException e) {
+			throw new IOException("Cannot deserialize the snapshot " + path, e);
+		} finally {
+			in.close();
+		}
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private long fold(Map<String, StateCheckpoint<?>> folded, Snapshot snapshot) {
+		for (Entry<String, StateCheckpoint<?>> checkpoint : snapshot.checkpoints.entrySet()) {
+			StateCheckpoint previous = folded.get(checkpoint.getKey());
+			if (previous == null) {
+				folded.put(checkpoint.getKey(), checkpoint.getValue());
+			} else {
+				previous.update((StateCheckpoint) checkpoint.getValue());
+			}
+		}
+		return snapshot.checkpointId;
+	}
+
+	private static class Snapshot {
+		long checkpointId;
+		Map<String, StateCheckpoint<?>> checkpoints = new HashMap<String, StateCheckpoint<?>>();
+	}
+}
@@ -18,6 +18,7 @@
 package org.apache.flink.streaming.state.checkpoint;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
@@ -37,9 +38,12 @@ public class MapCheckpoint<K, V> extends StateCheckpoint<Map<K, V>> {
 		if (operatorState instanceof MapState) {
 			MapState<K, V> mapState = (MapState<K, V>) operatorState;
 
-			this.removedItems = mapState.getRemovedItems();
+			// copied, as the history of the state is reset after the checkpoint
+			this.removedItems = new HashSet<K>(mapState.getRemovedItems());
 			this.clear = mapState.isCleared();
 
+			// the values are shared with the state, which is updated
+			// copy-on-write, so the checkpoint can be serialized later
 			this.updatedItems = new HashMap<K, V>();
 			for (K key : mapState.getUpdatedItems()) {
 				this.updatedItems.put(key, mapState.get(key));
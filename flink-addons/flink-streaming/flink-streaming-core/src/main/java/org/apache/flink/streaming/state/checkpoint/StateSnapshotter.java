@@ -0,0 +1,241 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.state.checkpoint;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.flink.streaming.state.MapState;
+import org.apache.flink.streaming.state.OperatorState;
+import org.apache.flink.util.InstantiationUtil;
+import org.apache.flink.util.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Snapshots the {@link OperatorState}s of a task into a {@link StateStore}.
+ * The task thread only takes the {@link StateCheckpoint}s of the states, which
+ * are shallow copies: a {@link MapState} checkpoint holds a copy of the
+ * entries changed since the last snapshot, other checkpoints hold the current
+ * state object. Serializing and writing the snapshot happens on a separate
+ * thread, so neither a large state nor a slow store stalls the processing.
+ * Every few snapshots the store is compacted, so that a restore does not have
+ * to fold all increments since the start.
+ * 
+ * As the checkpoints share the state objects with the task, the states must
+ * be updated copy-on-write: a changed value is put or set as a new object
+ * instead of being modified in place.
+ * 
+ * As the increments of a snapshot are only contained in that snapshot, a
+ * snapshot that cannot be stored stops the snapshotting of the task.
+ */
+public class StateSnapshotter {
+
+	private static final Logger LOG = LoggerFactory.getLogger(StateSnapshotter.class);
+
+	/**
+	 * Number of snapshots after which the store is compacted
+	 */
+	public static final int COMPACTION_INTERVAL = 10;
+
+	/**
+	 * Time in minutes to wait for the pending snapshots on closing
+	 */
+	public static final long CLOSE_TIMEOUT_MINUTES = 5;
+
+	private final String owner;
+	private final Map<String, OperatorState<?>> states;
+	private final StateStore store;
+	private final ClassLoader classLoader;
+	private final ScheduledExecutorService executor;
+
+	private volatile boolean barrierDue;
+	private long nextCheckpointId = 1;
+
+	// accessed by the snapshotting thread only
+	private int snapshotsSinceCompaction;
+
+	private volatile boolean failed;
+
+	/**
+	 * Creates a snapshotter for the states of a task
+	 * 
+	 * @param owner
+	 *            Name identifying the task in the store, the same for the
+	 *            task after a restart of the job
+	 * @param states
+	 *            The states of the task by their names, may be
+	 *            <code>null</code>
+	 * @param store
+	 *            The store of the snapshots
+	 * @param classLoader
+	 *            Class loader of the user code
+	 */
+	public StateSnapshotter(String owner, Map<String, OperatorState<?>> states, StateStore store,
+			ClassLoader classLoader) {
+		this.owner = owner;
+		this.states = states;
+		this.store = store;
+		this.classLoader = classLoader;
+		this.executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "State snapshotter");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Restores the states from the snapshots in the store, if there are any
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void restore() throws IOException {
+		if (states == null || states.isEmpty()) {
+			return;
+		}
+
+		Map<String, StateCheckpoint<?>> checkpoints = store.restore(owner, classLoader);
+		for (Entry<String, StateCheckpoint<?>> checkpoint : checkpoints.entrySet()) {
+			OperatorState state = states.get(checkpoint.getKey());
+			if (state != null) {
+				state.restore((StateCheckpoint) checkpoint.getValue());
+			}
+		}
+
+		if (!checkpoints.isEmpty() && LOG.isInfoEnabled()) {
+			LOG.info("Restored states {} of {}", checkpoints.keySet(), owner);
+		}
+	}
+
+	/**
+	 * Makes a checkpoint barrier due in every interval, for the sources
+	 * 
+	 * @param interval
+	 *            The interval in milliseconds
+	 */
+	public void startBarrierTimer(long interval) {
+		executor.scheduleAtFixedRate(new Runnable() {
+			@Override
+			public void run() {
+				barrierDue = true;
+			}
+		}, interval, interval, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Checks whether a source should emit a checkpoint barrier
+	 * 
+	 * @return <code>true</code> if a barrier is due, the next call returns
+	 *         <code>false</code> until the next interval
+	 */
+	public boolean pollBarrier() {
+		if (barrierDue) {
+			barrierDue = false;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the ID of the next checkpoint started by a source
+	 * 
+	 * @return The checkpoint ID
+	 */
+	public long nextCheckpointId() {
+		return nextCheckpointId++;
+	}
+
+	/**
+	 * Takes a snapshot of the states and stores it asynchronously. Must be
+	 * called by the task thread, between the processing of two records.
+	 * 
+	 * @param checkpointId
+	 *            The ID of the checkpoint
+	 */
+	public void snapshot(final long checkpointId) {
+		if (states == null || states.isEmpty() || failed) {
+			return;
+		}
+
+		final Map<String, StateCheckpoint<?>> checkpoints = new HashMap<String, StateCheckpoint<?>>();
+		for (Entry<String, OperatorState<?>> state : states.entrySet()) {
+			checkpoints.put(state.getKey(), state.getValue().checkpoint());
+		}
+
+		try {
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					if (failed) {
+						return;
+					}
+					try {
+						Map<String, byte[]> serialized = new HashMap<String, byte[]>();
+						for (Entry<String, StateCheckpoint<?>> checkpoint : checkpoints.entrySet()) {
+							serialized.put(checkpoint.getKey(),
+									InstantiationUtil.serializeObject(checkpoint.getValue()));
+						}
+						store.store(owner, checkpointId, serialized);
+
+						if (++snapshotsSinceCompaction >= COMPACTION_INTERVAL) {
+							store.compact(owner, classLoader);
+							snapshotsSinceCompaction = 0;
+						}
+					} catch (Exception e) {
+						fail(checkpointId, e);
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			// the snapshotter has been closed
+		}
+	}
+
+	private void fail(long checkpointId, Exception e) {
+		failed = true;
+		if (LOG.isErrorEnabled()) {
+			LOG.error("Snapshot {} of {} failed, no more snapshots are taken: {}", checkpointId,
+					owner, StringUtils.stringifyException(e));
+		}
+	}
+
+	/**
+	 * Stops the barrier timer and waits for the pending snapshots to be
+	 * stored. The snapshots not stored within {@link #CLOSE_TIMEOUT_MINUTES}
+	 * are dropped.
+	 */
+	public void close() throws InterruptedException {
+		executor.shutdown();
+		if (!executor.awaitTermination(CLOSE_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+			if (LOG.isWarnEnabled()) {
+				LOG.warn("The snapshots of {} were not stored within {} minutes, dropping them",
+						owner, CLOSE_TIMEOUT_MINUTES);
+			}
+			executor.shutdownNow();
+		}
+	}
+}
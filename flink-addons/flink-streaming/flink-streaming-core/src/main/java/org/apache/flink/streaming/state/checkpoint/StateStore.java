@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.state.checkpoint;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Map;
+
+import org.apache.flink.streaming.state.OperatorState;
+
+/**
+ * Stores the snapshots of the {@link OperatorState}s of the tasks. A snapshot
+ * of a task holds the serialized {@link StateCheckpoint} of each state of the
+ * task. The checkpoints may be incremental, so a state is restored by
+ * folding the checkpoints of all snapshots of the task in the order they were
+ * stored, using {@link StateCheckpoint#update(StateCheckpoint)}.
+ * 
+ * The store is shipped with the job, every task uses its own copy. It is only
+ * called by the snapshotting thread of the task.
+ */
+public interface StateStore extends Serializable {
+
+	/**
+	 * Stores a snapshot of the states of a task
+	 * 
+	 * @param owner
+	 *            Name identifying the task
+	 * @param checkpointId
+	 *            ID of the checkpoint the snapshot belongs to
+	 * @param checkpoints
+	 *            The serialized checkpoint of each state by the name of the
+	 *            state
+	 */
+	void store(String owner, long checkpointId, Map<String, byte[]> checkpoints)
+			throws IOException;
+
+	/**
+	 * Restores the states of a task by folding all of its stored snapshots
+	 * 
+	 * @param owner
+	 *            Name identifying the task
+	 * @param classLoader
+	 *            Class loader of the user code, to deserialize the checkpoints
+	 * @return The checkpoint of each state by the name of the state, empty if
+	 *         no snapshot has been stored
+	 */
+	Map<String, StateCheckpoint<?>> restore(String owner, ClassLoader classLoader)
+			throws IOException;
+
+	/**
+	 * Replaces the stored snapshots of a task by a single one, so that
+	 * restoring the states does not need to read all increments
+	 * 
+	 * @param owner
+	 *            Name identifying the task
+	 * @param classLoader
+	 *            Class loader of the user code, to deserialize the checkpoints
+	 */
+	void compact(String owner, ClassLoader classLoader) throws IOException;
+}
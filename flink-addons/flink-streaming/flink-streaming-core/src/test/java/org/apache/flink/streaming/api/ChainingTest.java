@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.flink.api.common.functions.FilterFunction;
+import org.apache.flink.api.common.functions.FlatMapFunction;
+import org.apache.flink.api.common.functions.MapFunction;
+import org.apache.flink.streaming.api.environment.LocalStreamEnvironment;
+import org.apache.flink.streaming.api.environment.StreamExecutionEnvironment;
+import org.apache.flink.streaming.api.function.sink.SinkFunction;
+import org.apache.flink.util.Collector;
+import org.junit.Test;
+
+public class ChainingTest {
+
+	private static final long MEMORYSIZE = 32;
+
+	private static List<Long> result = new ArrayList<Long>();
+
+	private static class Doubler implements MapFunction<Long, Long> {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public Long map(Long value) throws Exception {
+			return 2 * value;
+		}
+	}
+
+	private static class DivisibleByFour implements FilterFunction<Long> {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public boolean filter(Long value) throws Exception {
+			return value % 4 == 0;
+		}
+	}
+
+	private static class Duplicator implements FlatMapFunction<Long, Long> {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public void flatMap(Long value, Collector<Long> out) throws Exception {
+			out.collect(value);
+			out.collect(value + 1);
+		}
+	}
+
+	private static class ResultSink implements SinkFunction<Long> {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public void invoke(Long value) {
+			result.add(value);
+		}
+	}
+
+	private static void createTopology(StreamExecutionEnvironment env) {
+		env.generateSequence(1, 10).map(new Doubler()).filter(new DivisibleByFour())
+				.flatMap(new Duplicator()).addSink(new ResultSink());
+	}
+
+	@Test
+	public void chainingTest() throws Exception {
+		LocalStreamEnvironment env = StreamExecutionEnvironment.createLocalEnvironment(1);
+		createTopology(env);
+
+		// the map, filter and flatMap are chained to the source
+		assertEquals(2, env.getJobGraphBuilder().getJobGraph().getNumberOfVertices());
+
+		env = StreamExecutionEnvironment.createLocalEnvironment(1);
+		createTopology(env);
+
+		result.clear();
+		env.executeTest(MEMORYSIZE);
+
+		List<Long> expected = new ArrayList<Long>();
+		for (long i = 4; i <= 20; i += 4) {
+			expected.add(i);
+			expected.add(i + 1);
+		}
+		Collections.sort(result);
+		assertEquals(expected, result);
+	}
+
+	@Test
+	public void disabledChainingTest() throws Exception {
+		LocalStreamEnvironment env = StreamExecutionEnvironment.createLocalEnvironment(1);
+		env.disableOperatorChaining();
+		createTopology(env);
+
+		assertEquals(5, env.getJobGraphBuilder().getJobGraph().getNumberOfVertices());
+	}
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.flink.api.common.functions.ReduceFunction;
+import org.apache.flink.streaming.api.environment.LocalStreamEnvironment;
+import org.apache.flink.streaming.api.environment.StreamExecutionEnvironment;
+import org.apache.flink.streaming.api.function.sink.SinkFunction;
+import org.apache.flink.streaming.api.invokable.util.TimeStamp;
+import org.apache.flink.streaming.api.windowing.helper.Time;
+import org.junit.Test;
+
+public class WatermarkTest {
+
+	private static final long MEMORYSIZE = 32;
+
+	private static List<Integer> result = new ArrayList<Integer>();
+
+	private static class ValueTimeStamp implements TimeStamp<Integer> {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public long getTimestamp(Integer value) {
+			return value;
+		}
+
+		@Override
+		public long getStartTime() {
+			return 0;
+		}
+	}
+
+	private static class Sum implements ReduceFunction<Integer> {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public Integer reduce(Integer value1, Integer value2) throws Exception {
+			return value1 + value2;
+		}
+	}
+
+	private static class ResultSink implements SinkFunction<Integer> {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public void invoke(Integer value) {
+			result.add(value);
+		}
+	}
+
+	@Test
+	public void windowsOnWatermarksTest() throws Exception {
+		LocalStreamEnvironment env = StreamExecutionEnvironment.createLocalEnvironment(1);
+
+		// the elements are out of order by at most 2 time units
+		env.fromElements(2, 1, 3, 6, 4, 5, 9, 7, 8, 10)
+				.assignWatermarks(new ValueTimeStamp(), 2)
+				.window(Time.of(3, new ValueTimeStamp()).withWatermarks()).reduce(new Sum())
+				.addSink(new ResultSink());
+
+		result.clear();
+		env.executeTest(MEMORYSIZE);
+
+		// [0,3), [3,6), [6,9), [9,12)
+		assertEquals(Arrays.asList(3, 12, 21, 19), result);
+	}
+}
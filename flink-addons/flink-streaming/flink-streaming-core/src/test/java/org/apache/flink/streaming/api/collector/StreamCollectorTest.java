@@ -18,15 +18,30 @@
 package org.apache.flink.streaming.api.collector;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
-import java.util.ArrayList;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
 
 import org.apache.flink.api.java.tuple.Tuple1;
+import org.apache.flink.runtime.AbstractID;
+import org.apache.flink.runtime.event.task.AbstractEvent;
+import org.apache.flink.runtime.io.network.api.RecordWriter;
 import org.apache.flink.runtime.plugable.SerializationDelegate;
+import org.apache.flink.streaming.api.streamrecord.StreamCheckpointBarrier;
 import org.apache.flink.streaming.api.streamrecord.StreamRecord;
+import org.apache.flink.streaming.api.streamrecord.StreamWatermark;
+import org.apache.flink.streaming.api.streamrecord.UID;
 import org.apache.flink.streaming.api.streamvertex.MockRecordWriter;
 import org.apache.flink.streaming.util.MockRecordWriterFactory;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 public class StreamCollectorTest {
 
@@ -47,6 +62,57 @@ public class StreamCollectorTest {
 		assertArrayEquals(new Integer[] { 3, 4, 5, 6 }, recWriter.emittedRecords.toArray());
 	}
 
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testSenderIDPerOutput() throws Exception {
+		RecordWriter<SerializationDelegate<StreamRecord<Tuple1<Integer>>>> output1 = mock(RecordWriter.class);
+		RecordWriter<SerializationDelegate<StreamRecord<Tuple1<Integer>>>> output2 = mock(RecordWriter.class);
+
+		StreamCollector<Tuple1<Integer>> collector = new StreamCollector<Tuple1<Integer>>(2, null);
+		collector.addOutput(output1, new ArrayList<String>(), false);
+		collector.addOutput(output2, new ArrayList<String>(), false);
+		collector.emitWatermark(5);
+		collector.emitCheckpointBarrier(1);
+
+		ArgumentCaptor<AbstractEvent> events1 = ArgumentCaptor.forClass(AbstractEvent.class);
+		ArgumentCaptor<AbstractEvent> events2 = ArgumentCaptor.forClass(AbstractEvent.class);
+		verify(output1, times(2)).broadcastEvent(events1.capture());
+		verify(output2, times(2)).broadcastEvent(events2.capture());
+
+		StreamWatermark watermark1 = (StreamWatermark) events1.getAllValues().get(0);
+		StreamCheckpointBarrier barrier1 = (StreamCheckpointBarrier) events1.getAllValues().get(1);
+		StreamWatermark watermark2 = (StreamWatermark) events2.getAllValues().get(0);
+
+		// a receiver reading both outputs on different gates must see two channels
+		assertFalse(watermark1.getSenderID().equals(watermark2.getSenderID()));
+		assertEquals(watermark1.getSenderID(), barrier1.getSenderID());
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testRecordIdsOfSubtasksOnDifferentTaskManagers() throws Exception {
+		AbstractID vertexID = new AbstractID();
+		Set<UID> ids = new HashSet<UID>();
+
+		// the instance IDs are counted per JVM, so two subtasks of the same
+		// vertex on different TaskManagers may well get the same one
+		for (int subtask = 0; subtask < 2; subtask++) {
+			SerializationDelegate<StreamRecord<Tuple1<Integer>>> sd = new SerializationDelegate<StreamRecord<Tuple1<Integer>>>(
+					null);
+			sd.setInstance(new StreamRecord<Tuple1<Integer>>().setObject(new Tuple1<Integer>()));
+
+			StreamCollector<Tuple1<Integer>> collector = new StreamCollector<Tuple1<Integer>>(1, sd);
+			collector.addOutput(mock(RecordWriter.class), new ArrayList<String>(), false);
+			collector.enableRecordIds(vertexID, subtask);
+
+			for (int i = 0; i < 3; i++) {
+				collector.collect(new Tuple1<Integer>(i));
+				assertTrue(ids.add(sd.getInstance().getId().copy()));
+			}
+		}
+		assertEquals(6, ids.size());
+	}
+
 	@Test
 	public void testClose() {
 	}
@@ -18,6 +18,7 @@
 package org.apache.flink.streaming.api.invokable.operator;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
@@ -28,6 +29,7 @@ import java.util.List;
 import org.apache.flink.api.common.functions.ReduceFunction;
 import org.apache.flink.api.java.functions.KeySelector;
 import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.streaming.api.invokable.util.DefaultTimeStamp;
 import org.apache.flink.streaming.api.invokable.util.TimeStamp;
 import org.apache.flink.streaming.api.windowing.policy.ActiveCloneableEvictionPolicyWrapper;
 import org.apache.flink.streaming.api.windowing.policy.CloneableEvictionPolicy;
@@ -564,4 +566,54 @@ public class GroupedWindowInvokableTest {
 		assertEquals(expected.size(), result.size());
 	}
 
+
+	/**
+	 * Test that the groups of distributed time triggers share the timer thread
+	 * of the invokable instead of starting a thread each
+	 */
+	@Test
+	public void testGroupedWindowInvokableSharedTimer() {
+		final int numKeys = 500;
+		List<Integer> inputs = new ArrayList<Integer>();
+		for (int i = 0; i < numKeys; i++) {
+			inputs.add(i);
+		}
+
+		LinkedList<CloneableTriggerPolicy<Integer>> triggers = new LinkedList<CloneableTriggerPolicy<Integer>>();
+		triggers.add(new TimeTriggerPolicy<Integer>(60000, new DefaultTimeStamp<Integer>()));
+
+		LinkedList<CloneableEvictionPolicy<Integer>> evictions = new LinkedList<CloneableEvictionPolicy<Integer>>();
+		evictions.add(new TumblingEvictionPolicy<Integer>());
+
+		final int initialThreads = Thread.activeCount();
+		final int[] maxThreads = { initialThreads };
+
+		KeySelector<Integer, Integer> keySelector = new KeySelector<Integer, Integer>() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public Integer getKey(Integer value) {
+				maxThreads[0] = Math.max(maxThreads[0], Thread.activeCount());
+				return value;
+			}
+		};
+
+		GroupedWindowInvokable<Integer, Integer> invokable = new GroupedWindowInvokable<Integer, Integer>(
+				new ReduceFunction<Integer>() {
+					private static final long serialVersionUID = 1L;
+
+					@Override
+					public Integer reduce(Integer value1, Integer value2) throws Exception {
+						return value1 + value2;
+					}
+				}, keySelector, triggers, evictions, new LinkedList<TriggerPolicy<Integer>>(),
+				null);
+
+		List<Integer> result = MockInvokable.createAndExecute(invokable, inputs);
+
+		// every group emits its element at the end of the stream
+		assertEquals(new HashSet<Integer>(inputs), new HashSet<Integer>(result));
+		assertTrue("Too many threads were started: " + (maxThreads[0] - initialThreads),
+				maxThreads[0] - initialThreads < 10);
+	}
 }
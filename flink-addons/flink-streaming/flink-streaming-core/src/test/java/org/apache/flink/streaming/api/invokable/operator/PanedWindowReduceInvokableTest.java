@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.invokable.operator;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.apache.flink.api.common.functions.ReduceFunction;
+import org.apache.flink.streaming.api.invokable.util.TimeStamp;
+import org.apache.flink.streaming.api.windowing.policy.CountEvictionPolicy;
+import org.apache.flink.streaming.api.windowing.policy.CountTriggerPolicy;
+import org.apache.flink.streaming.api.windowing.policy.EvictionPolicy;
+import org.apache.flink.streaming.api.windowing.policy.TriggerPolicy;
+import org.apache.flink.streaming.api.windowing.policy.TumblingEvictionPolicy;
+import org.apache.flink.streaming.util.MockInvokable;
+import org.junit.Test;
+
+public class PanedWindowReduceInvokableTest {
+
+	private static class MySum implements ReduceFunction<Integer> {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public Integer reduce(Integer value1, Integer value2) throws Exception {
+			return value1 + value2;
+		}
+	}
+
+	@Test
+	public void testCountWindows() {
+		List<Integer> inputs = new ArrayList<Integer>();
+		for (Integer i = 1; i <= 60; i++) {
+			inputs.add(i);
+		}
+
+		// the results have to be the same as the ones of the policy based
+		// windows, for sliding and tumbling windows
+		int[][] sizes = { { 6, 4 }, { 5, 3 }, { 4, 6 }, { 1, 3 }, { 3, 3 }, { 60, 1 } };
+		for (int[] size : sizes) {
+			int windowSize = size[0];
+			int slideSize = size[1];
+
+			LinkedList<TriggerPolicy<Integer>> triggers = new LinkedList<TriggerPolicy<Integer>>();
+			triggers.add(new CountTriggerPolicy<Integer>(slideSize));
+			LinkedList<EvictionPolicy<Integer>> evictions = new LinkedList<EvictionPolicy<Integer>>();
+			if (windowSize == slideSize) {
+				evictions.add(new TumblingEvictionPolicy<Integer>());
+			} else {
+				evictions.add(new CountEvictionPolicy<Integer>(windowSize));
+			}
+
+			List<Integer> expected = MockInvokable.createAndExecute(
+					new WindowReduceInvokable<Integer>(new MySum(), triggers, evictions), inputs);
+			List<Integer> result = MockInvokable.createAndExecute(
+					new PanedWindowReduceInvokable<Integer>(new MySum(), windowSize, slideSize),
+					inputs);
+
+			assertEquals("Window size " + windowSize + ", slide size " + slideSize, expected,
+					result);
+		}
+	}
+
+	@Test
+	public void testTimeWindows() {
+		List<Integer> inputs = Arrays.asList(1, 2, 2, 3, 4, 5, 10, 11, 11, 20);
+
+		TimeStamp<Integer> myTimeStamp = new TimeStamp<Integer>() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public long getTimestamp(Integer value) {
+				return value;
+			}
+
+			@Override
+			public long getStartTime() {
+				return 1;
+			}
+		};
+
+		// windows of 4 time units every 2 time units, the first one ending at
+		// 5: [1,5), [3,7), [5,9), [7,11), [9,13), [11,15), the ones up to 19
+		// are empty, [17,21) at the end
+		List<Integer> expected = Arrays.asList(12, 12, 5, 10, 32, 22, 20);
+		List<Integer> result = MockInvokable.createAndExecute(
+				new PanedWindowReduceInvokable<Integer>(new MySum(), 4, 2, myTimeStamp, 2),
+				inputs);
+		assertEquals(expected, result);
+
+		// tumbling windows of 3 time units: [1,4), [4,7), [10,13), [19,22)
+		expected = Arrays.asList(8, 9, 32, 20);
+		result = MockInvokable.createAndExecute(new PanedWindowReduceInvokable<Integer>(
+				new MySum(), 3, 3, myTimeStamp, 0), inputs);
+		assertEquals(expected, result);
+	}
+
+	@Test
+	public void testWindowsOnWatermarks() throws Exception {
+		TimeStamp<Integer> myTimeStamp = new TimeStamp<Integer>() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public long getTimestamp(Integer value) {
+				return value;
+			}
+
+			@Override
+			public long getStartTime() {
+				return 0;
+			}
+		};
+
+		// windows of 4 time units every 2 time units, with panes of 2 time
+		// units
+		PanedWindowReduceInvokable<Integer> invokable = new PanedWindowReduceInvokable<Integer>(
+				new MySum(), 4, 2, myTimeStamp, 0, true);
+		MockInvokable<Integer, Integer> mock = new MockInvokable<Integer, Integer>(
+				Arrays.asList(1));
+		invokable.initialize(mock.getCollector(), mock.getIterator(), mock.getInDeserializer(),
+				false);
+		invokable.open(null);
+
+		// the elements arrive out of order, the windows are emitted on the
+		// watermarks only
+		invokable.processElement(3);
+		invokable.processElement(1);
+		assertEquals(0, mock.getOutputs().size());
+
+		// [-2,2)
+		invokable.processWatermark(2);
+		assertEquals(Arrays.asList(1), mock.getOutputs());
+
+		invokable.processElement(2);
+		invokable.processElement(6);
+
+		// [0,4)
+		invokable.processWatermark(5);
+		assertEquals(Arrays.asList(1, 6), mock.getOutputs());
+
+		// the pane of 0 is already evicted, the element is dropped
+		invokable.processElement(0);
+		invokable.processElement(4);
+
+		// [2,6), [4,8), [6,10)
+		invokable.processWatermark(100);
+		assertEquals(Arrays.asList(1, 6, 9, 10, 6), mock.getOutputs());
+
+		invokable.processElement(7);
+		invokable.emitAllWindows();
+		assertEquals(Arrays.asList(1, 6, 9, 10, 6), mock.getOutputs());
+
+		// all windows with elements are emitted at the end of the stream
+		List<Integer> result = MockInvokable.createAndExecute(new PanedWindowReduceInvokable<Integer>(
+				new MySum(), 4, 2, myTimeStamp, 0, true), Arrays.asList(5, 1));
+		assertEquals(Arrays.asList(1, 1, 5, 5), result);
+	}
+}
@@ -17,37 +17,76 @@
 
 package org.apache.flink.streaming.api.streamrecord;
 
-import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
 
+import org.apache.flink.api.common.typeinfo.BasicTypeInfo;
+import org.apache.flink.runtime.AbstractID;
 import org.apache.flink.runtime.io.network.serialization.DataInputDeserializer;
 import org.apache.flink.runtime.io.network.serialization.DataOutputSerializer;
 import org.junit.Test;
 
 public class UIDTest {
 
-	//TODO fix with matching DataOutputStream and DataOutputView
 	@Test
 	public void test() throws IOException {
 		DataOutputSerializer out = new DataOutputSerializer(64);
-		
-		UID id = new UID(3);
+
+		UID id = new UID(new AbstractID(), 3, 42);
 		id.write(out);
+		assertEquals(UID.LENGTH, out.length());
 
 		ByteBuffer buff = out.wrapAsByteBuffer();
 
-		
 		DataInputDeserializer in = new DataInputDeserializer(buff);
-		
+
 		UID id2 = new UID();
 		id2.read(in);
 
-		assertEquals(id.getChannelId(), id2.getChannelId());
-		assertArrayEquals(id.getGeneratedId(), id2.getGeneratedId());
-		assertArrayEquals(id.getId(), id2.getId());
+		assertEquals(id.getVertexId(), id2.getVertexId());
+		assertEquals(id.getSubtaskIndex(), id2.getSubtaskIndex());
+		assertEquals(id.getSequenceNumber(), id2.getSequenceNumber());
+		assertEquals(id, id2);
+		assertEquals(id.hashCode(), id2.hashCode());
+	}
+
+	@Test
+	public void testIdsOfDifferentProducersDiffer() {
+		AbstractID vertex = new AbstractID();
+
+		assertFalse(new UID(vertex, 0, 5).equals(new UID(vertex, 1, 5)));
+		assertFalse(new UID(vertex, 0, 5).equals(new UID(new AbstractID(), 0, 5)));
+		assertEquals(new UID(vertex, 0, 5), new UID(new AbstractID(vertex), 0, 5));
 	}
 
+	@Test
+	public void testRecordIds() throws IOException {
+		StreamRecordSerializer<Integer> serializer = new StreamRecordSerializer<Integer>(
+				BasicTypeInfo.INT_TYPE_INFO);
+		StreamRecord<Integer> record = new StreamRecord<Integer>().setObject(5);
+
+		// by default only the object is serialized
+		DataOutputSerializer out = new DataOutputSerializer(64);
+		serializer.serialize(record, out);
+		assertEquals(4, out.length());
+		StreamRecord<Integer> copy = serializer.deserialize(new DataInputDeserializer(out
+				.wrapAsByteBuffer()));
+		assertEquals(5, (int) copy.getObject());
+		assertNull(copy.getId());
+
+		serializer.setRecordIds(true);
+		AbstractID vertex = new AbstractID();
+		record.newId(vertex, 3, 7);
+		out.clear();
+		serializer.serialize(record, out);
+		assertEquals(UID.LENGTH + 4, out.length());
+		copy = serializer.deserialize(serializer.createInstance(), new DataInputDeserializer(
+				out.wrapAsByteBuffer()));
+		assertEquals(5, (int) copy.getObject());
+		assertEquals(new UID(vertex, 3, 7), copy.getId());
+	}
 }
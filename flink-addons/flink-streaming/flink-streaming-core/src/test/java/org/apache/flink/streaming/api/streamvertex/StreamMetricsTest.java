@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.streamvertex;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.flink.api.common.accumulators.Accumulator;
+import org.apache.flink.runtime.accumulators.AccumulatorEvent;
+import org.apache.flink.runtime.jobgraph.JobID;
+import org.apache.flink.runtime.protocols.AccumulatorProtocol;
+import org.apache.flink.streaming.api.collector.StreamCollector;
+import org.apache.flink.streaming.api.streamrecord.StreamLatencyMarker;
+import org.apache.flink.streaming.io.LatencyMarkerForwarder;
+import org.junit.Test;
+
+public class StreamMetricsTest {
+
+	private static class MockJobManager implements AccumulatorProtocol {
+
+		List<Map<String, Accumulator<?, ?>>> reports = new ArrayList<Map<String, Accumulator<?, ?>>>();
+
+		@Override
+		public void reportAccumulatorResult(AccumulatorEvent accumulatorEvent) throws IOException {
+			reports.add(accumulatorEvent.getAccumulators(getClass().getClassLoader()));
+		}
+
+		@Override
+		public AccumulatorEvent getAccumulatorResults(JobID jobID) throws IOException {
+			return null;
+		}
+	}
+
+	@Test
+	public void testBuckets() {
+		assertEquals(0, StreamMetrics.bucket(-5));
+		assertEquals(0, StreamMetrics.bucket(0));
+		assertEquals(1, StreamMetrics.bucket(1));
+		assertEquals(2, StreamMetrics.bucket(2));
+		assertEquals(4, StreamMetrics.bucket(3));
+		assertEquals(4, StreamMetrics.bucket(4));
+		assertEquals(8, StreamMetrics.bucket(5));
+		assertEquals(1024, StreamMetrics.bucket(1000));
+		assertEquals(1 << 30, StreamMetrics.bucket(Long.MAX_VALUE));
+	}
+
+	@Test
+	public void testReportsDeltas() throws Exception {
+		MockJobManager jobManager = new MockJobManager();
+		StreamMetrics metrics = new StreamMetrics("map", 1000000, new JobID(), jobManager);
+
+		for (int i = 0; i < 5; i++) {
+			metrics.recordIn();
+		}
+		metrics.recordOut();
+		metrics.addLatency(3);
+		metrics.addLatency(4);
+		metrics.report();
+
+		metrics.recordIn();
+		metrics.stop();
+
+		assertEquals(2, jobManager.reports.size());
+
+		Map<String, Accumulator<?, ?>> first = jobManager.reports.get(0);
+		assertEquals(5L, first.get("map records in").getLocalValue());
+		assertEquals(1L, first.get("map records out").getLocalValue());
+		assertEquals("{4=2}", first.get("map latency (ms)").getLocalValue().toString());
+		assertNull(first.get("map buffer wait (ms)"));
+
+		// only the changes are reported, the JobManager sums them up
+		Map<String, Accumulator<?, ?>> second = jobManager.reports.get(1);
+		assertEquals(1L, second.get("map records in").getLocalValue());
+		assertEquals(0L, second.get("map records out").getLocalValue());
+		assertNull(second.get("map latency (ms)"));
+	}
+
+	@Test
+	public void testLatencyMarkers() throws Exception {
+		MockJobManager jobManager = new MockJobManager();
+		StreamMetrics metrics = new StreamMetrics("source", 10, new JobID(), jobManager);
+		assertFalse(metrics.pollLatencyMarker());
+
+		metrics.start();
+		while (!metrics.pollLatencyMarker()) {
+			Thread.sleep(5);
+		}
+		metrics.stop();
+
+		// the markers are recorded and forwarded
+		StreamCollector<?> output = mock(StreamCollector.class);
+		LatencyMarkerForwarder forwarder = new LatencyMarkerForwarder(metrics);
+		forwarder.setOutput(output);
+		StreamLatencyMarker marker = new StreamLatencyMarker(System.currentTimeMillis() - 100);
+		forwarder.eventOccurred(marker);
+		verify(output).emitLatencyMarker(marker);
+
+		jobManager.reports.clear();
+		metrics.report();
+		Map<?, ?> latencies = (Map<?, ?>) jobManager.reports.get(0).get("source latency (ms)")
+				.getLocalValue();
+		assertEquals(1, latencies.size());
+		assertEquals(128, latencies.keySet().iterator().next());
+	}
+}
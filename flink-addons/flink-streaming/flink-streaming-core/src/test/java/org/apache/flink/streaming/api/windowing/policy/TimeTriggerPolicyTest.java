@@ -19,8 +19,10 @@ package org.apache.flink.streaming.api.windowing.policy;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import org.apache.flink.streaming.api.invokable.util.DefaultTimeStamp;
 import org.apache.flink.streaming.api.invokable.util.TimeStamp;
 import org.junit.Test;
 
@@ -114,6 +116,41 @@ public class TimeTriggerPolicyTest {
 		}
 	}
 
+	@Test
+	public void timeTriggerScheduledTest() {
+		@SuppressWarnings("serial")
+		TimeStamp<Integer> timeStamp = new TimeStamp<Integer>() {
+
+			@Override
+			public long getTimestamp(Integer value) {
+				return value;
+			}
+
+			@Override
+			public long getStartTime() {
+				return 0;
+			}
+
+		};
+
+		// only policies using the system time are scheduled
+		assertEquals(-1, new TimeTriggerPolicy<Integer>(5, timeStamp).getNextTriggerTime());
+
+		TimeTriggerPolicy<Integer> policy = new TimeTriggerPolicy<Integer>(100,
+				new DefaultTimeStamp<Integer>());
+		long nextTime = policy.getNextTriggerTime();
+
+		assertNull(policy.notifyTriggerTime(nextTime - 1));
+		assertEquals(nextTime - 1, policy.notifyTriggerTime(nextTime));
+		assertEquals(nextTime + 100, policy.getNextTriggerTime());
+
+		// a late timer still triggers only one window at a time
+		assertEquals(nextTime + 99, policy.notifyTriggerTime(nextTime + 250));
+		assertEquals(nextTime + 199, policy.notifyTriggerTime(nextTime + 250));
+		assertNull(policy.notifyTriggerTime(nextTime + 250));
+		assertEquals(nextTime + 300, policy.getNextTriggerTime());
+	}
+
 	private void arrayEqualityCheck(Object[] array1, Object[] array2) {
 		assertEquals("The result arrays must have the same length", array1.length, array2.length);
 		for (int i = 0; i < array1.length; i++) {
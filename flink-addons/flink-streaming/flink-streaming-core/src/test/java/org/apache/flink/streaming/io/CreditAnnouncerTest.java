@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.flink.runtime.event.task.AbstractEvent;
+import org.apache.flink.runtime.io.network.channels.ChannelID;
+import org.apache.flink.runtime.io.network.channels.InputChannel;
+import org.apache.flink.streaming.api.streamrecord.StreamCredit;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class CreditAnnouncerTest {
+
+	@Test
+	public void testAnnouncements() throws Exception {
+		final List<Integer> announced = new ArrayList<Integer>();
+		final ChannelID senderID = new ChannelID();
+
+		InputChannel<?> channel = mock(InputChannel.class);
+		when(channel.getID()).thenReturn(new ChannelID());
+		when(channel.getConnectedId()).thenReturn(senderID);
+		doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(InvocationOnMock invocation) throws Throwable {
+				StreamCredit credit = (StreamCredit) invocation.getArguments()[0];
+				assertEquals(senderID, credit.getChannelID());
+				announced.add(credit.getConsumedBuffers());
+				return null;
+			}
+		}).when(channel).transferEvent(any(AbstractEvent.class));
+
+		CreditAnnouncer announcer = new CreditAnnouncer();
+
+		// the receiver falls behind, every few buffers are announced
+		when(channel.getNumberOfQueuedEnvelopes()).thenReturn(10);
+		for (int i = 1; i <= 10; i++) {
+			when(channel.getNumberOfConsumedBuffers()).thenReturn(i);
+			announcer.bufferConsumed(channel);
+		}
+		assertEquals(3, announced.size());
+		assertEquals(1, (int) announced.get(0));
+		assertEquals(1 + CreditAnnouncer.ANNOUNCE_INTERVAL, (int) announced.get(1));
+
+		// the receiver catches up, the idle channel is announced right away
+		when(channel.getNumberOfQueuedEnvelopes()).thenReturn(0);
+		when(channel.getNumberOfConsumedBuffers()).thenReturn(11);
+		announcer.bufferConsumed(channel);
+		assertEquals(11, (int) announced.get(announced.size() - 1));
+	}
+}
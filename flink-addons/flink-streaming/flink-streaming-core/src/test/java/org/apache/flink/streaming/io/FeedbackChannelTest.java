@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.flink.runtime.io.disk.iomanager.IOManager;
+import org.apache.flink.runtime.io.disk.iomanager.IOManagerAsync;
+import org.apache.flink.runtime.io.network.serialization.DataInputDeserializer;
+import org.apache.flink.runtime.io.network.serialization.DataOutputSerializer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FeedbackChannelTest {
+
+	private File tempDir;
+	private IOManager ioManager;
+
+	@Before
+	public void setUp() throws IOException {
+		tempDir = File.createTempFile("feedback", "");
+		tempDir.delete();
+		tempDir.mkdirs();
+		ioManager = new IOManagerAsync(tempDir.getAbsolutePath());
+	}
+
+	@After
+	public void tearDown() {
+		ioManager.shutdown();
+		deleteRecursively(tempDir);
+	}
+
+	@Test
+	public void testSpillingInOrder() throws Exception {
+		FeedbackChannel channel = new FeedbackChannel(1, ioManager);
+
+		// the first batch stays in memory, the others are spilled
+		for (int i = 0; i < 4; i++) {
+			putBatch(channel, i * 10, 10);
+		}
+		assertEquals(3, countFiles(tempDir));
+
+		for (int i = 0; i < 4; i++) {
+			FeedbackChannel.Batch batch = channel.take();
+			assertEquals(i > 0, batch.isSpilled());
+			assertEquals(10, batch.getNumRecords());
+
+			DataInputDeserializer records = batch.open();
+			for (int j = 0; j < 10; j++) {
+				assertEquals(i * 10 + j, records.readInt());
+			}
+			assertFalse(batch.isSpilled());
+		}
+		assertEquals(0, countFiles(tempDir));
+		assertNull(channel.poll(1));
+
+		// the memory of the taken batches is free again
+		putBatch(channel, 0, 1);
+		assertFalse(channel.take().isSpilled());
+	}
+
+	@Test
+	public void testClose() throws Exception {
+		FeedbackChannel channel = new FeedbackChannel(1, ioManager);
+		putBatch(channel, 0, 1);
+		putBatch(channel, 1, 1);
+		assertEquals(1, countFiles(tempDir));
+
+		channel.close();
+		assertEquals(0, countFiles(tempDir));
+
+		putBatch(channel, 2, 1);
+		assertNull(channel.poll(1));
+		assertEquals(0, countFiles(tempDir));
+	}
+
+	private static void putBatch(FeedbackChannel channel, int first, int numRecords)
+			throws IOException {
+		DataOutputSerializer output = new DataOutputSerializer(4 * numRecords);
+		for (int i = 0; i < numRecords; i++) {
+			output.writeInt(first + i);
+		}
+		byte[] data = new byte[output.length()];
+		output.wrapAsByteBuffer().get(data);
+		channel.put(data, data.length, numRecords);
+	}
+
+	private static int countFiles(File dir) {
+		int count = 0;
+		for (File file : dir.listFiles()) {
+			count += file.isDirectory() ? countFiles(file) : 1;
+		}
+		return count;
+	}
+
+	private static void deleteRecursively(File file) {
+		if (file.isDirectory()) {
+			for (File child : file.listFiles()) {
+				deleteRecursively(child);
+			}
+		}
+		file.delete();
+	}
+}
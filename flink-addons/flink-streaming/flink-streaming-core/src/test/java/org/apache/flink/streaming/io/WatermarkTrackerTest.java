@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.flink.runtime.AbstractID;
+import org.apache.flink.runtime.io.network.gates.InputGate;
+import org.apache.flink.streaming.api.invokable.StreamInvokable;
+import org.apache.flink.streaming.api.streamrecord.StreamWatermark;
+import org.junit.Test;
+
+public class WatermarkTrackerTest {
+
+	private static class WatermarkInvokable extends StreamInvokable<Integer, Integer> {
+		private static final long serialVersionUID = 1L;
+
+		private List<Long> watermarks = new ArrayList<Long>();
+
+		public WatermarkInvokable() {
+			super(null);
+		}
+
+		@Override
+		public void processWatermark(long watermark) {
+			watermarks.add(watermark);
+		}
+
+		@Override
+		protected void immutableInvoke() throws Exception {
+		}
+
+		@Override
+		protected void mutableInvoke() throws Exception {
+		}
+
+		@Override
+		protected void callUserFunction() throws Exception {
+		}
+	}
+
+	@Test
+	public void minimumOfChannelsTest() {
+		InputGate<?> gate1 = mock(InputGate.class);
+		when(gate1.getNumberOfChannels()).thenReturn(2);
+		InputGate<?> gate2 = mock(InputGate.class);
+		when(gate2.getNumberOfChannels()).thenReturn(1);
+
+		List<InputGate<?>> gates = new ArrayList<InputGate<?>>();
+		gates.add(gate1);
+		gates.add(gate2);
+
+		WatermarkTracker tracker = new WatermarkTracker(gates);
+		WatermarkInvokable invokable = new WatermarkInvokable();
+		tracker.setInvokable(invokable);
+
+		AbstractID sender1 = new AbstractID();
+		AbstractID sender2 = new AbstractID();
+		AbstractID sender3 = new AbstractID();
+
+		// no watermark until every channel has sent one
+		tracker.eventOccurred(new StreamWatermark(sender1, 5));
+		tracker.eventOccurred(new StreamWatermark(sender2, 3));
+		assertEquals(Long.MIN_VALUE, tracker.getCurrentWatermark());
+
+		tracker.eventOccurred(new StreamWatermark(sender3, 4));
+		tracker.eventOccurred(new StreamWatermark(sender2, 10));
+		// watermarks never go back
+		tracker.eventOccurred(new StreamWatermark(sender1, 2));
+		tracker.eventOccurred(new StreamWatermark(sender3, Long.MAX_VALUE));
+		tracker.eventOccurred(new StreamWatermark(sender1, Long.MAX_VALUE));
+
+		assertEquals(Arrays.asList(3L, 4L, 5L, 10L), invokable.watermarks);
+		assertEquals(10L, tracker.getCurrentWatermark());
+	}
+}
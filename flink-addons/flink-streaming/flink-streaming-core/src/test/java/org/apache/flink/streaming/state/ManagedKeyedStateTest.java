@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.state;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.flink.api.common.typeinfo.BasicTypeInfo;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.runtime.io.disk.iomanager.IOManager;
+import org.apache.flink.runtime.io.disk.iomanager.IOManagerAsync;
+import org.apache.flink.runtime.jobgraph.tasks.AbstractInvokable;
+import org.apache.flink.runtime.memorymanager.DefaultMemoryManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ManagedKeyedStateTest {
+
+	private static final int PAGE_SIZE = 4 * 1024;
+	private static final int NUM_PAGES = 256;
+
+	private DefaultMemoryManager memoryManager;
+	private IOManager ioManager;
+	private File tempDir;
+
+	@Before
+	public void setUp() throws IOException {
+		memoryManager = new DefaultMemoryManager(NUM_PAGES * PAGE_SIZE, 1, PAGE_SIZE);
+		tempDir = File.createTempFile("keyedstate", "");
+		tempDir.delete();
+		tempDir.mkdirs();
+		ioManager = new IOManagerAsync(tempDir.getAbsolutePath());
+	}
+
+	@After
+	public void tearDown() {
+		ioManager.shutdown();
+		memoryManager.shutdown();
+		for (File file : tempDir.listFiles()) {
+			file.delete();
+		}
+		tempDir.delete();
+	}
+
+	@Test
+	public void testSpillingState() throws Exception {
+		KeyedStateBackend backend = new KeyedStateBackend(mock(AbstractInvokable.class),
+				memoryManager, ioManager, NUM_PAGES * PAGE_SIZE);
+		KeyedState<String> state = backend.createKeyedState(
+				BasicTypeInfo.STRING_TYPE_INFO.createSerializer(), 1.0);
+		assertTrue(state instanceof ManagedKeyedState);
+
+		StringBuilder payloadBuilder = new StringBuilder();
+		for (int i = 0; i < 500; i++) {
+			payloadBuilder.append((char) ('a' + i % 26));
+		}
+		String payload = payloadBuilder.toString();
+
+		// the values of all keys do not fit into the memory
+		int numKeys = 4000;
+		Tuple2<Integer, Integer> key = new Tuple2<Integer, Integer>();
+		for (int round = 0; round < 3; round++) {
+			for (int i = 0; i < numKeys; i++) {
+				key.f0 = i;
+				key.f1 = i % 7;
+				if (round == 0) {
+					assertNull(state.get(key));
+				} else {
+					assertEquals(payload + (round - 1), state.get(key));
+				}
+				state.put(key, payload + round);
+			}
+		}
+
+		assertNull(state.get(new Tuple2<Integer, Integer>(0, 1)));
+		for (int i = 0; i < numKeys; i++) {
+			assertEquals(payload + 2, state.get(new Tuple2<Integer, Integer>(i, i % 7)));
+		}
+
+		state.close();
+		assertTrue(memoryManager.verifyEmpty());
+	}
+
+	@Test
+	public void testHeapStateWithoutMemory() {
+		KeyedStateBackend backend = new KeyedStateBackend(mock(AbstractInvokable.class),
+				memoryManager, ioManager, 0);
+		KeyedState<String> state = backend.createKeyedState(
+				BasicTypeInfo.STRING_TYPE_INFO.createSerializer(), 1.0);
+		assertTrue(state instanceof HeapKeyedState);
+	}
+}
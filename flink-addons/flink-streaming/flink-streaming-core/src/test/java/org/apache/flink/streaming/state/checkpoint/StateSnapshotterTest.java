@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.state.checkpoint;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.flink.streaming.state.MapState;
+import org.apache.flink.streaming.state.OperatorState;
+import org.apache.flink.streaming.state.SimpleState;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class StateSnapshotterTest {
+
+	private static final String PREFIX = System.getProperty("java.io.tmpdir") + "/"
+			+ StateSnapshotterTest.class.getSimpleName();
+
+	private File directory;
+
+	@Before
+	public void createDirectory() {
+		directory = new File(PREFIX);
+		delete(directory);
+	}
+
+	@After
+	public void deleteDirectory() {
+		delete(directory);
+	}
+
+	@Test
+	public void testIncrementalSnapshots() throws Exception {
+		StateStore store = new FileSystemStateStore(directory.toURI().toString());
+		ClassLoader classLoader = getClass().getClassLoader();
+
+		MapState<String, Integer> counts = new MapState<String, Integer>();
+		SimpleState<Integer> sum = new SimpleState<Integer>(0);
+		Map<String, OperatorState<?>> states = new HashMap<String, OperatorState<?>>();
+		states.put("counts", counts);
+		states.put("sum", sum);
+
+		StateSnapshotter snapshotter = new StateSnapshotter("task-0", states, store, classLoader);
+		Map<String, Integer> expected = new HashMap<String, Integer>();
+		for (int i = 1; i <= StateSnapshotter.COMPACTION_INTERVAL + 3; i++) {
+			counts.put("key" + i, i);
+			counts.put("key" + (i / 2), i);
+			counts.remove("key" + (i / 3));
+			sum.setState(sum.getState() + i);
+			snapshotter.snapshot(snapshotter.nextCheckpointId());
+
+			expected.put("key" + i, i);
+			expected.put("key" + (i / 2), i);
+			expected.remove("key" + (i / 3));
+		}
+		// changes after the last snapshot are lost
+		counts.put("lost", -1);
+		snapshotter.close();
+
+		// the first snapshots have been compacted into one
+		String[] snapshots = new File(directory, "task-0").list();
+		assertEquals(4, snapshots.length);
+
+		MapState<String, Integer> restoredCounts = new MapState<String, Integer>();
+		SimpleState<Integer> restoredSum = new SimpleState<Integer>(0);
+		Map<String, OperatorState<?>> restoredStates = new HashMap<String, OperatorState<?>>();
+		restoredStates.put("counts", restoredCounts);
+		restoredStates.put("sum", restoredSum);
+
+		StateSnapshotter restorer = new StateSnapshotter("task-0", restoredStates, store,
+				classLoader);
+		restorer.restore();
+		restorer.close();
+
+		assertEquals(expected, restoredCounts);
+		assertEquals(sum.getState(), restoredSum.getState());
+
+		// other owners start empty
+		MapState<String, Integer> otherCounts = new MapState<String, Integer>();
+		Map<String, OperatorState<?>> otherStates = new HashMap<String, OperatorState<?>>();
+		otherStates.put("counts", otherCounts);
+		StateSnapshotter other = new StateSnapshotter("task-1", otherStates, store, classLoader);
+		other.restore();
+		other.close();
+		assertTrue(otherCounts.isEmpty());
+	}
+
+	@Test
+	public void testSnapshotsAreNotChangedByLaterUpdates() throws Exception {
+		StateStore store = new FileSystemStateStore(directory.toURI().toString());
+		ClassLoader classLoader = getClass().getClassLoader();
+
+		MapState<String, List<Integer>> lists = new MapState<String, List<Integer>>();
+		SimpleState<List<Integer>> last = new SimpleState<List<Integer>>();
+		Map<String, OperatorState<?>> states = new HashMap<String, OperatorState<?>>();
+		states.put("lists", lists);
+		states.put("last", last);
+
+		StateSnapshotter snapshotter = new StateSnapshotter("task-0", states, store, classLoader);
+		List<Integer> list = new ArrayList<Integer>();
+		list.add(1);
+		lists.put("key", list);
+		last.setState(list);
+		snapshotter.snapshot(snapshotter.nextCheckpointId());
+
+		// the states are updated copy-on-write after the snapshot has been
+		// taken, before it may have been serialized
+		List<Integer> changed = new ArrayList<Integer>(list);
+		changed.add(2);
+		lists.put("key", changed);
+		lists.put("other", changed);
+		last.setState(changed);
+		snapshotter.close();
+
+		MapState<String, List<Integer>> restoredLists = new MapState<String, List<Integer>>();
+		SimpleState<List<Integer>> restoredLast = new SimpleState<List<Integer>>();
+		Map<String, OperatorState<?>> restoredStates = new HashMap<String, OperatorState<?>>();
+		restoredStates.put("lists", restoredLists);
+		restoredStates.put("last", restoredLast);
+		StateSnapshotter restorer = new StateSnapshotter("task-0", restoredStates, store,
+				classLoader);
+		restorer.restore();
+		restorer.close();
+
+		assertEquals(Arrays.asList(1), restoredLists.get("key"));
+		assertEquals(1, restoredLists.size());
+		assertEquals(Arrays.asList(1), restoredLast.getState());
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+}
@@ -214,6 +214,15 @@ public class PactCompiler {
 	 */
 	public static final String HINT_LOCAL_STRATEGY_COMBINING_SORT = "LOCAL_STRATEGY_COMBINING_SORT";
 	
+	/**
+	 * Value for the local strategy compiler hint that enforces a <b>hash based</b> aggregation.
+	 * For example, a <i>Reduce</i> operator will keep one aggregate per key in a hash table, instead of
+	 * sorting the data to group it. The combiner of the <i>Reduce</i> will use a hash table as well.
+	 * 
+	 * @see #HINT_LOCAL_STRATEGY
+	 */
+	public static final String HINT_LOCAL_STRATEGY_HASH_AGGREGATE = "LOCAL_STRATEGY_HASH_AGGREGATE";
+	
 	/**
 	 * Value for the local strategy compiler hint that enforces a <b>sort merge based</b> local strategy on both
 	 * inputs with subsequent merging of inputs. 
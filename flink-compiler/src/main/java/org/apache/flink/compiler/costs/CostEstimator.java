@@ -185,7 +185,11 @@ public abstract class CostEstimator {
 			// grouping or co-grouping over sorted streams for free
 			
 		case SORTED_GROUP_COMBINE:
+		case HASH_PARTIAL_REDUCE:
 			// partial grouping is always local and main memory resident. we should add a relative cpu cost at some point
+			
+		case HASH_REDUCE:
+			// hash aggregation is main memory resident, unless it runs out of memory and falls back to sorting
 		
 		case UNION:
 			// pipelined local union is for free
@@ -24,7 +24,9 @@ import java.util.List;
 
 import org.apache.flink.api.common.operators.base.ReduceOperatorBase;
 import org.apache.flink.compiler.DataStatistics;
+import org.apache.flink.compiler.PactCompiler;
 import org.apache.flink.compiler.operators.AllReduceProperties;
+import org.apache.flink.compiler.operators.HashReduceProperties;
 import org.apache.flink.compiler.operators.OperatorDescriptorSingle;
 import org.apache.flink.compiler.operators.ReduceProperties;
 
@@ -46,8 +48,27 @@ public class ReduceNode extends SingleInputNode {
 			setDegreeOfParallelism(1);
 		}
 		
-		OperatorDescriptorSingle props = this.keys == null ?
-			new AllReduceProperties() :
+		// see if an internal hint dictates the strategy to use
+		final String localStrategy = operator.getParameters().getString(PactCompiler.HINT_LOCAL_STRATEGY, null);
+		
+		final boolean useHashAggregation;
+		if (localStrategy != null) {
+			if (PactCompiler.HINT_LOCAL_STRATEGY_SORT.equals(localStrategy)) {
+				useHashAggregation = false;
+			}
+			else if (PactCompiler.HINT_LOCAL_STRATEGY_HASH_AGGREGATE.equals(localStrategy)) {
+				useHashAggregation = true;
+			} else {
+				PactCompiler.LOG.warn("Ignoring unknown local strategy hint for Reduce '" + operator.getName() +
+					"': " + localStrategy);
+				useHashAggregation = false;
+			}
+		} else {
+			useHashAggregation = false;
+		}
+		
+		OperatorDescriptorSingle props = this.keys == null ? new AllReduceProperties() :
+			useHashAggregation ? new HashReduceProperties(this.keys, operator.getCustomPartitioner()) :
 			new ReduceProperties(this.keys, operator.getCustomPartitioner());
 		
 		this.possibleProperties = Collections.singletonList(props);
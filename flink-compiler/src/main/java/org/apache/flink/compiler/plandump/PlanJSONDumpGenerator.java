@@ -445,6 +445,14 @@ public class PlanJSONDumpGenerator {
 				locString = "Sorted Combine/Reduce";
 				break;
 
+			case HASH_REDUCE:
+				locString = "Hash Reduce";
+				break;
+
+			case HASH_PARTIAL_REDUCE:
+				locString = "Hash Combine/Reduce";
+				break;
+
 			case SORTED_GROUP_REDUCE:
 				locString = "Sorted Group Reduce";
 				break;
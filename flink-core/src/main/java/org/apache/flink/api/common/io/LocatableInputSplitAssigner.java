@@ -92,40 +92,7 @@ public final class LocatableInputSplitAssigner implements InputSplitAssigner {
 		host = host.toLowerCase(Locale.US);
 		
 		// for any non-null host, we take the list of non-null splits
-		List<LocatableInputSplit> localSplits = this.localPerHost.get(host);
-		
-		// if we have no list for this host yet, create one
-		if (localSplits == null) {
-			localSplits = new ArrayList<LocatableInputSplit>(16);
-			
-			// lock the list, to be sure that others have to wait for that host's local list
-			synchronized (localSplits) {
-				List<LocatableInputSplit> prior = this.localPerHost.putIfAbsent(host, localSplits);
-				
-				// if someone else beat us in the case to create this list, then we do not populate this one, but
-				// simply work with that other list
-				if (prior == null) {
-					// we are the first, we populate
-					
-					// first, copy the remaining splits to release the lock on the set early
-					// because that is shared among threads
-					LocatableInputSplit[] remaining;
-					synchronized (this.unassigned) {
-						remaining = (LocatableInputSplit[]) this.unassigned.toArray(new LocatableInputSplit[this.unassigned.size()]);
-					}
-					
-					for (LocatableInputSplit is : remaining) {
-						if (isLocal(host, is.getHostnames())) {
-							localSplits.add(is);
-						}
-					}
-				}
-				else {
-					// someone else was faster
-					localSplits = prior;
-				}
-			}
-		}
+		List<LocatableInputSplit> localSplits = getLocalSplits(host);
 		
 		
 		// at this point, we have a list of local splits (possibly empty)
@@ -175,6 +142,102 @@ public final class LocatableInputSplitAssigner implements InputSplitAssigner {
 		}
 	}
 	
+	/**
+	 * Returns up to the given number of splits that shall be consumed by the given host. All returned splits
+	 * are local to the host. Only if no local split remains, a single non-local split is returned, such that
+	 * a host requesting splits in bulk does not take away the splits that are local to other hosts.
+	 * 
+	 * @param host The address of the host to assign the splits to.
+	 * @param maxNumSplits The maximal number of splits to return.
+	 * @return The next splits to be consumed, or an empty list, if no more splits remain.
+	 */
+	public List<LocatableInputSplit> getNextInputSplits(String host, int maxNumSplits) {
+		if (maxNumSplits < 1) {
+			throw new IllegalArgumentException("The number of splits must be at least one.");
+		}
+		
+		final List<LocatableInputSplit> splits = new ArrayList<LocatableInputSplit>(maxNumSplits);
+		
+		if (host != null) {
+			host = host.toLowerCase(Locale.US);
+			List<LocatableInputSplit> localSplits = getLocalSplits(host);
+			
+			// same lock order as for the single split assignment
+			synchronized (localSplits) {
+				int size = localSplits.size();
+				if (size > 0) {
+					synchronized (this.unassigned) {
+						while (size > 0 && splits.size() < maxNumSplits) {
+							--size;
+							LocatableInputSplit split = localSplits.remove(size);
+							if (this.unassigned.remove(split)) {
+								splits.add(split);
+							}
+						}
+						localAssignments += splits.size();
+					}
+				}
+			}
+			
+			if (splits.size() > 0) {
+				if (LOG.isInfoEnabled()) {
+					LOG.info("Assigning " + splits.size() + " local splits to host " + host);
+				}
+				return splits;
+			}
+		}
+		
+		// no local split remains, hand out a single one of the others
+		LocatableInputSplit split = getNextInputSplit(host);
+		if (split != null) {
+			splits.add(split);
+		}
+		return splits;
+	}
+	
+	/**
+	 * Gets the list of the splits that are local to the given host, creating it upon the first request of
+	 * that host.
+	 */
+	private List<LocatableInputSplit> getLocalSplits(String host) {
+		List<LocatableInputSplit> localSplits = this.localPerHost.get(host);
+		
+		// if we have no list for this host yet, create one
+		if (localSplits == null) {
+			localSplits = new ArrayList<LocatableInputSplit>(16);
+			
+			// lock the list, to be sure that others have to wait for that host's local list
+			synchronized (localSplits) {
+				List<LocatableInputSplit> prior = this.localPerHost.putIfAbsent(host, localSplits);
+				
+				// if someone else beat us in the case to create this list, then we do not populate this one, but
+				// simply work with that other list
+				if (prior == null) {
+					// we are the first, we populate
+					
+					// first, copy the remaining splits to release the lock on the set early
+					// because that is shared among threads
+					LocatableInputSplit[] remaining;
+					synchronized (this.unassigned) {
+						remaining = (LocatableInputSplit[]) this.unassigned.toArray(new LocatableInputSplit[this.unassigned.size()]);
+					}
+					
+					for (LocatableInputSplit is : remaining) {
+						if (isLocal(host, is.getHostnames())) {
+							localSplits.add(is);
+						}
+					}
+				}
+				else {
+					// someone else was faster
+					localSplits = prior;
+				}
+			}
+		}
+		
+		return localSplits;
+	}
+	
 	private static final boolean isLocal(String flinkHost, String[] hosts) {
 		if (flinkHost == null || hosts == null) {
 			return false;
@@ -77,6 +77,23 @@ public final class ConfigConstants {
 	 */
 	public static final String JOB_MANAGER_DEAD_TASKMANAGER_TIMEOUT_KEY = "jobmanager.max-heartbeat-delay-before-failure.msecs";
 	
+	/**
+	 * The config parameter defining whether the job manager starts backup executions of straggling subtasks.
+	 */
+	public static final String JOB_MANAGER_SPECULATIVE_EXECUTION_KEY = "jobmanager.speculative-execution.enabled";
+	
+	/**
+	 * The config parameter defining the fraction of the subtasks of a task that must be finished before
+	 * backup executions of its remaining subtasks are started.
+	 */
+	public static final String JOB_MANAGER_SPECULATIVE_EXECUTION_QUANTILE_KEY = "jobmanager.speculative-execution.quantile";
+	
+	/**
+	 * The config parameter defining how many times longer than the median of the finished subtasks of a task
+	 * a subtask is estimated to run before a backup execution is started for it.
+	 */
+	public static final String JOB_MANAGER_SPECULATIVE_EXECUTION_MULTIPLIER_KEY = "jobmanager.speculative-execution.multiplier";
+	
 	/**
 	 * The config parameter defining the task manager's IPC port from the configuration.
 	 */
@@ -92,6 +109,18 @@ public final class ConfigConstants {
 	 */
 	public static final String TASK_MANAGER_TMP_DIR_KEY = "taskmanager.tmp.dirs";
 
+	/**
+	 * The config parameter defining the number of reading and writing threads that the I/O manager
+	 * starts for each directory for temporary files.
+	 */
+	public static final String TASK_MANAGER_IO_THREADS_PER_DIR_KEY = "taskmanager.io.threads-per-dir";
+
+	/**
+	 * The config parameter defining the maximal number of consecutive blocks of the same file that the
+	 * I/O manager reads or writes with a single vectored I/O call.
+	 */
+	public static final String TASK_MANAGER_IO_MAX_BATCH_SIZE_KEY = "taskmanager.io.max-batch-size";
+
 	/**
 	 * The config parameter defining the amount of memory to be allocated by the task manager's
 	 * memory manager (in megabytes). If not set, a relative fraction will be allocated, as defined
@@ -108,6 +137,18 @@ public final class ConfigConstants {
 	 * The key for the config parameter defining whether the memory manager allocates memory lazy.
 	 */
 	public static final String TASK_MANAGER_MEMORY_LAZY_ALLOCATION_KEY = "taskmanager.memory.lazyalloc";
+
+	/**
+	 * The key for the config parameter defining whether the memory manager allocates its memory
+	 * outside the JVM heap (as direct memory), rather than as byte arrays on the heap.
+	 */
+	public static final String TASK_MANAGER_MEMORY_OFF_HEAP_KEY = "taskmanager.memory.offheap";
+
+	/**
+	 * The key for the config parameter defining whether tasks may borrow managed memory that is not used
+	 * by the other slots of the task manager, beyond the share of their own slot.
+	 */
+	public static final String TASK_MANAGER_MEMORY_SHARING_KEY = "taskmanager.memory.sharing";
 	
 	
 	/**
@@ -147,6 +188,18 @@ public final class ConfigConstants {
 	 * The high water mark used in NettyConnectionManager for the Bootstrap.
 	 */
 	public static final String TASK_MANAGER_NET_NETTY_HIGH_WATER_MARK = "taskmanager.net.nettyHighWaterMark";
+
+	/**
+	 * The codec used to compress the network buffers sent to other TaskManagers ("none" or "lz4").
+	 */
+	public static final String TASK_MANAGER_NET_COMPRESSION_CODEC_KEY = "taskmanager.net.compression";
+
+	/**
+	 * The maximum number of persistent partitions a TaskManager replays at the same time. Each replay
+	 * uses two network buffers, so this also bounds the buffers taken by replays. Further replays wait
+	 * until a running one has finished.
+	 */
+	public static final String TASK_MANAGER_NET_NUM_REPLAY_THREADS_KEY = "taskmanager.net.numReplayThreads";
 	
 	/**
 	 * Parameter for the interval in which the TaskManager sends the periodic heart beat messages
@@ -176,6 +229,19 @@ public final class ConfigConstants {
 	 * sorter will start spilling to disk.
 	 */
 	public static final String DEFAULT_SORT_SPILLING_THRESHOLD_KEY = "taskmanager.runtime.sort-spilling-threshold";
+
+	/**
+	 * Key for the number of threads with which each sorter sorts its buffers and performs its intermediate
+	 * merges. A value of one sorts and merges in the sorter's own threads only.
+	 */
+	public static final String DEFAULT_SORT_NUM_THREADS_KEY = "taskmanager.runtime.sort-threads";
+
+	/**
+	 * Key for the number of input splits that a data source requests from the job manager at once and
+	 * keeps in a local queue. With a value larger than zero, the data source also opens its next split
+	 * asynchronously, while it reads the current one.
+	 */
+	public static final String TASK_MANAGER_INPUT_SPLIT_PREFETCH_KEY = "taskmanager.runtime.input-split-prefetch";
 	
 	/**
 	 * The config parameter defining the timeout for filesystem stream opening.
@@ -346,6 +412,21 @@ public final class ConfigConstants {
 	// 30 seconds (its enough to get to mars, should be enough to detect failure)
 	public static final int DEFAULT_JOB_MANAGER_DEAD_TASKMANAGER_TIMEOUT = 30*1000;
 	
+	/**
+	 * The default for whether backup executions of straggling subtasks are started.
+	 */
+	public static final boolean DEFAULT_JOB_MANAGER_SPECULATIVE_EXECUTION = false;
+	
+	/**
+	 * The default fraction of finished subtasks before backup executions are started.
+	 */
+	public static final float DEFAULT_JOB_MANAGER_SPECULATIVE_EXECUTION_QUANTILE = 0.75f;
+	
+	/**
+	 * The default factor by which a straggling subtask is estimated to run longer than the median subtask.
+	 */
+	public static final float DEFAULT_JOB_MANAGER_SPECULATIVE_EXECUTION_MULTIPLIER = 1.5f;
+	
 	/**
 	 * The default network port the task manager expects incoming IPC connections. The {@code -1} means that
 	 * the TaskManager searches for a free port.
@@ -373,6 +454,16 @@ public final class ConfigConstants {
 	 */
 	public static final boolean DEFAULT_TASK_MANAGER_MEMORY_LAZY_ALLOCATION = false;
 
+	/**
+	 * The default setting for the memory manager off-heap allocation feature.
+	 */
+	public static final boolean DEFAULT_TASK_MANAGER_MEMORY_OFF_HEAP = false;
+
+	/**
+	 * The default setting for sharing managed memory across slots.
+	 */
+	public static final boolean DEFAULT_TASK_MANAGER_MEMORY_SHARING = false;
+
 	/**
 	 * Default number of buffers used in the network stack.
 	 */
@@ -409,6 +500,16 @@ public final class ConfigConstants {
 	 */
 	public static final int DEFAULT_TASK_MANAGER_NET_NETTY_HIGH_WATER_MARK = -1;
 
+	/**
+	 * By default, network buffers are sent uncompressed.
+	 */
+	public static final String DEFAULT_TASK_MANAGER_NET_COMPRESSION_CODEC = "none";
+
+	/**
+	 * Default maximum number of persistent partitions replayed at the same time.
+	 */
+	public static final int DEFAULT_TASK_MANAGER_NET_NUM_REPLAY_THREADS = 16;
+
 	/**
 	 * The default interval for TaskManager heart beats (5000 msecs).
 	 */
@@ -438,6 +539,26 @@ public final class ConfigConstants {
 	 * The default percentage of the sort memory to be full before data is spilled.
 	 */
 	public static final float DEFAULT_SORT_SPILLING_THRESHOLD = 0.8f;
+
+	/**
+	 * The default number of threads per sorter for sorting buffers and intermediate merging.
+	 */
+	public static final int DEFAULT_SORT_NUM_THREADS = 1;
+
+	/**
+	 * By default, data sources request and open their input splits one at a time.
+	 */
+	public static final int DEFAULT_TASK_MANAGER_INPUT_SPLIT_PREFETCH = 0;
+
+	/**
+	 * The default number of I/O threads per directory for temporary files.
+	 */
+	public static final int DEFAULT_TASK_MANAGER_IO_THREADS_PER_DIR = 1;
+
+	/**
+	 * The default maximal number of blocks per vectored I/O call.
+	 */
+	public static final int DEFAULT_TASK_MANAGER_IO_MAX_BATCH_SIZE = 16;
 	
 	/**
 	 * The default timeout for filesystem stream opening: infinite (means max long milliseconds).
@@ -22,13 +22,16 @@ package org.apache.flink.core.memory;
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
 /**
  * This class represents a piece of memory allocated from the memory manager. The segment is backed
- * by a byte array and features random put and get methods for the basic types that are stored in a byte-wise
- * fashion in the memory.
+ * either by a byte array on the heap, or by off-heap memory of a direct byte buffer. It features
+ * random put and get methods for the basic types that are stored in a byte-wise fashion in the memory.
+ * All accesses go through the same address arithmetic, such that code working on memory segments is
+ * oblivious to where the memory actually resides.
  * 
  * <p>
  * 
@@ -74,15 +77,49 @@ public class MemorySegment {
 	private static final boolean CHECKED = true;
 	
 	/**
-	 * The array in which the data is stored.
+	 * The array in which the data is stored, if the segment is backed by heap memory.
+	 * Null for segments that are backed by off-heap (direct) memory.
 	 */
 	protected byte[] memory;
 	
+	/**
+	 * The direct byte buffer that holds the data, if the segment is backed by off-heap memory.
+	 * Null for segments that are backed by a heap byte array.
+	 */
+	protected ByteBuffer offHeapBuffer;
+	
 	/**
 	 * Wrapper for I/O requests.
 	 */
 	protected ByteBuffer wrapper;
 	
+	/**
+	 * The address of the first byte of the segment. For heap segments, this is the offset
+	 * relative to the byte array object, for off-heap segments this is the absolute memory address.
+	 */
+	protected long address;
+	
+	/**
+	 * The address one byte after the last addressable byte. Set below the address once the
+	 * segment has been freed, which makes all subsequent accesses fail the bounds checks.
+	 */
+	protected long addressLimit;
+	
+	/**
+	 * The size of the segment, in bytes.
+	 */
+	protected final int size;
+	
+	/**
+	 * Flag marking segments that are backed by off-heap memory.
+	 */
+	private final boolean offHeap;
+	
+	/**
+	 * Reusable view on the off-heap buffer, used internally for bulk copies.
+	 */
+	private ByteBuffer offHeapView;
+	
 	// -------------------------------------------------------------------------
 	//                             Constructors
 	// -------------------------------------------------------------------------
@@ -93,7 +130,37 @@ public class MemorySegment {
 	 * @param memory The byte array that holds the data.
 	 */
 	public MemorySegment(byte[] memory) {
+		if (memory == null) {
+			throw new NullPointerException("Memory must not be null.");
+		}
+		
 		this.memory = memory;
+		this.size = memory.length;
+		this.offHeap = false;
+		this.address = BASE_OFFSET;
+		this.addressLimit = BASE_OFFSET + this.size;
+	}
+	
+	/**
+	 * Creates a new memory segment that represents the off-heap memory of the given direct byte buffer.
+	 * The segment covers the buffer's full capacity, independent of its position and limit.
+	 * 
+	 * @param offHeapBuffer The direct byte buffer that holds the data.
+	 * @throws IllegalArgumentException Thrown, if the given buffer is not a direct byte buffer.
+	 */
+	public MemorySegment(ByteBuffer offHeapBuffer) {
+		if (offHeapBuffer == null) {
+			throw new NullPointerException("Buffer must not be null.");
+		}
+		if (!offHeapBuffer.isDirect()) {
+			throw new IllegalArgumentException("Off-heap memory segments require a direct byte buffer.");
+		}
+		
+		this.offHeapBuffer = offHeapBuffer;
+		this.size = offHeapBuffer.capacity();
+		this.offHeap = true;
+		this.address = MemoryUtils.getByteBufferAddress(offHeapBuffer);
+		this.addressLimit = this.address + this.size;
 	}
 
 	// -------------------------------------------------------------------------
@@ -107,27 +174,41 @@ public class MemorySegment {
 	 * @return True, if the segment has been freed, false otherwise.
 	 */
 	public final boolean isFreed() {
-		return this.memory == null;
+		return this.addressLimit < this.address;
 	}
 
 	public final void free() {
 		this.wrapper = null;
 		this.memory = null;
+		this.offHeapBuffer = null;
+		this.offHeapView = null;
+		this.addressLimit = this.address - 1;
+	}
+	
+	/**
+	 * Checks whether this memory segment is backed by off-heap (direct) memory, rather than
+	 * by a byte array on the JVM heap.
+	 * 
+	 * @return True, if the segment is backed by off-heap memory, false otherwise.
+	 */
+	public final boolean isOffHeap() {
+		return this.offHeap;
 	}
 	
 	/**
 	 * Gets the size of the memory segment, in bytes. Because segments
-	 * are backed by arrays, they cannot be larger than two GiBytes.
+	 * are backed by arrays or byte buffers, they cannot be larger than two GiBytes.
 	 * 
 	 * @return The size in bytes.
 	 */
 	public final int size() {
-		return this.memory.length;
+		return this.size;
 	}
 
 	/**
 	 * Wraps the chunk of the underlying memory located between <tt>offset<tt> and 
-	 * <tt>length</tt> in a NIO ByteBuffer.
+	 * <tt>length</tt> in a NIO ByteBuffer. For off-heap segments, the returned buffer
+	 * is a direct byte buffer.
 	 * 
 	 * @param offset The offset in the memory segment.
 	 * @param length The number of bytes to be wrapped as a buffer.
@@ -136,16 +217,29 @@ public class MemorySegment {
 	 *                                   or if the offset plus the length is larger than the segment size.
 	 */
 	public ByteBuffer wrap(int offset, int length) {
-		if (offset > this.memory.length || offset > this.memory.length - length) {
+		if (offset < 0 || length < 0 || offset > this.size || offset > this.size - length) {
 			throw new IndexOutOfBoundsException();
 		}
 		
-		if (this.wrapper == null) {
-			this.wrapper = ByteBuffer.wrap(this.memory, offset, length);
+		if (this.memory != null) {
+			if (this.wrapper == null) {
+				this.wrapper = ByteBuffer.wrap(this.memory, offset, length);
+			}
+			else {
+				this.wrapper.position(offset);
+				this.wrapper.limit(offset + length);
+			}
 		}
 		else {
-			this.wrapper.position(offset);
+			if (this.offHeapBuffer == null) {
+				throw new IllegalStateException("The segment has been freed.");
+			}
+			if (this.wrapper == null) {
+				this.wrapper = this.offHeapBuffer.duplicate();
+			}
+			this.wrapper.clear();
 			this.wrapper.limit(offset + length);
+			this.wrapper.position(offset);
 		}
 		
 		return this.wrapper;
@@ -175,8 +269,14 @@ public class MemorySegment {
 	 * @throws IndexOutOfBoundsException Thrown, if the index is negative, or larger or equal to the size of
 	 *                                   the memory segment.
 	 */
+	@SuppressWarnings("restriction")
 	public final byte get(int index) {
-		return this.memory[index];
+		final long pos = this.address + index;
+		if (index >= 0 && pos < this.addressLimit) {
+			return UNSAFE.getByte(this.memory, pos);
+		} else {
+			throw accessException(index);
+		}
 	}
 
 	/**
@@ -188,8 +288,14 @@ public class MemorySegment {
 	 * @throws IndexOutOfBoundsException Thrown, if the index is negative, or larger or equal to the size of
 	 *                                   the memory segment.
 	 */
+	@SuppressWarnings("restriction")
 	public final void put(int index, byte b) {
-		this.memory[index] = b;
+		final long pos = this.address + index;
+		if (index >= 0 && pos < this.addressLimit) {
+			UNSAFE.putByte(this.memory, pos, b);
+		} else {
+			throw accessException(index);
+		}
 	}
 
 	/**
@@ -235,8 +341,13 @@ public class MemorySegment {
 	 *                                   segment's end.
 	 */
 	public final void get(int index, byte[] dst, int offset, int length) {
-		// system arraycopy does the boundary checks anyways, no need to check extra
-		System.arraycopy(this.memory, index, dst, offset, length);
+		if (this.memory != null) {
+			// system arraycopy does the boundary checks anyways, no need to check extra
+			System.arraycopy(this.memory, index, dst, offset, length);
+		} else {
+			// the byte buffer checks the bounds of the destination array
+			offHeapView(index, length).get(dst, offset, length);
+		}
 	}
 
 	/**
@@ -255,7 +366,12 @@ public class MemorySegment {
 	 */
 	public final void put(int index, byte[] src, int offset, int length) {
 		// system arraycopy does the boundary checks anyways, no need to check extra
-		System.arraycopy(src, offset, this.memory, index, length);
+		if (this.memory != null) {
+			System.arraycopy(src, offset, this.memory, index, length);
+		} else {
+			// the byte buffer checks the bounds of the source array
+			offHeapView(index, length).put(src, offset, length);
+		}
 	}
 
 	/**
@@ -269,7 +385,7 @@ public class MemorySegment {
 	 *                                   size minus 1.
 	 */
 	public final boolean getBoolean(int index) {
-		return this.memory[index] != 0;
+		return get(index) != 0;
 	}
 
 	/**
@@ -283,7 +399,7 @@ public class MemorySegment {
 	 *                                   size minus 1.
 	 */
 	public final void putBoolean(int index, boolean value) {
-		this.memory[index] = (byte) (value ? 1 : 0);
+		put(index, (byte) (value ? 1 : 0));
 	}
 
 	/**
@@ -296,9 +412,15 @@ public class MemorySegment {
 	 * @throws IndexOutOfBoundsException Thrown, if the index is negative, or larger then the segment
 	 *                                   size minus 2.
 	 */
+	@SuppressWarnings("restriction")
 	public final char getChar(int index) {
-		return (char) ( ((this.memory[index    ] & 0xff) << 8) | 
-						(this.memory[index + 1] & 0xff) );
+		final long pos = this.address + index;
+		if (index >= 0 && pos <= this.addressLimit - 2) {
+			final char value = UNSAFE.getChar(this.memory, pos);
+			return LITTLE_ENDIAN ? Character.reverseBytes(value) : value;
+		} else {
+			throw accessException(index);
+		}
 	}
 
 	/**
@@ -311,9 +433,14 @@ public class MemorySegment {
 	 * @throws IndexOutOfBoundsException Thrown, if the index is negative, or larger then the segment
 	 *                                   size minus 2.
 	 */
+	@SuppressWarnings("restriction")
 	public final void putChar(int index, char value) {
-		this.memory[index    ] = (byte) (value >> 8);
-		this.memory[index + 1] = (byte) value;
+		final long pos = this.address + index;
+		if (index >= 0 && pos <= this.addressLimit - 2) {
+			UNSAFE.putChar(this.memory, pos, LITTLE_ENDIAN ? Character.reverseBytes(value) : value);
+		} else {
+			throw accessException(index);
+		}
 	}
 
 	/**
@@ -326,10 +453,15 @@ public class MemorySegment {
 	 * @throws IndexOutOfBoundsException Thrown, if the index is negative, or larger then the segment
 	 *                                   size minus 2.
 	 */
+	@SuppressWarnings("restriction")
 	public final short getShort(int index) {
-		return (short) (
-				((this.memory[index    ] & 0xff) << 8) |
-				((this.memory[index + 1] & 0xff)) );
+		final long pos = this.address + index;
+		if (index >= 0 && pos <= this.addressLimit - 2) {
+			final short value = UNSAFE.getShort(this.memory, pos);
+			return LITTLE_ENDIAN ? Short.reverseBytes(value) : value;
+		} else {
+			throw accessException(index);
+		}
 	}
 
 	/**
@@ -342,9 +474,14 @@ public class MemorySegment {
 	 * @throws IndexOutOfBoundsException Thrown, if the index is negative, or larger then the segment
 	 *                                   size minus 2.
 	 */
+	@SuppressWarnings("restriction")
 	public final void putShort(int index, short value) {
-		this.memory[index    ] = (byte) (value >> 8);
-		this.memory[index + 1] = (byte) value;
+		final long pos = this.address + index;
+		if (index >= 0 && pos <= this.addressLimit - 2) {
+			UNSAFE.putShort(this.memory, pos, LITTLE_ENDIAN ? Short.reverseBytes(value) : value);
+		} else {
+			throw accessException(index);
+		}
 	}
 	
 	/**
@@ -363,14 +500,15 @@ public class MemorySegment {
 	 */
 	@SuppressWarnings("restriction")
 	public final int getInt(int index) {
+		final long pos = this.address + index;
 		if (CHECKED) {
-			if (index >= 0 && index <= this.memory.length - 4) {
-				return UNSAFE.getInt(this.memory, BASE_OFFSET + index);
+			if (index >= 0 && pos <= this.addressLimit - 4) {
+				return UNSAFE.getInt(this.memory, pos);
 			} else {
-				throw new IndexOutOfBoundsException();
+				throw accessException(index);
 			}
 		} else {
-			return UNSAFE.getInt(this.memory, BASE_OFFSET + index);
+			return UNSAFE.getInt(this.memory, pos);
 		}
 	}
 	
@@ -434,14 +572,15 @@ public class MemorySegment {
 	 */
 	@SuppressWarnings("restriction")
 	public final void putInt(int index, int value) {
+		final long pos = this.address + index;
 		if (CHECKED) {
-			if (index >= 0 && index <= this.memory.length - 4) {
-				UNSAFE.putInt(this.memory, BASE_OFFSET + index, value);
+			if (index >= 0 && pos <= this.addressLimit - 4) {
+				UNSAFE.putInt(this.memory, pos, value);
 			} else {
-				throw new IndexOutOfBoundsException();
+				throw accessException(index);
 			}
 		} else {
-			UNSAFE.putInt(this.memory, BASE_OFFSET + index, value);
+			UNSAFE.putInt(this.memory, pos, value);
 		}
 	}
 	
@@ -505,14 +644,15 @@ public class MemorySegment {
 	 */
 	@SuppressWarnings("restriction")
 	public final long getLong(int index) {
+		final long pos = this.address + index;
 		if (CHECKED) {
-			if (index >= 0 && index <= this.memory.length - 8) {
-				return UNSAFE.getLong(this.memory, BASE_OFFSET + index);
+			if (index >= 0 && pos <= this.addressLimit - 8) {
+				return UNSAFE.getLong(this.memory, pos);
 			} else {
-				throw new IndexOutOfBoundsException();
+				throw accessException(index);
 			}
 		} else {
-			return UNSAFE.getLong(this.memory, BASE_OFFSET + index);
+			return UNSAFE.getLong(this.memory, pos);
 		}
 	}
 	
@@ -576,14 +716,15 @@ public class MemorySegment {
 	 */
 	@SuppressWarnings("restriction")
 	public final void putLong(int index, long value) {
+		final long pos = this.address + index;
 		if (CHECKED) {
-			if (index >= 0 && index <= this.memory.length - 8) {
-				UNSAFE.putLong(this.memory, BASE_OFFSET + index, value);
+			if (index >= 0 && pos <= this.addressLimit - 8) {
+				UNSAFE.putLong(this.memory, pos, value);
 			} else {
-				throw new IndexOutOfBoundsException();
+				throw accessException(index);
 			}
 		} else {
-			UNSAFE.putLong(this.memory, BASE_OFFSET + index, value);
+			UNSAFE.putLong(this.memory, pos, value);
 		}
 	}
 	
@@ -862,7 +1003,17 @@ public class MemorySegment {
 	 * @throws IOException Thrown, if the DataOutput encountered a problem upon writing.
 	 */
 	public final void get(DataOutput out, int offset, int length) throws IOException {
-		out.write(this.memory, offset, length);
+		if (this.memory != null) {
+			out.write(this.memory, offset, length);
+		} else {
+			final ByteBuffer view = offHeapView(offset, length);
+			final byte[] chunk = new byte[Math.min(length, OFF_HEAP_COPY_CHUNK_SIZE)];
+			while (view.hasRemaining()) {
+				final int num = Math.min(view.remaining(), chunk.length);
+				view.get(chunk, 0, num);
+				out.write(chunk, 0, num);
+			}
+		}
 	}
 
 	/**
@@ -877,7 +1028,17 @@ public class MemorySegment {
 	 *                     such as an End-Of-File.
 	 */
 	public final void put(DataInput in, int offset, int length) throws IOException {
-		in.readFully(this.memory, offset, length);
+		if (this.memory != null) {
+			in.readFully(this.memory, offset, length);
+		} else {
+			final ByteBuffer view = offHeapView(offset, length);
+			final byte[] chunk = new byte[Math.min(length, OFF_HEAP_COPY_CHUNK_SIZE)];
+			while (view.hasRemaining()) {
+				final int num = Math.min(view.remaining(), chunk.length);
+				in.readFully(chunk, 0, num);
+				view.put(chunk, 0, num);
+			}
+		}
 	}
 	
 	/**
@@ -897,7 +1058,11 @@ public class MemorySegment {
 	 */
 	public final void get(int offset, ByteBuffer target, int numBytes) {
 		// ByteBuffer performs the boundy checks
-		target.put(this.memory, offset, numBytes);
+		if (this.memory != null) {
+			target.put(this.memory, offset, numBytes);
+		} else {
+			target.put(offHeapView(offset, numBytes));
+		}
 	}
 	
 	/**
@@ -919,7 +1084,22 @@ public class MemorySegment {
 	 */
 	public final void put(int offset, ByteBuffer source, int numBytes) {
 		// ByteBuffer performs the boundy checks
-		source.get(this.memory, offset, numBytes);
+		if (this.memory != null) {
+			source.get(this.memory, offset, numBytes);
+		} else {
+			if (source.remaining() < numBytes) {
+				throw new BufferUnderflowException();
+			}
+			
+			final ByteBuffer view = offHeapView(offset, numBytes);
+			final int sourceLimit = source.limit();
+			source.limit(source.position() + numBytes);
+			try {
+				view.put(source);
+			} finally {
+				source.limit(sourceLimit);
+			}
+		}
 	}
 	
 	/**
@@ -937,8 +1117,25 @@ public class MemorySegment {
 	 *           not have enough space for the bytes (counting from targetOffset).
 	 */
 	public final void copyTo(int offset, MemorySegment target, int targetOffset, int numBytes) {
-		// system arraycopy does the boundary checks anyways, no need to check extra
-		System.arraycopy(this.memory, offset, target.memory, targetOffset, numBytes);
+		if (this.memory != null && target.memory != null) {
+			// system arraycopy does the boundary checks anyways, no need to check extra
+			System.arraycopy(this.memory, offset, target.memory, targetOffset, numBytes);
+		}
+		else if (this.memory != null) {
+			target.put(targetOffset, this.memory, offset, numBytes);
+		}
+		else if (target.memory != null) {
+			get(offset, target.memory, targetOffset, numBytes);
+		}
+		else if (target != this) {
+			target.offHeapView(targetOffset, numBytes).put(offHeapView(offset, numBytes));
+		}
+		else {
+			// copy within the same off-heap segment, the regions may overlap
+			final byte[] tmp = new byte[numBytes];
+			get(offset, tmp, 0, numBytes);
+			put(targetOffset, tmp, 0, numBytes);
+		}
 	}
 	
 	// -------------------------------------------------------------------------
@@ -946,19 +1143,79 @@ public class MemorySegment {
 	// -------------------------------------------------------------------------
 	
 	public static final int compare(MemorySegment seg1, MemorySegment seg2, int offset1, int offset2, int len) {
-		final byte[] b1 = seg1.memory;
-		final byte[] b2 = seg2.memory;
-		
-		int val = 0;
-		for (int pos = 0; pos < len && (val = (b1[offset1 + pos] & 0xff) - (b2[offset2 + pos] & 0xff)) == 0; pos++);
-		return val;
+		if (seg1.memory != null && seg2.memory != null) {
+			final byte[] b1 = seg1.memory;
+			final byte[] b2 = seg2.memory;
+			
+			int val = 0;
+			for (int pos = 0; pos < len && (val = (b1[offset1 + pos] & 0xff) - (b2[offset2 + pos] & 0xff)) == 0; pos++);
+			return val;
+		}
+		else {
+			// at least one segment is off-heap, compare in words of eight bytes as far as possible
+			int pos = 0;
+			for (; pos <= len - 8; pos += 8) {
+				final long l1 = seg1.getLongBigEndian(offset1 + pos);
+				final long l2 = seg2.getLongBigEndian(offset2 + pos);
+				if (l1 != l2) {
+					// unsigned comparison of the words
+					return (l1 + Long.MIN_VALUE) < (l2 + Long.MIN_VALUE) ? -1 : 1;
+				}
+			}
+			
+			int val = 0;
+			for (; pos < len && (val = (seg1.get(offset1 + pos) & 0xff) - (seg2.get(offset2 + pos) & 0xff)) == 0; pos++);
+			return val;
+		}
 	}
 	
 	public static final void swapBytes(MemorySegment seg1, MemorySegment seg2, byte[] tempBuffer, int offset1, int offset2, int len) {
-		// system arraycopy does the boundary checks anyways, no need to check extra
-		System.arraycopy(seg1.memory, offset1, tempBuffer, 0, len);
-		System.arraycopy(seg2.memory, offset2, seg1.memory, offset1, len);
-		System.arraycopy(tempBuffer, 0, seg2.memory, offset2, len);
+		if (seg1.memory != null && seg2.memory != null) {
+			// system arraycopy does the boundary checks anyways, no need to check extra
+			System.arraycopy(seg1.memory, offset1, tempBuffer, 0, len);
+			System.arraycopy(seg2.memory, offset2, seg1.memory, offset1, len);
+			System.arraycopy(tempBuffer, 0, seg2.memory, offset2, len);
+		}
+		else {
+			seg1.get(offset1, tempBuffer, 0, len);
+			seg2.copyTo(offset2, seg1, offset1, len);
+			seg2.put(offset2, tempBuffer, 0, len);
+		}
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	//                            Utilities for off-heap segments
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Gets a view on the given range of the off-heap memory of this segment. The view is reused
+	 * between calls and must only be used until the next call to this method.
+	 */
+	private ByteBuffer offHeapView(int offset, int length) {
+		if (this.offHeapBuffer == null) {
+			throw new IllegalStateException("The segment has been freed.");
+		}
+		if (offset < 0 || length < 0 || offset > this.size - length) {
+			throw new IndexOutOfBoundsException();
+		}
+		
+		ByteBuffer view = this.offHeapView;
+		if (view == null) {
+			view = this.offHeapBuffer.duplicate();
+			this.offHeapView = view;
+		}
+		view.clear();
+		view.limit(offset + length);
+		view.position(offset);
+		return view;
+	}
+	
+	private RuntimeException accessException(int index) {
+		if (isFreed()) {
+			return new IllegalStateException("The segment has been freed.");
+		} else {
+			return new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+		}
 	}
 	
 	// --------------------------------------------------------------------------------------------
@@ -972,4 +1229,6 @@ public class MemorySegment {
 	private static final long BASE_OFFSET = UNSAFE.arrayBaseOffset(byte[].class);
 	
 	private static final boolean LITTLE_ENDIAN = (MemoryUtils.NATIVE_BYTE_ORDER == ByteOrder.LITTLE_ENDIAN);
+	
+	private static final int OFF_HEAP_COPY_CHUNK_SIZE = 4096;
 }
@@ -19,6 +19,8 @@
 package org.apache.flink.core.memory;
 
 import java.lang.reflect.Field;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
 /**
@@ -37,6 +39,27 @@ public class MemoryUtils {
 	 */
 	public static final ByteOrder NATIVE_BYTE_ORDER = getByteOrder();
 	
+	/**
+	 * The offset of the field that holds the native address in direct byte buffers.
+	 */
+	@SuppressWarnings("restriction")
+	private static final long BUFFER_ADDRESS_FIELD_OFFSET = getBufferAddressFieldOffset();
+	
+	/**
+	 * Gets the native memory address of the first byte of the given direct byte buffer.
+	 * 
+	 * @param buffer The direct byte buffer.
+	 * @return The native memory address of the buffer's memory.
+	 * @throws IllegalArgumentException Thrown, if the buffer is not a direct byte buffer.
+	 */
+	@SuppressWarnings("restriction")
+	public static long getByteBufferAddress(ByteBuffer buffer) {
+		if (!buffer.isDirect()) {
+			throw new IllegalArgumentException("The buffer is not a direct byte buffer.");
+		}
+		return UNSAFE.getLong(buffer, BUFFER_ADDRESS_FIELD_OFFSET);
+	}
+	
 	
 	@SuppressWarnings("restriction")
 	private static sun.misc.Unsafe getUnsafe() {
@@ -55,6 +78,17 @@ public class MemoryUtils {
 		}
 	}
 	
+	@SuppressWarnings("restriction")
+	private static long getBufferAddressFieldOffset() {
+		try {
+			return UNSAFE.objectFieldOffset(Buffer.class.getDeclaredField("address"));
+		} catch (NoSuchFieldException e) {
+			throw new RuntimeException("The address field of direct byte buffers was not found.");
+		} catch (SecurityException e) {
+			throw new RuntimeException("Could not access the address field of direct byte buffers.", e);
+		}
+	}
+	
 	@SuppressWarnings("restriction")
 	private static ByteOrder getByteOrder() {
 		final byte[] bytes = new byte[8];
@@ -21,6 +21,7 @@ package org.apache.flink.core.io;
 import static org.junit.Assert.*;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -164,6 +165,61 @@ public class LocatableSplitAssignerTest {
 		}
 	}
 	
+	@Test
+	public void testBatchedSplitAssignmentMixedLocalHost() {
+		try {
+			final String[] hosts = { "host1", "host1", "host1", "host2", "host2", "host3" };
+			final int NUM_SPLITS = 10 * hosts.length;
+			final int BATCH_SIZE = 4;
+			
+			// load some splits
+			Set<LocatableInputSplit> splits = new HashSet<LocatableInputSplit>();
+			for (int i = 0; i < NUM_SPLITS; i++) {
+				splits.add(new LocatableInputSplit(i, hosts[i % hosts.length]));
+			}
+			
+			// all splits of host1 are handed out in batches of local splits
+			LocatableInputSplitAssigner ia = new LocatableInputSplitAssigner(splits);
+			List<LocatableInputSplit> batch;
+			while ((batch = ia.getNextInputSplits("host1", BATCH_SIZE)).size() > 0) {
+				assertTrue(batch.size() <= BATCH_SIZE);
+				
+				if (ia.getNumberOfRemoteAssignments() > 0) {
+					// once no local split remains, the remote splits come one at a time
+					assertEquals(1, batch.size());
+					break;
+				}
+				for (LocatableInputSplit is : batch) {
+					assertEquals("host1", is.getHostnames()[0]);
+					assertTrue(splits.remove(is));
+				}
+			}
+			assertEquals(30, ia.getNumberOfLocalAssignments());
+			assertEquals(1, ia.getNumberOfRemoteAssignments());
+			
+			final LocatableInputSplit remote = batch.get(0);
+			assertTrue(splits.remove(remote));
+			final int numLocalHost2 = "host2".equals(remote.getHostnames()[0]) ? 19 : 20;
+			
+			// the other hosts still get their local splits
+			while ((batch = ia.getNextInputSplits("host2", BATCH_SIZE)).size() > 0) {
+				for (LocatableInputSplit is : batch) {
+					assertTrue(splits.remove(is));
+				}
+			}
+			
+			// check we had all
+			assertTrue(splits.isEmpty());
+			assertTrue(ia.getNextInputSplits("host3", BATCH_SIZE).isEmpty());
+			assertEquals(30 + numLocalHost2, ia.getNumberOfLocalAssignments());
+			assertEquals(NUM_SPLITS - 30 - numLocalHost2, ia.getNumberOfRemoteAssignments());
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+	
 	@Test
 	public void testConcurrentSplitAssignmentNullHost() {
 		try {
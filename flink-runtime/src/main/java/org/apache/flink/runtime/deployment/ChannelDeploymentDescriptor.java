@@ -98,4 +98,8 @@ public final class ChannelDeploymentDescriptor implements IOReadableWritable {
 	public static ChannelDeploymentDescriptor fromExecutionEdge(ExecutionEdge edge) {
 		return new ChannelDeploymentDescriptor(edge.getOutputChannelId(), edge.getInputChannelId());
 	}
+	
+	public static ChannelDeploymentDescriptor fromSpeculativeExecutionEdge(ExecutionEdge edge) {
+		return new ChannelDeploymentDescriptor(edge.getSpeculativeOutputChannelId(), edge.getSpeculativeInputChannelId());
+	}
 }
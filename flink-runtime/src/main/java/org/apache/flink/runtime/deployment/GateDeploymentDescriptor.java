@@ -26,6 +26,7 @@ import org.apache.flink.core.io.IOReadableWritable;
 import org.apache.flink.core.memory.DataInputView;
 import org.apache.flink.core.memory.DataOutputView;
 import org.apache.flink.runtime.executiongraph.ExecutionEdge;
+import org.apache.flink.runtime.jobgraph.ResultPartitionType;
 
 /**
  * A gate deployment descriptor contains the deployment descriptors for the channels associated with that gate.
@@ -34,6 +35,9 @@ public final class GateDeploymentDescriptor implements IOReadableWritable {
 
 	/** The list of channel deployment descriptors attached to this gate. */
 	private final List<ChannelDeploymentDescriptor> channels;
+	
+	/** The way the data of the gate is handed over from the producer to the consumer. */
+	private ResultPartitionType resultType;
 
 	/**
 	 * Constructs a new gate deployment descriptor
@@ -42,11 +46,24 @@ public final class GateDeploymentDescriptor implements IOReadableWritable {
 	 *        the list of channel deployment descriptors attached to this gate
 	 */
 	public GateDeploymentDescriptor(List<ChannelDeploymentDescriptor> channels) {
-		if (channels == null) {
+		this(channels, ResultPartitionType.PIPELINED);
+	}
+	
+	/**
+	 * Constructs a new gate deployment descriptor
+	 * 
+	 * @param channels
+	 *        the list of channel deployment descriptors attached to this gate
+	 * @param resultType
+	 *        the type of the result partition the channels of the gate belong to
+	 */
+	public GateDeploymentDescriptor(List<ChannelDeploymentDescriptor> channels, ResultPartitionType resultType) {
+		if (channels == null || resultType == null) {
 			throw new NullPointerException();
 		}
 
 		this.channels = channels;
+		this.resultType = resultType;
 	}
 
 	/**
@@ -54,6 +71,7 @@ public final class GateDeploymentDescriptor implements IOReadableWritable {
 	 */
 	public GateDeploymentDescriptor() {
 		this.channels = new ArrayList<ChannelDeploymentDescriptor>();
+		this.resultType = ResultPartitionType.PIPELINED;
 	}
 
 	
@@ -61,10 +79,15 @@ public final class GateDeploymentDescriptor implements IOReadableWritable {
 		return channels;
 	}
 	
+	public ResultPartitionType getResultType() {
+		return resultType;
+	}
+	
 	// --------------------------------------------------------------------------------------------
 	
 	@Override
 	public void write(final DataOutputView out) throws IOException {
+		out.writeInt(this.resultType.ordinal());
 		out.writeInt(this.channels.size());
 		for (ChannelDeploymentDescriptor cdd : this.channels) {
 			cdd.write(out);
@@ -73,6 +96,7 @@ public final class GateDeploymentDescriptor implements IOReadableWritable {
 
 	@Override
 	public void read(final DataInputView in) throws IOException {
+		this.resultType = ResultPartitionType.values()[in.readInt()];
 		final int nocdd = in.readInt();
 		for (int i = 0; i < nocdd; ++i) {
 			ChannelDeploymentDescriptor cdd = new ChannelDeploymentDescriptor();
@@ -84,11 +108,15 @@ public final class GateDeploymentDescriptor implements IOReadableWritable {
 	// --------------------------------------------------------------------------------------------
 	
 	public static GateDeploymentDescriptor fromEdges(List<ExecutionEdge> edges) {
+		return fromEdges(edges, ResultPartitionType.PIPELINED);
+	}
+	
+	public static GateDeploymentDescriptor fromEdges(List<ExecutionEdge> edges, ResultPartitionType resultType) {
 		List<ChannelDeploymentDescriptor> channels = new ArrayList<ChannelDeploymentDescriptor>(edges.size());
 		for (ExecutionEdge edge : edges) {
 			channels.add(ChannelDeploymentDescriptor.fromExecutionEdge(edge));
 		}
-		return new GateDeploymentDescriptor(channels);
+		return new GateDeploymentDescriptor(channels, resultType);
 	}
 	
 	public static GateDeploymentDescriptor fromEdges(ExecutionEdge[] edges) {
@@ -98,4 +126,12 @@ public final class GateDeploymentDescriptor implements IOReadableWritable {
 		}
 		return new GateDeploymentDescriptor(channels);
 	}
+	
+	public static GateDeploymentDescriptor fromSpeculativeEdges(ExecutionEdge[] edges) {
+		List<ChannelDeploymentDescriptor> channels = new ArrayList<ChannelDeploymentDescriptor>(edges.length);
+		for (ExecutionEdge edge : edges) {
+			channels.add(ChannelDeploymentDescriptor.fromSpeculativeExecutionEdge(edge));
+		}
+		return new GateDeploymentDescriptor(channels);
+	}
 }
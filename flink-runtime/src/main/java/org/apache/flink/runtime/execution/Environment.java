@@ -235,4 +235,12 @@ public interface Environment {
 	
 	
 	BroadcastVariableManager getBroadcastVariableManager();
+
+	/**
+	 * Reports the number of records the task has read from sources other than its input gates, such as
+	 * the input splits of a data source. The progress is reported to the JobManager with the heart beats.
+	 *
+	 * @param numRecords The total number of records read so far.
+	 */
+	void reportRecordsRead(long numRecords);
 }
@@ -130,6 +130,9 @@ public class RuntimeEnvironment implements Environment, BufferProvider, LocalBuf
 	private LocalBufferPool outputBufferPool;
 	
 	private AtomicBoolean canceled = new AtomicBoolean();
+	
+	/** The number of records read from sources other than the input gates, as reported by the task. */
+	private volatile long numRecordsRead;
 
 
 	public RuntimeEnvironment(Task owner, TaskDeploymentDescriptor tdd,
@@ -560,6 +563,25 @@ public class RuntimeEnvironment implements Environment, BufferProvider, LocalBuf
 	public InputSplitProvider getInputSplitProvider() {
 		return this.inputSplitProvider;
 	}
+	
+	@Override
+	public void reportRecordsRead(long numRecords) {
+		this.numRecordsRead = numRecords;
+	}
+	
+	/**
+	 * Gets the progress of the task in reading its input, as the number of bytes read through the input gates
+	 * plus the number of records reported to be read from other sources.
+	 * 
+	 * @return The input progress of the task.
+	 */
+	public long getInputProgress() {
+		long progress = this.numRecordsRead;
+		for (int i = 0; i < this.inputGates.size(); i++) {
+			progress += this.inputGates.get(i).getNumberOfBytesRead();
+		}
+		return progress;
+	}
 
 	/**
 	 * Releases the allocated resources (particularly buffer) of input and output channels attached to this task. This
@@ -91,6 +91,10 @@ public class Execution {
 	
 	private volatile Throwable failureCause;          // once assigned, never changes
 	
+	private volatile long inputProgress;              // as last reported with the TaskManager's heart beat
+	
+	private int nextInputSplit;                       // guarded by the vertex's input split lock
+	
 	// --------------------------------------------------------------------------------------------
 	
 	public Execution(ExecutionVertex vertex, int attemptNumber, long startTimestamp) {
@@ -145,6 +149,28 @@ public class Execution {
 		return state == FINISHED || state == FAILED || state == CANCELED;
 	}
 	
+	/**
+	 * Gets the amount of input the execution has read, as last reported by the TaskManager. The amount is
+	 * in bytes for tasks reading from input gates, and in records for data sources.
+	 * 
+	 * @return The input progress of the execution.
+	 */
+	public long getInputProgress() {
+		return inputProgress;
+	}
+	
+	void setInputProgress(long inputProgress) {
+		this.inputProgress = inputProgress;
+	}
+	
+	int getNextInputSplit() {
+		return nextInputSplit;
+	}
+	
+	void setNextInputSplit(int nextInputSplit) {
+		this.nextInputSplit = nextInputSplit;
+	}
+	
 	// --------------------------------------------------------------------------------------------
 	//  Actions
 	// --------------------------------------------------------------------------------------------
@@ -343,7 +369,7 @@ public class Execution {
 					markTimestamp(CANCELING, getStateTimestamp(CANCELED));
 					
 					try {
-						vertex.executionCanceled();
+						vertex.executionCanceled(this);
 					}
 					finally {
 						vertex.getExecutionGraph().deregisterExecution(this);
@@ -400,7 +426,7 @@ public class Execution {
 						vertex.getExecutionGraph().deregisterExecution(this);
 					}
 					finally {
-						vertex.executionFinished();
+						vertex.executionFinished(this);
 					}
 					return;
 				}
@@ -445,7 +471,7 @@ public class Execution {
 						vertex.getExecutionGraph().deregisterExecution(this);
 					}
 					finally {
-						vertex.executionCanceled();
+						vertex.executionCanceled(this);
 					}
 					return;
 				}
@@ -504,7 +530,7 @@ public class Execution {
 					vertex.getExecutionGraph().deregisterExecution(this);
 				}
 				finally {
-					vertex.executionFailed(t);
+					vertex.executionFailed(this, t);
 				}
 				
 				if (!isCallback && (current == RUNNING || current == DEPLOYING)) {
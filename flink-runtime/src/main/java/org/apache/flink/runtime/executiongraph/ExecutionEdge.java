@@ -32,6 +32,14 @@ public class ExecutionEdge {
 	
 	private ChannelID outputChannelId;
 	
+	private ChannelID persistedChannelId;
+	
+	private ChannelID speculativeInputChannelId;
+	
+	private ChannelID speculativeOutputChannelId;
+	
+	private boolean partitionRequested;
+	
 	
 	public ExecutionEdge(IntermediateResultPartition source, ExecutionVertex target, int inputNum) {
 		this.source = source;
@@ -63,8 +71,87 @@ public class ExecutionEdge {
 		return outputChannelId;
 	}
 	
-	public void assignNewChannelIDs() {
+	/**
+	 * Gets the ID of the output channel which has written the persistent partition of a blocking result
+	 * for this edge, or null, if no such partition has been written.
+	 * 
+	 * @return The ID of the channel that has written the partition.
+	 */
+	public ChannelID getPersistedChannelId() {
+		return persistedChannelId;
+	}
+	
+	public void setPersistedChannelId(ChannelID persistedChannelId) {
+		this.persistedChannelId = persistedChannelId;
+	}
+	
+	/**
+	 * Marks the persistent partition of this edge as requested by the target, so that it is
+	 * replayed only once for the current channel IDs.
+	 * 
+	 * @return True, if the partition had not been requested before, false otherwise.
+	 */
+	public synchronized boolean markPartitionRequested() {
+		if (partitionRequested) {
+			return false;
+		}
+		partitionRequested = true;
+		return true;
+	}
+	
+	/**
+	 * Gets the ID of the input channel through which a backup execution of the target reads the edge's
+	 * persistent partition, or null, if the target has no backup execution.
+	 * 
+	 * @return The ID of the backup execution's input channel.
+	 */
+	public ChannelID getSpeculativeInputChannelId() {
+		return speculativeInputChannelId;
+	}
+	
+	/**
+	 * Gets the ID of the output channel through which the edge's persistent partition is replayed to a backup
+	 * execution of the target, or null, if the target has no backup execution.
+	 * 
+	 * @return The ID of the output channel replaying to the backup execution.
+	 */
+	public ChannelID getSpeculativeOutputChannelId() {
+		return speculativeOutputChannelId;
+	}
+	
+	public synchronized void assignNewChannelIDs() {
 		inputChannelId = new ChannelID();
 		outputChannelId = new ChannelID();
+		speculativeInputChannelId = null;
+		speculativeOutputChannelId = null;
+		partitionRequested = false;
+	}
+	
+	/**
+	 * Assigns the IDs of the channels through which the persistent partition is replayed to a backup
+	 * execution of the target, next to the channels of the current execution.
+	 */
+	public synchronized void assignSpeculativeChannelIDs() {
+		speculativeInputChannelId = new ChannelID();
+		speculativeOutputChannelId = new ChannelID();
+	}
+	
+	/**
+	 * Makes the channels of the backup execution the channels of the edge, once the backup execution
+	 * has overtaken the current execution of the target.
+	 */
+	public synchronized void promoteSpeculativeChannelIDs() {
+		if (speculativeInputChannelId == null) {
+			throw new IllegalStateException("The edge has no speculative channels.");
+		}
+		inputChannelId = speculativeInputChannelId;
+		outputChannelId = speculativeOutputChannelId;
+		speculativeInputChannelId = null;
+		speculativeOutputChannelId = null;
+	}
+	
+	public synchronized void clearSpeculativeChannelIDs() {
+		speculativeInputChannelId = null;
+		speculativeOutputChannelId = null;
 	}
 }
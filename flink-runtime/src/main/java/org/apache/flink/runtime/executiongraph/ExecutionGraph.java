@@ -21,11 +21,12 @@ package org.apache.flink.runtime.executiongraph;
 import java.net.InetSocketAddress;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
@@ -38,18 +39,22 @@ import org.apache.flink.runtime.JobException;
 import org.apache.flink.runtime.blob.BlobKey;
 import org.apache.flink.runtime.execution.ExecutionListener;
 import org.apache.flink.runtime.execution.ExecutionState;
+import org.apache.flink.runtime.instance.AllocatedSlot;
 import org.apache.flink.runtime.instance.Instance;
 import org.apache.flink.runtime.instance.InstanceConnectionInfo;
 import org.apache.flink.runtime.io.network.ConnectionInfoLookupResponse;
 import org.apache.flink.runtime.io.network.RemoteReceiver;
 import org.apache.flink.runtime.io.network.channels.ChannelID;
+import org.apache.flink.runtime.io.network.partition.PartitionReplayException;
 import org.apache.flink.runtime.jobgraph.AbstractJobVertex;
 import org.apache.flink.runtime.jobgraph.IntermediateDataSetID;
 import org.apache.flink.runtime.jobgraph.JobID;
 import org.apache.flink.runtime.jobgraph.JobStatus;
 import org.apache.flink.runtime.jobgraph.JobVertexID;
+import org.apache.flink.runtime.jobgraph.ResultPartitionType;
 import org.apache.flink.runtime.jobmanager.scheduler.Scheduler;
 import org.apache.flink.runtime.taskmanager.TaskExecutionState;
+import org.apache.flink.runtime.taskmanager.TaskOperationResult;
 import org.apache.flink.util.ExceptionUtils;
 
 
@@ -89,7 +94,10 @@ public class ExecutionGraph {
 
 	
 	
-	private final Map<ChannelID, ExecutionEdge> edges = new HashMap<ChannelID, ExecutionEdge>();
+	private final Map<ChannelID, ExecutionEdge> edges = new ConcurrentHashMap<ChannelID, ExecutionEdge>();
+	
+	/** The instances which hold persistent partitions of blocking results of this job */
+	private final Set<Instance> partitionLocations = Collections.newSetFromMap(new ConcurrentHashMap<Instance, Boolean>());
 	
 	
 	/** An executor that can run long actions (involving remote calls) */
@@ -112,6 +120,23 @@ public class ExecutionGraph {
 	
 	private long delayBeforeRetrying;
 	
+	/** The vertices which are canceled and executed again to recover from a failure, guarded by the progress lock */
+	private final Set<ExecutionVertex> verticesToRecover = new HashSet<ExecutionVertex>();
+	
+	/** Whether the vertices to recover are all canceled and going to be executed again, guarded by the progress lock */
+	private boolean regionRestartScheduled;
+	
+	private volatile boolean hasBlockingResults;
+	
+	/** Whether backup executions are started for straggling subtasks */
+	private volatile boolean speculativeExecution;
+	
+	/** The fraction of the subtasks of a vertex which must be finished before its stragglers are backed up */
+	private volatile float speculationQuantile;
+	
+	/** The factor by which a straggler is estimated to run longer than the median subtask of its vertex */
+	private volatile float speculationMultiplier;
+	
 	private volatile JobStatus state = JobStatus.CREATED;
 	
 	private volatile Throwable failureCause;
@@ -181,6 +206,30 @@ public class ExecutionGraph {
 		return delayBeforeRetrying;
 	}
 	
+	/**
+	 * Enables backup executions of straggling subtasks.
+	 * 
+	 * @param quantile The fraction of the subtasks of a vertex which must be finished before its stragglers are backed up.
+	 * @param multiplier The factor by which a straggler is estimated to run longer than the median subtask of its vertex.
+	 * 
+	 * @see ExecutionJobVertex#speculateStragglers(Scheduler, float, float)
+	 */
+	public void setSpeculativeExecution(float quantile, float multiplier) {
+		if (quantile <= 0 || quantile > 1) {
+			throw new IllegalArgumentException("The quantile for speculative execution must be in (0, 1].");
+		}
+		if (multiplier < 1) {
+			throw new IllegalArgumentException("The multiplier for speculative execution must be at least 1.");
+		}
+		this.speculationQuantile = quantile;
+		this.speculationMultiplier = multiplier;
+		this.speculativeExecution = true;
+	}
+	
+	public boolean isSpeculativeExecutionEnabled() {
+		return speculativeExecution;
+	}
+	
 	public void attachJobGraph(List<AbstractJobVertex> topologiallySorted) throws JobException {
 		if (LOG.isDebugEnabled()) {
 			LOG.debug(String.format("Attaching %d topologically sorted vertices to existing job graph with %d "
@@ -207,6 +256,9 @@ public class ExecutionGraph {
 					throw new JobException(String.format("Encountered two intermediate data set with ID %s : previous=[%s] / new=[%s]",
 							res.getId(), res, previousDataSet));
 				}
+				if (res.getResultType() == ResultPartitionType.BLOCKING) {
+					this.hasBlockingResults = true;
+				}
 			}
 			
 			this.verticesInCreationOrder.add(ejv);
@@ -440,48 +492,63 @@ public class ExecutionGraph {
 				nextVertexToFinish = nextPos;
 				
 				if (nextPos == verticesInCreationOrder.size()) {
+					// the vertices of a failed region are in a final state before they are executed again
+					if (state == JobStatus.RUNNING && !verticesToRecover.isEmpty()) {
+						return;
+					}
 					
-					// we are done, transition to the final state
+					jobInFinalState();
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Transitions the job to its final state, once all vertices are in a final state. Must be called while
+	 * holding the progress lock.
+	 */
+	private void jobInFinalState() {
+		// we are done, transition to the final state
+		
+		while (true) {
+			JobStatus current = this.state;
+			if (current == JobStatus.RUNNING && transitionState(current, JobStatus.FINISHED)) {
+				break;
+			}
+			if (current == JobStatus.CANCELLING && transitionState(current, JobStatus.CANCELED)) {
+				break;
+			}
+			if (current == JobStatus.FAILING) {
+				if (numberOfRetriesLeft > 0 && transitionState(current, JobStatus.RESTARTING)) {
+					numberOfRetriesLeft--;
 					
-					while (true) {
-						JobStatus current = this.state;
-						if (current == JobStatus.RUNNING && transitionState(current, JobStatus.FINISHED)) {
-							break;
-						}
-						if (current == JobStatus.CANCELLING && transitionState(current, JobStatus.CANCELED)) {
-							break;
-						}
-						if (current == JobStatus.FAILING) {
-							if (numberOfRetriesLeft > 0 && transitionState(current, JobStatus.RESTARTING)) {
-								numberOfRetriesLeft--;
-								
-								execute(new Runnable() {
-									@Override
-									public void run() {
-										try {
-											Thread.sleep(delayBeforeRetrying);
-										} catch (InterruptedException e) {
-											// should only happen on shutdown
-										}
-										restart();
-									}
-								});
-								break;
-							}
-							else if (numberOfRetriesLeft <= 0 && transitionState(current, JobStatus.FAILED, failureCause)) {
-								break;
+					execute(new Runnable() {
+						@Override
+						public void run() {
+							try {
+								Thread.sleep(delayBeforeRetrying);
+							} catch (InterruptedException e) {
+								// should only happen on shutdown
 							}
+							restart();
 						}
-						if (current == JobStatus.CANCELED || current == JobStatus.CREATED || current == JobStatus.FINISHED) {
-							fail(new Exception("ExecutionGraph went into final state from state " + current));
-						}
-					}
-					
-					// also, notify waiters
-					progressLock.notifyAll();
+					});
+					break;
+				}
+				else if (numberOfRetriesLeft <= 0 && transitionState(current, JobStatus.FAILED, failureCause)) {
+					break;
 				}
 			}
+			if (current == JobStatus.CANCELED || current == JobStatus.CREATED || current == JobStatus.FINISHED) {
+				fail(new Exception("ExecutionGraph went into final state from state " + current));
+			}
 		}
+		
+		// the persistent partitions are not read any more, a restarted job produces them again
+		releasePersistentPartitions();
+		
+		// also, notify waiters
+		progressLock.notifyAll();
 	}
 	
 	// --------------------------------------------------------------------------------------------
@@ -499,7 +566,14 @@ public class ExecutionGraph {
 					attempt.cancelingComplete();
 					return true;
 				case FAILED:
-					attempt.markFailed(state.getError());
+					if (state.getError() instanceof PartitionReplayException) {
+						// the failure is reported by the instance replaying a partition to the task,
+						// so the task itself may still be running
+						partitionLost(attempt.getVertex(), ((PartitionReplayException) state.getError()).getPartitionId());
+						attempt.fail(state.getError());
+					} else {
+						attempt.markFailed(state.getError());
+					}
 					return true;
 				default:
 					// we mark as failed and return false, which triggers the TaskManager
@@ -513,9 +587,51 @@ public class ExecutionGraph {
 		}
 	}
 	
+	/**
+	 * Updates the input progress of an execution, as reported with the heart beat of its TaskManager.
+	 * 
+	 * @param executionId The ID of the execution.
+	 * @param inputProgress The amount of input read by the execution.
+	 */
+	public void updateInputProgress(ExecutionAttemptID executionId, long inputProgress) {
+		Execution attempt = this.currentExecutions.get(executionId);
+		if (attempt != null) {
+			attempt.setInputProgress(inputProgress);
+		}
+	}
+	
+	/**
+	 * Starts backup executions for the straggling subtasks of the running vertices, if speculative execution
+	 * is enabled. No backups are started while a failed region is recovered.
+	 */
+	public void speculateStragglers() {
+		if (!speculativeExecution || state != JobStatus.RUNNING) {
+			return;
+		}
+		synchronized (progressLock) {
+			if (!verticesToRecover.isEmpty()) {
+				return;
+			}
+		}
+		
+		for (ExecutionJobVertex ejv : getVerticesTopologically()) {
+			if (!ejv.isInFinalState()) {
+				ejv.speculateStragglers(scheduler, speculationQuantile, speculationMultiplier);
+			}
+		}
+	}
+	
 	public ConnectionInfoLookupResponse lookupConnectionInfoAndDeployReceivers(InstanceConnectionInfo caller, ChannelID sourceChannelID) {
 		
 		final ExecutionEdge edge = edges.get(sourceChannelID);
+		if (edge == null && hasBlockingResults) {
+			// the channels of the vertices of a failed region get new IDs when the region is recovered,
+			// so the lookup may come from an execution which is being canceled
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("Cannot find execution edge associated with ID " + sourceChannelID + ", it may have been reset.");
+			}
+			return ConnectionInfoLookupResponse.createJobIsAborting();
+		}
 		if (edge == null) {
 			// that is bad, we need to fail the job
 			LOG.error("Cannot find execution edge associated with ID " + sourceChannelID);
@@ -527,17 +643,30 @@ public class ExecutionGraph {
 		//  ----- Request was sent from an input channel (receiver side), requesting the output channel (sender side) ------
 		//  -----                               This is the case for backwards events                                 ------
 
-		if (sourceChannelID.equals(edge.getInputChannelId())) {
+		// a backup execution of the receiver reads through its own channels
+		final boolean speculativeInput = sourceChannelID.equals(edge.getSpeculativeInputChannelId());
+		
+		if (speculativeInput || sourceChannelID.equals(edge.getInputChannelId())) {
+			final ChannelID outputChannelId = speculativeInput ? edge.getSpeculativeOutputChannelId() : edge.getOutputChannelId();
+			if (outputChannelId == null) {
+				// the backup execution has been overtaken or dropped in the meantime
+				return ConnectionInfoLookupResponse.createJobIsAborting();
+			}
+			
 			final ExecutionVertex targetVertex = edge.getSource().getProducer();
 			final ExecutionState executionState = targetVertex.getExecutionState();
 			
+			// the partitions of blocking results are replayed by the instance of the finished producer
+			final boolean replayed = executionState == ExecutionState.FINISHED &&
+					edge.getSource().getIntermediateResult().getResultType() == ResultPartitionType.BLOCKING;
+			
 			// common case - found task running
-			if (executionState == ExecutionState.RUNNING) {
+			if (executionState == ExecutionState.RUNNING || replayed) {
 				Instance location = targetVertex.getCurrentAssignedResource().getInstance();
 				
 				if (location.getInstanceConnectionInfo().equals(caller)) {
 					// Receiver runs on the same task manager
-					return ConnectionInfoLookupResponse.createReceiverFoundAndReady(edge.getOutputChannelId());
+					return ConnectionInfoLookupResponse.createReceiverFoundAndReady(outputChannelId);
 				}
 				else {
 					// Receiver runs on a different task manager
@@ -573,16 +702,27 @@ public class ExecutionGraph {
 		//  -----                                 This is the case for forward data                                   ------
 		
 		final ExecutionVertex targetVertex = edge.getTarget();
-		final ExecutionState executionState = targetVertex.getExecutionState();
+		
+		// the persistent partitions are replayed to a backup execution of the receiver through separate channels
+		final boolean speculativeOutput = sourceChannelID.equals(edge.getSpeculativeOutputChannelId());
+		final Execution targetExecution = speculativeOutput ? targetVertex.getSpeculativeExecutionAttempt() : targetVertex.getCurrentExecutionAttempt();
+		final ChannelID inputChannelId = speculativeOutput ? edge.getSpeculativeInputChannelId() : edge.getInputChannelId();
+		
+		if (targetExecution == null || inputChannelId == null) {
+			// the backup execution has been overtaken or dropped in the meantime
+			return ConnectionInfoLookupResponse.createJobIsAborting();
+		}
+		
+		final ExecutionState executionState = targetExecution.getState();
 
 		if (executionState == ExecutionState.RUNNING) {
 			
 			// already online
-			Instance location = targetVertex.getCurrentAssignedResource().getInstance();
+			Instance location = targetExecution.getAssignedResource().getInstance();
 			
 			if (location.getInstanceConnectionInfo().equals(caller)) {
 				// Receiver runs on the same task manager
-				return ConnectionInfoLookupResponse.createReceiverFoundAndReady(edge.getInputChannelId());
+				return ConnectionInfoLookupResponse.createReceiverFoundAndReady(inputChannelId);
 			}
 			else {
 				// Receiver runs on a different task manager
@@ -648,6 +788,360 @@ public class ExecutionGraph {
 		ChannelID source = edge.getOutputChannelId();
 		edges.put(source, edge);
 		edges.put(target, edge);
+		
+		ChannelID speculativeTarget = edge.getSpeculativeInputChannelId();
+		ChannelID speculativeSource = edge.getSpeculativeOutputChannelId();
+		if (speculativeTarget != null && speculativeSource != null) {
+			edges.put(speculativeSource, edge);
+			edges.put(speculativeTarget, edge);
+		}
+	}
+	
+	void deregisterExecutionEdge(ExecutionEdge edge) {
+		edges.remove(edge.getOutputChannelId());
+		edges.remove(edge.getInputChannelId());
+		
+		ChannelID speculativeTarget = edge.getSpeculativeInputChannelId();
+		ChannelID speculativeSource = edge.getSpeculativeOutputChannelId();
+		if (speculativeTarget != null && speculativeSource != null) {
+			edges.remove(speculativeSource);
+			edges.remove(speculativeTarget);
+		}
+	}
+	
+	void registerPartitionLocation(Instance instance) {
+		partitionLocations.add(instance);
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	//  Blocking Results and Failover
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Deploys the consumers of a blocking result, once all of its partitions are persisted. The partitions
+	 * are replayed to the consumers, which are scheduled on the first lookup of the replaying channels.
+	 * 
+	 * @param result The blocking result which has become complete.
+	 */
+	void deployConsumers(IntermediateResult result) {
+		for (IntermediateResultPartition partition : result.getPartitions()) {
+			for (List<ExecutionEdge> consumers : partition.getConsumers()) {
+				for (ExecutionEdge edge : consumers) {
+					replayPartition(edge);
+				}
+			}
+		}
+	}
+	
+	private void replayPartition(ExecutionEdge edge) {
+		final ExecutionVertex target = edge.getTarget();
+		final ExecutionState targetState = target.getExecutionState();
+		
+		if (targetState == ExecutionState.FINISHED || targetState == ExecutionState.CANCELING ||
+				targetState == ExecutionState.CANCELED || targetState == ExecutionState.FAILED || !edge.markPartitionRequested())
+		{
+			return;
+		}
+		
+		replayPartition(edge, edge.getOutputChannelId(), edge.getInputChannelId(), target.getCurrentExecutionAttempt());
+	}
+	
+	/**
+	 * Replays the persistent partition of the edge's source to an execution of the edge's target.
+	 * 
+	 * @param edge The edge whose partition is replayed.
+	 * @param outputChannelId The ID of the output channel replaying the partition.
+	 * @param inputChannelId The ID of the input channel through which the execution reads the partition.
+	 * @param target The execution to replay the partition to.
+	 */
+	void replayPartition(ExecutionEdge edge, final ChannelID outputChannelId, final ChannelID inputChannelId, final Execution target) {
+		final IntermediateResultPartition partition = edge.getSource();
+		final AllocatedSlot slot = partition.getProducer().getCurrentAssignedResource();
+		final ChannelID partitionId = edge.getPersistedChannelId();
+		final ExecutionAttemptID targetId = target.getAttemptId();
+		
+		execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					TaskOperationResult result = slot.getInstance().getTaskManagerProxy().replayPersistentPartition(
+							jobID, partitionId, outputChannelId, inputChannelId, targetId);
+					
+					if (!result.isSuccess()) {
+						throw new Exception(result.getDescription());
+					}
+				}
+				catch (Throwable t) {
+					partition.markLost();
+					target.fail(new Exception("Cannot replay the persistent partition " + partitionId + " of "
+							+ partition.getProducer() + ": " + t.getMessage(), t));
+				}
+			}
+		});
+	}
+	
+	private void partitionLost(ExecutionVertex consumer, ChannelID partitionId) {
+		for (int i = 0; i < consumer.getNumberOfInputs(); i++) {
+			for (ExecutionEdge edge : consumer.getInputEdges(i)) {
+				if (partitionId.equals(edge.getPersistedChannelId())) {
+					edge.getSource().markLost();
+				}
+			}
+		}
+	}
+	
+	private void releasePersistentPartitions() {
+		Iterator<Instance> locations = partitionLocations.iterator();
+		while (locations.hasNext()) {
+			final Instance instance = locations.next();
+			locations.remove();
+			
+			execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						instance.getTaskManagerProxy().releasePersistentPartitions(jobID);
+					}
+					catch (Throwable t) {
+						LOG.warn("Releasing the persistent partitions of job " + jobID + " on " + instance + " failed.", t);
+					}
+				}
+			});
+		}
+	}
+	
+	/**
+	 * Tries to recover from the failure of the given vertex by executing only the region of the graph which is
+	 * affected by the failure again. The region contains the vertices connected through pipelined results, the
+	 * unfinished consumers of blocking results, and the producers of blocking results whose persistent partitions
+	 * are lost. The consumers in the region re-read the persistent partitions of the other blocking results.
+	 * 
+	 * @param failed The vertex which has failed.
+	 * @return True, if the failure is recovered, false, if the whole job must fail.
+	 */
+	private boolean tryRecoverRegion(ExecutionVertex failed) {
+		if (!hasBlockingResults) {
+			return false;
+		}
+		
+		final boolean recoveryPending;
+		final Set<ExecutionVertex> region;
+		
+		synchronized (progressLock) {
+			if (state != JobStatus.RUNNING) {
+				return false;
+			}
+			if (verticesToRecover.contains(failed)) {
+				// the vertex is part of a region which is recovered anyways
+				return true;
+			}
+			
+			recoveryPending = !verticesToRecover.isEmpty();
+			
+			// concurrent failures are recovered together, for example when an instance is lost
+			if (!recoveryPending && numberOfRetriesLeft <= 0) {
+				return false;
+			}
+			
+			region = computeRecoveryRegion(failed);
+			if (region == null) {
+				return false;
+			}
+			
+			if (LOG.isInfoEnabled()) {
+				LOG.info(String.format("Recovering from the failure of %s by executing %d vertices again.", failed, region.size()));
+			}
+			
+			verticesToRecover.addAll(region);
+			
+			if (!recoveryPending) {
+				numberOfRetriesLeft--;
+			}
+		}
+		
+		// the region is executed again once all of its vertices are canceled, see checkRegionCanceled()
+		for (ExecutionVertex vertex : region) {
+			vertex.cancel();
+		}
+		return true;
+	}
+	
+	private Set<ExecutionVertex> computeRecoveryRegion(ExecutionVertex failed) {
+		Set<ExecutionVertex> region = new HashSet<ExecutionVertex>();
+		List<ExecutionVertex> toVisit = new ArrayList<ExecutionVertex>();
+		toVisit.add(failed);
+		
+		while (!toVisit.isEmpty()) {
+			ExecutionVertex vertex = toVisit.remove(toVisit.size() - 1);
+			if (!region.add(vertex)) {
+				continue;
+			}
+			
+			ExecutionJobVertex jobVertex = vertex.getJobVertex();
+			
+			// the co-location constraints are only reset for the whole job
+			if (jobVertex.getCoLocationGroup() != null) {
+				return null;
+			}
+			
+			// the input splits can only be assigned again to all subtasks
+			if (jobVertex.getSplitAssigner() != null) {
+				for (ExecutionVertex subtask : jobVertex.getTaskVertices()) {
+					toVisit.add(subtask);
+				}
+			}
+			
+			// the consumers, unless they have finished reading a blocking result
+			for (IntermediateResultPartition partition : vertex.getProducedPartitions()) {
+				boolean blocking = partition.getIntermediateResult().getResultType() == ResultPartitionType.BLOCKING;
+				
+				for (List<ExecutionEdge> consumers : partition.getConsumers()) {
+					for (ExecutionEdge edge : consumers) {
+						if (!blocking || edge.getTarget().getExecutionState() != ExecutionState.FINISHED) {
+							toVisit.add(edge.getTarget());
+						}
+					}
+				}
+			}
+			
+			// the producers, unless their partitions of a blocking result can be replayed
+			for (int i = 0; i < vertex.getNumberOfInputs(); i++) {
+				for (ExecutionEdge edge : vertex.getInputEdges(i)) {
+					IntermediateResultPartition partition = edge.getSource();
+					ExecutionVertex producer = partition.getProducer();
+					
+					if (partition.getIntermediateResult().getResultType() != ResultPartitionType.BLOCKING ||
+							(producer.getExecutionState() == ExecutionState.FINISHED && !partition.isAvailable()))
+					{
+						toVisit.add(producer);
+					}
+				}
+			}
+		}
+		
+		return region;
+	}
+	
+	/**
+	 * Schedules the execution of the region to recover, once all of its vertices are in a final state. Called
+	 * whenever an execution reaches a final state.
+	 */
+	private void checkRegionCanceled() {
+		synchronized (progressLock) {
+			if (regionRestartScheduled || !isRegionCanceled()) {
+				return;
+			}
+			regionRestartScheduled = true;
+		}
+		
+		execute(new Runnable() {
+			@Override
+			public void run() {
+				restartRegion();
+			}
+		});
+	}
+	
+	/**
+	 * Checks whether there is a region to recover, and all of its vertices are in a final state. Must be called
+	 * while holding the progress lock.
+	 */
+	private boolean isRegionCanceled() {
+		if (verticesToRecover.isEmpty()) {
+			return false;
+		}
+		for (ExecutionVertex vertex : verticesToRecover) {
+			if (!isFinal(vertex.getExecutionState())) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private void restartRegion() {
+		try {
+			Thread.sleep(delayBeforeRetrying);
+			
+			List<ExecutionVertex> region;
+			
+			synchronized (progressLock) {
+				regionRestartScheduled = false;
+				
+				if (state != JobStatus.RUNNING) {
+					// the job is canceled or failed in the meantime
+					abortRecovery();
+					return;
+				}
+				
+				// further vertices failed during the delay, the last of them to be canceled schedules the restart again
+				if (!isRegionCanceled()) {
+					return;
+				}
+				
+				region = new ArrayList<ExecutionVertex>(verticesToRecover);
+				
+				Set<ExecutionJobVertex> jobVertices = new HashSet<ExecutionJobVertex>();
+				for (ExecutionVertex vertex : region) {
+					vertex.getJobVertex().resetSubtaskForNewExecution(vertex.getParallelSubtaskIndex());
+					jobVertices.add(vertex.getJobVertex());
+				}
+				for (ExecutionJobVertex jobVertex : jobVertices) {
+					if (jobVertex.getSplitAssigner() != null) {
+						jobVertex.resetInputSplits();
+					}
+				}
+				
+				// the reset vertices are not in a final state any more
+				int nextPos = 0;
+				while (nextPos < verticesInCreationOrder.size() && verticesInCreationOrder.get(nextPos).isInFinalState()) {
+					nextPos++;
+				}
+				nextVertexToFinish = nextPos;
+				
+				verticesToRecover.clear();
+			}
+			
+			// the region's sources are scheduled directly, the consumers of complete blocking results
+			// receive their partitions again, all other vertices are scheduled by their producers
+			for (ExecutionVertex vertex : region) {
+				if (vertex.getJobVertex().getJobVertex().isInputVertex()) {
+					vertex.scheduleForExecution(scheduler, allowQueuedScheduling);
+					continue;
+				}
+				
+				for (int i = 0; i < vertex.getNumberOfInputs(); i++) {
+					for (ExecutionEdge edge : vertex.getInputEdges(i)) {
+						if (edge.getSource().getIntermediateResult().getResultType() == ResultPartitionType.BLOCKING
+								&& edge.getSource().getIntermediateResult().isComplete())
+						{
+							replayPartition(edge);
+						}
+					}
+				}
+			}
+		}
+		catch (Throwable t) {
+			fail(t);
+		}
+	}
+	
+	/**
+	 * Gives up the recovery of a region, because the job is canceled or fails. Must be called while holding
+	 * the progress lock.
+	 */
+	private void abortRecovery() {
+		verticesToRecover.clear();
+		
+		// the transition to the final state has been deferred for the recovery
+		if (nextVertexToFinish == verticesInCreationOrder.size() &&
+				(state == JobStatus.CANCELLING || state == JobStatus.FAILING))
+		{
+			jobInFinalState();
+		}
+	}
+	
+	private static boolean isFinal(ExecutionState state) {
+		return state == ExecutionState.FINISHED || state == ExecutionState.CANCELED || state == ExecutionState.FAILED;
 	}
 	
 	// --------------------------------------------------------------------------------------------
@@ -708,9 +1202,24 @@ public class ExecutionGraph {
 			}
 		}
 		
-		// see what this means for us. currently, the first FAILED state means -> FAILED
+		// see what this means for us. the first FAILED state means -> FAILED, unless the failure
+		// can be recovered by executing the affected region again
 		if (newExecutionState == ExecutionState.FAILED) {
-			fail(error);
+			ExecutionJobVertex jobVertex = this.tasks.get(vertexId);
+			
+			// backup executions, and the executions they have overtaken, fail without affecting the job
+			if (jobVertex != null && !executionId.equals(jobVertex.getTaskVertices()[subtask].getCurrentExecutionAttempt().getAttemptId())) {
+				return;
+			}
+			
+			if (jobVertex == null || !tryRecoverRegion(jobVertex.getTaskVertices()[subtask])) {
+				fail(error);
+			}
+		}
+		
+		// the vertices of a failed region are executed again once they are all canceled
+		if (hasBlockingResults && isFinal(newExecutionState)) {
+			checkRegionCanceled();
 		}
 	}
 
@@ -741,6 +1250,7 @@ public class ExecutionGraph {
 				
 				this.currentExecutions.clear();
 				this.edges.clear();
+				this.verticesToRecover.clear();
 				
 				for (ExecutionJobVertex jv : this.verticesInCreationOrder) {
 					jv.resetForNewExecution();
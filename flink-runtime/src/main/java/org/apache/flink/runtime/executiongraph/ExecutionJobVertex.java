@@ -19,6 +19,7 @@
 package org.apache.flink.runtime.executiongraph;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -26,12 +27,14 @@ import org.apache.flink.core.io.InputSplit;
 import org.apache.flink.core.io.InputSplitAssigner;
 import org.apache.flink.core.io.InputSplitSource;
 import org.apache.flink.runtime.JobException;
+import org.apache.flink.runtime.execution.ExecutionState;
 import org.apache.flink.runtime.jobgraph.AbstractJobVertex;
 import org.apache.flink.runtime.jobgraph.IntermediateDataSet;
 import org.apache.flink.runtime.jobgraph.IntermediateDataSetID;
 import org.apache.flink.runtime.jobgraph.JobEdge;
 import org.apache.flink.runtime.jobgraph.JobID;
 import org.apache.flink.runtime.jobgraph.JobVertexID;
+import org.apache.flink.runtime.jobgraph.ResultPartitionType;
 import org.apache.flink.runtime.jobmanager.scheduler.CoLocationGroup;
 import org.apache.flink.runtime.jobmanager.scheduler.Scheduler;
 import org.apache.flink.runtime.jobmanager.scheduler.NoResourceAvailableException;
@@ -106,7 +109,7 @@ public class ExecutionJobVertex {
 		this.producedDataSets = new IntermediateResult[jobVertex.getNumberOfProducedIntermediateDataSets()];
 		for (int i = 0; i < jobVertex.getProducedDataSets().size(); i++) {
 			IntermediateDataSet set = jobVertex.getProducedDataSets().get(i);
-			this.producedDataSets[i] = new IntermediateResult(set.getId(), this, numTaskVertices);
+			this.producedDataSets[i] = new IntermediateResult(set.getId(), this, numTaskVertices, set.getResultType());
 		}
 		
 		// create all task vertices
@@ -290,17 +293,128 @@ public class ExecutionJobVertex {
 			}
 			
 			// set up the input splits again
-			try {
-				if (this.inputSplits != null) {
-					@SuppressWarnings("unchecked")
-					InputSplitSource<InputSplit> splitSource = (InputSplitSource<InputSplit>) jobVertex.getInputSplitSource();
-					this.splitAssigner = splitSource.getInputSplitAssigner(this.inputSplits);
+			resetInputSplits();
+		}
+	}
+	
+	/**
+	 * Resets a single subtask for a new execution, while the other subtasks keep their state. This is used
+	 * to recover the subtasks downstream of a failure, without restarting the whole job.
+	 * 
+	 * @param subtask The index of the subtask to reset, which must be in a final state.
+	 */
+	public void resetSubtaskForNewExecution(int subtask) {
+		synchronized (stateMonitor) {
+			taskVertices[subtask].resetForNewExecution();
+			if (finishedSubtasks[subtask]) {
+				finishedSubtasks[subtask] = false;
+				numSubtasksInFinalState--;
+			}
+		}
+	}
+	
+	/**
+	 * Re-creates the input split assigner, such that all input splits are assigned again.
+	 */
+	public void resetInputSplits() {
+		try {
+			if (this.inputSplits != null) {
+				@SuppressWarnings("unchecked")
+				InputSplitSource<InputSplit> splitSource = (InputSplitSource<InputSplit>) jobVertex.getInputSplitSource();
+				this.splitAssigner = splitSource.getInputSplitAssigner(this.inputSplits);
+			}
+		}
+		catch (Throwable t) {
+			throw new RuntimeException("Re-creating the input split assigner failed: " + t.getMessage(), t);
+		}
+	}
+	
+	/**
+	 * Starts backup executions for the straggling subtasks of this vertex. Once the given fraction of the subtasks
+	 * has finished, a running subtask straggles if its run time, extrapolated from its input progress relative to
+	 * the median input of the finished subtasks, exceeds the median run time of the finished subtasks by the
+	 * given factor.
+	 * <p>
+	 * Only subtasks which can be executed twice without side effects are backed up: their inputs are persistent
+	 * partitions or input splits, which can be read again, and their outputs are persistent partitions, which are
+	 * not consumed before the subtask has finished.
+	 * 
+	 * @param scheduler The scheduler to allocate the slots for the backup executions from.
+	 * @param quantile The fraction of the subtasks which must be finished.
+	 * @param multiplier The factor by which a straggler runs longer than the median subtask.
+	 */
+	public void speculateStragglers(Scheduler scheduler, float quantile, float multiplier) {
+		if (!isSpeculatable()) {
+			return;
+		}
+		
+		List<Long> durations = new ArrayList<Long>(parallelism);
+		List<Long> progress = new ArrayList<Long>(parallelism);
+		
+		for (ExecutionVertex vertex : taskVertices) {
+			Execution execution = vertex.getCurrentExecutionAttempt();
+			if (execution.getState() == ExecutionState.FINISHED) {
+				durations.add(execution.getStateTimestamp(ExecutionState.FINISHED) - execution.getStateTimestamp(ExecutionState.DEPLOYING));
+				progress.add(execution.getInputProgress());
+			}
+		}
+		
+		if (durations.isEmpty() || durations.size() < quantile * parallelism) {
+			return;
+		}
+		
+		final long medianDuration = median(durations);
+		final long medianProgress = median(progress);
+		final long now = System.currentTimeMillis();
+		
+		for (ExecutionVertex vertex : taskVertices) {
+			Execution execution = vertex.getCurrentExecutionAttempt();
+			if (execution.getState() != ExecutionState.RUNNING || vertex.getSpeculativeExecutionAttempt() != null) {
+				continue;
+			}
+			
+			final long elapsed = now - execution.getStateTimestamp(ExecutionState.DEPLOYING);
+			final long inputProgress = execution.getInputProgress();
+			
+			long estimated = elapsed;
+			if (inputProgress > 0 && medianProgress > 0) {
+				estimated = Math.max(elapsed, (long) (((double) elapsed) * medianProgress / inputProgress));
+			}
+			
+			if (elapsed > medianDuration && estimated > multiplier * medianDuration) {
+				if (LOG.isDebugEnabled()) {
+					LOG.debug(String.format("%s is straggling: running for %d msecs, estimated %d msecs, median %d msecs.",
+							vertex.getSimpleName(), elapsed, estimated, medianDuration));
 				}
+				vertex.speculate(scheduler);
 			}
-			catch (Throwable t) {
-				throw new RuntimeException("Re-creating the input split assigner failed: " + t.getMessage(), t);
+		}
+	}
+	
+	private boolean isSpeculatable() {
+		if (coLocationGroup != null || producedDataSets.length == 0) {
+			return false;
+		}
+		for (IntermediateResult result : producedDataSets) {
+			if (result.getResultType() != ResultPartitionType.BLOCKING) {
+				return false;
+			}
+		}
+		
+		if (inputs.isEmpty()) {
+			return splitAssigner != null;
+		}
+		for (IntermediateResult input : inputs) {
+			if (input.getResultType() != ResultPartitionType.BLOCKING || !input.isComplete()) {
+				return false;
 			}
 		}
+		return true;
+	}
+	
+	private static long median(List<Long> values) {
+		Collections.sort(values);
+		return values.get(values.size() / 2);
 	}
 	
 	//---------------------------------------------------------------------------------------------
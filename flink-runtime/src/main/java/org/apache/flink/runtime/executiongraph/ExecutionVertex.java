@@ -21,12 +21,17 @@ package org.apache.flink.runtime.executiongraph;
 import static org.apache.flink.runtime.execution.ExecutionState.CANCELED;
 import static org.apache.flink.runtime.execution.ExecutionState.FAILED;
 import static org.apache.flink.runtime.execution.ExecutionState.FINISHED;
+import static org.apache.flink.runtime.execution.ExecutionState.RUNNING;
 
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 
+import org.apache.flink.api.common.io.LocatableInputSplitAssigner;
+import org.apache.flink.core.io.InputSplit;
+import org.apache.flink.core.io.InputSplitAssigner;
+import org.apache.flink.core.io.LocatableInputSplit;
 import org.apache.flink.runtime.blob.BlobKey;
 import org.slf4j.Logger;
 import org.apache.flink.runtime.JobException;
@@ -39,8 +44,10 @@ import org.apache.flink.runtime.jobgraph.DistributionPattern;
 import org.apache.flink.runtime.jobgraph.JobEdge;
 import org.apache.flink.runtime.jobgraph.JobID;
 import org.apache.flink.runtime.jobgraph.JobVertexID;
+import org.apache.flink.runtime.jobgraph.ResultPartitionType;
 import org.apache.flink.runtime.jobmanager.scheduler.CoLocationConstraint;
 import org.apache.flink.runtime.jobmanager.scheduler.CoLocationGroup;
+import org.apache.flink.runtime.jobmanager.scheduler.ScheduledUnit;
 import org.apache.flink.runtime.jobmanager.scheduler.Scheduler;
 import org.apache.flink.runtime.jobmanager.scheduler.NoResourceAvailableException;
 
@@ -50,7 +57,6 @@ import org.apache.flink.runtime.jobmanager.scheduler.NoResourceAvailableExceptio
  */
 public class ExecutionVertex {
 
-	@SuppressWarnings("unused")
 	private static final Logger LOG = ExecutionGraph.LOG;
 	
 	private static final int MAX_DISTINCT_LOCATIONS_TO_CONSIDER = 8;
@@ -71,6 +77,15 @@ public class ExecutionVertex {
 	
 	private volatile Execution currentExecution;	// this field must never be null
 	
+	private volatile Execution speculativeExecution;	// a backup of the current execution, or null
+	
+	private boolean speculated;		// whether the current execution has been backed up, guarded by the prior executions
+	
+	private int nextAttemptNumber = 1;		// guarded by the prior executions
+	
+	/** The input splits read by the executions of this vertex, in the order in which they were assigned */
+	private final List<InputSplit> assignedSplits = new ArrayList<InputSplit>();
+	
 	// --------------------------------------------------------------------------------------------
 
 	public ExecutionVertex(ExecutionJobVertex jobVertex, int subTaskIndex, IntermediateResult[] producedDataSets) {
@@ -142,6 +157,10 @@ public class ExecutionVertex {
 		return inputEdges[input];
 	}
 	
+	public IntermediateResultPartition[] getProducedPartitions() {
+		return resultPartitions;
+	}
+	
 	public CoLocationConstraint getLocationConstraint() {
 		return locationConstraint;
 	}
@@ -150,6 +169,16 @@ public class ExecutionVertex {
 		return currentExecution;
 	}
 	
+	/**
+	 * Gets the backup execution which runs concurrently to the current execution, to overtake it if the
+	 * current execution is straggling.
+	 * 
+	 * @return The backup execution, or null, if the current execution is not backed up.
+	 */
+	public Execution getSpeculativeExecutionAttempt() {
+		return speculativeExecution;
+	}
+	
 	public ExecutionState getExecutionState() {
 		return currentExecution.getState();
 	}
@@ -315,7 +344,18 @@ public class ExecutionVertex {
 			
 			if (state == FINISHED || state == CANCELED || state == FAILED) {
 				priorExecutions.add(execution);
-				currentExecution = new Execution(this, execution.getAttemptNumber()+1, System.currentTimeMillis());
+				currentExecution = new Execution(this, nextAttemptNumber++, System.currentTimeMillis());
+				
+				// a backup which is still being canceled is not tracked any more
+				if (speculativeExecution != null) {
+					priorExecutions.add(speculativeExecution);
+					speculativeExecution = null;
+				}
+				speculated = false;
+				
+				synchronized (assignedSplits) {
+					assignedSplits.clear();
+				}
 				
 				CoLocationGroup grp = jobVertex.getCoLocationGroup();
 				if (grp != null) {
@@ -327,10 +367,16 @@ public class ExecutionVertex {
 				
 				for (ExecutionEdge[] input : this.inputEdges) {
 					for (ExecutionEdge e : input) {
+						graph.deregisterExecutionEdge(e);
 						e.assignNewChannelIDs();
 						graph.registerExecutionEdge(e);
 					}
 				}
+				
+				// the partitions are produced again by the new execution
+				for (IntermediateResultPartition partition : this.resultPartitions) {
+					partition.getIntermediateResult().partitionReset(partition);
+				}
 			}
 			else {
 				throw new IllegalStateException("Cannot reset a vertex that is in state " + state);
@@ -348,28 +394,287 @@ public class ExecutionVertex {
 	
 	public void cancel() {
 		this.currentExecution.cancel();
+		
+		Execution backup = this.speculativeExecution;
+		if (backup != null) {
+			backup.cancel();
+		}
 	}
 	
 	public void fail(Throwable t) {
 		this.currentExecution.fail(t);
 	}
 	
+	/**
+	 * Starts a backup execution of the current execution on another instance, if the current execution is running
+	 * and has not been backed up before. The backup reads the same input as the current execution: the persistent
+	 * partitions of its inputs are replayed to it, or it receives the same input splits. The execution which finishes
+	 * first is kept, the other one is canceled.
+	 * 
+	 * @param scheduler The scheduler to allocate the slot for the backup execution from.
+	 * @return True, if the backup execution has been deployed, false otherwise.
+	 */
+	public boolean speculate(Scheduler scheduler) {
+		final Execution original;
+		final int attemptNumber;
+		
+		synchronized (priorExecutions) {
+			original = currentExecution;
+			if (speculated || original.getState() != RUNNING || original.getAssignedResource() == null) {
+				return false;
+			}
+			speculated = true;
+			attemptNumber = nextAttemptNumber++;
+		}
+		
+		final Execution backup = new Execution(this, attemptNumber, System.currentTimeMillis());
+		final AllocatedSlot slot = scheduler.scheduleSpeculatively(new ScheduledUnit(backup), original.getAssignedResource().getInstance());
+		
+		final ExecutionGraph graph = getExecutionGraph();
+		
+		synchronized (priorExecutions) {
+			if (slot == null || currentExecution != original || original.getState() != RUNNING) {
+				if (currentExecution == original) {
+					// try again later, when other resources are available
+					speculated = false;
+				}
+				if (slot != null) {
+					slot.releaseSlot();
+				}
+				return false;
+			}
+			
+			for (ExecutionEdge[] input : this.inputEdges) {
+				for (ExecutionEdge e : input) {
+					graph.deregisterExecutionEdge(e);
+					e.assignSpeculativeChannelIDs();
+					graph.registerExecutionEdge(e);
+				}
+			}
+			speculativeExecution = backup;
+		}
+		
+		if (LOG.isInfoEnabled()) {
+			LOG.info(String.format("Starting backup execution #%d of straggling %s (attempt #%d).", 
+					attemptNumber, getSimpleName(), original.getAttemptNumber()));
+		}
+		
+		try {
+			backup.deployToSlot(slot);
+		}
+		catch (Throwable t) {
+			// the failed backup is dropped, the current execution continues
+			slot.releaseSlot();
+			synchronized (priorExecutions) {
+				if (speculativeExecution == backup) {
+					dropSpeculativeExecution();
+				}
+			}
+			return false;
+		}
+		
+		for (ExecutionEdge[] input : this.inputEdges) {
+			for (ExecutionEdge e : input) {
+				graph.replayPartition(e, e.getSpeculativeOutputChannelId(), e.getSpeculativeInputChannelId(), backup);
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Gets the next input split for an execution of this vertex. The splits are assigned to the vertex in a fixed
+	 * sequence, such that a backup execution reads the same splits as the execution it backs up.
+	 * 
+	 * @param execution The execution requesting the split.
+	 * @param host The host of the instance running the execution, to assign local splits.
+	 * @return The next input split, or null, if the execution has read all splits.
+	 */
+	public InputSplit getNextInputSplit(Execution execution, String host) {
+		synchronized (assignedSplits) {
+			final int next = execution.getNextInputSplit();
+			
+			final InputSplit split;
+			if (next < assignedSplits.size()) {
+				split = assignedSplits.get(next);
+			}
+			else {
+				split = jobVertex.getSplitAssigner().getNextInputSplit(host);
+				if (split == null) {
+					return null;
+				}
+				assignedSplits.add(split);
+			}
+			
+			execution.setNextInputSplit(next + 1);
+			return split;
+		}
+	}
+	
+	/**
+	 * Gets up to the given number of next input splits for an execution of this vertex, in the same sequence
+	 * in which {@link #getNextInputSplit(Execution, String)} hands them out.
+	 * 
+	 * @param execution The execution requesting the splits.
+	 * @param host The host of the instance running the execution, to assign local splits.
+	 * @param maxNumSplits The maximal number of splits to return.
+	 * @return The next input splits, or an empty list, if the execution has read all splits.
+	 */
+	public List<InputSplit> getNextInputSplits(Execution execution, String host, int maxNumSplits) {
+		final List<InputSplit> splits = new ArrayList<InputSplit>(maxNumSplits);
+		
+		synchronized (assignedSplits) {
+			int next = execution.getNextInputSplit();
+			
+			// first the splits that another attempt of this vertex has read already
+			while (next < assignedSplits.size() && splits.size() < maxNumSplits) {
+				splits.add(assignedSplits.get(next++));
+			}
+			
+			if (splits.size() < maxNumSplits) {
+				final InputSplitAssigner assigner = jobVertex.getSplitAssigner();
+				
+				if (assigner instanceof LocatableInputSplitAssigner) {
+					// let the assigner decide how many local splits the host can take at once
+					List<LocatableInputSplit> newSplits =
+							((LocatableInputSplitAssigner) assigner).getNextInputSplits(host, maxNumSplits - splits.size());
+					assignedSplits.addAll(newSplits);
+					splits.addAll(newSplits);
+					next += newSplits.size();
+				}
+				else {
+					InputSplit split;
+					while (splits.size() < maxNumSplits && (split = assigner.getNextInputSplit(host)) != null) {
+						assignedSplits.add(split);
+						splits.add(split);
+						next++;
+					}
+				}
+			}
+			
+			execution.setNextInputSplit(next);
+		}
+		
+		return splits;
+	}
+	
 	// --------------------------------------------------------------------------------------------
 	//   Notifications from the Execution Attempt
 	// --------------------------------------------------------------------------------------------
 	
-	void executionFinished() {
+	void executionFinished(Execution execution) {
+		final Execution other;
+		
+		synchronized (priorExecutions) {
+			if (execution == speculativeExecution) {
+				// the backup has overtaken the current execution
+				other = currentExecution;
+				priorExecutions.add(other);
+				currentExecution = execution;
+				speculativeExecution = null;
+				
+				ExecutionGraph graph = getExecutionGraph();
+				for (ExecutionEdge[] input : this.inputEdges) {
+					for (ExecutionEdge e : input) {
+						graph.deregisterExecutionEdge(e);
+						e.promoteSpeculativeChannelIDs();
+						graph.registerExecutionEdge(e);
+					}
+				}
+			}
+			else if (execution == currentExecution) {
+				other = dropSpeculativeExecution();
+			}
+			else {
+				// an execution which has been overtaken finished concurrently
+				return;
+			}
+		}
+		
+		if (other != null) {
+			other.cancel();
+		}
+		
+		// the consumers of blocking results are deployed once all partitions of the result are persisted
+		for (IntermediateResultPartition partition : this.resultPartitions) {
+			IntermediateResult result = partition.getIntermediateResult();
+			if (result.getResultType() == ResultPartitionType.BLOCKING && result.partitionFinished(partition)) {
+				getExecutionGraph().deployConsumers(result);
+			}
+		}
+		
 		jobVertex.vertexFinished(subTaskIndex);
 	}
 	
-	void executionCanceled() {
+	void executionCanceled(Execution execution) {
+		final Execution backup;
+		
+		synchronized (priorExecutions) {
+			if (execution == speculativeExecution) {
+				dropSpeculativeExecution();
+				return;
+			}
+			if (execution != currentExecution) {
+				return;
+			}
+			backup = dropSpeculativeExecution();
+		}
+		
+		if (backup != null) {
+			backup.cancel();
+		}
 		jobVertex.vertexCancelled(subTaskIndex);
 	}
 	
-	void executionFailed(Throwable t) {
+	void executionFailed(Execution execution, Throwable t) {
+		final Execution backup;
+		
+		synchronized (priorExecutions) {
+			if (execution == speculativeExecution) {
+				// the current execution continues
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("Backup execution of " + getSimpleName() + " failed.", t);
+				}
+				dropSpeculativeExecution();
+				return;
+			}
+			if (execution != currentExecution) {
+				return;
+			}
+			backup = dropSpeculativeExecution();
+		}
+		
+		if (backup != null) {
+			backup.cancel();
+		}
 		jobVertex.vertexFailed(subTaskIndex, t);
 	}
 	
+	/**
+	 * Stops tracking the backup execution, if there is one. Must be called while holding the lock on the
+	 * prior executions.
+	 * 
+	 * @return The dropped backup execution, or null, if the vertex has none.
+	 */
+	private Execution dropSpeculativeExecution() {
+		final Execution backup = speculativeExecution;
+		if (backup == null) {
+			return null;
+		}
+		
+		priorExecutions.add(backup);
+		speculativeExecution = null;
+		
+		ExecutionGraph graph = getExecutionGraph();
+		for (ExecutionEdge[] input : this.inputEdges) {
+			for (ExecutionEdge e : input) {
+				graph.deregisterExecutionEdge(e);
+				e.clearSpeculativeChannelIDs();
+				graph.registerExecutionEdge(e);
+			}
+		}
+		return backup;
+	}
+	
 	// --------------------------------------------------------------------------------------------
 	//   Miscellaneous
 	// --------------------------------------------------------------------------------------------
@@ -386,17 +691,31 @@ public class ExecutionVertex {
 	}
 	
 	TaskDeploymentDescriptor createDeploymentDescriptor(ExecutionAttemptID executionId, AllocatedSlot slot) {
+		// a backup execution reads its inputs through its own channels
+		final Execution backup = this.speculativeExecution;
+		final boolean speculative = backup != null && backup.getAttemptId().equals(executionId);
+		
 		//  create the input gate deployment descriptors
 		List<GateDeploymentDescriptor> inputGates = new ArrayList<GateDeploymentDescriptor>(inputEdges.length);
 		for (ExecutionEdge[] channels : inputEdges) {
-			inputGates.add(GateDeploymentDescriptor.fromEdges(channels));
+			inputGates.add(speculative ? GateDeploymentDescriptor.fromSpeculativeEdges(channels) : GateDeploymentDescriptor.fromEdges(channels));
 		}
 		
 		// create the output gate deployment descriptors
 		List<GateDeploymentDescriptor> outputGates = new ArrayList<GateDeploymentDescriptor>(resultPartitions.length);
 		for (IntermediateResultPartition partition : resultPartitions) {
+			ResultPartitionType resultType = partition.getIntermediateResult().getResultType();
+			
 			for (List<ExecutionEdge> channels : partition.getConsumers()) {
-				outputGates.add(GateDeploymentDescriptor.fromEdges(channels));
+				outputGates.add(GateDeploymentDescriptor.fromEdges(channels, resultType));
+				
+				// remember where the persistent partitions are written, to replay them later
+				if (resultType == ResultPartitionType.BLOCKING) {
+					for (ExecutionEdge edge : channels) {
+						edge.setPersistedChannelId(edge.getOutputChannelId());
+					}
+					getExecutionGraph().registerPartitionLocation(slot.getInstance());
+				}
 			}
 		}
 		
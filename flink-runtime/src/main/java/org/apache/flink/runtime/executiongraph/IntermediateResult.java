@@ -19,6 +19,7 @@
 package org.apache.flink.runtime.executiongraph;
 
 import org.apache.flink.runtime.jobgraph.IntermediateDataSetID;
+import org.apache.flink.runtime.jobgraph.ResultPartitionType;
 
 public class IntermediateResult {
 
@@ -36,12 +37,18 @@ public class IntermediateResult {
 	
 	private final int connectionIndex;
 	
+	private final ResultPartitionType resultType;
 	
-	public IntermediateResult(IntermediateDataSetID id, ExecutionJobVertex producer, int numParallelProducers) {
+	private int numFinishedPartitions;
+	
+	
+	public IntermediateResult(IntermediateDataSetID id, ExecutionJobVertex producer, int numParallelProducers,
+			ResultPartitionType resultType) {
 		this.id = id;
 		this.producer = producer;
 		this.partitions = new IntermediateResultPartition[numParallelProducers];
 		this.numParallelProducers = numParallelProducers;
+		this.resultType = resultType;
 		
 		// we do not set the intermediate result partitions here, because we let them be initialized by
 		// the execution vertex that produces them
@@ -96,4 +103,42 @@ public class IntermediateResult {
 	public int getConnectionIndex() {
 		return connectionIndex;
 	}
+	
+	public ResultPartitionType getResultType() {
+		return resultType;
+	}
+	
+	/**
+	 * Checks whether all partitions of this result have been finished by their producers.
+	 * 
+	 * @return True, if the result is complete, false otherwise.
+	 */
+	public synchronized boolean isComplete() {
+		return numFinishedPartitions == numParallelProducers;
+	}
+	
+	/**
+	 * Marks the given partition as finished.
+	 * 
+	 * @param partition The partition which has been finished by its producer.
+	 * @return True, if the result has become complete with this partition, false otherwise.
+	 */
+	synchronized boolean partitionFinished(IntermediateResultPartition partition) {
+		if (partition.markFinished()) {
+			numFinishedPartitions++;
+			return numFinishedPartitions == numParallelProducers;
+		}
+		return false;
+	}
+	
+	/**
+	 * Marks the given partition as not produced, because its producer is executed again.
+	 * 
+	 * @param partition The partition which is produced again.
+	 */
+	synchronized void partitionReset(IntermediateResultPartition partition) {
+		if (partition.reset()) {
+			numFinishedPartitions--;
+		}
+	}
 }
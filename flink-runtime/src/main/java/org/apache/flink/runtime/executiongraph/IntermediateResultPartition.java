@@ -21,6 +21,8 @@ package org.apache.flink.runtime.executiongraph;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.apache.flink.runtime.instance.AllocatedSlot;
+
 public class IntermediateResultPartition {
 	
 	private final IntermediateResult totalResut;
@@ -31,6 +33,10 @@ public class IntermediateResultPartition {
 	
 	private List<List<ExecutionEdge>> consumers;
 	
+	private boolean finished;
+	
+	private volatile boolean lost;
+	
 	
 	public IntermediateResultPartition(IntermediateResult totalResut, ExecutionVertex producer, int partition) {
 		this.totalResut = totalResut;
@@ -56,6 +62,45 @@ public class IntermediateResultPartition {
 		return consumers;
 	}
 	
+	/**
+	 * Checks whether the partition has been finished and can still be read from the instance which has
+	 * produced it. This is only meaningful for the partitions of blocking results, which are persisted.
+	 * 
+	 * @return True, if the partition is available, false otherwise.
+	 */
+	public boolean isAvailable() {
+		if (!finished || lost) {
+			return false;
+		}
+		AllocatedSlot slot = producer.getCurrentAssignedResource();
+		return slot != null && slot.getInstance().isAlive();
+	}
+	
+	/**
+	 * Marks the partition as lost, for example because it could not be replayed to a consumer.
+	 */
+	public void markLost() {
+		this.lost = true;
+	}
+	
+	boolean markFinished() {
+		if (finished) {
+			return false;
+		}
+		finished = true;
+		lost = false;
+		return true;
+	}
+	
+	boolean reset() {
+		lost = false;
+		if (finished) {
+			finished = false;
+			return true;
+		}
+		return false;
+	}
+	
 	int addConsumerGroup() {
 		int pos = consumers.size();
 		
@@ -211,6 +211,26 @@ final class SegmentReadRequest implements ReadRequest {
 		this.segment = segment;
 	}
 
+	/**
+	 * Gets the channel that this request reads from. Consecutive requests of the same channel may be
+	 * combined into one scattering read.
+	 */
+	AsynchronousFileIOChannel<ReadRequest> getChannel() {
+		return this.channel;
+	}
+	
+	/**
+	 * Gets the segment that this request reads into, wrapped as a byte buffer.
+	 */
+	ByteBuffer wrapSegment() throws IOException {
+		try {
+			return this.segment.wrap(0, this.segment.size());
+		}
+		catch (NullPointerException npex) {
+			throw new IOException("Memory segment has been released.");
+		}
+	}
+
 	@Override
 	public void read() throws IOException {
 		final FileChannel c = this.channel.fileChannel;
@@ -247,6 +267,26 @@ final class SegmentWriteRequest implements WriteRequest {
 		this.segment = segment;
 	}
 
+	/**
+	 * Gets the channel that this request writes to. Consecutive requests of the same channel may be
+	 * combined into one gathering write.
+	 */
+	AsynchronousFileIOChannel<WriteRequest> getChannel() {
+		return this.channel;
+	}
+	
+	/**
+	 * Gets the segment that this request writes, wrapped as a byte buffer.
+	 */
+	ByteBuffer wrapSegment() throws IOException {
+		try {
+			return this.segment.wrap(0, this.segment.size());
+		}
+		catch (NullPointerException npex) {
+			throw new IOException("Memory segment has been released.");
+		}
+	}
+
 	@Override
 	public void write() throws IOException {
 		try {
@@ -20,9 +20,12 @@ package org.apache.flink.runtime.io.disk.iomanager;
 
 import java.io.IOException;
 import java.lang.Thread.UncaughtExceptionHandler;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.List;
 import java.util.concurrent.LinkedBlockingQueue;
 
+import org.apache.flink.configuration.ConfigConstants;
 import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.runtime.util.EnvironmentInformation;
 
@@ -39,6 +42,9 @@ public class IOManagerAsync extends IOManager implements UncaughtExceptionHandle
 	/** The reader threads used for asynchronous block oriented channel reading. */
 	private final ReaderThread[] readers;
 	
+	/** The number of reader threads and the number of writer threads per temp directory. */
+	private final int numThreadsPerDir;
+	
 	/** Lock object to guard shutdown */
 	private final Object shutdownLock = new Object();
 	
@@ -71,12 +77,35 @@ public class IOManagerAsync extends IOManager implements UncaughtExceptionHandle
 	 * @param tempDirs The directories to write temporary files to.
 	 */
 	public IOManagerAsync(String[] tempDirs) {
+		this(tempDirs, ConfigConstants.DEFAULT_TASK_MANAGER_IO_THREADS_PER_DIR,
+				ConfigConstants.DEFAULT_TASK_MANAGER_IO_MAX_BATCH_SIZE);
+	}
+
+	/**
+	 * Constructs a new asynchronous I/O manger, writing file round robin across the given directories.
+	 * Each directory is served by the given number of reader threads and writer threads. The requests of
+	 * one channel are always served by the same thread, which keeps them in order, so multiple threads
+	 * per directory increase the number of requests in flight, rather than the speed of a single channel.
+	 * <p>
+	 * A thread combines up to the given number of consecutive queued requests of the same channel into
+	 * one scattering read or gathering write.
+	 * 
+	 * @param tempDirs The directories to write temporary files to.
+	 * @param numThreadsPerDir The number of reader threads and writer threads per directory.
+	 * @param maxBatchSize The maximal number of blocks that are read or written with one I/O call.
+	 */
+	public IOManagerAsync(String[] tempDirs, int numThreadsPerDir, int maxBatchSize) {
 		super(tempDirs);
 		
-		// start a write worker thread for each directory
-		this.writers = new WriterThread[tempDirs.length];
+		Preconditions.checkArgument(numThreadsPerDir >= 1, "The number of I/O threads per directory must be at least one.");
+		Preconditions.checkArgument(maxBatchSize >= 1, "The maximal I/O batch size must be at least one.");
+		
+		this.numThreadsPerDir = numThreadsPerDir;
+		
+		// start the write worker threads for each directory
+		this.writers = new WriterThread[tempDirs.length * numThreadsPerDir];
 		for (int i = 0; i < this.writers.length; i++) {
-			final WriterThread t = new WriterThread();
+			final WriterThread t = new WriterThread(maxBatchSize);
 			this.writers[i] = t;
 			t.setName("IOManager writer thread #" + (i + 1));
 			t.setDaemon(true);
@@ -84,10 +113,10 @@ public class IOManagerAsync extends IOManager implements UncaughtExceptionHandle
 			t.start();
 		}
 
-		// start a reader worker thread for each directory
-		this.readers = new ReaderThread[tempDirs.length];
+		// start the reader worker threads for each directory
+		this.readers = new ReaderThread[tempDirs.length * numThreadsPerDir];
 		for (int i = 0; i < this.readers.length; i++) {
-			final ReaderThread t = new ReaderThread();
+			final ReaderThread t = new ReaderThread(maxBatchSize);
 			this.readers[i] = t;
 			t.setName("IOManager reader thread #" + (i + 1));
 			t.setDaemon(true);
@@ -182,13 +211,13 @@ public class IOManagerAsync extends IOManager implements UncaughtExceptionHandle
 								LinkedBlockingQueue<MemorySegment> returnQueue) throws IOException
 	{
 		Preconditions.checkState(!shutdown, "I/O-Manger is closed.");
-		return new AsynchronousBlockWriter(channelID, this.writers[channelID.getThreadNum()].requestQueue, returnQueue);
+		return new AsynchronousBlockWriter(channelID, this.writers[getThreadIndex(channelID)].requestQueue, returnQueue);
 	}
 	
 	@Override
 	public BlockChannelWriterWithCallback createBlockChannelWriter(FileIOChannel.ID channelID, RequestDoneCallback callback) throws IOException {
 		Preconditions.checkState(!shutdown, "I/O-Manger is closed.");
-		return new AsynchronousBlockWriterWithCallback(channelID, this.writers[channelID.getThreadNum()].requestQueue, callback);
+		return new AsynchronousBlockWriterWithCallback(channelID, this.writers[getThreadIndex(channelID)].requestQueue, callback);
 	}
 	
 	/**
@@ -206,7 +235,7 @@ public class IOManagerAsync extends IOManager implements UncaughtExceptionHandle
 										LinkedBlockingQueue<MemorySegment> returnQueue) throws IOException
 	{
 		Preconditions.checkState(!shutdown, "I/O-Manger is closed.");
-		return new AsynchronousBlockReader(channelID, this.readers[channelID.getThreadNum()].requestQueue, returnQueue);
+		return new AsynchronousBlockReader(channelID, this.readers[getThreadIndex(channelID)].requestQueue, returnQueue);
 	}
 	
 	/**
@@ -229,7 +258,17 @@ public class IOManagerAsync extends IOManager implements UncaughtExceptionHandle
 			List<MemorySegment> targetSegments,	int numBlocks) throws IOException
 	{
 		Preconditions.checkState(!shutdown, "I/O-Manger is closed.");
-		return new AsynchronousBulkBlockReader(channelID, this.readers[channelID.getThreadNum()].requestQueue, targetSegments, numBlocks);
+		return new AsynchronousBulkBlockReader(channelID, this.readers[getThreadIndex(channelID)].requestQueue, targetSegments, numBlocks);
+	}
+
+	/**
+	 * Picks the thread that serves the given channel among the threads of the channel's directory.
+	 * The choice depends only on the channel, such that all requests of a channel go to the same thread.
+	 */
+	private int getThreadIndex(FileIOChannel.ID channelID) {
+		final int offset = this.numThreadsPerDir == 1 ? 0 :
+				(channelID.getPath().hashCode() & Integer.MAX_VALUE) % this.numThreadsPerDir;
+		return channelID.getThreadNum() * this.numThreadsPerDir + offset;
 	}
 
 	// -------------------------------------------------------------------------
@@ -242,6 +281,8 @@ public class IOManagerAsync extends IOManager implements UncaughtExceptionHandle
 	private static final class ReaderThread extends Thread {
 		
 		protected final RequestQueue<ReadRequest> requestQueue;
+		
+		private final SegmentReadRequest[] batch;
 
 		private volatile boolean alive;
 
@@ -249,8 +290,9 @@ public class IOManagerAsync extends IOManager implements UncaughtExceptionHandle
 		// Constructors / Destructors
 		// ---------------------------------------------------------------------
 		
-		protected ReaderThread() {
+		protected ReaderThread(int maxBatchSize) {
 			this.requestQueue = new RequestQueue<ReadRequest>();
+			this.batch = new SegmentReadRequest[maxBatchSize];
 			this.alive = true;
 		}
 		
@@ -314,6 +356,13 @@ public class IOManagerAsync extends IOManager implements UncaughtExceptionHandle
 					}
 				}
 				
+				// combine the request with the directly following requests of the same channel
+				final int batchSize = collectBatch(request);
+				if (batchSize > 1) {
+					processBatch(batchSize);
+					continue;
+				}
+				
 				// remember any IO exception that occurs, so it can be reported to the writer
 				IOException ioex = null;
 
@@ -339,6 +388,72 @@ public class IOManagerAsync extends IOManager implements UncaughtExceptionHandle
 			} // end while alive
 		}
 		
+		/**
+		 * Collects the given request and the requests of the same channel that directly follow it in the
+		 * queue into the batch. This thread is the only consumer of the queue, so the peeked request is
+		 * the one that is subsequently polled.
+		 * 
+		 * @return The number of requests in the batch, or zero, if the request cannot be batched.
+		 */
+		private int collectBatch(ReadRequest request) {
+			if (this.batch.length == 1 || !(request instanceof SegmentReadRequest)) {
+				return 0;
+			}
+			
+			final SegmentReadRequest first = (SegmentReadRequest) request;
+			this.batch[0] = first;
+			int num = 1;
+			
+			while (num < this.batch.length) {
+				final ReadRequest next = this.requestQueue.peek();
+				if (next instanceof SegmentReadRequest && ((SegmentReadRequest) next).getChannel() == first.getChannel()) {
+					this.batch[num++] = (SegmentReadRequest) this.requestQueue.poll();
+				} else {
+					break;
+				}
+			}
+			if (num == 1) {
+				this.batch[0] = null;
+			}
+			return num;
+		}
+		
+		/**
+		 * Reads the blocks of all requests in the batch with one scattering read and reports the result
+		 * to every request.
+		 */
+		private void processBatch(int batchSize) {
+			IOException ioex = null;
+			
+			try {
+				final ByteBuffer[] buffers = new ByteBuffer[batchSize];
+				for (int i = 0; i < batchSize; i++) {
+					buffers[i] = this.batch[i].wrapSegment();
+				}
+				
+				// read until all buffers are full or the end of the file is reached
+				final FileChannel channel = this.batch[0].getChannel().fileChannel;
+				while (buffers[batchSize - 1].hasRemaining() && channel.read(buffers) > 0);
+			}
+			catch (IOException e) {
+				ioex = e;
+			}
+			catch (Throwable t) {
+				ioex = new IOException("The buffers could not be read: " + t.getMessage(), t);
+				IOManagerAsync.LOG.error("I/O reading thread encountered an error" + (t.getMessage() == null ? "." : ": " + t.getMessage()), t);
+			}
+			
+			for (int i = 0; i < batchSize; i++) {
+				try {
+					this.batch[i].requestDone(ioex);
+				}
+				catch (Throwable t) {
+					IOManagerAsync.LOG.error("The handler of the request-complete-callback threw an exception" + (t.getMessage() == null ? "." : ": " + t.getMessage()), t);
+				}
+				this.batch[i] = null;
+			}
+		}
+		
 	} // end reading thread
 	
 	/**
@@ -347,6 +462,8 @@ public class IOManagerAsync extends IOManager implements UncaughtExceptionHandle
 	private static final class WriterThread extends Thread {
 		
 		protected final RequestQueue<WriteRequest> requestQueue;
+		
+		private final SegmentWriteRequest[] batch;
 
 		private volatile boolean alive;
 
@@ -354,8 +471,9 @@ public class IOManagerAsync extends IOManager implements UncaughtExceptionHandle
 		// Constructors / Destructors
 		// ---------------------------------------------------------------------
 
-		protected WriterThread() {
+		protected WriterThread(int maxBatchSize) {
 			this.requestQueue = new RequestQueue<WriteRequest>();
+			this.batch = new SegmentWriteRequest[maxBatchSize];
 			this.alive = true;
 		}
 
@@ -420,6 +538,13 @@ public class IOManagerAsync extends IOManager implements UncaughtExceptionHandle
 					}
 				}
 				
+				// combine the request with the directly following requests of the same channel
+				final int batchSize = collectBatch(request);
+				if (batchSize > 1) {
+					processBatch(batchSize);
+					continue;
+				}
+				
 				// remember any IO exception that occurs, so it can be reported to the writer
 				IOException ioex = null;
 				
@@ -445,5 +570,72 @@ public class IOManagerAsync extends IOManager implements UncaughtExceptionHandle
 			} // end while alive
 		}
 		
+		/**
+		 * Collects the given request and the requests of the same channel that directly follow it in the
+		 * queue into the batch. This thread is the only consumer of the queue, so the peeked request is
+		 * the one that is subsequently polled.
+		 * 
+		 * @return The number of requests in the batch, or zero, if the request cannot be batched.
+		 */
+		private int collectBatch(WriteRequest request) {
+			if (this.batch.length == 1 || !(request instanceof SegmentWriteRequest)) {
+				return 0;
+			}
+			
+			final SegmentWriteRequest first = (SegmentWriteRequest) request;
+			this.batch[0] = first;
+			int num = 1;
+			
+			while (num < this.batch.length) {
+				final WriteRequest next = this.requestQueue.peek();
+				if (next instanceof SegmentWriteRequest && ((SegmentWriteRequest) next).getChannel() == first.getChannel()) {
+					this.batch[num++] = (SegmentWriteRequest) this.requestQueue.poll();
+				} else {
+					break;
+				}
+			}
+			if (num == 1) {
+				this.batch[0] = null;
+			}
+			return num;
+		}
+		
+		/**
+		 * Writes the blocks of all requests in the batch with one gathering write and reports the result
+		 * to every request.
+		 */
+		private void processBatch(int batchSize) {
+			IOException ioex = null;
+			
+			try {
+				final ByteBuffer[] buffers = new ByteBuffer[batchSize];
+				for (int i = 0; i < batchSize; i++) {
+					buffers[i] = this.batch[i].wrapSegment();
+				}
+				
+				final FileChannel channel = this.batch[0].getChannel().fileChannel;
+				while (buffers[batchSize - 1].hasRemaining()) {
+					channel.write(buffers);
+				}
+			}
+			catch (IOException e) {
+				ioex = e;
+			}
+			catch (Throwable t) {
+				ioex = new IOException("The buffers could not be written: " + t.getMessage(), t);
+				IOManagerAsync.LOG.error("I/O writing thread encountered an error" + (t.getMessage() == null ? "." : ": " + t.getMessage()), t);
+			}
+			
+			for (int i = 0; i < batchSize; i++) {
+				try {
+					this.batch[i].requestDone(ioex);
+				}
+				catch (Throwable t) {
+					IOManagerAsync.LOG.error("The handler of the request-complete-callback threw an exception" + (t.getMessage() == null ? "." : ": " + t.getMessage()), t);
+				}
+				this.batch[i] = null;
+			}
+		}
+		
 	}; // end writer thread
 }
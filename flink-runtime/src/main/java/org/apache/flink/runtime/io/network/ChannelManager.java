@@ -20,15 +20,18 @@ package org.apache.flink.runtime.io.network;
 
 import org.apache.flink.core.io.IOReadableWritable;
 import org.apache.flink.runtime.AbstractID;
+import org.apache.flink.runtime.deployment.ChannelDeploymentDescriptor;
+import org.apache.flink.runtime.deployment.GateDeploymentDescriptor;
 import org.apache.flink.runtime.execution.CancelTaskException;
-import org.apache.flink.runtime.execution.Environment;
 import org.apache.flink.runtime.execution.RuntimeEnvironment;
 import org.apache.flink.runtime.executiongraph.ExecutionAttemptID;
 import org.apache.flink.runtime.instance.InstanceConnectionInfo;
+import org.apache.flink.runtime.io.disk.iomanager.IOManager;
 import org.apache.flink.runtime.io.network.bufferprovider.BufferProvider;
 import org.apache.flink.runtime.io.network.bufferprovider.BufferProviderBroker;
 import org.apache.flink.runtime.io.network.bufferprovider.DiscardBufferPool;
 import org.apache.flink.runtime.io.network.bufferprovider.GlobalBufferPool;
+import org.apache.flink.runtime.io.network.bufferprovider.LocalBufferPool;
 import org.apache.flink.runtime.io.network.bufferprovider.LocalBufferPoolOwner;
 import org.apache.flink.runtime.io.network.channels.Channel;
 import org.apache.flink.runtime.io.network.channels.ChannelID;
@@ -38,7 +41,10 @@ import org.apache.flink.runtime.io.network.channels.OutputChannel;
 import org.apache.flink.runtime.io.network.gates.GateID;
 import org.apache.flink.runtime.io.network.gates.InputGate;
 import org.apache.flink.runtime.io.network.gates.OutputGate;
+import org.apache.flink.runtime.io.network.partition.PersistentPartition;
+import org.apache.flink.runtime.io.network.partition.PersistentPartitionWriter;
 import org.apache.flink.runtime.jobgraph.JobID;
+import org.apache.flink.runtime.jobgraph.ResultPartitionType;
 import org.apache.flink.runtime.protocols.ChannelLookupProtocol;
 import org.apache.flink.runtime.taskmanager.Task;
 import org.apache.flink.util.ExceptionUtils;
@@ -47,22 +53,29 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The channel manager sets up the network buffers and dispatches data between channels.
  */
-public class ChannelManager implements EnvelopeDispatcher, BufferProviderBroker {
+public class ChannelManager implements EnvelopeDispatcher, BufferProviderBroker,
+		PersistentPartitionWriter.PartitionCompletionListener {
 
 	private static final Logger LOG = LoggerFactory.getLogger(ChannelManager.class);
 
+	/** The number of network buffers a replay of a persistent partition sends the data with. */
+	private static final int NUM_BUFFERS_PER_REPLAY = 2;
+
 	private final ChannelLookupProtocol channelLookupService;
 
 	private final InstanceConnectionInfo connectionInfo;
 
-	private final Map<ChannelID, Channel> channels;
+	private final ConcurrentHashMap<ChannelID, Channel> channels;
 
 	private final Map<AbstractID, LocalBufferPoolOwner> localBuffersPools;
 
@@ -76,6 +89,16 @@ public class ChannelManager implements EnvelopeDispatcher, BufferProviderBroker
 	
 	private final DiscardBufferPool discardBufferPool;
 
+	private final Map<ChannelID, PersistentPartitionWriter> partitionWriters;
+
+	private final Map<ChannelID, PersistentPartition> persistentPartitions;
+
+	/**
+	 * The number of network buffers reserved for the pools of partition writers and replays, which are not
+	 * distributed among the local buffer pools of the tasks.
+	 */
+	private final AtomicInteger numReservedBuffers = new AtomicInteger();
+
 	// -----------------------------------------------------------------------------------------------------------------
 
 	public ChannelManager(ChannelLookupProtocol channelLookupService, InstanceConnectionInfo connectionInfo,
@@ -97,6 +120,8 @@ public class ChannelManager implements EnvelopeDispatcher, BufferProviderBroker
 		this.channels = new ConcurrentHashMap<ChannelID, Channel>();
 		this.receiverCache = new ConcurrentHashMap<ChannelID, EnvelopeReceiverList>();
 		this.localBuffersPools = new ConcurrentHashMap<AbstractID, LocalBufferPoolOwner>();
+		this.partitionWriters = new ConcurrentHashMap<ChannelID, PersistentPartitionWriter>();
+		this.persistentPartitions = new ConcurrentHashMap<ChannelID, PersistentPartition>();
 		
 		this.ourAddress = new InetSocketAddress(connectionInfo.address(), connectionInfo.dataPort());
 		
@@ -107,6 +132,11 @@ public class ChannelManager implements EnvelopeDispatcher, BufferProviderBroker
 	public void shutdown() throws IOException {
 		this.networkConnectionManager.shutdown();
 
+		for (PersistentPartition partition : this.persistentPartitions.values()) {
+			partition.discard();
+		}
+		this.persistentPartitions.clear();
+
 		this.globalBufferPool.destroy();
 	}
 
@@ -145,6 +175,22 @@ public class ChannelManager implements EnvelopeDispatcher, BufferProviderBroker
 		}
 
 		for (OutputGate gate : environment.outputGates()) {
+			// the channels of blocking results write their data to the local disk, the receivers
+			// are deployed and read the data only once all partitions of the result are complete
+			if (gate.getResultType() == ResultPartitionType.BLOCKING) {
+				for (OutputChannel channel : gate.channels()) {
+					PersistentPartitionWriter writer = new PersistentPartitionWriter(channel, environment.getIOManager(),
+							new LocalBufferPool(this.globalBufferPool, PersistentPartitionWriter.NUM_WRITE_BUFFERS), this);
+					this.numReservedBuffers.addAndGet(PersistentPartitionWriter.NUM_WRITE_BUFFERS);
+
+					channel.registerEnvelopeDispatcher(writer);
+
+					this.partitionWriters.put(channel.getID(), writer);
+					this.channels.put(channel.getID(), channel);
+				}
+				continue;
+			}
+
 			// add receiver list hints
 			for (OutputChannel channel : gate.channels()) {
 				// register envelope dispatcher with the channel
@@ -199,19 +245,30 @@ public class ChannelManager implements EnvelopeDispatcher, BufferProviderBroker
 	 * @param task the task to be unregistered
 	 */
 	public void unregister(ExecutionAttemptID executionId, Task task) {
-		final Environment environment = task.getEnvironment();
+		final RuntimeEnvironment environment = task.getEnvironment();
 		if (environment == null) {
 			return;
 		}
 
-		// destroy and remove OUTPUT channels from registered channels and cache
-		for (ChannelID id : environment.getOutputChannelIDs()) {
-			Channel channel = this.channels.remove(id);
-			if (channel != null) {
+		// destroy and remove OUTPUT channels from registered channels and cache. The task may be unregistered
+		// only after the persistent partition of one of its channels is replayed already, through a channel
+		// with the same ID, which must stay registered.
+		for (OutputGate gate : environment.outputGates()) {
+			for (OutputChannel channel : gate.channels()) {
+				ChannelID id = channel.getID();
 
-				channel.destroy();
+				PersistentPartitionWriter writer = this.partitionWriters.remove(id);
+				if (writer != null) {
+					writer.discardIfIncomplete();
+					this.numReservedBuffers.addAndGet(-PersistentPartitionWriter.NUM_WRITE_BUFFERS);
+				}
 
-				removeFromReceiverCacheAndMaybeCloseTcpConnection(channel);
+				if (this.channels.remove(id, channel)) {
+
+					channel.destroy();
+
+					removeFromReceiverCacheAndMaybeCloseTcpConnection(channel);
+				}
 			}
 		}
 
@@ -262,9 +319,15 @@ public class ChannelManager implements EnvelopeDispatcher, BufferProviderBroker
 	 * @throws InsufficientResourcesException thrown if not enough buffers available to execute the task
 	 */
 	private void ensureBufferAvailability(Task task) throws InsufficientResourcesException {
-		Environment env = task.getEnvironment();
+		RuntimeEnvironment env = task.getEnvironment();
 
-		int numBuffers = this.globalBufferPool.numBuffers();
+		// the partition writers of the task reserve their buffers
+		int numBuffers = this.globalBufferPool.numBuffers() - this.numReservedBuffers.get();
+		for (OutputGate gate : env.outputGates()) {
+			if (gate.getResultType() == ResultPartitionType.BLOCKING) {
+				numBuffers -= gate.getNumChannels() * PersistentPartitionWriter.NUM_WRITE_BUFFERS;
+			}
+		}
 		// existing channels + channels of the task
 		int numChannels = this.channels.size() + env.getNumberOfOutputChannels() + env.getNumberOfInputChannels();
 
@@ -289,7 +352,7 @@ public class ChannelManager implements EnvelopeDispatcher, BufferProviderBroker
 			return;
 		}
 
-		int numBuffers = this.globalBufferPool.numBuffers();
+		int numBuffers = this.globalBufferPool.numBuffers() - this.numReservedBuffers.get();
 		int numChannels = this.channels.size();
 
 		double buffersPerChannel = numBuffers / (double) numChannels;
@@ -305,6 +368,93 @@ public class ChannelManager implements EnvelopeDispatcher, BufferProviderBroker
 		}
 	}
 
+	// -----------------------------------------------------------------------------------------------------------------
+	//                                           Persistent partitions
+	// -----------------------------------------------------------------------------------------------------------------
+
+	@Override
+	public void partitionCompleted(PersistentPartition partition) {
+		// a task executed again for the same channel replaces the partition of its previous execution
+		PersistentPartition previous = this.persistentPartitions.put(partition.getChannelID(), partition);
+		if (previous != null) {
+			previous.discard();
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Completed " + partition);
+		}
+	}
+
+	public boolean hasPersistentPartition(ChannelID partitionId) {
+		return this.persistentPartitions.containsKey(partitionId);
+	}
+
+	/**
+	 * Replays a persistent partition to a receiver. The partition is sent through a temporary output channel with the
+	 * given IDs, as if it was produced by a task running on this instance. The receiver is deployed on the first
+	 * lookup of the channel. This method returns once the receiver has closed the channel.
+	 *
+	 * @param jobId the ID of the job the partition belongs to
+	 * @param partitionId the ID of the output channel which has written the partition
+	 * @param outputChannelId the ID of the output channel to replay the partition with
+	 * @param inputChannelId the ID of the receiving input channel
+	 * @param ioManager the I/O manager to read the partition with
+	 * @throws IOException thrown if the partition does not exist or cannot be read or sent
+	 * @throws InterruptedException thrown if the replay is interrupted
+	 */
+	public void replayPersistentPartition(JobID jobId, ChannelID partitionId, ChannelID outputChannelId,
+			ChannelID inputChannelId, IOManager ioManager) throws IOException, InterruptedException {
+
+		PersistentPartition partition = this.persistentPartitions.get(partitionId);
+		if (partition == null) {
+			throw new IOException("Persistent partition " + partitionId + " does not exist (any more).");
+		}
+
+		OutputGate gate = new OutputGate(jobId, new GateID(), 0);
+		gate.initializeChannels(new GateDeploymentDescriptor(Collections.singletonList(
+				new ChannelDeploymentDescriptor(outputChannelId, inputChannelId))));
+
+		OutputChannel channel = gate.getChannel(0);
+		channel.registerEnvelopeDispatcher(this);
+
+		addReceiverListHint(inputChannelId, outputChannelId);
+		this.channels.put(outputChannelId, channel);
+
+		final int numBuffers = PersistentPartition.NUM_READ_BUFFERS + NUM_BUFFERS_PER_REPLAY;
+		LocalBufferPool bufferPool = new LocalBufferPool(this.globalBufferPool, numBuffers);
+		this.numReservedBuffers.addAndGet(numBuffers);
+		redistributeBuffers();
+		try {
+			partition.replay(channel, bufferPool, ioManager);
+			channel.waitForChannelToBeClosed();
+		}
+		finally {
+			this.channels.remove(outputChannelId);
+			this.receiverCache.remove(inputChannelId);
+			removeFromReceiverCacheAndMaybeCloseTcpConnection(channel);
+
+			bufferPool.destroy();
+			this.numReservedBuffers.addAndGet(-numBuffers);
+			redistributeBuffers();
+		}
+	}
+
+	/**
+	 * Deletes all persistent partitions of the given job.
+	 *
+	 * @param jobId the ID of the job to delete the partitions for
+	 */
+	public void releasePersistentPartitions(JobID jobId) {
+		Iterator<PersistentPartition> partitions = this.persistentPartitions.values().iterator();
+		while (partitions.hasNext()) {
+			PersistentPartition partition = partitions.next();
+			if (partition.getJobID().equals(jobId)) {
+				partitions.remove();
+				partition.discard();
+			}
+		}
+	}
+
 	// -----------------------------------------------------------------------------------------------------------------
 	//                                           Envelope processing
 	// -----------------------------------------------------------------------------------------------------------------
@@ -442,8 +592,7 @@ public class ChannelManager implements EnvelopeDispatcher, BufferProviderBroker
 		EnvelopeReceiverList receiverList = getReceiverListForEnvelope(envelope, true);
 
 		Buffer srcBuffer = envelope.getBuffer();
-		Buffer destBuffer = null;
-		
+
 		boolean success = false;
 		
 		try {
@@ -460,20 +609,11 @@ public class ChannelManager implements EnvelopeDispatcher, BufferProviderBroker
 				}
 
 				InputChannel<?> inputChannel = (InputChannel<?>) channel;
-				
-				// copy the buffer into the memory space of the receiver 
-				if (srcBuffer != null) {
-					try {
-						destBuffer = inputChannel.requestBufferBlocking(srcBuffer.size());
-					} catch (InterruptedException e) {
-						throw new IOException(e.getMessage());
-					}
 
-					srcBuffer.copyToBuffer(destBuffer);
-					envelope.setBuffer(destBuffer);
-					srcBuffer.recycleBuffer();
-				}
-				
+				// hand the buffer over to the receiver without copying it. The buffer keeps its recycler,
+				// so the memory segment goes back to the sender's buffer pool once the receiver (and every
+				// other holder of a duplicate, in case of broadcasts) has recycled it. From here on, the
+				// input channel owns the buffer and recycles it if it cannot queue the envelope.
 				inputChannel.queueEnvelope(envelope);
 				success = true;
 			}
@@ -493,9 +633,6 @@ public class ChannelManager implements EnvelopeDispatcher, BufferProviderBroker
 				if (srcBuffer != null) {
 					srcBuffer.recycleBuffer();
 				}
-				if (destBuffer != null) {
-					destBuffer.recycleBuffer();
-				}
 			}
 		}
 	}
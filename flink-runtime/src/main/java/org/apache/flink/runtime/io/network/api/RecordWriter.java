@@ -34,6 +34,10 @@ import org.apache.flink.runtime.jobgraph.tasks.AbstractInvokable;
  * A record writer connects the application to an output gate. It allows the application
  * of emit (send out) to the output gate. The output gate will then take care of distributing
  * the emitted records among the output channels.
+ * <p>
+ * Records sent to all channels, as by a broadcast, are serialized only once. Their buffers are shared by all
+ * channels through reference-counted duplicates and go back to the buffer pool when the last receiver has
+ * recycled them.
  * 
  * @param <T>
  *        the type of the record that can be emitted with this record writer
@@ -49,6 +53,12 @@ public class RecordWriter<T extends IOReadableWritable> extends BufferWriter {
 	/** RecordSerializer per outgoing channel */
 	private RecordSerializer<T>[] serializers;
 
+	/** RecordSerializer for records sent to all channels, whose buffers are shared by the channels */
+	private RecordSerializer<T> broadcastSerializer;
+
+	/** Whether the serializers per channel may hold data, which has to be sent before shared buffers */
+	private boolean channelsHaveData;
+
 	// -----------------------------------------------------------------------------------------------------------------
 
 	public RecordWriter(AbstractInvokable invokable) {
@@ -72,10 +82,23 @@ public class RecordWriter<T extends IOReadableWritable> extends BufferWriter {
 		for (int i = 0; i < this.numChannels; i++) {
 			this.serializers[i] = new SpanningRecordSerializer<T>();
 		}
+		this.broadcastSerializer = new SpanningRecordSerializer<T>();
 	}
 
 	public void emit(final T record) throws IOException, InterruptedException {
-		for (int targetChannel : this.channelSelector.selectChannels(record, this.numChannels)) {
+		int[] targetChannels = this.channelSelector.selectChannels(record, this.numChannels);
+		if (targetChannels.length == this.numChannels && this.numChannels > 1) {
+			emitToAllChannels(record);
+			return;
+		}
+
+		// keep the order of the records on the channels
+		if (this.broadcastSerializer.hasData()) {
+			flushBroadcastBuffer();
+		}
+		this.channelsHaveData = true;
+
+		for (int targetChannel : targetChannels) {
 			// serialize with corresponding serializer and send full buffer
 			RecordSerializer<T> serializer = this.serializers[targetChannel];
 
@@ -92,7 +115,61 @@ public class RecordWriter<T extends IOReadableWritable> extends BufferWriter {
 		}
 	}
 
+	/**
+	 * Serializes a record once into the shared buffers and sends every full buffer to all channels.
+	 */
+	private void emitToAllChannels(final T record) throws IOException, InterruptedException {
+		// keep the order of the records on the channels
+		if (this.channelsHaveData) {
+			flushChannelBuffers();
+		}
+
+		RecordSerializer.SerializationResult result = this.broadcastSerializer.addRecord(record);
+		while (result.isFullBuffer()) {
+			Buffer buffer = this.broadcastSerializer.getCurrentBuffer();
+			if (buffer != null) {
+				broadcastBuffer(buffer);
+			}
+
+			buffer = this.bufferPool.requestBufferBlocking(this.bufferPool.getBufferSize());
+			result = this.broadcastSerializer.setNextBuffer(buffer);
+		}
+	}
+
+	/**
+	 * Sends the partially filled shared buffer to all channels, or recycles it if it is empty.
+	 */
+	private void flushBroadcastBuffer() throws IOException, InterruptedException {
+		Buffer buffer = this.broadcastSerializer.getCurrentBuffer();
+		if (buffer != null) {
+			if (this.broadcastSerializer.hasData()) {
+				broadcastBuffer(buffer);
+			} else {
+				buffer.recycleBuffer();
+			}
+		}
+
+		this.broadcastSerializer.clear();
+	}
+
+	/**
+	 * Sends the partially filled buffers of the channels that contain records, keeping the empty ones.
+	 */
+	private void flushChannelBuffers() throws IOException, InterruptedException {
+		for (int targetChannel = 0; targetChannel < this.numChannels; targetChannel++) {
+			RecordSerializer<T> serializer = this.serializers[targetChannel];
+
+			if (serializer.hasData()) {
+				sendBuffer(serializer.getCurrentBuffer(), targetChannel);
+				serializer.clear();
+			}
+		}
+		this.channelsHaveData = false;
+	}
+
 	public void flush() throws IOException, InterruptedException {
+		flushBroadcastBuffer();
+
 		for (int targetChannel = 0; targetChannel < this.numChannels; targetChannel++) {
 			RecordSerializer<T> serializer = this.serializers[targetChannel];
 
@@ -103,10 +180,15 @@ public class RecordWriter<T extends IOReadableWritable> extends BufferWriter {
 
 			serializer.clear();
 		}
+		this.channelsHaveData = false;
 	}
 
 	@Override
 	public void broadcastEvent(AbstractEvent event) throws IOException, InterruptedException {
+		if (this.broadcastSerializer.hasData()) {
+			flushBroadcastBuffer();
+		}
+
 		for (int targetChannel = 0; targetChannel < this.numChannels; targetChannel++) {
 			RecordSerializer<T> serializer = this.serializers[targetChannel];
 
@@ -124,6 +206,10 @@ public class RecordWriter<T extends IOReadableWritable> extends BufferWriter {
 
 	@Override
 	public void sendEndOfSuperstep() throws IOException, InterruptedException {
+		if (this.broadcastSerializer.hasData()) {
+			flushBroadcastBuffer();
+		}
+
 		for (int targetChannel = 0; targetChannel < this.numChannels; targetChannel++) {
 			RecordSerializer<T> serializer = this.serializers[targetChannel];
 
@@ -148,5 +234,11 @@ public class RecordWriter<T extends IOReadableWritable> extends BufferWriter {
 				}
 			}
 		}
+		if (this.broadcastSerializer != null) {
+			Buffer b = this.broadcastSerializer.getCurrentBuffer();
+			if (b != null) {
+				b.recycleBuffer();
+			}
+		}
 	}
 }
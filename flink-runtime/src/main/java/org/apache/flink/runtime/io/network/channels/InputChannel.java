@@ -79,7 +79,12 @@ public class InputChannel<T extends IOReadableWritable> extends Channel implemen
 	/**
 	 * Stores the number of bytes read through this input channel since its instantiation.
 	 */
-	private long amountOfDataTransmitted;
+	private volatile long amountOfDataTransmitted;
+
+	/**
+	 * Stores the number of buffers consumed from this input channel since its instantiation.
+	 */
+	private int numberOfConsumedBuffers;
 
 	private volatile boolean weClosedChannel;
 	
@@ -191,6 +196,8 @@ public class InputChannel<T extends IOReadableWritable> extends Channel implemen
 		if (deserializationResult.isBufferConsumed()) {
 			releasedConsumedReadBuffer(this.dataBuffer);
 			this.dataBuffer = null;
+			this.numberOfConsumedBuffers++;
+			this.inputGate.notifyBufferConsumed(this);
 		}
 
 		if (deserializationResult == DeserializationResult.INTERMEDIATE_RECORD_FROM_BUFFER) {
@@ -260,6 +267,35 @@ public class InputChannel<T extends IOReadableWritable> extends Channel implemen
 	}
 
 
+	/**
+	 * Returns the number of bytes read through this channel since its instantiation.
+	 * 
+	 * @return the number of bytes read
+	 */
+	public long getAmountOfDataTransmitted() {
+		return this.amountOfDataTransmitted;
+	}
+
+	/**
+	 * Returns the number of buffers consumed from this channel since its instantiation.
+	 * 
+	 * @return the number of consumed buffers
+	 */
+	public int getNumberOfConsumedBuffers() {
+		return this.numberOfConsumedBuffers;
+	}
+
+	/**
+	 * Returns the number of envelopes received on this channel which have not been read yet.
+	 * 
+	 * @return the number of queued envelopes
+	 */
+	public int getNumberOfQueuedEnvelopes() {
+		synchronized (this.queuedEnvelopes) {
+			return this.queuedEnvelopes.size();
+		}
+	}
+
 	public void notifyGateThatInputIsAvailable() {
 		this.getInputGate().notifyRecordIsAvailable(getIndex());
 	}
@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.gates;
+
+import java.io.IOException;
+
+import org.apache.flink.runtime.io.network.channels.InputChannel;
+
+/**
+ * This interface can be implemented by a class which shall be notified by an input gate whenever the reading task has
+ * completely consumed a buffer of one of the gate's input channels. It is called by the thread reading the gate.
+ */
+public interface BufferConsumptionListener {
+
+	/**
+	 * This method is called by an input gate after a buffer of one of its input channels has been consumed and
+	 * recycled.
+	 * 
+	 * @param inputChannel
+	 *        the input channel the buffer was read from
+	 * @throws IOException
+	 *         thrown if the listener fails to react to the consumption
+	 */
+	void bufferConsumed(InputChannel<?> inputChannel) throws IOException;
+}
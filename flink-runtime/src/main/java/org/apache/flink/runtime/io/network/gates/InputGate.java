@@ -71,6 +71,11 @@ public class InputGate<T extends IOReadableWritable> extends Gate<T> implements
 	 * The listener object to be notified when a channel has at least one record available.
 	 */
 	private final AtomicReference<RecordAvailabilityListener<T>> recordAvailabilityListener = new AtomicReference<RecordAvailabilityListener<T>>(null);
+
+	/**
+	 * The listener object to be notified when a buffer has been consumed, may be <code>null</code>.
+	 */
+	private BufferConsumptionListener bufferConsumptionListener;
 	
 	
 	private AbstractTaskEvent currentEvent;
@@ -143,6 +148,24 @@ public class InputGate<T extends IOReadableWritable> extends Gate<T> implements
 		return this.channels;
 	}
 
+	/**
+	 * Returns the number of bytes read through all input channels of this gate.
+	 *
+	 * @return the number of bytes read through this gate
+	 */
+	public long getNumberOfBytesRead() {
+		final InputChannel<T>[] channels = this.channels;
+		if (channels == null) {
+			return 0;
+		}
+
+		long numBytes = 0;
+		for (InputChannel<T> channel : channels) {
+			numBytes += channel.getAmountOfDataTransmitted();
+		}
+		return numBytes;
+	}
+
 	/**
 	 * Reads a record from one of the associated input channels. Channels are read such that one buffer from a channel is
 	 * consecutively consumed. The buffers in turn are consumed in the order in which they arrive.
@@ -316,6 +339,31 @@ public class InputGate<T extends IOReadableWritable> extends Gate<T> implements
 		}
 	}
 
+	/**
+	 * Registers a {@link BufferConsumptionListener} with this input gate. It must be registered before the task starts
+	 * reading.
+	 *
+	 * @param listener
+	 *        the listener object to be registered
+	 */
+	public void registerBufferConsumptionListener(final BufferConsumptionListener listener) {
+		this.bufferConsumptionListener = listener;
+	}
+
+	/**
+	 * Notify the gate that a buffer of the given channel has been consumed.
+	 *
+	 * @param inputChannel
+	 *        the channel the buffer was read from
+	 * @throws IOException
+	 *         thrown if the registered listener fails
+	 */
+	public void notifyBufferConsumed(InputChannel<T> inputChannel) throws IOException {
+		if (this.bufferConsumptionListener != null) {
+			this.bufferConsumptionListener.bufferConsumed(inputChannel);
+		}
+	}
+
 	/**
 	 * Notify the gate that is has consumed a data unit from the channel with the given index
 	 *
@@ -30,10 +30,13 @@ import org.apache.flink.runtime.io.network.Buffer;
 import org.apache.flink.runtime.io.network.channels.ChannelID;
 import org.apache.flink.runtime.io.network.channels.OutputChannel;
 import org.apache.flink.runtime.jobgraph.JobID;
+import org.apache.flink.runtime.jobgraph.ResultPartitionType;
 
 public class OutputGate extends Gate<IOReadableWritable> {
 
 	private OutputChannel[] channels;
+	
+	private ResultPartitionType resultType = ResultPartitionType.PIPELINED;
 
 	private boolean closed;
 	
@@ -86,6 +89,7 @@ public class OutputGate extends Gate<IOReadableWritable> {
 		
 		int numChannels = channelDescr.size();
 		this.channels = new OutputChannel[numChannels];
+		this.resultType = descriptor.getResultType();
 
 		for (int i = 0; i < numChannels; i++) {
 			ChannelDeploymentDescriptor channelDescriptor = channelDescr.get(i);
@@ -108,6 +112,16 @@ public class OutputGate extends Gate<IOReadableWritable> {
 	public int getNumChannels() {
 		return this.channels.length;
 	}
+	
+	/**
+	 * Returns the type of the result partition written by this gate. The channels of a gate writing a
+	 * {@link ResultPartitionType#BLOCKING} result persist their data instead of shipping it to the receivers.
+	 *
+	 * @return the type of the result partition written by this gate
+	 */
+	public ResultPartitionType getResultType() {
+		return this.resultType;
+	}
 
 	// -----------------------------------------------------------------------------------------------------------------
 	//                                              Shutdown
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.netty;
+
+import java.io.IOException;
+
+/**
+ * A codec that compresses the contents of network buffers before they are written to a connection, and decompresses
+ * them on the receiving side. Every encoded envelope carries the {@link #getId() ID} of the codec that encoded its
+ * buffer, so the receiver picks the matching codec per envelope, independent of its own configuration.
+ * <p>
+ * Codec instances may keep internal state between calls and are hence not thread-safe. Each encoder and decoder of a
+ * connection works with its own instances, see {@link BufferCodecs}.
+ */
+public interface BufferCodec {
+
+	/**
+	 * Gets the ID under which this codec is identified in the envelope header.
+	 *
+	 * @return The ID of this codec.
+	 */
+	int getId();
+
+	/**
+	 * Gets the maximum number of bytes that the compressed form of the given number of bytes may occupy.
+	 *
+	 * @param length The number of bytes to compress.
+	 * @return The maximum compressed length.
+	 */
+	int getMaxCompressedLength(int length);
+
+	/**
+	 * Compresses the given bytes into the target array. The target array must have at least
+	 * {@link #getMaxCompressedLength(int)} bytes of space, starting at the given offset.
+	 *
+	 * @return The number of bytes written to the target array.
+	 */
+	int compress(byte[] src, int srcOffset, int srcLength, byte[] dst, int dstOffset);
+
+	/**
+	 * Decompresses the given bytes into the target array.
+	 *
+	 * @return The number of bytes written to the target array.
+	 * @throws IOException Thrown, if the compressed data is malformed or does not fit into the target array.
+	 */
+	int decompress(byte[] src, int srcOffset, int srcLength, byte[] dst, int dstOffset, int dstLength) throws IOException;
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.netty;
+
+/**
+ * Factory for the {@link BufferCodec}s that can be used on network connections.
+ */
+public final class BufferCodecs {
+
+	/**
+	 * Creates a new instance of the codec with the given name, as used in the configuration.
+	 *
+	 * @param name The name of the codec, case insensitive.
+	 * @return A new instance of the codec.
+	 * @throws IllegalArgumentException Thrown, if no codec with the given name exists.
+	 */
+	public static BufferCodec createCodec(String name) {
+		if (name == null || NoOpBufferCodec.NAME.equalsIgnoreCase(name)) {
+			return new NoOpBufferCodec();
+		}
+		else if (Lz4BufferCodec.NAME.equalsIgnoreCase(name)) {
+			return new Lz4BufferCodec();
+		}
+		else {
+			throw new IllegalArgumentException("Unknown network buffer codec: " + name);
+		}
+	}
+
+	/**
+	 * Creates a new instance of the codec with the given ID, as found in the envelope header.
+	 *
+	 * @param id The ID of the codec.
+	 * @return A new instance of the codec, or <code>null</code>, if no codec with the given ID exists.
+	 */
+	public static BufferCodec createCodec(int id) {
+		switch (id) {
+			case NoOpBufferCodec.ID:
+				return new NoOpBufferCodec();
+			case Lz4BufferCodec.ID:
+				return new Lz4BufferCodec();
+			default:
+				return null;
+		}
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Private constructor to prevent instantiation.
+	 */
+	private BufferCodecs() {
+		throw new RuntimeException();
+	}
+}
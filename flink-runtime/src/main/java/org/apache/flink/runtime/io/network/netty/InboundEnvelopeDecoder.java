@@ -57,6 +57,16 @@ public class InboundEnvelopeDecoder extends ChannelInboundHandlerAdapter impleme
 
 	private int currentBufferRequestSize;
 
+	private int currentEncodedBufferSize;
+
+	private BufferCodec currentCodec;
+
+	private final BufferCodec[] codecs = new BufferCodec[2];
+
+	private ByteBuffer compressedBuffer;
+
+	private byte[] decompressed;
+
 	private BufferProvider currentBufferProvider;
 
 	private JobID lastJobId;
@@ -148,9 +158,11 @@ public class InboundEnvelopeDecoder extends ChannelInboundHandlerAdapter impleme
 						continue;
 
 					case FAILED_BUFFER_POOL_DESTROYED:
-						this.bytesToSkip = skipBytes(in, this.currentBufferRequestSize);
+						this.bytesToSkip = skipBytes(in, this.currentEncodedBufferSize);
 
 						this.currentBufferRequestSize = 0;
+						this.currentEncodedBufferSize = 0;
+						this.currentCodec = null;
 						this.currentEventsBuffer = null;
 						this.currentEnvelope = null;
 				}
@@ -199,9 +211,7 @@ public class InboundEnvelopeDecoder extends ChannelInboundHandlerAdapter impleme
 			// This alters the state of the last `decodeEnvelope(ByteBuf)`
 			// call to set the buffer, which has become available again
 			availableBuffer.limitSize(currentBufferRequestSize);
-			currentEnvelope.setBuffer(availableBuffer);
-			currentDataBuffer = availableBuffer.getMemorySegment().wrap(0, InboundEnvelopeDecoder.this.currentBufferRequestSize);
-			currentBufferRequestSize = 0;
+			setCurrentBuffer(availableBuffer);
 
 			stagedBuffer.release();
 
@@ -248,9 +258,17 @@ public class InboundEnvelopeDecoder extends ChannelInboundHandlerAdapter impleme
 
 				int eventsSize = this.headerBuffer.getInt();
 				int bufferSize = this.headerBuffer.getInt();
+				int codecId = this.headerBuffer.getInt();
+				int encodedBufferSize = this.headerBuffer.getInt();
 
 				this.currentEventsBuffer = eventsSize > 0 ? ByteBuffer.allocate(eventsSize) : null;
 				this.currentBufferRequestSize = bufferSize > 0 ? bufferSize : 0;
+				this.currentEncodedBufferSize = bufferSize > 0 ? encodedBufferSize : 0;
+				this.currentCodec = bufferSize > 0 && codecId != NoOpBufferCodec.ID ? getCodec(codecId) : null;
+
+				if (this.currentEncodedBufferSize < 0 || (this.currentCodec == null && encodedBufferSize != bufferSize)) {
+					throw new IOException("Network stream corrupted: invalid encoded buffer size in current envelope header.");
+				}
 
 				this.headerBuffer.clear();
 			}
@@ -285,13 +303,11 @@ public class InboundEnvelopeDecoder extends ChannelInboundHandlerAdapter impleme
 				return DecoderState.NO_BUFFER_AVAILABLE;
 			}
 			else {
-				this.currentEnvelope.setBuffer(buffer);
-				this.currentDataBuffer = buffer.getMemorySegment().wrap(0, this.currentBufferRequestSize);
-				this.currentBufferRequestSize = 0;
+				setCurrentBuffer(buffer);
 			}
 		}
 
-		// (b) copy data to OUR buffer
+		// (b) copy data to OUR buffer (or to the staging area for compressed data)
 		if (this.currentDataBuffer != null) {
 			copy(in, this.currentDataBuffer);
 
@@ -303,11 +319,79 @@ public class InboundEnvelopeDecoder extends ChannelInboundHandlerAdapter impleme
 			}
 		}
 
+		// (c) decompress the staged data into OUR buffer
+		if (this.currentCodec != null) {
+			decompress(this.currentEnvelope.getBuffer());
+			this.currentCodec = null;
+		}
+
 		// if we made it to this point, we completed the envelope;
 		// in the other cases we return early with PENDING or NO_BUFFER_AVAILABLE
 		return DecoderState.COMPLETE;
 	}
 
+	/**
+	 * Sets the buffer that receives the data of the current envelope. Uncompressed data is copied directly into the
+	 * buffer, compressed data is staged and decompressed into the buffer once it is complete.
+	 */
+	private void setCurrentBuffer(Buffer buffer) {
+		this.currentEnvelope.setBuffer(buffer);
+
+		if (this.currentCodec == null) {
+			this.currentDataBuffer = buffer.getMemorySegment().wrap(0, this.currentBufferRequestSize);
+		}
+		else {
+			if (this.compressedBuffer == null || this.compressedBuffer.capacity() < this.currentEncodedBufferSize) {
+				this.compressedBuffer = ByteBuffer.allocate(this.currentEncodedBufferSize);
+			}
+			this.compressedBuffer.clear();
+			this.compressedBuffer.limit(this.currentEncodedBufferSize);
+			this.currentDataBuffer = this.compressedBuffer;
+		}
+
+		this.currentBufferRequestSize = 0;
+	}
+
+	private void decompress(Buffer buffer) throws IOException {
+		final int size = buffer.size();
+		final ByteBuffer target = buffer.getMemorySegment().wrap(0, size);
+
+		final int decompressedSize;
+		if (target.hasArray()) {
+			decompressedSize = this.currentCodec.decompress(this.compressedBuffer.array(), 0, this.currentEncodedBufferSize,
+					target.array(), target.arrayOffset() + target.position(), size);
+		}
+		else {
+			// off-heap memory, the codec works on arrays
+			if (this.decompressed == null || this.decompressed.length < size) {
+				this.decompressed = new byte[size];
+			}
+			decompressedSize = this.currentCodec.decompress(this.compressedBuffer.array(), 0, this.currentEncodedBufferSize,
+					this.decompressed, 0, size);
+			buffer.getMemorySegment().put(0, this.decompressed, 0, decompressedSize);
+		}
+
+		if (decompressedSize != size) {
+			throw new IOException("Network stream corrupted: decompressed " + decompressedSize + " bytes, but expected "
+					+ size + " bytes.");
+		}
+	}
+
+	private BufferCodec getCodec(int id) throws IOException {
+		BufferCodec codec = id >= 0 && id < this.codecs.length ? this.codecs[id] : null;
+
+		if (codec == null) {
+			codec = BufferCodecs.createCodec(id);
+			if (codec == null) {
+				throw new IOException("Network stream corrupted: unknown buffer codec " + id + " in current envelope header.");
+			}
+			if (id < this.codecs.length) {
+				this.codecs[id] = codec;
+			}
+		}
+		return codec;
+	}
+
 	private Buffer requestBufferForTarget(JobID jobId, ChannelID sourceId, int size) throws IOException {
 		// Request the buffer from the target buffer provider, which is the
 		// InputGate of the receiving InputChannel.
@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.netty;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Codec that compresses buffers in the LZ4 block format. The compressor uses a single hash probe per position and
+ * skips ahead faster the longer it does not find a match, which trades compression ratio for speed, like the
+ * reference implementation's fast mode.
+ * <p>
+ * A block is a sequence of tokens. Each token is followed by a run of literal bytes and a back reference (offset and
+ * length) into the already decompressed data. The last token has literals only.
+ */
+public class Lz4BufferCodec implements BufferCodec {
+
+	public static final int ID = 1;
+
+	public static final String NAME = "lz4";
+
+	private static final int MIN_MATCH = 4;
+
+	private static final int HASH_LOG = 12;
+
+	private static final int MAX_DISTANCE = (1 << 16) - 1;
+
+	/** The number of bytes at the end of a block that are always encoded as literals. */
+	private static final int LAST_LITERALS = 5;
+
+	/** A match must start at least this many bytes before the end of a block. */
+	private static final int MATCH_FIND_LIMIT = 12;
+
+	/** The number of misses after which the compressor increases its step size. */
+	private static final int SKIP_TRIGGER = 6;
+
+	private static final int RUN_MASK = 0x0f;
+
+
+	private final int[] hashTable = new int[1 << HASH_LOG];
+
+	// --------------------------------------------------------------------------------------------
+
+	@Override
+	public int getId() {
+		return ID;
+	}
+
+	@Override
+	public int getMaxCompressedLength(int length) {
+		return length + length / 255 + 16;
+	}
+
+	@Override
+	public int compress(byte[] src, int srcOffset, int srcLength, byte[] dst, int dstOffset) {
+		final int[] table = this.hashTable;
+		final int srcEnd = srcOffset + srcLength;
+
+		int dstPos = dstOffset;
+		int anchor = srcOffset;
+
+		if (srcLength > MATCH_FIND_LIMIT) {
+			final int matchFindLimit = srcEnd - MATCH_FIND_LIMIT;
+			final int matchLimit = srcEnd - LAST_LITERALS;
+
+			Arrays.fill(table, -1);
+
+			int pos = srcOffset;
+			while (pos < matchFindLimit) {
+				final int sequence = readInt(src, pos);
+				final int hash = hash(sequence);
+				int ref = table[hash];
+				table[hash] = pos;
+
+				if (ref < 0 || pos - ref > MAX_DISTANCE || readInt(src, ref) != sequence) {
+					pos += 1 + ((pos - anchor) >>> SKIP_TRIGGER);
+					continue;
+				}
+
+				// extend the match backwards into the pending literals, and forwards
+				while (pos > anchor && ref > srcOffset && src[pos - 1] == src[ref - 1]) {
+					pos--;
+					ref--;
+				}
+				int matchLength = MIN_MATCH;
+				while (pos + matchLength < matchLimit && src[pos + matchLength] == src[ref + matchLength]) {
+					matchLength++;
+				}
+
+				dstPos = writeSequence(src, anchor, pos - anchor, pos - ref, matchLength, dst, dstPos);
+
+				pos += matchLength;
+				anchor = pos;
+			}
+		}
+
+		// the remaining bytes go out as literals
+		final int literalLength = srcEnd - anchor;
+		final int tokenPos = dstPos++;
+		dst[tokenPos] = 0;
+		dstPos = writeLength(literalLength, dst, tokenPos, 4, dstPos);
+		System.arraycopy(src, anchor, dst, dstPos, literalLength);
+
+		return dstPos + literalLength - dstOffset;
+	}
+
+	@Override
+	public int decompress(byte[] src, int srcOffset, int srcLength, byte[] dst, int dstOffset, int dstLength) throws IOException {
+		final int srcEnd = srcOffset + srcLength;
+		final int dstEnd = dstOffset + dstLength;
+
+		int srcPos = srcOffset;
+		int dstPos = dstOffset;
+
+		while (true) {
+			if (srcPos >= srcEnd) {
+				throw new IOException("Malformed LZ4 block: unexpected end of data.");
+			}
+			final int token = src[srcPos++] & 0xff;
+
+			// (1) literals
+			int literalLength = token >>> 4;
+			if (literalLength == RUN_MASK) {
+				int b;
+				do {
+					if (srcPos >= srcEnd) {
+						throw new IOException("Malformed LZ4 block: unexpected end of data.");
+					}
+					b = src[srcPos++] & 0xff;
+					literalLength += b;
+				} while (b == 0xff);
+			}
+			if (literalLength > srcEnd - srcPos || literalLength > dstEnd - dstPos) {
+				throw new IOException("Malformed LZ4 block: literals exceed the block.");
+			}
+			System.arraycopy(src, srcPos, dst, dstPos, literalLength);
+			srcPos += literalLength;
+			dstPos += literalLength;
+
+			if (srcPos == srcEnd) {
+				// the last sequence has no match
+				return dstPos - dstOffset;
+			}
+
+			// (2) match
+			if (srcEnd - srcPos < 2) {
+				throw new IOException("Malformed LZ4 block: unexpected end of data.");
+			}
+			final int offset = (src[srcPos] & 0xff) | ((src[srcPos + 1] & 0xff) << 8);
+			srcPos += 2;
+
+			int matchLength = token & RUN_MASK;
+			if (matchLength == RUN_MASK) {
+				int b;
+				do {
+					if (srcPos >= srcEnd) {
+						throw new IOException("Malformed LZ4 block: unexpected end of data.");
+					}
+					b = src[srcPos++] & 0xff;
+					matchLength += b;
+				} while (b == 0xff);
+			}
+			matchLength += MIN_MATCH;
+
+			final int ref = dstPos - offset;
+			if (offset == 0 || ref < dstOffset || matchLength > dstEnd - dstPos) {
+				throw new IOException("Malformed LZ4 block: invalid match.");
+			}
+
+			if (offset >= matchLength) {
+				System.arraycopy(dst, ref, dst, dstPos, matchLength);
+			}
+			else {
+				// overlapping match, repeats the last offset bytes
+				for (int i = 0; i < matchLength; i++) {
+					dst[dstPos + i] = dst[ref + i];
+				}
+			}
+			dstPos += matchLength;
+		}
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	private static int writeSequence(byte[] src, int literalPos, int literalLength, int offset, int matchLength,
+			byte[] dst, int dstPos)
+	{
+		final int tokenPos = dstPos++;
+		dst[tokenPos] = 0;
+
+		dstPos = writeLength(literalLength, dst, tokenPos, 4, dstPos);
+		System.arraycopy(src, literalPos, dst, dstPos, literalLength);
+		dstPos += literalLength;
+
+		dst[dstPos++] = (byte) offset;
+		dst[dstPos++] = (byte) (offset >>> 8);
+
+		return writeLength(matchLength - MIN_MATCH, dst, tokenPos, 0, dstPos);
+	}
+
+	/**
+	 * Writes the given length into the token nibble at the given shift and, if it does not fit into the nibble, the
+	 * remainder into the bytes after the current position.
+	 */
+	private static int writeLength(int length, byte[] dst, int tokenPos, int shift, int dstPos) {
+		if (length < RUN_MASK) {
+			dst[tokenPos] |= (byte) (length << shift);
+			return dstPos;
+		}
+
+		dst[tokenPos] |= (byte) (RUN_MASK << shift);
+		length -= RUN_MASK;
+		while (length >= 0xff) {
+			dst[dstPos++] = (byte) 0xff;
+			length -= 0xff;
+		}
+		dst[dstPos++] = (byte) length;
+		return dstPos;
+	}
+
+	private static int readInt(byte[] b, int pos) {
+		return (b[pos] & 0xff) | ((b[pos + 1] & 0xff) << 8) | ((b[pos + 2] & 0xff) << 16) | ((b[pos + 3] & 0xff) << 24);
+	}
+
+	private static int hash(int sequence) {
+		return (sequence * -1640531535) >>> (32 - HASH_LOG);
+	}
+}
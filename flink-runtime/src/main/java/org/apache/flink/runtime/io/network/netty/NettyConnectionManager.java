@@ -68,6 +68,8 @@ public class NettyConnectionManager implements NetworkConnectionManager {
 
 	private final int highWaterMark;
 
+	private final String bufferCodec;
+
 	private ServerBootstrap in;
 
 	private Bootstrap out;
@@ -76,6 +78,22 @@ public class NettyConnectionManager implements NetworkConnectionManager {
 
 	public NettyConnectionManager(InetAddress bindAddress, int bindPort, int bufferSize, int numInThreads,
 								int numOutThreads, int lowWaterMark, int highWaterMark) {
+		this(bindAddress, bindPort, bufferSize, numInThreads, numOutThreads, lowWaterMark, highWaterMark,
+				NoOpBufferCodec.NAME);
+	}
+
+	/**
+	 * Creates a new connection manager.
+	 *
+	 * @param bufferCodec The name of the {@link BufferCodec} that compresses the buffers sent over outgoing
+	 *                    connections. Incoming connections decode whatever codec the sender used.
+	 */
+	public NettyConnectionManager(InetAddress bindAddress, int bindPort, int bufferSize, int numInThreads,
+								int numOutThreads, int lowWaterMark, int highWaterMark, String bufferCodec) {
+
+		// fail early on unknown codecs
+		BufferCodecs.createCodec(bufferCodec);
+		this.bufferCodec = bufferCodec;
 
 		this.bindAddress = bindAddress;
 		this.bindPort = bindPort;
@@ -95,6 +113,7 @@ public class NettyConnectionManager implements NetworkConnectionManager {
 	public void start(ChannelManager channelManager) throws IOException {
 		LOG.info(String.format("Starting with %d incoming and %d outgoing connection threads.", numInThreads, numOutThreads));
 		LOG.info(String.format("Setting low water mark to %d and high water mark to %d bytes.", lowWaterMark, highWaterMark));
+		LOG.info(String.format("Using buffer codec '%s' for outgoing connections.", bufferCodec));
 
 		final BufferProviderBroker bufferProviderBroker = channelManager;
 		final EnvelopeDispatcher envelopeDispatcher = channelManager;
@@ -143,7 +162,7 @@ public class NettyConnectionManager implements NetworkConnectionManager {
 					@Override
 					public void initChannel(SocketChannel channel) throws Exception {
 						channel.pipeline()
-								.addLast(new OutboundEnvelopeEncoder());
+								.addLast(new OutboundEnvelopeEncoder(BufferCodecs.createCodec(bufferCodec)));
 					}
 				})
 				.option(ChannelOption.WRITE_BUFFER_LOW_WATER_MARK, lowWaterMark)
@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.netty;
+
+import java.io.IOException;
+
+/**
+ * Codec that leaves the data as it is. Buffers encoded with this codec are written to the connection in their
+ * original form.
+ */
+public class NoOpBufferCodec implements BufferCodec {
+
+	public static final int ID = 0;
+
+	public static final String NAME = "none";
+
+	@Override
+	public int getId() {
+		return ID;
+	}
+
+	@Override
+	public int getMaxCompressedLength(int length) {
+		return length;
+	}
+
+	@Override
+	public int compress(byte[] src, int srcOffset, int srcLength, byte[] dst, int dstOffset) {
+		System.arraycopy(src, srcOffset, dst, dstOffset, srcLength);
+		return srcLength;
+	}
+
+	@Override
+	public int decompress(byte[] src, int srcOffset, int srcLength, byte[] dst, int dstOffset, int dstLength) throws IOException {
+		if (srcLength > dstLength) {
+			throw new IOException("Data does not fit into the target buffer.");
+		}
+		System.arraycopy(src, srcOffset, dst, dstOffset, srcLength);
+		return srcLength;
+	}
+}
@@ -24,18 +24,42 @@ import org.apache.flink.runtime.io.network.Envelope;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
-import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelOutboundHandlerAdapter;
 import io.netty.channel.ChannelPromise;
 
-@ChannelHandler.Sharable
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes envelopes into the wire format. If the encoder has a compressing {@link BufferCodec}, the contents of every
+ * buffer are compressed with it, unless the compressed form is not smaller than the original. The codec that was used
+ * is recorded in the header of each envelope.
+ * <p>
+ * The encoder keeps the codec and its scratch memory as state, so every connection needs its own instance.
+ */
 public class OutboundEnvelopeEncoder extends ChannelOutboundHandlerAdapter {
 
-	public static final int HEADER_SIZE = 48;
+	public static final int HEADER_SIZE = 56;
 
 	public static final int MAGIC_NUMBER = 0xBADC0FFE;
 
+	private final BufferCodec codec;
+
+	private byte[] uncompressed;
+
+	private byte[] compressed;
+
+	public OutboundEnvelopeEncoder() {
+		this(new NoOpBufferCodec());
+	}
+
+	public OutboundEnvelopeEncoder(BufferCodec codec) {
+		if (codec == null) {
+			throw new NullPointerException();
+		}
+		this.codec = codec;
+	}
+
 	@Override
 	public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
 		Envelope env = (Envelope) msg;
@@ -54,8 +78,18 @@ public class OutboundEnvelopeEncoder extends ChannelOutboundHandlerAdapter {
 	}
 
 	private void encode(Envelope env, ByteBuf out) {
+		final Buffer envBuffer = env.getBuffer();
+		final int bufferSize = envBuffer != null ? envBuffer.size() : 0;
+
+		// compress the buffer first, the header carries the codec and the length on the wire
+		int compressedSize = -1;
+		if (bufferSize > 0 && this.codec.getId() != NoOpBufferCodec.ID) {
+			compressedSize = compress(envBuffer);
+		}
+		final boolean isCompressed = compressedSize >= 0 && compressedSize < bufferSize;
+
 		// --------------------------------------------------------------------
-		// (1) header (48 bytes)
+		// (1) header (56 bytes)
 		// --------------------------------------------------------------------
 		out.writeInt(MAGIC_NUMBER); // 4 bytes
 
@@ -67,7 +101,9 @@ public class OutboundEnvelopeEncoder extends ChannelOutboundHandlerAdapter {
 		env.getJobID().writeTo(out); // 16 bytes
 		env.getSource().writeTo(out); // 16 bytes
 		out.writeInt(env.getEventsSerialized() != null ? env.getEventsSerialized().remaining() : 0); // 4 bytes
-		out.writeInt(env.getBuffer() != null ? env.getBuffer().size() : 0); // 4 bytes
+		out.writeInt(bufferSize); // 4 bytes
+		out.writeInt(isCompressed ? this.codec.getId() : NoOpBufferCodec.ID); // 4 bytes
+		out.writeInt(isCompressed ? compressedSize : bufferSize); // 4 bytes
 		// --------------------------------------------------------------------
 		// (2) events (var length)
 		// --------------------------------------------------------------------
@@ -78,13 +114,50 @@ public class OutboundEnvelopeEncoder extends ChannelOutboundHandlerAdapter {
 		// --------------------------------------------------------------------
 		// (3) buffer (var length)
 		// --------------------------------------------------------------------
-		if (env.getBuffer() != null) {
-			Buffer envBuffer = env.getBuffer();
-			out.writeBytes(envBuffer.getMemorySegment().wrap(0, envBuffer.size()));
+		if (envBuffer != null) {
+			if (isCompressed) {
+				out.writeBytes(this.compressed, 0, compressedSize);
+			}
+			else {
+				out.writeBytes(envBuffer.getMemorySegment().wrap(0, bufferSize));
+			}
 
 			// Recycle the buffer from OUR buffer pool after everything has been
 			// copied to Nettys buffer space.
 			envBuffer.recycleBuffer();
 		}
 	}
+
+	/**
+	 * Compresses the contents of the given buffer into the scratch array for compressed data.
+	 *
+	 * @return The compressed size.
+	 */
+	private int compress(Buffer buffer) {
+		final int size = buffer.size();
+		final ByteBuffer data = buffer.getMemorySegment().wrap(0, size);
+
+		final byte[] src;
+		final int srcOffset;
+		if (data.hasArray()) {
+			src = data.array();
+			srcOffset = data.arrayOffset() + data.position();
+		}
+		else {
+			// off-heap memory, the codec works on arrays
+			if (this.uncompressed == null || this.uncompressed.length < size) {
+				this.uncompressed = new byte[size];
+			}
+			data.get(this.uncompressed, 0, size);
+			src = this.uncompressed;
+			srcOffset = 0;
+		}
+
+		final int maxCompressedSize = this.codec.getMaxCompressedLength(size);
+		if (this.compressed == null || this.compressed.length < maxCompressedSize) {
+			this.compressed = new byte[maxCompressedSize];
+		}
+
+		return this.codec.compress(src, srcOffset, size, this.compressed, 0);
+	}
 }
@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.partition;
+
+import java.io.IOException;
+
+import org.apache.flink.runtime.io.network.channels.ChannelID;
+
+/**
+ * Signals that a persistent partition could not be replayed to its receiver. The exception is reported
+ * for the receiving task, which runs on a different instance than the replay.
+ */
+public class PartitionReplayException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final ChannelID partitionId;
+
+	public PartitionReplayException(ChannelID partitionId, Throwable cause) {
+		super("Replaying the persistent partition " + partitionId + " failed: " + cause.getMessage(), cause);
+		this.partitionId = partitionId;
+	}
+
+	public ChannelID getPartitionId() {
+		return partitionId;
+	}
+}
@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.partition;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.runtime.event.task.AbstractEvent;
+import org.apache.flink.runtime.io.disk.iomanager.BlockChannelReader;
+import org.apache.flink.runtime.io.disk.iomanager.ChannelReaderInputView;
+import org.apache.flink.runtime.io.disk.iomanager.FileIOChannel;
+import org.apache.flink.runtime.io.disk.iomanager.IOManager;
+import org.apache.flink.runtime.io.network.Buffer;
+import org.apache.flink.runtime.io.network.Envelope;
+import org.apache.flink.runtime.io.network.bufferprovider.BufferProvider;
+import org.apache.flink.runtime.io.network.channels.ChannelID;
+import org.apache.flink.runtime.io.network.channels.OutputChannel;
+import org.apache.flink.runtime.jobgraph.JobID;
+
+/**
+ * A partition of a {@link org.apache.flink.runtime.jobgraph.ResultPartitionType#BLOCKING} result, which has
+ * been written completely to a file on the local disk by a {@link PersistentPartitionWriter}.
+ * <p>
+ * The partition is identified by the ID of the output channel that wrote it. It can be replayed any number of
+ * times to the receivers, until it is discarded.
+ */
+public class PersistentPartition {
+
+	/** The number of buffers of the replay's buffer provider the file is read through. */
+	public static final int NUM_READ_BUFFERS = 2;
+
+	private final JobID jobId;
+
+	private final ChannelID channelId;
+
+	private final FileIOChannel.ID fileId;
+
+	private final int segmentSize;
+
+	private final int numBlocks;
+
+	private final long numBytes;
+
+	PersistentPartition(JobID jobId, ChannelID channelId, FileIOChannel.ID fileId, int segmentSize, int numBlocks, long numBytes) {
+		this.jobId = jobId;
+		this.channelId = channelId;
+		this.fileId = fileId;
+		this.segmentSize = segmentSize;
+		this.numBlocks = numBlocks;
+		this.numBytes = numBytes;
+	}
+
+	// -----------------------------------------------------------------------------------------------------------------
+
+	public JobID getJobID() {
+		return this.jobId;
+	}
+
+	public ChannelID getChannelID() {
+		return this.channelId;
+	}
+
+	/**
+	 * Returns the number of bytes of the buffers and events written to the partition.
+	 *
+	 * @return number of bytes written to the partition
+	 */
+	public long getNumberOfBytes() {
+		return this.numBytes;
+	}
+
+	// -----------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Reads the partition from the disk and sends its buffers and events through the given output channel, in the
+	 * order in which they were written. After the last buffer, the close of the channel is requested.
+	 * <p>
+	 * The file is read through {@link #NUM_READ_BUFFERS} buffers of the given provider, which are held until the
+	 * replay is done, so the provider must designate more buffers than that.
+	 *
+	 * @param channel the channel to send the data of the partition through
+	 * @param bufferProvider the provider of the buffers the file and the data are read into
+	 * @param ioManager the I/O manager to read the partition with
+	 * @throws IOException thrown if the partition cannot be read or sent
+	 * @throws InterruptedException thrown if the thread is interrupted while waiting for buffers
+	 */
+	public void replay(OutputChannel channel, BufferProvider bufferProvider, IOManager ioManager)
+			throws IOException, InterruptedException {
+
+		final List<Buffer> readBuffers = new ArrayList<Buffer>(NUM_READ_BUFFERS);
+		try {
+			final List<MemorySegment> memory = new ArrayList<MemorySegment>(NUM_READ_BUFFERS);
+			while (readBuffers.size() < NUM_READ_BUFFERS) {
+				Buffer buffer = bufferProvider.requestBufferBlocking(this.segmentSize);
+				readBuffers.add(buffer);
+				memory.add(buffer.getMemorySegment());
+			}
+
+			replay(channel, bufferProvider, ioManager.createBlockChannelReader(this.fileId), memory);
+		}
+		finally {
+			for (Buffer buffer : readBuffers) {
+				buffer.recycleBuffer();
+			}
+		}
+	}
+
+	private void replay(OutputChannel channel, BufferProvider bufferProvider, BlockChannelReader reader,
+			List<MemorySegment> memory) throws IOException, InterruptedException {
+
+		final ChannelReaderInputView in = new ChannelReaderInputView(reader, memory, this.numBlocks, true);
+
+		try {
+			while (true) {
+				final int bufferSize = in.readInt();
+				if (bufferSize == PersistentPartitionWriter.END_OF_PARTITION) {
+					break;
+				}
+
+				if (bufferSize != PersistentPartitionWriter.NO_DATA) {
+					Buffer buffer = bufferProvider.requestBufferBlocking(bufferSize);
+					try {
+						buffer.getMemorySegment().put(in, 0, bufferSize);
+					} catch (IOException e) {
+						buffer.recycleBuffer();
+						throw e;
+					}
+					channel.sendBuffer(buffer);
+				}
+
+				final int eventsSize = in.readInt();
+				if (eventsSize != PersistentPartitionWriter.NO_DATA) {
+					byte[] events = new byte[eventsSize];
+					in.readFully(events);
+
+					Envelope holder = new Envelope(0, this.jobId, this.channelId);
+					holder.setEventsSerialized(ByteBuffer.wrap(events));
+
+					for (AbstractEvent event : holder.deserializeEvents()) {
+						channel.sendEvent(event);
+					}
+				}
+			}
+
+			channel.requestClose();
+		}
+		finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Deletes the file of the partition. The partition cannot be replayed afterwards.
+	 */
+	public void discard() {
+		File file = new File(this.fileId.getPath());
+		if (file.exists() && !file.delete()) {
+			throw new RuntimeException("Could not delete the file of persistent partition " + this.channelId);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return String.format("PersistentPartition %s (%d bytes, job %s)", this.channelId, this.numBytes, this.jobId);
+	}
+}
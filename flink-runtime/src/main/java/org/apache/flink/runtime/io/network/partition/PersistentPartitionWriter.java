@@ -0,0 +1,238 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.partition;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.runtime.io.disk.iomanager.BlockChannelWriter;
+import org.apache.flink.runtime.io.disk.iomanager.ChannelWriterOutputView;
+import org.apache.flink.runtime.io.disk.iomanager.IOManager;
+import org.apache.flink.runtime.io.network.Buffer;
+import org.apache.flink.runtime.io.network.Envelope;
+import org.apache.flink.runtime.io.network.EnvelopeDispatcher;
+import org.apache.flink.runtime.io.network.bufferprovider.LocalBufferPool;
+import org.apache.flink.runtime.io.network.channels.ChannelCloseEvent;
+import org.apache.flink.runtime.io.network.channels.OutputChannel;
+
+/**
+ * The envelope dispatcher of an output channel writing a partition of a
+ * {@link org.apache.flink.runtime.jobgraph.ResultPartitionType#BLOCKING} result. Instead of shipping the envelopes
+ * of the channel to the receiver, the writer appends their buffers and events to a file on the local disk.
+ * <p>
+ * When the channel requests to be closed, the writer completes the file, hands the {@link PersistentPartition} to
+ * the given listener and acknowledges the close request on behalf of the receiver, which is deployed only later.
+ * <p>
+ * Each envelope is written as the size of its buffer followed by the buffer data, and the size of its serialized
+ * events followed by the events, where {@link #NO_DATA} marks a missing buffer or missing events. The end of the
+ * partition is marked by {@link #END_OF_PARTITION} in place of a buffer size.
+ * <p>
+ * The file is written through {@link #NUM_WRITE_BUFFERS} network buffers of the writer's own buffer pool, which are
+ * returned once the partition is complete or discarded.
+ */
+public class PersistentPartitionWriter implements EnvelopeDispatcher {
+
+	static final int NO_DATA = -1;
+
+	static final int END_OF_PARTITION = -2;
+
+	/** The number of network buffers the file is written through. */
+	public static final int NUM_WRITE_BUFFERS = 2;
+
+	/** The serialized events of the envelope with which output channels request to be closed. */
+	private static final ByteBuffer CLOSE_REQUEST;
+
+	static {
+		Envelope closeRequest = new Envelope(0, null, null);
+		closeRequest.serializeEventList(Arrays.asList(new ChannelCloseEvent()));
+		CLOSE_REQUEST = closeRequest.getEventsSerialized();
+	}
+
+	/**
+	 * A listener that is notified once a partition has been written completely.
+	 */
+	public interface PartitionCompletionListener {
+
+		void partitionCompleted(PersistentPartition partition);
+	}
+
+	// -----------------------------------------------------------------------------------------------------------------
+
+	private final OutputChannel channel;
+
+	private final IOManager ioManager;
+
+	private final LocalBufferPool bufferPool;
+
+	private final int segmentSize;
+
+	private final PartitionCompletionListener listener;
+
+	private final List<Buffer> writeBuffers = new ArrayList<Buffer>(NUM_WRITE_BUFFERS);
+
+	private BlockChannelWriter fileWriter;
+
+	private ChannelWriterOutputView out;
+
+	private boolean finished;
+
+	/**
+	 * Creates a writer for the partition of the given channel.
+	 *
+	 * @param channel the output channel whose envelopes are written
+	 * @param ioManager the I/O manager to write the file with
+	 * @param bufferPool the pool of the writer, designating at least {@link #NUM_WRITE_BUFFERS} buffers; it is
+	 *                   destroyed once the partition is complete or discarded
+	 * @param listener the listener to hand the complete partition to
+	 */
+	public PersistentPartitionWriter(OutputChannel channel, IOManager ioManager, LocalBufferPool bufferPool,
+			PartitionCompletionListener listener) {
+		this.channel = channel;
+		this.ioManager = ioManager;
+		this.bufferPool = bufferPool;
+		this.segmentSize = bufferPool.getBufferSize();
+		this.listener = listener;
+	}
+
+	// -----------------------------------------------------------------------------------------------------------------
+
+	@Override
+	public synchronized void dispatchFromOutputChannel(Envelope envelope) throws IOException, InterruptedException {
+		final Buffer buffer = envelope.getBuffer();
+
+		try {
+			if (this.finished) {
+				throw new IllegalStateException("Persistent partition of channel " + this.channel.getID() + " is already complete.");
+			}
+
+			final ByteBuffer events = envelope.getEventsSerialized();
+
+			if (buffer == null && CLOSE_REQUEST.equals(events)) {
+				finish();
+				return;
+			}
+
+			ensureFileOpen();
+
+			if (buffer != null) {
+				this.out.writeInt(buffer.size());
+				buffer.getMemorySegment().get(this.out, 0, buffer.size());
+			} else {
+				this.out.writeInt(NO_DATA);
+			}
+
+			if (events != null) {
+				ByteBuffer serializedEvents = events.duplicate();
+				byte[] bytes = new byte[serializedEvents.remaining()];
+				serializedEvents.get(bytes);
+
+				this.out.writeInt(bytes.length);
+				this.out.write(bytes);
+			} else {
+				this.out.writeInt(NO_DATA);
+			}
+		}
+		finally {
+			if (buffer != null) {
+				buffer.recycleBuffer();
+			}
+		}
+	}
+
+	@Override
+	public void dispatchFromInputChannel(Envelope envelope) {
+		throw new UnsupportedOperationException("A persistent partition writer only receives envelopes from its output channel.");
+	}
+
+	@Override
+	public void dispatchFromNetwork(Envelope envelope) {
+		throw new UnsupportedOperationException("A persistent partition writer only receives envelopes from its output channel.");
+	}
+
+	/**
+	 * Deletes the file written so far, if the partition has not been completed. This is the case, if the task
+	 * writing the partition failed or was canceled.
+	 */
+	public synchronized void discardIfIncomplete() {
+		if (this.finished) {
+			return;
+		}
+
+		this.finished = true;
+		try {
+			if (this.fileWriter != null) {
+				this.fileWriter.closeAndDelete();
+			}
+		} catch (IOException e) {
+			// the file is deleted in any case, only the pending requests could not be completed
+		} finally {
+			releaseWriteBuffers();
+		}
+	}
+
+	// -----------------------------------------------------------------------------------------------------------------
+
+	private void ensureFileOpen() throws IOException, InterruptedException {
+		if (this.out == null) {
+			final List<MemorySegment> memory = new ArrayList<MemorySegment>(NUM_WRITE_BUFFERS);
+			while (this.writeBuffers.size() < NUM_WRITE_BUFFERS) {
+				Buffer buffer = this.bufferPool.requestBufferBlocking(this.segmentSize);
+				this.writeBuffers.add(buffer);
+				memory.add(buffer.getMemorySegment());
+			}
+
+			this.fileWriter = this.ioManager.createBlockChannelWriter(this.ioManager.createChannel());
+			this.out = new ChannelWriterOutputView(this.fileWriter, memory, this.segmentSize);
+		}
+	}
+
+	private void finish() throws IOException, InterruptedException {
+		ensureFileOpen();
+
+		this.out.writeInt(END_OF_PARTITION);
+		final long numBytes = this.out.getBytesWritten();
+		try {
+			this.out.close();
+		} finally {
+			this.finished = true;
+			releaseWriteBuffers();
+		}
+
+		this.listener.partitionCompleted(new PersistentPartition(this.channel.getJobID(), this.channel.getID(),
+				this.fileWriter.getChannelID(), this.segmentSize, this.out.getBlockCount(), numBytes));
+
+		// the receiver is deployed only after the partition is complete, so the writer acknowledges the
+		// close request in its place. the replay of the partition waits for the close of the receiver.
+		Envelope closeAcknowledgement = new Envelope(0, this.channel.getJobID(), this.channel.getConnectedId());
+		closeAcknowledgement.serializeEventList(Arrays.asList(new ChannelCloseEvent()));
+		this.channel.queueEnvelope(closeAcknowledgement);
+	}
+
+	private void releaseWriteBuffers() {
+		for (Buffer buffer : this.writeBuffers) {
+			buffer.recycleBuffer();
+		}
+		this.writeBuffers.clear();
+		this.bufferPool.destroy();
+	}
+}
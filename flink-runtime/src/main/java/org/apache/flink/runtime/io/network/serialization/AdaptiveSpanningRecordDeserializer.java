@@ -416,6 +416,8 @@ public class AdaptiveSpanningRecordDeserializer<T extends IOReadableWritable> im
 			// set the length and copy what is available to the buffer
 			this.recordLength = nextRecordLength;
 			this.recordLimit = partial.remaining();
+			// the length is known, so the record is gathered without growing the buffer chunk by chunk
+			this.serializationBuffer.ensureCapacity(nextRecordLength);
 			partial.segment.get(this.serializationBuffer, partial.position, partial.remaining());
 			this.serializationReadBuffer.setBuffer(this.serializationBuffer.wrapAsByteBuffer());
 		}
@@ -438,6 +440,7 @@ public class AdaptiveSpanningRecordDeserializer<T extends IOReadableWritable> im
 					return;
 				} else {
 					this.recordLength = this.lengthBuffer.getInt(0);
+					this.serializationBuffer.ensureCapacity(this.recordLength);
 
 					this.lengthBuffer.clear();
 					segmentPosition = toPut;
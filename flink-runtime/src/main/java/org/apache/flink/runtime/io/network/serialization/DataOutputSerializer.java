@@ -62,6 +62,17 @@ public class DataOutputSerializer implements DataOutputView {
 		return this.position;
 	}
 
+	/**
+	 * Makes sure that the given total number of bytes fits without resizing the buffer again.
+	 *
+	 * @param capacity the number of bytes
+	 */
+	public void ensureCapacity(int capacity) throws IOException {
+		if (capacity > this.buffer.length) {
+			resize(capacity - this.position);
+		}
+	}
+
 	@Override
 	public String toString() {
 		return String.format("[pos=%d cap=%d]", this.position, this.buffer.length);
@@ -114,9 +125,8 @@ public class DataOutputSerializer implements DataOutputView {
 		}
 		
 		for (int i = 0; i < sLen; i++) {
-			writeByte(s.charAt(i));
+			this.buffer[this.position++] = (byte) s.charAt(i);
 		}
-		this.position += sLen;
 	}
 
 	@Override
@@ -20,19 +20,29 @@
 package org.apache.flink.runtime.io.network.serialization;
 
 import java.io.IOException;
+import java.io.UTFDataFormatException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
 import org.apache.flink.core.io.IOReadableWritable;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
 import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.runtime.io.network.Buffer;
 
+/**
+ * Serializes records into the {@link MemorySegment}s of network buffers, each record prefixed by its length.
+ * <p>
+ * Records are written straight into the segment of the current target buffer, behind a placeholder for the length
+ * that is filled in once the record is complete. Only a record that does not fit into the remainder of the segment
+ * is moved to an intermediate buffer, from which it is copied into the following segments.
+ */
 public class SpanningRecordSerializer<T extends IOReadableWritable> implements RecordSerializer<T> {
 
 	/** Flag to enable/disable checks, if buffer not set/full or pending serialization */
 	private static final boolean CHECKED = true;
 
-	/** Intermediate data serialization */
+	/** Intermediate data serialization, for records spanning multiple segments */
 	private final DataOutputSerializer serializationBuffer;
 
 	/** Intermediate buffer for data serialization */
@@ -41,6 +51,9 @@ public class SpanningRecordSerializer<T extends IOReadableWritable> implements R
 	/** Intermediate buffer for length serialization */
 	private final ByteBuffer lengthBuffer;
 
+	/** Serialization into the current target memory segment */
+	private final SegmentWriter segmentWriter;
+
 	/** Current target {@link org.apache.flink.runtime.io.network.Buffer} of the serializer */
 	private Buffer targetBuffer;
 
@@ -56,6 +69,8 @@ public class SpanningRecordSerializer<T extends IOReadableWritable> implements R
 		this.lengthBuffer = ByteBuffer.allocate(4);
 		this.lengthBuffer.order(ByteOrder.BIG_ENDIAN);
 
+		this.segmentWriter = new SegmentWriter(this.serializationBuffer);
+
 		// ensure initial state with hasRemaining false (for correct setNextBuffer logic)
 		this.dataBuffer = this.serializationBuffer.wrapAsByteBuffer();
 		this.lengthBuffer.position(4);
@@ -70,11 +85,27 @@ public class SpanningRecordSerializer<T extends IOReadableWritable> implements R
 		}
 
 		this.serializationBuffer.clear();
-		this.lengthBuffer.clear();
 
-		// write data and length
-		record.write(this.serializationBuffer);
+		if (this.targetBuffer != null && this.limit - this.position >= 4) {
+			// write the record directly into the target segment, behind the length
+			MemorySegment segment = this.targetBuffer.getMemorySegment();
+			this.segmentWriter.initialize(segment, this.position + 4, this.limit);
+
+			record.write(this.segmentWriter);
+
+			if (!this.segmentWriter.hasSpilled()) {
+				int end = this.segmentWriter.getPosition();
+				segment.putIntBigEndian(this.position, end - this.position - 4);
+				this.position = end;
 
+				return getSerializationResult();
+			}
+			// the record did not fit and has been moved to the intermediate buffer
+		} else {
+			record.write(this.serializationBuffer);
+		}
+
+		this.lengthBuffer.clear();
 		this.lengthBuffer.putInt(0, this.serializationBuffer.length());
 
 		this.dataBuffer = this.serializationBuffer.wrapAsByteBuffer();
@@ -159,4 +190,261 @@ public class SpanningRecordSerializer<T extends IOReadableWritable> implements R
 		// either data in current target buffer or intermediate buffers
 		return this.position > 0 || (this.lengthBuffer.hasRemaining() || this.dataBuffer.hasRemaining());
 	}
+
+	// -----------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * A {@link DataOutputView} writing into a range of a {@link MemorySegment}. When a write does not fit into the
+	 * range anymore, the bytes written so far are copied to the spill-over buffer, which takes all further writes.
+	 */
+	private static final class SegmentWriter implements DataOutputView {
+
+		private final DataOutputSerializer spillBuffer;
+
+		private MemorySegment segment;
+
+		private int start;
+
+		private int position;
+
+		private int limit;
+
+		private boolean spilled;
+
+		SegmentWriter(DataOutputSerializer spillBuffer) {
+			this.spillBuffer = spillBuffer;
+		}
+
+		void initialize(MemorySegment segment, int position, int limit) {
+			this.segment = segment;
+			this.start = position;
+			this.position = position;
+			this.limit = limit;
+			this.spilled = false;
+		}
+
+		boolean hasSpilled() {
+			return this.spilled;
+		}
+
+		int getPosition() {
+			return this.position;
+		}
+
+		/**
+		 * Returns the spill-over buffer, after moving the bytes written to the segment to it, if the given number of
+		 * bytes does not fit into the segment anymore.
+		 *
+		 * @param numBytes the number of bytes to write next
+		 * @return the spill-over buffer, or <code>null</code> if the bytes fit into the segment
+		 */
+		private DataOutputSerializer spillIfFull(int numBytes) throws IOException {
+			if (this.spilled) {
+				return this.spillBuffer;
+			}
+			if (this.position <= this.limit - numBytes) {
+				return null;
+			}
+
+			this.segment.get(this.spillBuffer, this.start, this.position - this.start);
+			this.spilled = true;
+			return this.spillBuffer;
+		}
+
+		// -------------------------------------------------------------------------------------------------------------
+		//                                       DataOutput specific methods
+		// -------------------------------------------------------------------------------------------------------------
+
+		@Override
+		public void write(int b) throws IOException {
+			DataOutputSerializer spill = spillIfFull(1);
+			if (spill != null) {
+				spill.write(b);
+			} else {
+				this.segment.put(this.position++, (byte) b);
+			}
+		}
+
+		@Override
+		public void write(byte[] b) throws IOException {
+			write(b, 0, b.length);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			if (len < 0 || off > b.length - len) {
+				throw new ArrayIndexOutOfBoundsException();
+			}
+			DataOutputSerializer spill = spillIfFull(len);
+			if (spill != null) {
+				spill.write(b, off, len);
+			} else {
+				this.segment.put(this.position, b, off, len);
+				this.position += len;
+			}
+		}
+
+		@Override
+		public void writeBoolean(boolean v) throws IOException {
+			write(v ? 1 : 0);
+		}
+
+		@Override
+		public void writeByte(int v) throws IOException {
+			write(v);
+		}
+
+		@Override
+		public void writeBytes(String s) throws IOException {
+			final int sLen = s.length();
+			DataOutputSerializer spill = spillIfFull(sLen);
+			if (spill != null) {
+				spill.writeBytes(s);
+			} else {
+				for (int i = 0; i < sLen; i++) {
+					this.segment.put(this.position++, (byte) s.charAt(i));
+				}
+			}
+		}
+
+		@Override
+		public void writeChar(int v) throws IOException {
+			DataOutputSerializer spill = spillIfFull(2);
+			if (spill != null) {
+				spill.writeChar(v);
+			} else {
+				this.segment.putChar(this.position, (char) v);
+				this.position += 2;
+			}
+		}
+
+		@Override
+		public void writeChars(String s) throws IOException {
+			final int sLen = s.length();
+			DataOutputSerializer spill = spillIfFull(2 * sLen);
+			if (spill != null) {
+				spill.writeChars(s);
+			} else {
+				for (int i = 0; i < sLen; i++) {
+					this.segment.putChar(this.position, s.charAt(i));
+					this.position += 2;
+				}
+			}
+		}
+
+		@Override
+		public void writeDouble(double v) throws IOException {
+			writeLong(Double.doubleToLongBits(v));
+		}
+
+		@Override
+		public void writeFloat(float v) throws IOException {
+			writeInt(Float.floatToIntBits(v));
+		}
+
+		@Override
+		public void writeInt(int v) throws IOException {
+			DataOutputSerializer spill = spillIfFull(4);
+			if (spill != null) {
+				spill.writeInt(v);
+			} else {
+				this.segment.putIntBigEndian(this.position, v);
+				this.position += 4;
+			}
+		}
+
+		@Override
+		public void writeLong(long v) throws IOException {
+			DataOutputSerializer spill = spillIfFull(8);
+			if (spill != null) {
+				spill.writeLong(v);
+			} else {
+				this.segment.putLongBigEndian(this.position, v);
+				this.position += 8;
+			}
+		}
+
+		@Override
+		public void writeShort(int v) throws IOException {
+			DataOutputSerializer spill = spillIfFull(2);
+			if (spill != null) {
+				spill.writeShort(v);
+			} else {
+				this.segment.putShort(this.position, (short) v);
+				this.position += 2;
+			}
+		}
+
+		@Override
+		public void writeUTF(String str) throws IOException {
+			int strlen = str.length();
+			int utflen = 0;
+			int c;
+
+			/* use charAt instead of copying String to char array */
+			for (int i = 0; i < strlen; i++) {
+				c = str.charAt(i);
+				if ((c >= 0x0001) && (c <= 0x007F)) {
+					utflen++;
+				} else if (c > 0x07FF) {
+					utflen += 3;
+				} else {
+					utflen += 2;
+				}
+			}
+
+			if (utflen > 65535) {
+				throw new UTFDataFormatException("Encoded string is too long: " + utflen);
+			}
+
+			DataOutputSerializer spill = spillIfFull(utflen + 2);
+			if (spill != null) {
+				spill.writeUTF(str);
+				return;
+			}
+
+			final MemorySegment seg = this.segment;
+			int count = this.position;
+
+			seg.put(count++, (byte) ((utflen >>> 8) & 0xFF));
+			seg.put(count++, (byte) ((utflen >>> 0) & 0xFF));
+
+			for (int i = 0; i < strlen; i++) {
+				c = str.charAt(i);
+				if ((c >= 0x0001) && (c <= 0x007F)) {
+					seg.put(count++, (byte) c);
+				} else if (c > 0x07FF) {
+					seg.put(count++, (byte) (0xE0 | ((c >> 12) & 0x0F)));
+					seg.put(count++, (byte) (0x80 | ((c >> 6) & 0x3F)));
+					seg.put(count++, (byte) (0x80 | ((c >> 0) & 0x3F)));
+				} else {
+					seg.put(count++, (byte) (0xC0 | ((c >> 6) & 0x1F)));
+					seg.put(count++, (byte) (0x80 | ((c >> 0) & 0x3F)));
+				}
+			}
+
+			this.position = count;
+		}
+
+		@Override
+		public void skipBytesToWrite(int numBytes) throws IOException {
+			DataOutputSerializer spill = spillIfFull(numBytes);
+			if (spill != null) {
+				spill.skipBytesToWrite(numBytes);
+			} else {
+				this.position += numBytes;
+			}
+		}
+
+		@Override
+		public void write(DataInputView source, int numBytes) throws IOException {
+			DataOutputSerializer spill = spillIfFull(numBytes);
+			if (spill != null) {
+				spill.write(source, numBytes);
+			} else {
+				this.segment.put(source, this.position, numBytes);
+				this.position += numBytes;
+			}
+		}
+	}
 }
@@ -174,7 +174,7 @@ public class IterationHeadPactTask<X, Y, S extends Function, OT> extends Abstrac
 		try {
 			int numPages = getMemoryManager().computeNumberOfPages(hashjoinMemorySize);
 			memSegments = getMemoryManager().allocatePages(getOwningNepheleTask(), numPages);
-			hashTable = new CompactingHashTable<BT>(solutionTypeSerializer, solutionTypeComparator, memSegments);
+			hashTable = new CompactingHashTable<BT>(solutionTypeSerializer, solutionTypeComparator, memSegments, getIOManager());
 			success = true;
 			return hashTable;
 		} finally {
@@ -320,7 +320,11 @@ public class AbstractJobVertex implements java.io.Serializable {
 	}
 	
 	public IntermediateDataSet createAndAddResultDataSet(IntermediateDataSetID id) {
-		IntermediateDataSet result = new IntermediateDataSet(id, this);
+		return createAndAddResultDataSet(id, ResultPartitionType.PIPELINED);
+	}
+	
+	public IntermediateDataSet createAndAddResultDataSet(IntermediateDataSetID id, ResultPartitionType resultType) {
+		IntermediateDataSet result = new IntermediateDataSet(id, this, resultType);
 		this.results.add(result);
 		return result;
 	}
@@ -332,7 +336,11 @@ public class AbstractJobVertex implements java.io.Serializable {
 	}
 	
 	public void connectNewDataSetAsInput(AbstractJobVertex input, DistributionPattern distPattern) {
-		IntermediateDataSet dataSet = input.createAndAddResultDataSet();
+		connectNewDataSetAsInput(input, distPattern, ResultPartitionType.PIPELINED);
+	}
+	
+	public void connectNewDataSetAsInput(AbstractJobVertex input, DistributionPattern distPattern, ResultPartitionType resultType) {
+		IntermediateDataSet dataSet = input.createAndAddResultDataSet(new IntermediateDataSetID(), resultType);
 		JobEdge edge = new JobEdge(dataSet, this, distPattern);
 		this.inputs.add(edge);
 		dataSet.addConsumer(edge);
@@ -37,6 +37,8 @@ public class IntermediateDataSet implements java.io.Serializable {
 	
 	private final AbstractJobVertex producer;		// the operation that produced this data set
 	
+	private final ResultPartitionType resultType;	// pipelined or blocking hand-over to the consumers
+	
 	private final List<JobEdge> consumers = new ArrayList<JobEdge>();
 	
 	// --------------------------------------------------------------------------------------------
@@ -46,12 +48,17 @@ public class IntermediateDataSet implements java.io.Serializable {
 	}
 	
 	public IntermediateDataSet(IntermediateDataSetID id, AbstractJobVertex producer) {
-		if (id == null || producer == null) {
+		this(id, producer, ResultPartitionType.PIPELINED);
+	}
+	
+	public IntermediateDataSet(IntermediateDataSetID id, AbstractJobVertex producer, ResultPartitionType resultType) {
+		if (id == null || producer == null || resultType == null) {
 			throw new NullPointerException();
 		}
 		
 		this.id = id;
 		this.producer = producer;
+		this.resultType = resultType;
 	}
 
 	// --------------------------------------------------------------------------------------------
@@ -64,6 +71,10 @@ public class IntermediateDataSet implements java.io.Serializable {
 		return producer;
 	}
 	
+	public ResultPartitionType getResultType() {
+		return resultType;
+	}
+	
 	public List<JobEdge> getConsumers() {
 		return this.consumers;
 	}
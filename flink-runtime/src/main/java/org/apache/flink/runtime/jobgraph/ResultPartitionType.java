@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.jobgraph;
+
+/**
+ * The result type determines how the partitions of an intermediate data set are handed from the
+ * producing subtasks to the consuming subtasks.
+ */
+public enum ResultPartitionType {
+
+	/**
+	 * The records are shipped to the consumers while they are produced. Producers and consumers run
+	 * at the same time, and a failure of either side requires both sides to be restarted.
+	 */
+	PIPELINED,
+
+	/**
+	 * The records are written to the local disk of the producer, and the consumers are deployed once
+	 * all partitions of the data set are complete. The persisted partitions are re-read when a consumer
+	 * is restarted, so a failure of a consumer does not require the producers to be restarted.
+	 */
+	BLOCKING
+}
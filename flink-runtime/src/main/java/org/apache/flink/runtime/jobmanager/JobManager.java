@@ -25,8 +25,10 @@ import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -91,6 +93,7 @@ import org.apache.flink.runtime.protocols.ExtendedManagementProtocol;
 import org.apache.flink.runtime.protocols.InputSplitProviderProtocol;
 import org.apache.flink.runtime.protocols.JobManagerProtocol;
 import org.apache.flink.runtime.taskmanager.TaskExecutionState;
+import org.apache.flink.runtime.taskmanager.TaskProgressReport;
 import org.apache.flink.runtime.types.IntegerRecord;
 import org.apache.flink.runtime.util.EnvironmentInformation;
 import org.apache.flink.runtime.util.ExecutorThreadFactory;
@@ -144,6 +147,12 @@ public class JobManager implements ExtendedManagementProtocol, InputSplitProvide
 	
 	private final long delayBetweenRetries;
 	
+	private final boolean speculativeExecution;
+	
+	private final float speculationQuantile;
+	
+	private final float speculationMultiplier;
+	
 	private final AtomicBoolean isShutdownInProgress = new AtomicBoolean(false);
 	
 	private volatile boolean isShutDown;
@@ -186,6 +195,14 @@ public class JobManager implements ExtendedManagementProtocol, InputSplitProvide
 				ConfigConstants.JOB_MANAGER_DEAD_TASKMANAGER_TIMEOUT_KEY,
 				ConfigConstants.DEFAULT_JOB_MANAGER_DEAD_TASKMANAGER_TIMEOUT);
 		
+		// read whether and when backup executions of straggling tasks are started
+		this.speculativeExecution = GlobalConfiguration.getBoolean(
+				ConfigConstants.JOB_MANAGER_SPECULATIVE_EXECUTION_KEY, ConfigConstants.DEFAULT_JOB_MANAGER_SPECULATIVE_EXECUTION);
+		this.speculationQuantile = GlobalConfiguration.getFloat(
+				ConfigConstants.JOB_MANAGER_SPECULATIVE_EXECUTION_QUANTILE_KEY, ConfigConstants.DEFAULT_JOB_MANAGER_SPECULATIVE_EXECUTION_QUANTILE);
+		this.speculationMultiplier = GlobalConfiguration.getFloat(
+				ConfigConstants.JOB_MANAGER_SPECULATIVE_EXECUTION_MULTIPLIER_KEY, ConfigConstants.DEFAULT_JOB_MANAGER_SPECULATIVE_EXECUTION_MULTIPLIER);
+		
 		// Load the job progress collector
 		this.eventCollector = new EventCollector(this.recommendedClientPollingInterval);
 
@@ -349,6 +366,10 @@ public class JobManager implements ExtendedManagementProtocol, InputSplitProvide
 				executionGraph.setNumberOfRetriesLeft(job.getNumberOfExecutionRetries() >= 0 ?
 						job.getNumberOfExecutionRetries() : this.defaultExecutionRetries);
 				executionGraph.setDelayBeforeRetrying(this.delayBetweenRetries);
+				
+				if (this.speculativeExecution) {
+					executionGraph.setSpeculativeExecution(this.speculationQuantile, this.speculationMultiplier);
+				}
 
 				ExecutionGraph previous = this.currentJobs.putIfAbsent(job.getJobID(), executionGraph);
 				if (previous != null) {
@@ -499,6 +520,7 @@ public class JobManager implements ExtendedManagementProtocol, InputSplitProvide
 		Execution execution = graph.getRegisteredExecutions().get(executionAttempt);
 		if(execution == null) {
 			LOG.error("Can not find Execution for attempt " + executionAttempt);
+			return splitAssigner.getNextInputSplit(host);
 		} else {
 			AllocatedSlot slot = execution.getAssignedResource();
 			if(slot != null) {
@@ -506,7 +528,54 @@ public class JobManager implements ExtendedManagementProtocol, InputSplitProvide
 			}
 		}
 		
-		return splitAssigner.getNextInputSplit(host);
+		// the splits are assigned through the execution vertex, so that backup executions read the same splits
+		return execution.getVertex().getNextInputSplit(execution, host);
+	}
+	
+	@Override
+	public List<InputSplit> requestNextInputSplits(JobID jobID, JobVertexID vertexId, ExecutionAttemptID executionAttempt,
+			int maxNumSplits) throws IOException {
+		Preconditions.checkArgument(maxNumSplits > 0);
+		
+		final List<InputSplit> splits = new SerializableArrayList<InputSplit>(maxNumSplits);
+
+		final ExecutionGraph graph = this.currentJobs.get(jobID);
+		if (graph == null) {
+			LOG.error("Cannot find execution graph to job ID " + jobID);
+			return splits;
+		}
+
+		final ExecutionJobVertex vertex = graph.getJobVertex(vertexId);
+		if (vertex == null) {
+			LOG.error("Cannot find execution vertex for vertex ID " + vertexId);
+			return splits;
+		}
+
+		InputSplitAssigner splitAssigner = vertex.getSplitAssigner();
+		if (splitAssigner == null) {
+			LOG.error("No InputSplitAssigner for vertex ID " + vertexId);
+			return splits;
+		}
+		
+		Execution execution = graph.getRegisteredExecutions().get(executionAttempt);
+		if (execution == null) {
+			LOG.error("Can not find Execution for attempt " + executionAttempt);
+			InputSplit split = splitAssigner.getNextInputSplit(null);
+			if (split != null) {
+				splits.add(split);
+			}
+			return splits;
+		}
+		
+		// get hostname for input split assignment
+		String host = null;
+		AllocatedSlot slot = execution.getAssignedResource();
+		if (slot != null) {
+			host = slot.getInstance().getInstanceConnectionInfo().getHostname();
+		}
+		
+		splits.addAll(execution.getVertex().getNextInputSplits(execution, host, maxNumSplits));
+		return splits;
 	}
 	
 	@Override
@@ -699,7 +768,24 @@ public class JobManager implements ExtendedManagementProtocol, InputSplitProvide
 	// --------------------------------------------------------------------------------------------
 	
 	@Override
-	public boolean sendHeartbeat(InstanceID taskManagerId) {
+	public boolean sendHeartbeat(InstanceID taskManagerId, TaskProgressReport progress) {
+		if (progress != null && progress.getNumberOfTasks() > 0) {
+			Set<ExecutionGraph> graphs = new HashSet<ExecutionGraph>();
+			
+			for (int i = 0; i < progress.getNumberOfTasks(); i++) {
+				ExecutionGraph eg = this.currentJobs.get(progress.getJobId(i));
+				if (eg != null) {
+					eg.updateInputProgress(progress.getExecutionId(i), progress.getInputProgress(i));
+					graphs.add(eg);
+				}
+			}
+			
+			// look for stragglers among the tasks of the jobs running on the task manager
+			for (ExecutionGraph eg : graphs) {
+				eg.speculateStragglers();
+			}
+		}
+		
 		return this.instanceManager.reportHeartBeat(taskManagerId);
 	}
 
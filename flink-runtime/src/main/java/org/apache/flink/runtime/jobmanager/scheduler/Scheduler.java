@@ -154,6 +154,45 @@ public class Scheduler implements InstanceListener, SlotAvailabilityListener {
 		}
 	}
 	
+	/**
+	 * Allocates a slot for a backup execution of a task on an instance other than the one that runs the original
+	 * execution. Backup executions are never queued and never share their slots.
+	 *
+	 * @param task The backup execution to schedule.
+	 * @param excluded The instance running the original execution.
+	 * @return The allocated slot, or {@code null}, if no slot is available on another instance.
+	 */
+	public AllocatedSlot scheduleSpeculatively(ScheduledUnit task, Instance excluded) {
+		if (task == null || excluded == null) {
+			throw new IllegalArgumentException();
+		}
+
+		final ExecutionVertex vertex = task.getTaskToExecute().getVertex();
+
+		synchronized (globalLock) {
+			final boolean excludedAvailable = this.instancesWithAvailableResources.remove(excluded);
+
+			try {
+				AllocatedSlot slot = getFreeSlotForTask(vertex, vertex.getPreferredLocations());
+
+				if (slot != null && slot.getInstance() == excluded) {
+					// the instance became available again while looking for a slot
+					slot.releaseSlot();
+					return null;
+				}
+				if (slot != null) {
+					updateLocalityCounters(slot.getLocality());
+				}
+				return slot;
+			}
+			finally {
+				if (excludedAvailable && excluded.hasResourcesAvailable()) {
+					this.instancesWithAvailableResources.add(excluded);
+				}
+			}
+		}
+	}
+
 	/**
 	 * Returns either an {@link AllocatedSlot}, or an {@link SlotAllocationFuture}.
 	 */
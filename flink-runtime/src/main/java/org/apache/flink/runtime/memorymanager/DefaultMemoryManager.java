@@ -19,6 +19,7 @@
 
 package org.apache.flink.runtime.memorymanager;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -26,6 +27,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.slf4j.Logger;
@@ -34,6 +36,19 @@ import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.runtime.jobgraph.tasks.AbstractInvokable;
 
 
+/**
+ * The default memory manager, handing out pages of a fixed size. The pages are either byte arrays on the
+ * JVM heap, allocated eagerly when the memory manager is created, or direct memory outside the heap.
+ * Off-heap pages are allocated lazily, when they are first requested, and are given up again when no task
+ * holds any memory any more, i.e., when the jobs running on the TaskManager have finished.
+ * <p>
+ * Heap pages may be allocated lazily as well. If memory sharing is enabled, tasks may in addition borrow
+ * pages beyond the share of their slot, as long as other slots do not use them. When a task needs pages of
+ * its own share that are currently borrowed, the memory manager asks the borrowers to spill and waits for
+ * them to release the pages. The borrowers give the pages back at their next opportunity, which may need input
+ * from the allocating task itself. The wait is therefore bounded by the reclaim timeout, after which the
+ * allocation fails rather than waiting forever.
+ */
 public class DefaultMemoryManager implements MemoryManager {
 	
 	/**
@@ -46,6 +61,16 @@ public class DefaultMemoryManager implements MemoryManager {
 	 */
 	public static final int MIN_PAGE_SIZE = 4 * 1024;
 	
+	/**
+	 * The interval in which an allocation that waits for borrowed pages logs that it is still waiting, in milliseconds.
+	 */
+	private static final long RECLAIM_WARN_INTERVAL_MILLIS = 10 * 1000;
+	
+	/**
+	 * The default time that an allocation waits for borrowed pages to be given back, in milliseconds.
+	 */
+	public static final long DEFAULT_RECLAIM_TIMEOUT_MILLIS = 60 * 1000;
+	
 	/**
 	 * The Logger.
 	 */
@@ -55,10 +80,14 @@ public class DefaultMemoryManager implements MemoryManager {
 	
 	private final Object lock = new Object();	 	// The lock used on the shared structures.
 	
-	private final ArrayDeque<byte[]> freeSegments;	// the free memory segments
+	private final ArrayDeque<byte[]> freeSegments;	// the free heap memory segments
+	
+	private final ArrayDeque<ByteBuffer> freeOffHeapSegments;	// the free off-heap memory segments
 	
 	private final HashMap<AbstractInvokable, Set<DefaultMemorySegment>> allocatedSegments;
 	
+	private final HashMap<AbstractInvokable, BorrowedPages> borrowedPages;	// the borrowed pages per owner
+	
 	private final long roundingMask;		// mask used to round down sizes to multiples of the page size
 	
 	private final int pageSize;				// the page size, in bytes
@@ -67,6 +96,18 @@ public class DefaultMemoryManager implements MemoryManager {
 	
 	private final int totalNumPages;		// The initial total size, for verification.
 	
+	private int numNonAllocatedPages;		// the number of pages for which no memory has been allocated, yet
+	
+	private final boolean offHeap;			// flag whether the pages are allocated outside the java heap
+	
+	private final boolean memorySharing;	// flag whether tasks may borrow memory beyond the share of their slot
+	
+	private int numBorrowedPages;			// the total number of currently borrowed pages
+	
+	private int numPagesAwaited;			// the number of pages that allocations wait for to be reclaimed
+	
+	private long reclaimTimeout = DEFAULT_RECLAIM_TIMEOUT_MILLIS;	// the maximal wait for borrowed pages
+	
 	private boolean isShutDown;				// flag whether the close() has already been invoked.
 
 	/**
@@ -96,6 +137,34 @@ public class DefaultMemoryManager implements MemoryManager {
 	 * @param pageSize The size of the pages handed out by the memory manager.
 	 */
 	public DefaultMemoryManager(long memorySize, int numberOfSlots, int pageSize) {
+		this(memorySize, numberOfSlots, pageSize, false);
+	}
+	
+	/**
+	 * Creates a memory manager with the given capacity and given page size. The pages are either allocated
+	 * on the heap, or as direct memory outside the heap.
+	 * 
+	 * @param memorySize The total size of the memory to be managed by this memory manager.
+	 * @param pageSize The size of the pages handed out by the memory manager.
+	 * @param offHeap True, if the pages should be allocated outside the java heap, false otherwise.
+	 */
+	public DefaultMemoryManager(long memorySize, int numberOfSlots, int pageSize, boolean offHeap) {
+		this(memorySize, numberOfSlots, pageSize, offHeap, false, false);
+	}
+	
+	/**
+	 * Creates a memory manager with the given capacity and given page size.
+	 * 
+	 * @param memorySize The total size of the memory to be managed by this memory manager.
+	 * @param pageSize The size of the pages handed out by the memory manager.
+	 * @param offHeap True, if the pages should be allocated outside the java heap, false otherwise.
+	 * @param lazyAllocation True, if the pages should be allocated when they are first requested, rather
+	 *                       than when the memory manager is created. Off-heap pages are always allocated lazily.
+	 * @param memorySharing True, if tasks may borrow pages that are not used by other slots.
+	 */
+	public DefaultMemoryManager(long memorySize, int numberOfSlots, int pageSize, boolean offHeap,
+			boolean lazyAllocation, boolean memorySharing)
+	{
 		// sanity checks
 		if (memorySize <= 0) {
 			throw new IllegalArgumentException("Size of total memory must be positive.");
@@ -112,6 +181,10 @@ public class DefaultMemoryManager implements MemoryManager {
 
 		this.numberOfSlots = numberOfSlots;
 		
+		this.offHeap = offHeap;
+		
+		this.memorySharing = memorySharing;
+		
 		// assign page size and bit utilities
 		this.pageSize = pageSize;
 		this.roundingMask = ~((long) (pageSize - 1));
@@ -127,14 +200,30 @@ public class DefaultMemoryManager implements MemoryManager {
 		}
 		
 		// initialize the free segments and allocated segments tracking structures
-		this.freeSegments = new ArrayDeque<byte[]>(this.totalNumPages);
 		this.allocatedSegments = new HashMap<AbstractInvokable, Set<DefaultMemorySegment>>();
-
+		this.borrowedPages = new HashMap<AbstractInvokable, BorrowedPages>();
 		
-		// add the full chunks
-		for (int i = 0; i < this.totalNumPages; i++) {
-			// allocate memory of the specified size
-			this.freeSegments.add(new byte[this.pageSize]);
+		if (offHeap) {
+			// off-heap memory is allocated when first requested
+			this.freeSegments = new ArrayDeque<byte[]>();
+			this.freeOffHeapSegments = new ArrayDeque<ByteBuffer>(this.totalNumPages);
+			this.numNonAllocatedPages = this.totalNumPages;
+		}
+		else if (lazyAllocation) {
+			// heap memory is allocated when first requested, and kept afterwards
+			this.freeSegments = new ArrayDeque<byte[]>(this.totalNumPages);
+			this.freeOffHeapSegments = new ArrayDeque<ByteBuffer>();
+			this.numNonAllocatedPages = this.totalNumPages;
+		}
+		else {
+			this.freeSegments = new ArrayDeque<byte[]>(this.totalNumPages);
+			this.freeOffHeapSegments = new ArrayDeque<ByteBuffer>();
+			
+			// add the full chunks
+			for (int i = 0; i < this.totalNumPages; i++) {
+				// allocate memory of the specified size
+				this.freeSegments.add(new byte[this.pageSize]);
+			}
 		}
 	}
 
@@ -151,11 +240,16 @@ public class DefaultMemoryManager implements MemoryManager {
 				// mark as shutdown and release memory
 				this.isShutDown = true;
 				this.freeSegments.clear();
+				this.freeOffHeapSegments.clear();
+				this.borrowedPages.clear();
+				
+				// wake up allocations that wait for borrowed memory
+				this.lock.notifyAll();
 				
 				// go over all allocated segments and release them
 				for (Set<DefaultMemorySegment> segments : this.allocatedSegments.values()) {
 					for (DefaultMemorySegment seg : segments) {
-						seg.destroy();
+						seg.free();
 					}
 				}
 			}
@@ -163,9 +257,23 @@ public class DefaultMemoryManager implements MemoryManager {
 		// -------------------- END CRITICAL SECTION -------------------
 	}
 
+	/**
+	 * Sets the time that an allocation waits for borrowed pages to be given back, before it fails.
+	 * 
+	 * @param reclaimTimeout The timeout in milliseconds.
+	 */
+	public void setReclaimTimeout(long reclaimTimeout) {
+		if (reclaimTimeout <= 0) {
+			throw new IllegalArgumentException("The reclaim timeout must be positive.");
+		}
+		synchronized (this.lock) {
+			this.reclaimTimeout = reclaimTimeout;
+		}
+	}
+
 	public boolean verifyEmpty() {
 		synchronized (this.lock) {
-			return this.freeSegments.size() == this.totalNumPages;
+			return getNumFreePages() == this.totalNumPages;
 		}
 	}
 
@@ -194,6 +302,8 @@ public class DefaultMemoryManager implements MemoryManager {
 			((ArrayList<MemorySegment>) target).ensureCapacity(numPages);
 		}
 		
+		final Map<SpillRequestCallback, Integer> spillRequests;
+		
 		// -------------------- BEGIN CRITICAL SECTION -------------------
 		synchronized (this.lock)
 		{
@@ -201,9 +311,94 @@ public class DefaultMemoryManager implements MemoryManager {
 				throw new IllegalStateException("Memory manager has been shut down.");
 			}
 			
-			if (numPages > this.freeSegments.size()) {
+			final int numFreePages = getNumFreePages();
+			if (numPages <= numFreePages) {
+				addSegments(owner, target, numPages);
+				return;
+			}
+			else if (this.memorySharing && numPages <= numFreePages + this.numBorrowedPages) {
+				// some of the memory is borrowed by other tasks, get it back. the pages are reserved, such
+				// that they are not lent out again while the borrowers give them back
+				this.numPagesAwaited += numPages;
+				spillRequests = collectSpillRequests(numPages - numFreePages);
+			}
+			else {
 				throw new MemoryAllocationException("Could not allocate " + numPages + " pages. Only " + 
-					this.freeSegments.size() + " pages are remaining.");
+					numFreePages + " pages are remaining.");
+			}
+		}
+		// -------------------- END CRITICAL SECTION -------------------
+		
+		// ask the borrowers outside the lock, such that they may give back pages right away
+		for (Map.Entry<SpillRequestCallback, Integer> request : spillRequests.entrySet()) {
+			try {
+				request.getKey().requestSpill(request.getValue());
+			}
+			catch (Throwable t) {
+				LOG.error("Error requesting borrowed memory back.", t);
+			}
+		}
+		
+		// -------------------- BEGIN CRITICAL SECTION -------------------
+		synchronized (this.lock)
+		{
+			try {
+				awaitFreePages(numPages);
+			}
+			finally {
+				this.numPagesAwaited -= numPages;
+			}
+			
+			addSegments(owner, target, numPages);
+		}
+		// -------------------- END CRITICAL SECTION -------------------
+	}
+	
+	/**
+	 * Creates the given number of segments for the owner and adds them to the target list.
+	 * The caller must hold the lock and must have checked that enough pages are free.
+	 */
+	private void addSegments(AbstractInvokable owner, List<MemorySegment> target, int numPages) {
+		Set<DefaultMemorySegment> segmentsForOwner = this.allocatedSegments.get(owner);
+		if (segmentsForOwner == null) {
+			segmentsForOwner = new HashSet<DefaultMemorySegment>(4 * numPages / 3 + 1);
+			this.allocatedSegments.put(owner, segmentsForOwner);
+		}
+		
+		for (int i = numPages; i > 0; i--) {
+			final DefaultMemorySegment segment = createSegment(owner);
+			target.add(segment);
+			segmentsForOwner.add(segment);
+		}
+	}
+	
+	@Override
+	public int borrowPages(AbstractInvokable owner, List<MemorySegment> target, int maxPages,
+			SpillRequestCallback callback)
+	{
+		// sanity check
+		if (owner == null) {
+			throw new IllegalAccessError("The memory owner must not be null.");
+		}
+		if (callback == null) {
+			throw new NullPointerException("The spill request callback must not be null.");
+		}
+		
+		if (!this.memorySharing || maxPages <= 0) {
+			return 0;
+		}
+		
+		// -------------------- BEGIN CRITICAL SECTION -------------------
+		synchronized (this.lock)
+		{
+			if (this.isShutDown) {
+				throw new IllegalStateException("Memory manager has been shut down.");
+			}
+			
+			// do not lend out memory that pending allocations are waiting for
+			final int numPages = Math.min(maxPages, getNumFreePages() - this.numPagesAwaited);
+			if (numPages <= 0) {
+				return 0;
 			}
 			
 			Set<DefaultMemorySegment> segmentsForOwner = this.allocatedSegments.get(owner);
@@ -213,11 +408,24 @@ public class DefaultMemoryManager implements MemoryManager {
 			}
 			
 			for (int i = numPages; i > 0; i--) {
-				byte[] buffer = this.freeSegments.poll();
-				final DefaultMemorySegment segment = new DefaultMemorySegment(owner, buffer);
+				final DefaultMemorySegment segment = createSegment(owner);
+				segment.borrowed = true;
 				target.add(segment);
 				segmentsForOwner.add(segment);
 			}
+			
+			BorrowedPages borrowed = this.borrowedPages.get(owner);
+			if (borrowed == null) {
+				borrowed = new BorrowedPages(callback);
+				this.borrowedPages.put(owner, borrowed);
+			}
+			borrowed.numPages += numPages;
+			this.numBorrowedPages += numPages;
+			
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("Lent " + numPages + " pages to " + owner + ". " + this.numBorrowedPages + " pages are borrowed in total.");
+			}
+			return numPages;
 		}
 		// -------------------- END CRITICAL SECTION -------------------
 	}
@@ -257,8 +465,7 @@ public class DefaultMemoryManager implements MemoryManager {
 			}
 			finally {
 				// release the memory in any case
-				byte[] buffer = defSeg.destroy();
-				this.freeSegments.add(buffer);
+				recycle(defSeg);
 			}
 		}
 		// -------------------- END CRITICAL SECTION -------------------
@@ -316,8 +523,7 @@ public class DefaultMemoryManager implements MemoryManager {
 				}
 				finally {
 					// release the memory in any case
-					byte[] buffer = defSeg.destroy();
-					this.freeSegments.add(buffer);
+					recycle(defSeg);
 				}
 			}
 			
@@ -335,21 +541,29 @@ public class DefaultMemoryManager implements MemoryManager {
 				throw new IllegalStateException("Memory manager has been shut down.");
 			}
 
+			// the owner gives back all its memory, including the borrowed pages
+			final BorrowedPages borrowed = this.borrowedPages.remove(owner);
+			if (borrowed != null) {
+				this.numBorrowedPages -= borrowed.numPages;
+			}
+			
 			// get all segments
 			final Set<DefaultMemorySegment> segments = this.allocatedSegments.remove(owner);
 
 			// all segments may have been freed previously individually
-			if (segments == null || segments.isEmpty()) {
-				return;
+			if (segments != null) {
+				// free each segment
+				for (DefaultMemorySegment seg : segments) {
+					recycle(seg);
+				}
+				
+				segments.clear();
 			}
-
-			// free each segment
-			for (DefaultMemorySegment seg : segments) {
-				final byte[] buffer = seg.destroy();
-				this.freeSegments.add(buffer);
+			
+			// once no task holds memory any more, give the off-heap memory back
+			if (this.offHeap && this.allocatedSegments.isEmpty()) {
+				releaseFreeOffHeapMemory();
 			}
-
-			segments.clear();
 		}
 		// -------------------- END CRITICAL SECTION -------------------
 	}
@@ -381,6 +595,143 @@ public class DefaultMemoryManager implements MemoryManager {
 		return numBytes & this.roundingMask;
 	}
 	
+	/**
+	 * Checks whether this memory manager allocates its pages outside the java heap.
+	 * 
+	 * @return True, if the pages are off-heap memory, false if they are heap memory.
+	 */
+	public boolean isOffHeap() {
+		return this.offHeap;
+	}
+	
+	// ------------------------------------------------------------------------
+	
+	private int getNumFreePages() {
+		return this.freeSegments.size() + this.freeOffHeapSegments.size() + this.numNonAllocatedPages;
+	}
+	
+	/**
+	 * Creates a segment for the given owner from a free page, allocating the page's memory if necessary.
+	 * The caller must hold the lock and must have checked that a free page is available.
+	 */
+	private DefaultMemorySegment createSegment(AbstractInvokable owner) {
+		if (this.offHeap) {
+			ByteBuffer buffer = this.freeOffHeapSegments.poll();
+			if (buffer == null) {
+				buffer = ByteBuffer.allocateDirect(this.pageSize);
+				this.numNonAllocatedPages--;
+			}
+			return new DefaultMemorySegment(owner, buffer);
+		}
+		else {
+			byte[] memory = this.freeSegments.poll();
+			if (memory == null) {
+				memory = new byte[this.pageSize];
+				this.numNonAllocatedPages--;
+			}
+			return new DefaultMemorySegment(owner, memory);
+		}
+	}
+	
+	/**
+	 * Frees the given segment and returns its memory to the pool of free pages.
+	 * The caller must hold the lock.
+	 */
+	private void recycle(DefaultMemorySegment segment) {
+		if (segment.isOffHeap()) {
+			this.freeOffHeapSegments.add(segment.destroyOffHeap());
+		} else {
+			this.freeSegments.add(segment.destroy());
+		}
+		
+		// any borrowed page that is released reduces the number of its owner's borrowed pages
+		if (segment.borrowed && !this.borrowedPages.isEmpty()) {
+			final BorrowedPages borrowed = this.borrowedPages.get(segment.owner);
+			if (borrowed != null) {
+				this.numBorrowedPages--;
+				if (borrowed.numRequested > 0) {
+					borrowed.numRequested--;
+				}
+				if (--borrowed.numPages == 0) {
+					this.borrowedPages.remove(segment.owner);
+				}
+			}
+		}
+		
+		if (this.numPagesAwaited > 0) {
+			this.lock.notifyAll();
+		}
+	}
+	
+	/**
+	 * Determines which borrowers are asked to give back how many pages, such that the given number of
+	 * missing pages becomes available. Pages that were requested before are not requested again.
+	 * The caller must hold the lock.
+	 */
+	private Map<SpillRequestCallback, Integer> collectSpillRequests(int missing) {
+		final Map<SpillRequestCallback, Integer> requests = new HashMap<SpillRequestCallback, Integer>();
+		
+		for (BorrowedPages borrowed : this.borrowedPages.values()) {
+			if (missing <= 0) {
+				break;
+			}
+			
+			final int toRequest = Math.min(missing, borrowed.numPages - borrowed.numRequested);
+			if (toRequest > 0) {
+				borrowed.numRequested += toRequest;
+				missing -= toRequest;
+				requests.put(borrowed.callback, toRequest);
+			}
+		}
+		return requests;
+	}
+	
+	/**
+	 * Waits until the given number of pages is free. The borrowers give back the pages at their next
+	 * opportunity. That opportunity may never come if a borrower waits for input from the allocating task,
+	 * so the wait fails after the reclaim timeout. The caller must hold the lock, which is released while
+	 * waiting.
+	 */
+	private void awaitFreePages(int numPages) throws MemoryAllocationException {
+		final long deadline = System.currentTimeMillis() + this.reclaimTimeout;
+		long nextWarning = System.currentTimeMillis() + RECLAIM_WARN_INTERVAL_MILLIS;
+		
+		try {
+			while (getNumFreePages() < numPages) {
+				if (this.isShutDown) {
+					throw new IllegalStateException("Memory manager has been shut down.");
+				}
+				
+				final long now = System.currentTimeMillis();
+				if (now >= deadline) {
+					throw new MemoryAllocationException("Could not allocate " + numPages + " pages. Borrowed memory " +
+						"was not given back within " + this.reclaimTimeout + " ms; " + getNumFreePages() + " pages are free, " +
+						this.numBorrowedPages + " pages are borrowed. A borrower may be waiting for input from the allocating task.");
+				}
+				if (now >= nextWarning) {
+					LOG.warn("Still waiting for borrowed memory to be given back. " + getNumFreePages() + " of " + 
+						numPages + " pages are free, " + this.numBorrowedPages + " pages are borrowed.");
+					nextWarning = now + RECLAIM_WARN_INTERVAL_MILLIS;
+				}
+				
+				this.lock.wait(Math.min(deadline, nextWarning) - now);
+			}
+		}
+		catch (InterruptedException e) {
+			throw new MemoryAllocationException("Interrupted while waiting for borrowed memory to be released.", e);
+		}
+	}
+	
+	/**
+	 * Drops the references to all free off-heap pages, such that their direct memory is reclaimed
+	 * together with the byte buffers. The pages count as not allocated afterwards and are allocated
+	 * again when they are requested the next time. The caller must hold the lock.
+	 */
+	private void releaseFreeOffHeapMemory() {
+		this.numNonAllocatedPages += this.freeOffHeapSegments.size();
+		this.freeOffHeapSegments.clear();
+	}
+	
 	// ------------------------------------------------------------------------
 	
 	private final int getNumPages(long numBytes) {
@@ -406,19 +757,49 @@ public class DefaultMemoryManager implements MemoryManager {
 	
 	// ------------------------------------------------------------------------
 	
+	/**
+	 * Book-keeping of the pages borrowed by one owner.
+	 */
+	private static final class BorrowedPages {
+		
+		private final SpillRequestCallback callback;	// the callback to request pages back
+		
+		private int numPages;							// the number of borrowed pages
+		
+		private int numRequested;						// the number of pages requested back
+		
+		BorrowedPages(SpillRequestCallback callback) {
+			this.callback = callback;
+		}
+	}
+	
+	// ------------------------------------------------------------------------
+	
 	private static final class DefaultMemorySegment extends MemorySegment {
 		
 		private AbstractInvokable owner;
 		
+		private boolean borrowed;		// flag whether the segment was lent beyond the owner's share
+		
 		DefaultMemorySegment(AbstractInvokable owner, byte[] memory) {
 			super(memory);
 			this.owner = owner;
 		}
 		
+		DefaultMemorySegment(AbstractInvokable owner, ByteBuffer offHeapMemory) {
+			super(offHeapMemory);
+			this.owner = owner;
+		}
+		
 		byte[] destroy() {
 			final byte[] buffer = this.memory;
-			this.memory = null;
-			this.wrapper = null;
+			free();
+			return buffer;
+		}
+		
+		ByteBuffer destroyOffHeap() {
+			final ByteBuffer buffer = this.offHeapBuffer;
+			free();
 			return buffer;
 		}
 	}
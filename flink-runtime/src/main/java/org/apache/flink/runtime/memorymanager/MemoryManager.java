@@ -40,6 +40,22 @@ public interface MemoryManager {
 	
 	void allocatePages(AbstractInvokable owner, List<MemorySegment> target, int numPages) throws MemoryAllocationException;
 	
+	/**
+	 * Tries to borrow pages in addition to the owner's share of the memory, from memory that is currently
+	 * not used by other slots. Unlike {@link #allocatePages(AbstractInvokable, List, int)}, this method
+	 * never fails for lack of memory. It returns as many pages as can be spared, possibly none.
+	 * <p>
+	 * Borrowed pages are released like regular pages. When the memory is needed by a task for its own share,
+	 * the memory manager asks the borrower through the given callback to release pages.
+	 * 
+	 * @param owner The owner to associate with the borrowed pages.
+	 * @param target The list into which to put the borrowed pages.
+	 * @param maxPages The maximal number of pages to borrow.
+	 * @param callback The callback through which the memory manager requests pages back.
+	 * @return The number of pages that were borrowed and added to the target list.
+	 */
+	int borrowPages(AbstractInvokable owner, List<MemorySegment> target, int maxPages, SpillRequestCallback callback);
+	
 	/**
 	 * Tries to release the memory for the specified segment. If the <code>segment</code> has already been released or
 	 * is <code>null</code>, the request is simply ignored. If the segment is not from the expected
@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.memorymanager;
+
+/**
+ * Callback through which the memory manager asks a consumer that borrowed pages (see
+ * {@link MemoryManager#borrowPages(org.apache.flink.runtime.jobgraph.tasks.AbstractInvokable, java.util.List, int, SpillRequestCallback)})
+ * to give them back, because another task needs the memory of its own share.
+ */
+public interface SpillRequestCallback {
+	
+	/**
+	 * Requests the consumer to release the given number of borrowed pages. The consumer typically spills
+	 * some of its data to free the pages, and returns them through the regular release methods of the
+	 * memory manager.
+	 * <p>
+	 * The method is called from the thread of the task that requests the memory, which waits until the pages
+	 * are released. It must hence not block. Pages may be released right away, or later from the consumer's
+	 * own thread, when it reaches the next point at which it can give up memory.
+	 * 
+	 * @param numPages The number of pages that should be released.
+	 */
+	void requestSpill(int numPages);
+}
@@ -18,11 +18,17 @@
 
 package org.apache.flink.runtime.operators;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,7 +36,9 @@ import org.apache.flink.api.common.accumulators.Accumulator;
 import org.apache.flink.api.common.io.InputFormat;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.api.common.typeutils.TypeSerializerFactory;
+import org.apache.flink.configuration.ConfigConstants;
 import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.GlobalConfiguration;
 import org.apache.flink.core.io.InputSplit;
 import org.apache.flink.runtime.execution.CancelTaskException;
 import org.apache.flink.runtime.io.network.api.BufferWriter;
@@ -41,6 +49,7 @@ import org.apache.flink.runtime.operators.chaining.ChainedDriver;
 import org.apache.flink.runtime.operators.chaining.ExceptionInChainedStubException;
 import org.apache.flink.runtime.operators.shipping.OutputCollector;
 import org.apache.flink.runtime.operators.util.TaskConfig;
+import org.apache.flink.runtime.util.ExecutorThreadFactory;
 import org.apache.flink.util.Collector;
 
 /**
@@ -52,6 +61,9 @@ import org.apache.flink.util.Collector;
 public class DataSourceTask<OT> extends AbstractInvokable {
 	
 	private static final Logger LOG = LoggerFactory.getLogger(DataSourceTask.class);
+	
+	// the progress is reported every 1024 records
+	private static final long PROGRESS_REPORT_MASK = 1023;
 
 	
 	private List<BufferWriter> eventualOutputs;
@@ -73,11 +85,24 @@ public class DataSourceTask<OT> extends AbstractInvokable {
 	
 	// cancel flag
 	private volatile boolean taskCanceled = false;
+	
+	// the number of records read, reported to the environment as the progress of the task
+	private long numRecordsRead;
+	
+	// second instance of the input format, which opens the next split while the current one is read.
+	// null, if the splits are opened one after another.
+	private InputFormat<OT, InputSplit> spareFormat;
 
 
 	@Override
 	public void registerInputOutput() {
 		initInputFormat();
+		
+		if (GlobalConfiguration.getInteger(ConfigConstants.TASK_MANAGER_INPUT_SPLIT_PREFETCH_KEY,
+				ConfigConstants.DEFAULT_TASK_MANAGER_INPUT_SPLIT_PREFETCH) > 0)
+		{
+			this.spareFormat = instantiateInputFormat();
+		}
 
 		if (LOG.isDebugEnabled()) {
 			LOG.debug(getLogString("Start registering input and output"));
@@ -105,6 +130,9 @@ public class DataSourceTask<OT> extends AbstractInvokable {
 		
 		final TypeSerializer<OT> serializer = this.serializerFactory.getSerializer();
 		
+		// opens the input format on the splits to read
+		final InputSplitOpener opener = new InputSplitOpener(getInputSplits());
+		
 		try {
 			// initialize the serializers (one per channel) of the record writers
 			RegularPactTask.initOutputWriters(this.eventualOutputs);
@@ -112,25 +140,13 @@ public class DataSourceTask<OT> extends AbstractInvokable {
 			// start all chained tasks
 			RegularPactTask.openChainedTasks(this.chainedTasks, this);
 			
-			// get input splits to read
-			final Iterator<InputSplit> splitIterator = getInputSplits();
-			
 			// for each assigned input split
-			while (!this.taskCanceled && splitIterator.hasNext())
+			InputSplit split;
+			while (!this.taskCanceled && (split = opener.openNextSplit()) != null)
 			{
-				// get start and end
-				final InputSplit split = splitIterator.next();
-				
 				OT record = serializer.createInstance();
-	
-				if (LOG.isDebugEnabled()) {
-					LOG.debug(getLogString("Opening input split " + split.toString()));
-				}
 				
 				final InputFormat<OT, InputSplit> format = this.format;
-			
-				// open input format
-				format.open(split);
 	
 				if (LOG.isDebugEnabled()) {
 					LOG.debug(getLogString("Starting to read input from split " + split.toString()));
@@ -148,6 +164,10 @@ public class DataSourceTask<OT> extends AbstractInvokable {
 							if ((returned = format.nextRecord(record)) != null) {
 								output.collect(returned);
 								record = returned;
+								
+								if ((++this.numRecordsRead & PROGRESS_REPORT_MASK) == 0) {
+									getEnvironment().reportRecordsRead(this.numRecordsRead);
+								}
 							}
 						}
 					}
@@ -162,6 +182,10 @@ public class DataSourceTask<OT> extends AbstractInvokable {
 							if ((returned = format.nextRecord(record)) != null) {
 								output.collect(returned);
 								record = returned;
+								
+								if ((++this.numRecordsRead & PROGRESS_REPORT_MASK) == 0) {
+									getEnvironment().reportRecordsRead(this.numRecordsRead);
+								}
 							}
 						}
 					}
@@ -175,6 +199,10 @@ public class DataSourceTask<OT> extends AbstractInvokable {
 							if ((returned = format.nextRecord(record)) != null) {
 								output.collect(returned);
 								record = returned;
+								
+								if ((++this.numRecordsRead & PROGRESS_REPORT_MASK) == 0) {
+									getEnvironment().reportRecordsRead(this.numRecordsRead);
+								}
 							}
 						}
 					}
@@ -184,7 +212,8 @@ public class DataSourceTask<OT> extends AbstractInvokable {
 					}
 				} finally {
 					// close. We close here such that a regular close throwing an exception marks a task as failed.
-					format.close();
+					opener.closeSplit();
+					getEnvironment().reportRecordsRead(this.numRecordsRead);
 				}
 			} // end for all input splits
 			
@@ -199,10 +228,9 @@ public class DataSourceTask<OT> extends AbstractInvokable {
 					new HashMap<String, Accumulator<?,?>>(), chainedTasks);
 		}
 		catch (Exception ex) {
-			// close the input, but do not report any exceptions, since we already have another root cause
-			try {
-				this.format.close();
-			} catch (Throwable t) {}
+			// close the input, if it is still open, but do not report any exceptions, since we already have
+			// another root cause
+			opener.closeSplitQuietly();
 			
 			RegularPactTask.cancelChainedTasks(this.chainedTasks);
 			
@@ -217,6 +245,9 @@ public class DataSourceTask<OT> extends AbstractInvokable {
 				RegularPactTask.logAndThrowException(ex, this);
 			}
 		}
+		finally {
+			opener.shutdown();
+		}
 
 		if (!this.taskCanceled) {
 			if (LOG.isDebugEnabled()) {
@@ -251,13 +282,31 @@ public class DataSourceTask<OT> extends AbstractInvokable {
 		Configuration taskConf = getTaskConfiguration();
 		this.config = new TaskConfig(taskConf);
 
+		this.format = instantiateInputFormat();
+		
+		// get the factory for the type serializer
+		this.serializerFactory = this.config.getOutputSerializer(userCodeClassLoader);
+	}
+	
+	/**
+	 * Creates a new instance of the InputFormat implementation and configures it.
+	 * 
+	 * @return The configured InputFormat instance.
+	 * @throws RuntimeException
+	 *         Throws if instance of InputFormat implementation can not be
+	 *         obtained.
+	 */
+	private InputFormat<OT, InputSplit> instantiateInputFormat() {
+		ClassLoader userCodeClassLoader = getUserCodeClassLoader();
+		final InputFormat<OT, InputSplit> format;
+		
 		try {
-			this.format = config.<InputFormat<OT, InputSplit>>getStubWrapper(userCodeClassLoader)
+			format = config.<InputFormat<OT, InputSplit>>getStubWrapper(userCodeClassLoader)
 					.getUserCodeObject(InputFormat.class, userCodeClassLoader);
 
 			// check if the class is a subclass, if the check is required
-			if (!InputFormat.class.isAssignableFrom(this.format.getClass())) {
-				throw new RuntimeException("The class '" + this.format.getClass().getName() + "' is not a subclass of '" +
+			if (!InputFormat.class.isAssignableFrom(format.getClass())) {
+				throw new RuntimeException("The class '" + format.getClass().getName() + "' is not a subclass of '" +
 						InputFormat.class.getName() + "' as is required.");
 			}
 		}
@@ -268,14 +317,13 @@ public class DataSourceTask<OT> extends AbstractInvokable {
 
 		// configure the stub. catch exceptions here extra, to report them as originating from the user code 
 		try {
-			this.format.configure(this.config.getStubParameters());
+			format.configure(this.config.getStubParameters());
 		}
 		catch (Throwable t) {
 			throw new RuntimeException("The user defined 'configure()' method caused an error: " + t.getMessage(), t);
 		}
 		
-		// get the factory for the type serializer
-		this.serializerFactory = this.config.getOutputSerializer(userCodeClassLoader);
+		return format;
 	}
 
 	/**
@@ -364,4 +412,162 @@ public class DataSourceTask<OT> extends AbstractInvokable {
 			}
 		};
 	}
+	
+	// ------------------------------------------------------------------------
+	
+	/**
+	 * Opens the input format on the input splits one after another. If a spare instance of the input format
+	 * exists, the next split is requested and opened on that instance by a separate thread, while the current
+	 * split is being read. The formats are swapped when the current split has been read.
+	 */
+	private final class InputSplitOpener {
+		
+		private final Iterator<InputSplit> splits;
+		
+		private final ExecutorService executor;
+		
+		// the split that is being opened on the spare format, null if none is being opened
+		private Future<InputSplit> nextSplit;
+		
+		// whether the task's current format is open on a split
+		private boolean splitOpen;
+		
+		InputSplitOpener(Iterator<InputSplit> splits) {
+			this.splits = splits;
+			this.executor = spareFormat == null ? null :
+				Executors.newSingleThreadExecutor(ExecutorThreadFactory.INSTANCE);
+		}
+		
+		/**
+		 * Opens the input format on the next split. Afterwards, the opened format is the task's current format.
+		 * 
+		 * @return The split the format has been opened on, or null, if no more splits remain.
+		 */
+		InputSplit openNextSplit() throws Exception {
+			final InputSplit split;
+			
+			if (this.nextSplit == null) {
+				split = open(format);
+			}
+			else {
+				try {
+					split = this.nextSplit.get();
+				}
+				catch (ExecutionException e) {
+					Throwable cause = e.getCause();
+					if (cause instanceof Exception) {
+						throw (Exception) cause;
+					} else if (cause instanceof Error) {
+						throw (Error) cause;
+					} else {
+						throw new Exception(cause);
+					}
+				}
+				finally {
+					this.nextSplit = null;
+				}
+				
+				// the spare format has been opened on the split, the current one has been closed before
+				final InputFormat<OT, InputSplit> opened = spareFormat;
+				spareFormat = format;
+				format = opened;
+			}
+			this.splitOpen = split != null;
+			
+			if (split != null && this.executor != null) {
+				final InputFormat<OT, InputSplit> spare = spareFormat;
+				final ClassLoader userCodeClassLoader = getUserCodeClassLoader();
+				
+				this.nextSplit = this.executor.submit(new Callable<InputSplit>() {
+					@Override
+					public InputSplit call() throws Exception {
+						Thread.currentThread().setContextClassLoader(userCodeClassLoader);
+						return open(spare);
+					}
+				});
+			}
+			return split;
+		}
+		
+		/**
+		 * Closes the task's current format after its split has been read.
+		 */
+		void closeSplit() throws IOException {
+			this.splitOpen = false;
+			format.close();
+		}
+		
+		/**
+		 * Closes the task's current format, if it is still open on a split, ignoring any errors.
+		 */
+		void closeSplitQuietly() {
+			if (this.splitOpen) {
+				this.splitOpen = false;
+				try {
+					format.close();
+				} catch (Throwable t) {}
+			}
+		}
+		
+		/**
+		 * Closes the spare format, if a split is being opened on it, and stops the opening thread.
+		 */
+		void shutdown() {
+			if (this.executor == null) {
+				return;
+			}
+			
+			if (this.nextSplit != null) {
+				// the opening thread closes the format after it has opened it, so that we need not wait here
+				final Future<InputSplit> pending = this.nextSplit;
+				final InputFormat<OT, InputSplit> spare = spareFormat;
+				this.nextSplit = null;
+				
+				this.executor.execute(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							if (pending.get() == null) {
+								// no split was left to open
+								return;
+							}
+						}
+						catch (Throwable t) {}
+						
+						try {
+							spare.close();
+						} catch (Throwable t) {}
+					}
+				});
+			}
+			this.executor.shutdown();
+		}
+		
+		private InputSplit open(InputFormat<OT, InputSplit> inputFormat) throws IOException {
+			if (!this.splits.hasNext()) {
+				return null;
+			}
+			
+			final InputSplit split = this.splits.next();
+			
+			if (LOG.isDebugEnabled()) {
+				LOG.debug(getLogString("Opening input split " + split.toString()));
+			}
+			
+			// a format which fails to open is closed right away, as it is never read
+			boolean opened = false;
+			try {
+				inputFormat.open(split);
+				opened = true;
+			}
+			finally {
+				if (!opened) {
+					try {
+						inputFormat.close();
+					} catch (Throwable t) {}
+				}
+			}
+			return split;
+		}
+	}
 }
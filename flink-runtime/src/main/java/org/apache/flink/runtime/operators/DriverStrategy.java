@@ -62,6 +62,10 @@ public enum DriverStrategy {
 	SORTED_REDUCE(ReduceDriver.class, null, PIPELINED, 1),
 	// sorted partial reduce is the combiner for the Reduce. same function, but potentially not fully sorted
 	SORTED_PARTIAL_REDUCE(ReduceCombineDriver.class, null, MATERIALIZING, 1),
+	// aggregating the inputs in a hash table and apply the Reduce Function, falls back to sorting if memory runs out
+	HASH_REDUCE(HashReduceDriver.class, null, FULL_DAM, 1),
+	// hash partial reduce is the hash-based combiner for the Reduce. emits the table whenever it is full
+	HASH_PARTIAL_REDUCE(HashReduceCombineDriver.class, null, MATERIALIZING, 1),
 	
 	// grouping the inputs and apply the GroupReduce function
 	SORTED_GROUP_REDUCE(GroupReduceDriver.class, null, PIPELINED, 1),
@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.operators;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.apache.flink.api.common.functions.ReduceFunction;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.runtime.memorymanager.MemoryManager;
+import org.apache.flink.runtime.operators.hash.InPlaceMutableHashTable;
+import org.apache.flink.util.Collector;
+import org.apache.flink.util.MutableObjectIterator;
+
+/**
+ * Combine operator for Reduce functions, standalone (not chained), that aggregates the records in
+ * a hash table instead of sorting them. Every record is reduced with the aggregate for its key right
+ * away, so the memory holds one record per key, rather than all records. When the table is full, its
+ * contents are emitted and the table is cleared. May hence produce multiple partially aggregated
+ * results per key.
+ *
+ * @param <T> The data type consumed and produced by the combiner.
+ */
+public class HashReduceCombineDriver<T> implements PactDriver<ReduceFunction<T>, T> {
+
+	private static final Logger LOG = LoggerFactory.getLogger(HashReduceCombineDriver.class);
+
+
+	private PactTaskContext<ReduceFunction<T>, T> taskContext;
+
+	private TypeSerializer<T> serializer;
+
+	private ReduceFunction<T> reducer;
+
+	private Collector<T> output;
+
+
+	private MemoryManager memManager;
+
+	private InPlaceMutableHashTable<T> table;
+
+
+	private volatile boolean running;
+
+	// ------------------------------------------------------------------------
+
+	@Override
+	public void setup(PactTaskContext<ReduceFunction<T>, T> context) {
+		this.taskContext = context;
+		this.running = true;
+	}
+
+	@Override
+	public int getNumberOfInputs() {
+		return 1;
+	}
+
+	@Override
+	public Class<ReduceFunction<T>> getStubType() {
+		@SuppressWarnings("unchecked")
+		final Class<ReduceFunction<T>> clazz = (Class<ReduceFunction<T>>) (Class<?>) ReduceFunction.class;
+		return clazz;
+	}
+
+	@Override
+	public int getNumberOfDriverComparators() {
+		return 1;
+	}
+
+	@Override
+	public void prepare() throws Exception {
+		if (this.taskContext.getTaskConfig().getDriverStrategy() != DriverStrategy.HASH_PARTIAL_REDUCE) {
+			throw new Exception("Invalid strategy " + this.taskContext.getTaskConfig().getDriverStrategy() + " for hash reduce combiner.");
+		}
+
+		this.memManager = this.taskContext.getMemoryManager();
+		final int numMemoryPages = memManager.computeNumberOfPages(this.taskContext.getTaskConfig()
+				.getRelativeMemoryDriver());
+
+		this.serializer = this.taskContext.<T>getInputSerializer(0).getSerializer();
+		this.reducer = this.taskContext.getStub();
+		this.output = this.taskContext.getOutputCollector();
+
+		final List<MemorySegment> memory = this.memManager.allocatePages(this.taskContext.getOwningNepheleTask(), numMemoryPages);
+		this.table = new InPlaceMutableHashTable<T>(this.serializer, this.taskContext.<T>getDriverComparator(0), memory);
+	}
+
+	@Override
+	public void run() throws Exception {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Hash combiner starting.");
+		}
+
+		final MutableObjectIterator<T> in = this.taskContext.getInput(0);
+		final TypeSerializer<T> serializer = this.serializer;
+		final ReduceFunction<T> function = this.reducer;
+		final InPlaceMutableHashTable<T> table = this.table;
+
+		T value = serializer.createInstance();
+		T match = serializer.createInstance();
+
+		while (this.running && (value = in.next(value)) != null) {
+			final T current = table.getMatchFor(value, match);
+
+			if (current != null) {
+				final T res = function.reduce(current, value);
+				if (table.updateMatch(res)) {
+					match = serializer.createInstance();
+					value = serializer.createInstance();
+					continue;
+				}
+
+				// no space for the grown aggregate. emit everything else and start over with the aggregate
+				table.removeMatch();
+				emitAndReset();
+				insertIntoEmptyTable(res);
+				match = serializer.createInstance();
+			}
+			else if (!table.insert(value)) {
+				emitAndReset();
+				insertIntoEmptyTable(value);
+			}
+			value = serializer.createInstance();
+		}
+
+		// send the final batch
+		emitAndReset();
+	}
+
+	private void insertIntoEmptyTable(T record) throws IOException {
+		if (!this.table.insert(record)) {
+			throw new IOException("Cannot write record to fresh hash table. Record too large.");
+		}
+	}
+
+	private void emitAndReset() throws Exception {
+		final InPlaceMutableHashTable<T> table = this.table;
+
+		if (!table.isEmpty()) {
+			final TypeSerializer<T> serializer = this.serializer;
+			final Collector<T> output = this.output;
+			final MutableObjectIterator<T> entries = table.getEntryIterator();
+
+			T value;
+			while (this.running && (value = entries.next(serializer.createInstance())) != null) {
+				output.collect(value);
+			}
+			table.reset();
+		}
+	}
+
+	@Override
+	public void cleanup() {
+		if (this.table != null) {
+			this.memManager.release(this.table.dispose());
+			this.table = null;
+		}
+	}
+
+	@Override
+	public void cancel() {
+		this.running = false;
+		cleanup();
+	}
+}
@@ -0,0 +1,316 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.operators;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.apache.flink.api.common.functions.ReduceFunction;
+import org.apache.flink.api.common.typeutils.TypeComparator;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.common.typeutils.TypeSerializerFactory;
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.runtime.io.disk.ChannelReaderInputViewIterator;
+import org.apache.flink.runtime.io.disk.iomanager.BlockChannelWriter;
+import org.apache.flink.runtime.io.disk.iomanager.ChannelWriterOutputView;
+import org.apache.flink.runtime.io.disk.iomanager.FileIOChannel;
+import org.apache.flink.runtime.io.disk.iomanager.IOManager;
+import org.apache.flink.runtime.memorymanager.MemoryManager;
+import org.apache.flink.runtime.operators.hash.InPlaceMutableHashTable;
+import org.apache.flink.runtime.operators.sort.Sorter;
+import org.apache.flink.runtime.operators.sort.UnilateralSortMerger;
+import org.apache.flink.runtime.operators.util.TaskConfig;
+import org.apache.flink.util.Collector;
+import org.apache.flink.util.MutableObjectIterator;
+
+/**
+ * Reduce driver that aggregates the records in a hash table instead of sorting them. The input
+ * does not need to be grouped. Every record is reduced with the aggregate for its key right away, so
+ * the memory holds one record per key. The aggregates are emitted once the input is consumed.
+ * <p>
+ * If the aggregates of all keys do not fit into memory, the driver falls back to sorting: the
+ * contents of the table are spilled to disk, the table's memory is handed to an external sorter, and
+ * the spilled aggregates and the remaining input are sorted and reduced group-wise, like in the
+ * {@link ReduceDriver}.
+ *
+ * @param <T> The data type consumed and produced by the reducer.
+ */
+public class HashReduceDriver<T> implements PactDriver<ReduceFunction<T>, T> {
+
+	private static final Logger LOG = LoggerFactory.getLogger(HashReduceDriver.class);
+
+	/** The number of memory pages kept back from the table, to spill it when it runs full. */
+	private static final int NUM_SPILL_PAGES = 2;
+
+
+	private PactTaskContext<ReduceFunction<T>, T> taskContext;
+
+	private TypeSerializerFactory<T> serializerFactory;
+
+	private TypeSerializer<T> serializer;
+
+	private TypeComparator<T> comparator;
+
+
+	private MemoryManager memManager;
+
+	private InPlaceMutableHashTable<T> table;
+
+	private List<MemorySegment> spillMemory;
+
+	private FileIOChannel.ID spillChannel;
+
+	private Sorter<T> sorter;
+
+	private int numMemoryPages;
+
+
+	private volatile boolean running;
+
+	// ------------------------------------------------------------------------
+
+	@Override
+	public void setup(PactTaskContext<ReduceFunction<T>, T> context) {
+		this.taskContext = context;
+		this.running = true;
+	}
+
+	@Override
+	public int getNumberOfInputs() {
+		return 1;
+	}
+
+	@Override
+	public Class<ReduceFunction<T>> getStubType() {
+		@SuppressWarnings("unchecked")
+		final Class<ReduceFunction<T>> clazz = (Class<ReduceFunction<T>>) (Class<?>) ReduceFunction.class;
+		return clazz;
+	}
+
+	@Override
+	public int getNumberOfDriverComparators() {
+		return 1;
+	}
+
+	@Override
+	public void prepare() throws Exception {
+		final TaskConfig config = this.taskContext.getTaskConfig();
+		if (config.getDriverStrategy() != DriverStrategy.HASH_REDUCE) {
+			throw new Exception("Unrecognized driver strategy for Hash Reduce driver: " + config.getDriverStrategy().name());
+		}
+
+		this.memManager = this.taskContext.getMemoryManager();
+		this.numMemoryPages = this.memManager.computeNumberOfPages(config.getRelativeMemoryDriver());
+		if (this.numMemoryPages < NUM_SPILL_PAGES + 2) {
+			throw new Exception("The hash reducer needs at least " + (NUM_SPILL_PAGES + 2) + " memory pages, but got only "
+					+ this.numMemoryPages + '.');
+		}
+
+		this.serializerFactory = this.taskContext.getInputSerializer(0);
+		this.serializer = this.serializerFactory.getSerializer();
+		this.comparator = this.taskContext.getDriverComparator(0);
+
+		final List<MemorySegment> memory = this.memManager.allocatePages(this.taskContext.getOwningNepheleTask(), this.numMemoryPages);
+		this.spillMemory = new ArrayList<MemorySegment>(memory.subList(0, NUM_SPILL_PAGES));
+		this.table = new InPlaceMutableHashTable<T>(this.serializer, this.comparator.duplicate(),
+				new ArrayList<MemorySegment>(memory.subList(NUM_SPILL_PAGES, memory.size())));
+	}
+
+	@Override
+	public void run() throws Exception {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug(this.taskContext.formatLogString("Hash Reducer preprocessing done. Running Reducer code."));
+		}
+
+		// cache references on the stack
+		final MutableObjectIterator<T> input = this.taskContext.getInput(0);
+		final TypeSerializer<T> serializer = this.serializer;
+		final ReduceFunction<T> function = this.taskContext.getStub();
+		final InPlaceMutableHashTable<T> table = this.table;
+
+		T value = serializer.createInstance();
+		T match = serializer.createInstance();
+
+		while (this.running && (value = input.next(value)) != null) {
+			final T current = table.getMatchFor(value, match);
+
+			if (current != null) {
+				final T res = function.reduce(current, value);
+				if (!table.updateMatch(res)) {
+					table.removeMatch();
+					sortAndReduceRemaining(res, input, function);
+					return;
+				}
+				match = serializer.createInstance();
+			}
+			else if (!table.insert(value)) {
+				sortAndReduceRemaining(value, input, function);
+				return;
+			}
+			value = serializer.createInstance();
+		}
+
+		// the whole input was aggregated in memory
+		final Collector<T> output = this.taskContext.getOutputCollector();
+		final MutableObjectIterator<T> entries = table.getEntryIterator();
+		while (this.running && (value = entries.next(serializer.createInstance())) != null) {
+			output.collect(value);
+		}
+	}
+
+	/**
+	 * Spills the contents of the table, and sorts and reduces the spilled aggregates together with the
+	 * given pending record and the remaining input.
+	 */
+	private void sortAndReduceRemaining(T pending, MutableObjectIterator<T> input, ReduceFunction<T> function) throws Exception {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug(this.taskContext.formatLogString("Hash table ran out of memory. Falling back to sort-based reduce."));
+		}
+
+		final TypeSerializer<T> serializer = this.serializer;
+		final IOManager ioManager = this.taskContext.getIOManager();
+
+		// spill the aggregates and free the table's memory for the sorter
+		this.spillChannel = ioManager.createChannel();
+		final BlockChannelWriter writer = ioManager.createBlockChannelWriter(this.spillChannel);
+		final ChannelWriterOutputView spillView = new ChannelWriterOutputView(writer, this.spillMemory, this.memManager.getPageSize());
+
+		final MutableObjectIterator<T> entries = this.table.getEntryIterator();
+		T entry;
+		while ((entry = entries.next(serializer.createInstance())) != null) {
+			serializer.serialize(entry, spillView);
+		}
+		this.spillMemory = spillView.close();
+		final int numSpilledBlocks = spillView.getBlockCount();
+
+		this.memManager.release(this.table.dispose());
+		this.table = null;
+
+		final List<MemorySegment> readMemory = this.spillMemory;
+		this.spillMemory = new ArrayList<MemorySegment>(readMemory.size());
+		final MutableObjectIterator<T> spilled = new ChannelReaderInputViewIterator<T>(ioManager, this.spillChannel,
+				readMemory, this.spillMemory, serializer, numSpilledBlocks);
+
+		// sort with the memory that the table had
+		final TaskConfig config = this.taskContext.getTaskConfig();
+		final double sortFraction = config.getRelativeMemoryDriver() * (this.numMemoryPages - NUM_SPILL_PAGES) / this.numMemoryPages;
+
+		this.sorter = new UnilateralSortMerger<T>(this.memManager, ioManager,
+				new ConcatenatingIterator<T>(spilled, pending, input), this.taskContext.getOwningNepheleTask(),
+				this.serializerFactory, this.comparator.duplicate(), sortFraction,
+				config.getFilehandlesDriver(), config.getSpillingThresholdDriver());
+
+		// reduce the sorted groups
+		final MutableObjectIterator<T> sorted = this.sorter.getIterator();
+		final TypeComparator<T> comparator = this.comparator;
+		final Collector<T> output = this.taskContext.getOutputCollector();
+
+		T value = sorted.next(serializer.createInstance());
+
+		// iterate over key groups
+		while (this.running && value != null) {
+			comparator.setReference(value);
+			T res = value;
+
+			// iterate within a key group
+			while ((value = sorted.next(serializer.createInstance())) != null) {
+				if (comparator.equalToReference(value)) {
+					// same group, reduce
+					res = function.reduce(res, value);
+				} else {
+					// new key group
+					break;
+				}
+			}
+
+			output.collect(res);
+		}
+	}
+
+	@Override
+	public void cleanup() throws Exception {
+		if (this.sorter != null) {
+			this.sorter.close();
+			this.sorter = null;
+		}
+		if (this.table != null) {
+			this.memManager.release(this.table.dispose());
+			this.table = null;
+		}
+		if (this.spillMemory != null) {
+			this.memManager.release(this.spillMemory);
+			this.spillMemory = null;
+		}
+		if (this.spillChannel != null) {
+			final File f = new File(this.spillChannel.getPath());
+			if (f.exists()) {
+				f.delete();
+			}
+			this.spillChannel = null;
+		}
+	}
+
+	@Override
+	public void cancel() {
+		this.running = false;
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Iterator that returns the records of the spilled table, followed by the record that did not fit
+	 * into the table, followed by the rest of the input.
+	 */
+	private static final class ConcatenatingIterator<T> implements MutableObjectIterator<T> {
+
+		private MutableObjectIterator<T> spilled;
+
+		private T pending;
+
+		private final MutableObjectIterator<T> input;
+
+		ConcatenatingIterator(MutableObjectIterator<T> spilled, T pending, MutableObjectIterator<T> input) {
+			this.spilled = spilled;
+			this.pending = pending;
+			this.input = input;
+		}
+
+		@Override
+		public T next(T reuse) throws IOException {
+			if (this.spilled != null) {
+				final T next = this.spilled.next(reuse);
+				if (next != null) {
+					return next;
+				}
+				this.spilled = null;
+			}
+			if (this.pending != null) {
+				final T next = this.pending;
+				this.pending = null;
+				return next;
+			}
+			return this.input.next(reuse);
+		}
+	}
+}
@@ -32,8 +32,9 @@ import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.runtime.memorymanager.MemoryManager;
 import org.apache.flink.runtime.operators.sort.FixedLengthRecordSorter;
 import org.apache.flink.runtime.operators.sort.InMemorySorter;
+import org.apache.flink.runtime.operators.sort.IndexedSorter;
 import org.apache.flink.runtime.operators.sort.NormalizedKeySorter;
-import org.apache.flink.runtime.operators.sort.QuickSort;
+import org.apache.flink.runtime.operators.sort.RadixSort;
 import org.apache.flink.util.Collector;
 import org.apache.flink.util.MutableObjectIterator;
 
@@ -67,7 +68,7 @@ public class ReduceCombineDriver<T> implements PactDriver<ReduceFunction<T>, T>
 	
 	private InMemorySorter<T> sorter;
 	
-	private QuickSort sortAlgo = new QuickSort();
+	private IndexedSorter sortAlgo = new RadixSort();
 	
 	
 	private boolean running;
@@ -160,7 +160,12 @@ public class BuildSecondHashMatchIterator<V1, V2, O> implements JoinTaskIterator
 	{
 		final int numPages = memManager.computeNumberOfPages(memoryFraction);
 		final List<MemorySegment> memorySegments = memManager.allocatePages(ownerTask, numPages);
-		return new MutableHashTable<BT, PT>(buildSideSerializer, probeSideSerializer, buildSideComparator, probeSideComparator, pairComparator, memorySegments, ioManager);
+		final MutableHashTable<BT, PT> table = new MutableHashTable<BT, PT>(buildSideSerializer, probeSideSerializer,
+			buildSideComparator, probeSideComparator, pairComparator, memorySegments, ioManager);
+		
+		// use memory that other slots do not need, if the memory manager permits it
+		table.borrowMemory(memManager, ownerTask, numPages);
+		return table;
 	}
 	
 }
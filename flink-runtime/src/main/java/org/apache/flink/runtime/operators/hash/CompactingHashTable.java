@@ -30,6 +30,8 @@ import org.apache.flink.api.common.typeutils.TypeComparator;
 import org.apache.flink.api.common.typeutils.TypePairComparator;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.runtime.io.disk.iomanager.FileIOChannel;
+import org.apache.flink.runtime.io.disk.iomanager.IOManager;
 import org.apache.flink.runtime.memorymanager.ListMemorySegmentSource;
 import org.apache.flink.runtime.util.IntArrayList;
 import org.apache.flink.runtime.util.LongArrayList;
@@ -69,6 +71,13 @@ import org.apache.flink.util.MutableObjectIterator;
  * | ...
  * |
  * </pre>
+ * <p>
+ * If the table is created with an {@link IOManager}, it does not need to fit entirely into memory. When
+ * neither free memory nor compaction can satisfy a request, the record pages of the least recently used
+ * partition are evicted to a block channel. The bucket structure and the overflow buckets stay in memory,
+ * so the pointers into the evicted pages remain valid, and the pages are read back the next time a record
+ * of the partition is inserted, probed, updated or iterated.
+ * 
  * @param <T> Record type stored in hash table
  */
 public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
@@ -212,6 +221,28 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 	 */
 	private boolean isResizing = false;
 	
+	/**
+	 * The I/O manager used to evict partitions to disk, or null, if the table must fit into memory.
+	 */
+	private final IOManager ioManager;
+	
+	/**
+	 * The logical time of the last access to each partition, used to pick the least recently used
+	 * partition for eviction.
+	 */
+	private long[] partitionLastAccess;
+	
+	/**
+	 * The logical clock for the partition accesses.
+	 */
+	private long accessCounter;
+	
+	/**
+	 * The page into which single records of evicted partitions are read. It is kept back from the table's memory
+	 * while the table is open, if the table can evict partitions.
+	 */
+	private MemorySegment spilledRecordBuffer;
+	
 	private AtomicBoolean closed = new AtomicBoolean();
 	
 	private boolean running = true;
@@ -224,10 +255,24 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 	
 	public CompactingHashTable(TypeSerializer<T> buildSideSerializer, TypeComparator<T> buildSideComparator, List<MemorySegment> memorySegments)
 	{
-		this(buildSideSerializer, buildSideComparator, memorySegments, DEFAULT_RECORD_LEN);
+		this(buildSideSerializer, buildSideComparator, memorySegments, DEFAULT_RECORD_LEN, null);
 	}
 	
 	public CompactingHashTable(TypeSerializer<T> buildSideSerializer, TypeComparator<T> buildSideComparator, List<MemorySegment> memorySegments, int avgRecordLen)
+	{
+		this(buildSideSerializer, buildSideComparator, memorySegments, avgRecordLen, null);
+	}
+	
+	/**
+	 * Creates a hash table that evicts the least recently used partitions through the given I/O manager,
+	 * once the memory is exhausted.
+	 */
+	public CompactingHashTable(TypeSerializer<T> buildSideSerializer, TypeComparator<T> buildSideComparator, List<MemorySegment> memorySegments, IOManager ioManager)
+	{
+		this(buildSideSerializer, buildSideComparator, memorySegments, DEFAULT_RECORD_LEN, ioManager);
+	}
+	
+	public CompactingHashTable(TypeSerializer<T> buildSideSerializer, TypeComparator<T> buildSideComparator, List<MemorySegment> memorySegments, int avgRecordLen, IOManager ioManager)
 	{
 		super(buildSideSerializer, buildSideComparator);
 		// some sanity checks first
@@ -260,6 +305,7 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 		this.bucketsPerSegmentBits = MathUtils.log2strict(bucketsPerSegment);
 		
 		this.partitions = new ArrayList<InMemoryPartition<T>>();
+		this.ioManager = ioManager;
 		
 		// because we allow to open and close multiple times, the state is initially closed
 		this.closed.set(true);
@@ -280,6 +326,11 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 			throw new IllegalStateException("Hash Table cannot be opened, because it is currently not closed.");
 		}
 		
+		// keep back the page for reading the records of evicted partitions
+		if (this.ioManager != null) {
+			this.spilledRecordBuffer = this.availableMemory.remove(this.availableMemory.size() - 1);
+		}
+		
 		// create the partitions
 		final int partitionFanOut = getPartitioningFanOutNoEstimates(this.availableMemory.size()); 
 		createPartitions(partitionFanOut);
@@ -312,6 +363,11 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 		
 		// clear the memory in the partitions
 		clearPartitions();
+		
+		if (this.spilledRecordBuffer != null) {
+			this.availableMemory.add(this.spilledRecordBuffer);
+			this.spilledRecordBuffer = null;
+		}
 	}
 	
 	public void abort() {
@@ -352,7 +408,7 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 		
 		// get the basic characteristics of the bucket
 		final int partitionNumber = bucket.get(bucketInSegmentPos + HEADER_PARTITION_OFFSET);
-		InMemoryPartition<T> partition = this.partitions.get(partitionNumber);
+		InMemoryPartition<T> partition = getPartitionForRecordAccess(partitionNumber);
 		
 		
 		long pointer;
@@ -362,35 +418,11 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 				this.compactionMemory.allocateSegments((int)(pointer >> this.pageSizeInBits));
 			}
 		} catch (EOFException e) {
-			try {
-				compactPartition(partitionNumber);
-				// retry append
-				partition = this.partitions.get(partitionNumber); // compaction invalidates reference
-				pointer = partition.appendRecord(record);
-			} catch (EOFException ex) {
-				throw new RuntimeException("Memory ran out. Compaction failed. " + 
-											getMemoryConsumptionString() +
-											" Message: " + ex.getMessage());
-			} catch (IndexOutOfBoundsException ex) {
-				throw new RuntimeException("Memory ran out. Compaction failed. " + 
-											getMemoryConsumptionString() +
-											" Message: " + ex.getMessage());
-			}
+			pointer = compactAndAppendRecord(partitionNumber, record);
+			partition = this.partitions.get(partitionNumber); // compaction invalidates reference
 		} catch (IndexOutOfBoundsException e1) {
-			try {
-				compactPartition(partitionNumber);
-				// retry append
-				partition = this.partitions.get(partitionNumber); // compaction invalidates reference
-				pointer = partition.appendRecord(record);
-			} catch (EOFException ex) {
-				throw new RuntimeException("Memory ran out. Compaction failed. " + 
-											getMemoryConsumptionString() +
-											" Message: " + ex.getMessage());
-			} catch (IndexOutOfBoundsException ex) {
-				throw new RuntimeException("Memory ran out. Compaction failed. " + 
-											getMemoryConsumptionString() +
-											" Message: " + ex.getMessage());
-			}
+			pointer = compactAndAppendRecord(partitionNumber, record);
+			partition = this.partitions.get(partitionNumber); // compaction invalidates reference
 		}
 		insertBucketEntryFromStart(partition, bucket, bucketInSegmentPos, hashCode, pointer);
 	}
@@ -434,7 +466,7 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 		
 		// get the basic characteristics of the bucket
 		final int partitionNumber = bucket.get(bucketInSegmentOffset + HEADER_PARTITION_OFFSET);
-		InMemoryPartition<T> partition = this.partitions.get(partitionNumber);
+		InMemoryPartition<T> partition = getPartitionForRecordAccess(partitionNumber);
 		final MemorySegment[] overflowSegments = partition.overflowSegments;
 		
 		this.buildSideComparator.setReference(record);
@@ -474,40 +506,12 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 						}
 					} catch (EOFException e) {
 						// system is out of memory so we attempt to reclaim memory with a copy compact run
-						long newPointer;
-						try {
-							compactPartition(partition.getPartitionNumber());
-							// retry append
-							partition = this.partitions.get(partitionNumber); // compaction invalidates reference
-							newPointer = partition.appendRecord(record);
-						} catch (EOFException ex) {
-							throw new RuntimeException("Memory ran out. Compaction failed. " + 
-														getMemoryConsumptionString() +
-														" Message: " + ex.getMessage());
-						} catch (IndexOutOfBoundsException ex) {
-							throw new RuntimeException("Memory ran out. Compaction failed. " + 
-														getMemoryConsumptionString() +
-														" Message: " + ex.getMessage());
-						}
+						long newPointer = compactAndAppendRecord(partitionNumber, record);
 						bucket.putLong(pointerOffset, newPointer);
 						return;
 					} catch (IndexOutOfBoundsException e) {
 						// system is out of memory so we attempt to reclaim memory with a copy compact run
-						long newPointer;
-						try {
-							compactPartition(partition.getPartitionNumber());
-							// retry append
-							partition = this.partitions.get(partitionNumber); // compaction invalidates reference
-							newPointer = partition.appendRecord(record);
-						} catch (EOFException ex) {
-							throw new RuntimeException("Memory ran out. Compaction failed. " + 
-														getMemoryConsumptionString() +
-														" Message: " + ex.getMessage());
-						} catch (IndexOutOfBoundsException ex) {
-							throw new RuntimeException("Memory ran out. Compaction failed. " + 
-														getMemoryConsumptionString() +
-														" Message: " + ex.getMessage());
-						}
+						long newPointer = compactAndAppendRecord(partitionNumber, record);
 						bucket.putLong(pointerOffset, newPointer);
 						return;
 					} catch (IOException e) {
@@ -523,7 +527,16 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 			long newForwardPointer = bucket.getLong(bucketInSegmentOffset + HEADER_FORWARD_OFFSET);
 			if (newForwardPointer == BUCKET_FORWARD_POINTER_NOT_SET) {
 				// nothing found. append and insert
-				long pointer = partition.appendRecord(record);
+				long pointer;
+				try {
+					pointer = partition.appendRecord(record);
+				} catch (EOFException e) {
+					pointer = compactAndAppendRecord(partitionNumber, record);
+					partition = this.partitions.get(partitionNumber); // compaction invalidates reference
+				} catch (IndexOutOfBoundsException e) {
+					pointer = compactAndAppendRecord(partitionNumber, record);
+					partition = this.partitions.get(partitionNumber); // compaction invalidates reference
+				}
 				//insertBucketEntryFromStart(partition, originalBucket, originalBucketOffset, searchHashCode, pointer);
 				insertBucketEntryFromSearch(partition, originalBucket, bucket, originalBucketOffset, bucketInSegmentOffset, countInSegment, currentForwardPointer, searchHashCode, pointer);
 				if((pointer >> this.pageSizeInBits) > this.compactionMemory.getBlockCount()) {
@@ -715,6 +728,8 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 			this.partitions.add(new InMemoryPartition<T>(this.buildSideSerializer, i, memSource, this.segmentSize, pageSizeInBits));
 		}
 		this.compactionMemory = new InMemoryPartition<T>(this.buildSideSerializer, -1, memSource, this.segmentSize, pageSizeInBits);
+		this.partitionLastAccess = new long[numPartitions];
+		this.accessCounter = 0;
 	}
 	
 	private void clearPartitions() {
@@ -770,9 +785,154 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 		int s = this.availableMemory.size();
 		if (s > 0) {
 			return this.availableMemory.remove(s-1);
-		} else {
-			throw new RuntimeException("Memory ran out. " + getMemoryConsumptionString());
 		}
+		// try to free memory by evicting a partition
+		try {
+			if (spillPartition(-1)) {
+				return this.availableMemory.remove(this.availableMemory.size() - 1);
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("Error while evicting a partition of the hash table: " + e.getMessage(), e);
+		}
+		throw new RuntimeException("Memory ran out. " + getMemoryConsumptionString());
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	//                             Partition Eviction
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Gets the partition with the given number for reading all of its records. The partition is marked as the
+	 * most recently used one, and its record pages are read back in if it was evicted.
+	 * 
+	 * @param partitionNumber partition to access
+	 * @return the partition, with its record pages in memory
+	 * @throws IOException Thrown, if the record pages of the partition could not be read back.
+	 */
+	private InMemoryPartition<T> getPartitionForAccess(int partitionNumber) throws IOException {
+		this.partitionLastAccess[partitionNumber] = ++this.accessCounter;
+		
+		final InMemoryPartition<T> partition = this.partitions.get(partitionNumber);
+		if (!partition.isInMemory() && !restorePartition(partitionNumber)) {
+			throw new RuntimeException("Memory ran out. Cannot read back evicted partition " + partitionNumber + ". " +
+										getMemoryConsumptionString());
+		}
+		return partition;
+	}
+	
+	/**
+	 * Gets the partition with the given number for reading or writing single records. The partition is marked as
+	 * the most recently used one. An evicted partition serves single records from its spill file, and appended
+	 * records go to pages in memory. It is read back only once it served as many records from the spill file as
+	 * it has spilled pages, so that the cost of reading it back is paid by the accesses it saves.
+	 * 
+	 * @param partitionNumber partition to access
+	 * @return the partition
+	 * @throws IOException Thrown, if the record pages of the partition could not be read back.
+	 */
+	private InMemoryPartition<T> getPartitionForRecordAccess(int partitionNumber) throws IOException {
+		this.partitionLastAccess[partitionNumber] = ++this.accessCounter;
+		
+		final InMemoryPartition<T> partition = this.partitions.get(partitionNumber);
+		if (!partition.isInMemory() && partition.getNumSpilledRecordReads() >= partition.getNumSpilledPages()) {
+			// stays evicted if the memory cannot be freed, its records are still readable
+			restorePartition(partitionNumber);
+		}
+		return partition;
+	}
+	
+	/**
+	 * Reads the record pages of an evicted partition back in, evicting the least recently used other partitions
+	 * to make room for them.
+	 * 
+	 * @param partitionNumber partition to read back
+	 * @return true, if the partition was read back, false if not enough memory could be freed
+	 * @throws IOException Thrown, if the record pages could not be written or read.
+	 */
+	private boolean restorePartition(int partitionNumber) throws IOException {
+		final InMemoryPartition<T> partition = this.partitions.get(partitionNumber);
+		final int numPages = partition.getNumSpilledPages();
+		while (this.availableMemory.size() < numPages) {
+			if (!spillPartition(partitionNumber)) {
+				return false;
+			}
+		}
+		partition.restorePartition(this.ioManager, this.availableMemory);
+		
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Read back " + numPages + " pages of partition " + partitionNumber + " of the hash table.");
+		}
+		return true;
+	}
+	
+	/**
+	 * Appends a record to a partition that ran out of memory. The partition is compacted first. If that does
+	 * not free enough memory, the least recently used other partitions are evicted until the record fits.
+	 * 
+	 * @param partitionNumber partition to append the record to
+	 * @param record record to append
+	 * @return pointer to the record in the partition
+	 * @throws IOException 
+	 */
+	private long compactAndAppendRecord(int partitionNumber, T record) throws IOException {
+		compactPartition(partitionNumber);
+		
+		while (true) {
+			// retry append
+			final InMemoryPartition<T> partition = this.partitions.get(partitionNumber); // compaction invalidates reference
+			String message;
+			try {
+				return partition.appendRecord(record);
+			} catch (EOFException ex) {
+				message = ex.getMessage();
+			} catch (IndexOutOfBoundsException ex) {
+				message = ex.getMessage();
+			}
+			if (!spillPartition(partitionNumber)) {
+				throw new RuntimeException("Memory ran out. Compaction failed. " + 
+											getMemoryConsumptionString() +
+											" Message: " + message);
+			}
+		}
+	}
+	
+	/**
+	 * Evicts the record pages of the least recently used partition that holds pages in memory. If no partition
+	 * can be evicted, the memory reserved for compactions is released as a last resort.
+	 * 
+	 * @param excludedPartition partition that must not be evicted, or -1
+	 * @return true, if memory was freed, false if the table cannot spill or nothing is left to evict
+	 * @throws IOException Thrown, if the record pages could not be written.
+	 */
+	private boolean spillPartition(int excludedPartition) throws IOException {
+		if (this.ioManager == null || this.closed.get()) {
+			return false;
+		}
+		
+		int victim = -1;
+		long victimLastAccess = Long.MAX_VALUE;
+		for (int i = 0; i < this.partitions.size(); i++) {
+			if (i != excludedPartition && this.partitions.get(i).getBlockCount() > 0 && this.partitionLastAccess[i] < victimLastAccess) {
+				victim = i;
+				victimLastAccess = this.partitionLastAccess[i];
+			}
+		}
+		
+		if (victim == -1) {
+			if (this.compactionMemory.getBlockCount() > 0) {
+				this.compactionMemory.clearAllMemory(this.availableMemory);
+				return true;
+			}
+			return false;
+		}
+		
+		final InMemoryPartition<T> partition = this.partitions.get(victim);
+		final FileIOChannel.ID channel = partition.isInMemory() ? this.ioManager.createChannel() : null;
+		final int numPages = partition.spillPartition(this.ioManager, channel, this.availableMemory, this.spilledRecordBuffer);
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Evicted " + numPages + " pages of partition " + victim + " of the hash table.");
+		}
+		return true;
 	}
 
 	// --------------------------------------------------------------------------------------------
@@ -821,6 +981,9 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 			numSegments += p.numOverflowSegments;
 		}
 		numSegments += this.compactionMemory.getBlockCount();
+		if (this.spilledRecordBuffer != null) {
+			numSegments++;
+		}
 		return numSegments*this.segmentSize;
 	}
 	
@@ -1088,6 +1251,12 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 		if(this.closed.get() || partitionNumber >= this.partitions.size() || this.partitions.get(partitionNumber).isCompacted()) {
 			return;
 		}
+		// evicted partitions are compacted after they were read back. if the table may evict partitions, make
+		// sure the copy cannot run out of memory halfway, which would leave the bucket pointers inconsistent
+		if(!this.partitions.get(partitionNumber).isInMemory() || (this.ioManager != null && 
+				this.compactionMemory.getBlockCount() + this.availableMemory.size() < this.partitions.get(partitionNumber).getBlockCount())) {
+			return;
+		}
 		// release all segments owned by compaction partition
 		this.compactionMemory.clearAllMemory(availableMemory);
 		this.compactionMemory.allocateSegments(1);
@@ -1196,6 +1365,7 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 	/**
 	 * Iterator that traverses the whole hash table once
 	 * 
+	 * The buckets are visited partition by partition, so that every evicted partition is read back only once.
 	 * If entries are inserted during iteration they may be overlooked by the iterator
 	 */
 	public class EntryIterator implements MutableObjectIterator<T> {
@@ -1204,10 +1374,8 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 		
 		private ArrayList<T> cache; // holds full bucket including its overflow buckets
 				
+		private int currentPartitionNumber = 0;
 		private int currentBucketIndex = 0;
-		private int currentSegmentIndex = 0;
-		private int currentBucketOffset = 0;
-		private int bucketsPerSegment;
 		
 		private boolean done;
 		
@@ -1215,7 +1383,6 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 			this.table = compactingHashTable;
 			this.cache = new ArrayList<T>(64);
 			this.done = false;
-			this.bucketsPerSegment = table.bucketsPerSegmentMask + 1;
 		}
 
 		@Override
@@ -1246,18 +1413,23 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 		 */
 		private boolean fillCache() throws IOException {
 			if(currentBucketIndex >= table.numBuckets) {
-				return false;
+				// continue with the first bucket of the next partition
+				currentPartitionNumber++;
+				currentBucketIndex = currentPartitionNumber;
+				if(currentPartitionNumber >= table.partitions.size() || currentBucketIndex >= table.numBuckets) {
+					return false;
+				}
 			}
-			MemorySegment bucket = table.buckets[currentSegmentIndex];
+			MemorySegment bucket = table.buckets[currentBucketIndex >>> table.bucketsPerSegmentBits];
+			int bucketOffset = (currentBucketIndex & table.bucketsPerSegmentMask) << NUM_INTRA_BUCKET_BITS;
 			// get the basic characteristics of the bucket
-			final int partitionNumber = bucket.get(currentBucketOffset + HEADER_PARTITION_OFFSET);
-			final InMemoryPartition<T> partition = table.partitions.get(partitionNumber);
+			final int partitionNumber = bucket.get(bucketOffset + HEADER_PARTITION_OFFSET);
+			final InMemoryPartition<T> partition = table.getPartitionForAccess(partitionNumber);
 			final MemorySegment[] overflowSegments = partition.overflowSegments;
 			
-			int countInSegment = bucket.getInt(currentBucketOffset + HEADER_COUNT_OFFSET);
+			int countInSegment = bucket.getInt(bucketOffset + HEADER_COUNT_OFFSET);
 			int numInSegment = 0;
-			int posInSegment = currentBucketOffset + BUCKET_POINTER_START_OFFSET;
-			int bucketOffset = currentBucketOffset;
+			int posInSegment = bucketOffset + BUCKET_POINTER_START_OFFSET;
 
 			// loop over all segments that are involved in the bucket (original bucket plus overflow buckets)
 			while (true) {
@@ -1285,13 +1457,8 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 				posInSegment = bucketOffset + BUCKET_POINTER_START_OFFSET;
 				numInSegment = 0;
 			}
-			currentBucketIndex++;
-			if(currentBucketIndex % bucketsPerSegment == 0) {
-				currentSegmentIndex++;
-				currentBucketOffset = 0;
-			} else {
-				currentBucketOffset += HASH_BUCKET_SIZE;
-			}
+			// the buckets of a partition are evenly strided over the table
+			currentBucketIndex += table.partitions.size();
 			return true;
 		}
 		
@@ -1325,7 +1492,12 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 			
 			// get the basic characteristics of the bucket
 			final int partitionNumber = bucket.get(bucketInSegmentOffset + HEADER_PARTITION_OFFSET);
-			final InMemoryPartition<T> p = partitions.get(partitionNumber);
+			final InMemoryPartition<T> p;
+			try {
+				p = getPartitionForRecordAccess(partitionNumber);
+			} catch (IOException e) {
+				throw new RuntimeException("Error reading back an evicted partition of the hashtable: " + e.getMessage(), e);
+			}
 			final MemorySegment[] overflowSegments = p.overflowSegments;
 			
 			this.pairComparator.setReference(probeSideRecord);
@@ -1388,43 +1560,20 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 			if(closed.get()) {
 				return;
 			}
+			// the partition may have been evicted since the match was found
+			final int partitionNumber = this.partition.getPartitionNumber();
+			this.partition = getPartitionForRecordAccess(partitionNumber);
 			long newPointer;
 			try {
 				newPointer = this.partition.appendRecord(record);
 			} catch (EOFException e) {
 				// system is out of memory so we attempt to reclaim memory with a copy compact run
-				try {
-					int partitionNumber = this.partition.getPartitionNumber();
-					compactPartition(partitionNumber);
-					// retry append
-					this.partition = partitions.get(partitionNumber);
-					newPointer = this.partition.appendRecord(record);
-				} catch (EOFException ex) {
-					throw new RuntimeException("Memory ran out. Compaction failed. " + 
-												getMemoryConsumptionString() +
-												" Message: " + ex.getMessage());
-				} catch (IndexOutOfBoundsException ex) {
-					throw new RuntimeException("Memory ran out. Compaction failed. " + 
-												getMemoryConsumptionString() +
-												" Message: " + ex.getMessage());
-				}
+				newPointer = compactAndAppendRecord(partitionNumber, record);
+				this.partition = partitions.get(partitionNumber);
 			} catch (IndexOutOfBoundsException e) {
 				// system is out of memory so we attempt to reclaim memory with a copy compact run
-				try {
-					int partitionNumber = this.partition.getPartitionNumber();
-					compactPartition(partitionNumber);
-					// retry append
-					this.partition = partitions.get(partitionNumber);
-					newPointer = this.partition.appendRecord(record);
-				} catch (EOFException ex) {
-					throw new RuntimeException("Memory ran out. Compaction failed. " + 
-												getMemoryConsumptionString() +
-												" Message: " + ex.getMessage());
-				} catch (IndexOutOfBoundsException ex) {
-					throw new RuntimeException("Memory ran out. Compaction failed. " + 
-												getMemoryConsumptionString() +
-												" Message: " + ex.getMessage());
-				}
+				newPointer = compactAndAppendRecord(partitionNumber, record);
+				this.partition = partitions.get(partitionNumber);
 			}
 			this.bucket.putLong(this.pointerOffsetInBucket, newPointer);
 			this.partition.setCompaction(false);
@@ -71,6 +71,8 @@ public class HashPartition<BT, PT> extends AbstractPagedInputView implements See
 	
 	private int finalBufferLimit;
 	
+	private int numSpilledBuffers;						// the number of buffers spilled after the build phase
+	
 	private BuildSideBuffer<BT> buildSideWriteBuffer;
 	
 	protected ChannelWriterOutputView probeSideBuffer;
@@ -205,7 +207,10 @@ public class HashPartition<BT, PT> extends AbstractPagedInputView implements See
 	}
 	
 	public int getBuildSideBlockCount() {
-		return this.partitionBuffers == null ? this.buildSideWriteBuffer.getBlockCount() : this.partitionBuffers.length;
+		if (this.partitionBuffers != null) {
+			return this.partitionBuffers.length;
+		}
+		return this.numSpilledBuffers > 0 ? this.numSpilledBuffers : this.buildSideWriteBuffer.getBlockCount();
 	}
 	
 	public int getProbeSideBlockCount() {
@@ -331,6 +336,56 @@ public class HashPartition<BT, PT> extends AbstractPagedInputView implements See
 		}
 	}
 	
+	/**
+	 * Spills this partition to disk while the probe side is processed, after its build side was finalized in
+	 * memory. Probe records that have been processed before have already been joined with the partition. The
+	 * probe records that come afterwards are written to the partition's probe side file and are joined when the
+	 * spilled partition is processed. The partition takes one write-behind buffer for its probe side.
+	 * 
+	 * @param target The list to which memory segments from overflow buckets are added.
+	 * @param ioAccess The I/O manager to be used to create the writers to disk.
+	 * @param buildChannel The id of the channel for the build side.
+	 * @param probeChannel The id of the channel for the probe side.
+	 * @param bufferReturnQueue The queue of write-behind buffers, to which the written buffers are returned.
+	 * @return The number of write-behind buffers that became available by spilling this partition.
+	 * @throws IOException Thrown, if the writing failed.
+	 */
+	public int spillInProbePhase(List<MemorySegment> target, IOManager ioAccess, FileIOChannel.ID buildChannel,
+			FileIOChannel.ID probeChannel, LinkedBlockingQueue<MemorySegment> bufferReturnQueue)
+	throws IOException
+	{
+		// sanity checks
+		if (!isInMemory() || this.partitionBuffers == null) {
+			throw new RuntimeException("Bug in Hybrid Hash Join: " +
+					"Request to spill a partition that is not finalized in memory.");
+		}
+		
+		// return the memory from the overflow segments
+		for (int i = 0; i < this.numOverflowSegments; i++) {
+			target.add(this.overflowSegments[i]);
+		}
+		this.overflowSegments = null;
+		this.numOverflowSegments = 0;
+		this.nextOverflowBucket = 0;
+		
+		// write the build side. closing the writer waits until all buffers are written and returned
+		this.buildSideChannel = ioAccess.createBlockChannelWriter(buildChannel, bufferReturnQueue);
+		for (int i = 0; i < this.partitionBuffers.length; i++) {
+			this.buildSideChannel.writeBlock(this.partitionBuffers[i]);
+		}
+		this.buildSideChannel.close();
+		
+		this.numSpilledBuffers = this.partitionBuffers.length;
+		this.partitionBuffers = null;
+		this.overwriteBuffer = null;
+		
+		// create the channel for the probe side, which draws one segment from the write behind queue
+		this.probeSideChannel = ioAccess.createBlockChannelWriter(probeChannel, bufferReturnQueue);
+		this.probeSideBuffer = new ChannelWriterOutputView(this.probeSideChannel, this.memorySegmentSize);
+		
+		return this.numSpilledBuffers - 1;
+	}
+	
 	/**
 	 * @param freeMemory
 	 * @param spilledPartitions
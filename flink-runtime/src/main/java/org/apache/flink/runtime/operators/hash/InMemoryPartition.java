@@ -21,6 +21,9 @@ package org.apache.flink.runtime.operators.hash;
 
 import java.io.EOFException;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -28,6 +31,10 @@ import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.core.memory.MemorySegmentSource;
 import org.apache.flink.core.memory.SeekableDataInputView;
+import org.apache.flink.runtime.io.disk.iomanager.BlockChannelWriter;
+import org.apache.flink.runtime.io.disk.iomanager.BulkBlockChannelReader;
+import org.apache.flink.runtime.io.disk.iomanager.FileIOChannel;
+import org.apache.flink.runtime.io.disk.iomanager.IOManager;
 import org.apache.flink.runtime.memorymanager.AbstractPagedInputView;
 import org.apache.flink.runtime.memorymanager.AbstractPagedOutputView;
 import org.apache.flink.runtime.memorymanager.ListMemorySegmentSource;
@@ -63,6 +70,24 @@ public class InMemoryPartition<T> {
 	
 	private long recordCounter;				// number of records in this partition including garbage
 	
+	// ---------------------------------------- Spilling ------------------------------------------------
+	
+	private BlockChannelWriter spillWriter;		// the writer of the spill file, if the record pages are evicted
+	
+	private int numSpilledPages;					// the number of record pages in the spill file
+	
+	private int spilledWritePage;					// the page of the write position when the partition was evicted
+	
+	private int spilledWriteOffset;				// the offset of the write position when the partition was evicted
+	
+	private int firstPageInMemory;					// the first page written since the eviction, if any
+	
+	private FileChannel spillFile;				// random access to the spill file while the partition is evicted
+	
+	private SpillFileReadView spillFileReadView;	// reads single records from the spill file
+	
+	private int numSpilledRecordReads;			// the number of records read from the spill file since the eviction
+	
 	// ----------------------------------------- General ------------------------------------------------
 	
 	private int partitionNumber;					// the number of the partition
@@ -203,6 +228,32 @@ public class InMemoryPartition<T> {
 		this.compacted = compacted;
 	}
 	
+	/**
+	 * Checks whether the record pages of this partition are in memory or evicted to disk.
+	 * The overflow buckets of a partition are always in memory.
+	 * 
+	 * @return True, if the partition is in memory, false if its record pages are evicted.
+	 */
+	public boolean isInMemory() {
+		return this.spillWriter == null;
+	}
+	
+	/**
+	 * 
+	 * @return number of record pages of an evicted partition that are only in its spill file
+	 */
+	public int getNumSpilledPages() {
+		return this.partitionPages.isEmpty() ? this.numSpilledPages : this.firstPageInMemory;
+	}
+	
+	/**
+	 * 
+	 * @return number of records that were read from the spill file since the partition was evicted
+	 */
+	public int getNumSpilledRecordReads() {
+		return this.numSpilledRecordReads;
+	}
+	
 	// --------------------------------------------------------------------------------------------------
 	
 	/**
@@ -214,6 +265,10 @@ public class InMemoryPartition<T> {
 	 * @throws IOException Thrown when the write failed.
 	 */
 	public final long appendRecord(T record) throws IOException {
+		if (!isInMemory() && this.partitionPages.isEmpty()) {
+			// the partition is evicted. new records go to pages in memory
+			continueWritingInMemory();
+		}
 		long pointer = this.writeView.getCurrentPointer();
 		try {
 			this.serializer.serialize(record, this.writeView);
@@ -231,7 +286,21 @@ public class InMemoryPartition<T> {
 		}
 	}
 	
+	/**
+	 * Reads the record at the given pointer. If the record lies on an evicted page, only the pages that hold the
+	 * record are read from the spill file.
+	 * 
+	 * @param pointer pointer to start of record
+	 * @param reuse instance of T that will be overwritten
+	 * @return the record
+	 * @throws IOException Thrown, if the record could not be read.
+	 */
 	public T readRecordAt(long pointer, T reuse) throws IOException {
+		if (!isInMemory() && (pointer >>> this.pageSizeInBits) < getNumSpilledPages()) {
+			this.numSpilledRecordReads++;
+			this.spillFileReadView.setReadPosition(pointer);
+			return this.serializer.deserialize(reuse, this.spillFileReadView);
+		}
 		this.readView.setReadPosition(pointer);
 		return this.serializer.deserialize(reuse, this.readView);
 	}
@@ -258,6 +327,18 @@ public class InMemoryPartition<T> {
 	 * @param target memory pool to release segments to
 	 */
 	public void clearAllMemory(List<MemorySegment> target) {
+		// remove the spill file of an evicted partition
+		if (this.spillWriter != null) {
+			try {
+				closeSpillFile();
+			} catch (IOException e) {
+				// the file is deleted regardless
+			}
+			this.spillWriter.deleteChannel();
+			this.spillWriter = null;
+			this.numSpilledPages = 0;
+			this.firstPageInMemory = 0;
+		}
 		// return the overflow segments
 		if (this.overflowSegments != null) {
 			for (int k = 0; k < this.numOverflowSegments; k++) {
@@ -286,6 +367,136 @@ public class InMemoryPartition<T> {
 		}
 	}
 	
+	/**
+	 * Writes the record pages of this partition to the given channel and releases them. The overflow buckets stay
+	 * in memory. Because {@link #restorePartition(IOManager, List)} brings the pages back in the same order, all
+	 * pointers into this partition remain valid. If the partition is already evicted, the pages that were written
+	 * since then are written to its spill file and the given channel is not used.
+	 * 
+	 * @param ioManager The I/O manager used to create the channel writer.
+	 * @param targetChannel The channel to write the record pages to.
+	 * @param target memory pool to release the written segments to
+	 * @param readBuffer page to read single records of the evicted partition into
+	 * @return The number of released segments.
+	 * @throws IOException Thrown, if the pages could not be written.
+	 */
+	public int spillPartition(IOManager ioManager, FileIOChannel.ID targetChannel, List<MemorySegment> target,
+			MemorySegment readBuffer)
+	throws IOException
+	{
+		if (this.partitionPages.isEmpty()) {
+			throw new IllegalStateException("Partition " + this.partitionNumber + " is already evicted.");
+		}
+		
+		this.spilledWritePage = this.writeView.currentPageNumber;
+		this.spilledWriteOffset = this.writeView.getCurrentPositionInSegment();
+		
+		if (isInMemory()) {
+			this.spillWriter = ioManager.createBlockChannelWriter(targetChannel);
+			for (int i = 0; i < this.partitionPages.size(); i++) {
+				this.spillWriter.writeBlock(this.partitionPages.get(i));
+			}
+			// closing waits until all pages are written
+			this.spillWriter.close();
+			this.spillWriter.getReturnQueue().clear();
+			
+			@SuppressWarnings("resource")
+			final RandomAccessFile file = new RandomAccessFile(targetChannel.getPath(), "rw");
+			this.spillFile = file.getChannel();
+			this.spillFileReadView = new SpillFileReadView(readBuffer);
+			this.numSpilledRecordReads = 0;
+		} else {
+			for (int i = 0; i < this.partitionPages.size(); i++) {
+				writeSpilledPage(this.partitionPages.get(i), this.firstPageInMemory + i);
+			}
+		}
+		
+		final int numPages = this.partitionPages.size();
+		this.numSpilledPages = Math.max(this.numSpilledPages, this.firstPageInMemory + numPages);
+		target.addAll(this.partitionPages);
+		this.partitionPages.clear();
+		return numPages;
+	}
+	
+	/**
+	 * Reads the record pages of an evicted partition back into memory and deletes the spill file.
+	 * 
+	 * @param ioManager The I/O manager used to create the channel reader.
+	 * @param availableMemory memory pool to take the segments from, must hold at least {@link #getNumSpilledPages()} segments
+	 * @throws IOException Thrown, if the pages could not be read.
+	 */
+	public void restorePartition(IOManager ioManager, List<MemorySegment> availableMemory) throws IOException {
+		if (isInMemory()) {
+			throw new IllegalStateException("Partition " + this.partitionNumber + " is not evicted.");
+		}
+		
+		// the pages written since the eviction replace their spilled versions
+		final boolean writingInMemory = !this.partitionPages.isEmpty();
+		final int numPages = getNumSpilledPages();
+		
+		closeSpillFile();
+		final BulkBlockChannelReader reader = ioManager.createBulkBlockChannelReader(this.spillWriter.getChannelID(),
+			availableMemory, numPages);
+		reader.closeAndDelete();
+		
+		this.partitionPages.addAll(0, reader.getFullSegments());
+		this.writeView.setSegmentNumberOffset(0);
+		this.readView.setSegmentNumberOffset(0);
+		
+		this.spillWriter = null;
+		this.numSpilledPages = 0;
+		this.firstPageInMemory = 0;
+		if (!writingInMemory) {
+			this.writeView.restoreTo(this.spilledWritePage, this.spilledWriteOffset);
+		}
+	}
+	
+	/**
+	 * Reads the page of the write position of an evicted partition back in, so that appended records go to
+	 * memory. The pages before it stay in the spill file, and the pointers into them remain valid.
+	 * 
+	 * @throws IOException Thrown, if no memory is available or the page could not be read.
+	 */
+	private void continueWritingInMemory() throws IOException {
+		final MemorySegment page = this.availableMemory.nextSegment();
+		if (page == null) {
+			throw new EOFException();
+		}
+		readSpilledPage(page, this.spilledWritePage);
+		
+		this.partitionPages.add(page);
+		this.firstPageInMemory = this.spilledWritePage;
+		this.writeView.setSegmentNumberOffset(this.spilledWritePage);
+		this.readView.setSegmentNumberOffset(this.spilledWritePage);
+		this.writeView.restoreTo(this.spilledWritePage, this.spilledWriteOffset);
+	}
+	
+	private void writeSpilledPage(MemorySegment page, int pageNumber) throws IOException {
+		final ByteBuffer buffer = page.wrap(0, this.pageSize);
+		final long position = ((long) pageNumber) << this.pageSizeInBits;
+		while (buffer.hasRemaining()) {
+			this.spillFile.write(buffer, position + buffer.position());
+		}
+	}
+	
+	private void readSpilledPage(MemorySegment page, int pageNumber) throws IOException {
+		final ByteBuffer buffer = page.wrap(0, this.pageSize);
+		final long position = ((long) pageNumber) << this.pageSizeInBits;
+		while (buffer.hasRemaining()) {
+			if (this.spillFile.read(buffer, position + buffer.position()) < 0) {
+				throw new EOFException("Page " + pageNumber + " is missing in the spill file of partition " + this.partitionNumber + ".");
+			}
+		}
+	}
+	
+	private void closeSpillFile() throws IOException {
+		if (this.spillFile != null) {
+			this.spillFile.close();
+			this.spillFile = null;
+			this.spillFileReadView = null;
+		}
+	}
+	
 	@Override
 	public String toString() {
 		return String.format("Partition %d - %d records, %d partition blocks, %d bucket overflow blocks", getPartitionNumber(), getRecordCount(), getBlockCount(), this.numOverflowSegments);
@@ -323,11 +534,18 @@ public class InMemoryPartition<T> {
 
 		@Override
 		protected MemorySegment nextSegment(MemorySegment current, int bytesUsed) throws IOException {
-			MemorySegment next = this.memSource.nextSegment();
-			if(next == null) {
-				throw new EOFException();
+			final int nextPosInArray = this.currentPageNumber + 1 - this.segmentNumberOffset;
+			final MemorySegment next;
+			if (nextPosInArray < this.pages.size()) {
+				// the page was obtained by a write that has been rolled back
+				next = this.pages.get(nextPosInArray);
+			} else {
+				next = this.memSource.nextSegment();
+				if(next == null) {
+					throw new EOFException();
+				}
+				this.pages.add(next);
 			}
-			this.pages.add(next);
 			
 			this.currentPageNumber++;
 			return next;
@@ -341,15 +559,25 @@ public class InMemoryPartition<T> {
 			final int pageNum  = (int) (pointer >>> this.sizeBits);
 			final int offset = (int) (pointer & this.sizeMask);
 			
-			this.currentPageNumber = pageNum;
-			
 			int posInArray = pageNum - this.segmentNumberOffset;
+			if (offset == 0 && posInArray == this.pages.size() && posInArray > 0) {
+				// the pointer is at the end of the last page, which was completely filled
+				this.currentPageNumber = pageNum - 1;
+				seekOutput(this.pages.get(posInArray - 1), this.sizeMask + 1);
+				return posInArray - 1;
+			}
+			
+			this.currentPageNumber = pageNum;
 			seekOutput(this.pages.get(posInArray), offset);
 			
 			return posInArray;
 		}
 		
-		@SuppressWarnings("unused")
+		private void restoreTo(int pageNum, int offset) {
+			this.currentPageNumber = pageNum;
+			seekOutput(this.pages.get(pageNum - this.segmentNumberOffset), offset);
+		}
+		
 		public void setSegmentNumberOffset(int offset) {
 			this.segmentNumberOffset = offset;
 		}
@@ -405,10 +633,45 @@ public class InMemoryPartition<T> {
 			seekInput(this.segments.get(bufferNum), offset, this.segmentSizeMask + 1);
 		}
 		
-		@SuppressWarnings("unused")
 		public void setSegmentNumberOffset(int offset) {
 			this.segmentNumberOffset = offset;
 		}
 	}
-
+	
+	
+	/**
+	 * Reads records of an evicted partition page by page from its spill file into a single buffer.
+	 */
+	private final class SpillFileReadView extends AbstractPagedInputView {
+		
+		private final MemorySegment buffer;
+		
+		private int currentPageNumber;
+		
+		
+		private SpillFileReadView(MemorySegment buffer) {
+			super(0);
+			this.buffer = buffer;
+		}
+		
+		@Override
+		protected MemorySegment nextSegment(MemorySegment current) throws IOException {
+			if (++this.currentPageNumber >= numSpilledPages) {
+				throw new EOFException();
+			}
+			readSpilledPage(this.buffer, this.currentPageNumber);
+			return this.buffer;
+		}
+		
+		@Override
+		protected int getLimitForSegment(MemorySegment segment) {
+			return pageSize;
+		}
+		
+		private void setReadPosition(long pointer) throws IOException {
+			this.currentPageNumber = (int) (pointer >>> pageSizeInBits);
+			readSpilledPage(this.buffer, this.currentPageNumber);
+			seekInput(this.buffer, (int) (pointer & (pageSize - 1)), pageSize);
+		}
+	}
 }
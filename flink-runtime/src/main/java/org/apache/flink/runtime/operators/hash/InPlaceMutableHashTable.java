@@ -0,0 +1,435 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.operators.hash;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.flink.api.common.typeutils.TypeComparator;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.runtime.io.disk.RandomAccessInputView;
+import org.apache.flink.runtime.io.network.serialization.DataOutputSerializer;
+import org.apache.flink.runtime.util.MathUtils;
+import org.apache.flink.util.MutableObjectIterator;
+
+/**
+ * A hash table that keeps one record per key and allows to update that record in place. It is the
+ * building block for hash based aggregations, where every incoming record is looked up, combined with
+ * the stored record, and written back.
+ * <p>
+ * The table never spills. Instead, {@link #insert(Object)} and {@link #updateMatch(Object)} return
+ * false when the memory is exhausted, and the caller decides how to continue, for example by emitting
+ * the contents and calling {@link #reset()}.
+ * <p>
+ * The memory is split into a bucket directory and a record area. Each bucket holds a pointer to the
+ * head of a chain of entries. Each entry consists of a header (pointer to the next entry, hash code,
+ * capacity) and the serialized record. An update that fits into the capacity of the entry overwrites
+ * the record, otherwise the record is appended to the record area and the chain is relinked. The space
+ * of the replaced entry is only reclaimed when the table is reset.
+ *
+ * @param <T> The type of the records in the table.
+ */
+public class InPlaceMutableHashTable<T> {
+
+	/** The pointer value that marks the end of a chain. */
+	private static final long END_OF_CHAIN = -1L;
+
+	/** The size of the header of an entry: next pointer (8 bytes), hash (4 bytes), capacity (4 bytes). */
+	private static final int ENTRY_HEADER_SIZE = 16;
+
+	private static final int HEADER_HASH_OFFSET = 8;
+
+	private static final int HEADER_CAPACITY_OFFSET = 12;
+
+	/** The size of a pointer in the bucket directory. */
+	private static final int POINTER_SIZE = 8;
+
+	/** The record length assumed for sizing the bucket directory, if the serializer has no fixed length. */
+	private static final int DEFAULT_RECORD_LEN = 24;
+
+	// ------------------------------------------------------------------------
+
+	private final TypeSerializer<T> serializer;
+
+	private final TypeComparator<T> comparator;
+
+	private final MemorySegment[] buckets;
+
+	private final MemorySegment[] records;
+
+	private final RandomAccessInputView recordsView;
+
+	private final DataOutputSerializer staging;
+
+	private final int segmentSize;
+
+	private final int segmentSizeBits;
+
+	private final int segmentSizeMask;
+
+	private final int bucketsPerSegmentBits;
+
+	private final int bucketsPerSegmentMask;
+
+	private final int numBuckets;
+
+	private final long recordAreaSize;
+
+	private long appendPosition;			// the position where the next entry is appended
+
+	private boolean empty;
+
+	// the state of the last successful lookup, used by updateMatch() and removeMatch()
+
+	private long matchPointer = END_OF_CHAIN;			// the entry that matched the last lookup
+
+	private MemorySegment matchLinkSegment;			// the segment holding the pointer to the match
+
+	private int matchLinkOffset;						// the offset of the pointer to the match
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Creates a new table over the given memory. The table takes ownership of the memory until it is
+	 * returned by {@link #dispose()}.
+	 *
+	 * @param serializer The serializer for the records.
+	 * @param comparator The comparator for the keys of the records.
+	 * @param memory The memory for the table. At least two segments are required.
+	 */
+	public InPlaceMutableHashTable(TypeSerializer<T> serializer, TypeComparator<T> comparator, List<MemorySegment> memory) {
+		if (serializer == null || comparator == null || memory == null) {
+			throw new NullPointerException();
+		}
+		if (memory.size() < 2) {
+			throw new IllegalArgumentException("The hash table needs at least two memory segments.");
+		}
+
+		this.serializer = serializer;
+		this.comparator = comparator;
+
+		this.segmentSize = memory.get(0).size();
+		this.segmentSizeBits = MathUtils.log2strict(this.segmentSize);
+		this.segmentSizeMask = this.segmentSize - 1;
+
+		final int bucketsPerSegment = this.segmentSize / POINTER_SIZE;
+		this.bucketsPerSegmentBits = MathUtils.log2strict(bucketsPerSegment);
+		this.bucketsPerSegmentMask = bucketsPerSegment - 1;
+
+		// size the bucket directory such that there is roughly one bucket per expected record.
+		// the number of bucket segments is a power of two, so that the bucket can be found by masking
+		final int recordLen = serializer.getLength() > 0 ? serializer.getLength() : DEFAULT_RECORD_LEN;
+		final long totalBytes = ((long) memory.size()) * this.segmentSize;
+		final long expectedRecords = totalBytes / (recordLen + ENTRY_HEADER_SIZE + POINTER_SIZE);
+		final long bucketBytes = expectedRecords * POINTER_SIZE;
+
+		int numBucketSegments = (int) Math.max(1, Math.min(memory.size() / 2, bucketBytes / this.segmentSize));
+		numBucketSegments = Integer.highestOneBit(numBucketSegments);
+
+		this.buckets = new MemorySegment[numBucketSegments];
+		this.records = new MemorySegment[memory.size() - numBucketSegments];
+		for (int i = 0; i < this.buckets.length; i++) {
+			this.buckets[i] = memory.get(i);
+		}
+		final ArrayList<MemorySegment> recordSegments = new ArrayList<MemorySegment>(this.records.length);
+		for (int i = 0; i < this.records.length; i++) {
+			this.records[i] = memory.get(numBucketSegments + i);
+			recordSegments.add(this.records[i]);
+		}
+
+		this.numBuckets = numBucketSegments * bucketsPerSegment;
+		this.recordAreaSize = ((long) this.records.length) * this.segmentSize;
+		this.recordsView = new RandomAccessInputView(recordSegments, this.segmentSize);
+		this.staging = new DataOutputSerializer(recordLen);
+
+		reset();
+	}
+
+	// ------------------------------------------------------------------------
+	//                              Access
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Looks up the record with the same key as the given probe record. If a match is found, it is
+	 * remembered, so that it can subsequently be updated through {@link #updateMatch(Object)} or removed
+	 * through {@link #removeMatch()}.
+	 *
+	 * @param probe The record whose key is looked up.
+	 * @param reuse The object into which the match is deserialized.
+	 * @return The match, or null, if the table contains no record with the probe's key.
+	 * @throws IOException Thrown, if the stored record could not be deserialized.
+	 */
+	public T getMatchFor(T probe, T reuse) throws IOException {
+		final int hashCode = hash(this.comparator.hash(probe));
+		final int bucket = hashCode & (this.numBuckets - 1);
+
+		MemorySegment linkSegment = this.buckets[bucket >>> this.bucketsPerSegmentBits];
+		int linkOffset = (bucket & this.bucketsPerSegmentMask) << 3;
+		long pointer = linkSegment.getLong(linkOffset);
+
+		this.comparator.setReference(probe);
+
+		while (pointer != END_OF_CHAIN) {
+			final MemorySegment seg = this.records[(int) (pointer >>> this.segmentSizeBits)];
+			final int offset = (int) (pointer & this.segmentSizeMask);
+
+			if (seg.getInt(offset + HEADER_HASH_OFFSET) == hashCode) {
+				this.recordsView.setReadPosition(pointer + ENTRY_HEADER_SIZE);
+				reuse = this.serializer.deserialize(reuse, this.recordsView);
+
+				if (this.comparator.equalToReference(reuse)) {
+					this.matchPointer = pointer;
+					this.matchLinkSegment = linkSegment;
+					this.matchLinkOffset = linkOffset;
+					return reuse;
+				}
+			}
+
+			linkSegment = seg;
+			linkOffset = offset;
+			pointer = seg.getLong(offset);
+		}
+
+		this.matchPointer = END_OF_CHAIN;
+		return null;
+	}
+
+	/**
+	 * Replaces the record found by the last successful call to {@link #getMatchFor(Object, Object)}
+	 * with the given record. The given record must have the same key as the match.
+	 *
+	 * @param record The record that replaces the match.
+	 * @return True, if the record was written, false, if the table has no more memory for it.
+	 * @throws IOException Thrown, if the record could not be serialized.
+	 */
+	public boolean updateMatch(T record) throws IOException {
+		if (this.matchPointer == END_OF_CHAIN) {
+			throw new IllegalStateException("No match to update. The last lookup did not find a match.");
+		}
+
+		final int len = serializeToStaging(record);
+
+		final MemorySegment seg = this.records[(int) (this.matchPointer >>> this.segmentSizeBits)];
+		final int offset = (int) (this.matchPointer & this.segmentSizeMask);
+
+		if (len <= seg.getInt(offset + HEADER_CAPACITY_OFFSET)) {
+			// the record fits into the old entry, overwrite it in place
+			writeBytes(this.matchPointer + ENTRY_HEADER_SIZE, this.staging.wrapAsByteBuffer().array(), len);
+			return true;
+		}
+
+		// append a new entry and link it in place of the old one
+		final long newPointer = appendEntry(seg.getLong(offset), seg.getInt(offset + HEADER_HASH_OFFSET), len);
+		if (newPointer == END_OF_CHAIN) {
+			return false;
+		}
+		this.matchLinkSegment.putLong(this.matchLinkOffset, newPointer);
+		this.matchPointer = newPointer;
+		return true;
+	}
+
+	/**
+	 * Removes the record found by the last successful call to {@link #getMatchFor(Object, Object)}
+	 * from the table.
+	 */
+	public void removeMatch() {
+		if (this.matchPointer == END_OF_CHAIN) {
+			throw new IllegalStateException("No match to remove. The last lookup did not find a match.");
+		}
+
+		final MemorySegment seg = this.records[(int) (this.matchPointer >>> this.segmentSizeBits)];
+		final int offset = (int) (this.matchPointer & this.segmentSizeMask);
+		this.matchLinkSegment.putLong(this.matchLinkOffset, seg.getLong(offset));
+		this.matchPointer = END_OF_CHAIN;
+	}
+
+	/**
+	 * Inserts the given record into the table. The table must not contain a record with the same key.
+	 *
+	 * @param record The record to insert.
+	 * @return True, if the record was inserted, false, if the table has no more memory for it.
+	 * @throws IOException Thrown, if the record could not be serialized.
+	 */
+	public boolean insert(T record) throws IOException {
+		final int hashCode = hash(this.comparator.hash(record));
+		final int bucket = hashCode & (this.numBuckets - 1);
+
+		final MemorySegment bucketSegment = this.buckets[bucket >>> this.bucketsPerSegmentBits];
+		final int bucketOffset = (bucket & this.bucketsPerSegmentMask) << 3;
+
+		final int len = serializeToStaging(record);
+		final long pointer = appendEntry(bucketSegment.getLong(bucketOffset), hashCode, len);
+		if (pointer == END_OF_CHAIN) {
+			return false;
+		}
+
+		bucketSegment.putLong(bucketOffset, pointer);
+		this.matchPointer = END_OF_CHAIN;
+		this.empty = false;
+		return true;
+	}
+
+	/**
+	 * Checks whether the table contains no records.
+	 *
+	 * @return True, if the table is empty, false otherwise.
+	 */
+	public boolean isEmpty() {
+		return this.empty;
+	}
+
+	/**
+	 * Removes all records from the table.
+	 */
+	public void reset() {
+		for (MemorySegment seg : this.buckets) {
+			for (int offset = 0; offset < this.segmentSize; offset += POINTER_SIZE) {
+				seg.putLong(offset, END_OF_CHAIN);
+			}
+		}
+		this.appendPosition = 0;
+		this.matchPointer = END_OF_CHAIN;
+		this.empty = true;
+	}
+
+	/**
+	 * Gets an iterator over all records in the table. The table must not be modified while the
+	 * iterator is in use.
+	 *
+	 * @return An iterator over all records in the table.
+	 */
+	public MutableObjectIterator<T> getEntryIterator() {
+		return new EntryIterator();
+	}
+
+	/**
+	 * Returns the memory of the table. The table must not be used afterwards.
+	 *
+	 * @return The memory segments that were given to the table.
+	 */
+	public List<MemorySegment> dispose() {
+		final List<MemorySegment> memory = new ArrayList<MemorySegment>(this.buckets.length + this.records.length);
+		for (MemorySegment seg : this.buckets) {
+			memory.add(seg);
+		}
+		for (MemorySegment seg : this.records) {
+			memory.add(seg);
+		}
+		return memory;
+	}
+
+	// ------------------------------------------------------------------------
+	//                              Internals
+	// ------------------------------------------------------------------------
+
+	private int serializeToStaging(T record) throws IOException {
+		this.staging.clear();
+		this.serializer.serialize(record, this.staging);
+		return this.staging.length();
+	}
+
+	/**
+	 * Appends an entry with the record from the staging buffer to the record area. Entry headers are
+	 * aligned such that they never span two segments, the record itself may.
+	 *
+	 * @return The pointer to the new entry, or {@code END_OF_CHAIN}, if the record area is full.
+	 */
+	private long appendEntry(long next, int hashCode, int len) {
+		long pointer = this.appendPosition;
+		if (this.segmentSize - (int) (pointer & this.segmentSizeMask) < ENTRY_HEADER_SIZE) {
+			pointer = ((pointer >>> this.segmentSizeBits) + 1) << this.segmentSizeBits;
+		}
+		if (pointer + ENTRY_HEADER_SIZE + len >= this.recordAreaSize) {
+			return END_OF_CHAIN;
+		}
+
+		final MemorySegment seg = this.records[(int) (pointer >>> this.segmentSizeBits)];
+		final int offset = (int) (pointer & this.segmentSizeMask);
+		seg.putLong(offset, next);
+		seg.putInt(offset + HEADER_HASH_OFFSET, hashCode);
+		seg.putInt(offset + HEADER_CAPACITY_OFFSET, len);
+		writeBytes(pointer + ENTRY_HEADER_SIZE, this.staging.wrapAsByteBuffer().array(), len);
+
+		this.appendPosition = pointer + ENTRY_HEADER_SIZE + len;
+		return pointer;
+	}
+
+	private void writeBytes(long position, byte[] bytes, int len) {
+		int segIndex = (int) (position >>> this.segmentSizeBits);
+		int offset = (int) (position & this.segmentSizeMask);
+		int written = 0;
+
+		while (written < len) {
+			final int toWrite = Math.min(len - written, this.segmentSize - offset);
+			this.records[segIndex].put(offset, bytes, written, toWrite);
+			written += toWrite;
+			segIndex++;
+			offset = 0;
+		}
+	}
+
+	/**
+	 * The same hash function as in the {@link CompactingHashTable}, to decorrelate the bucket from the
+	 * partitioning of the data.
+	 */
+	private static final int hash(int code) {
+		code = (code + 0x7ed55d16) + (code << 12);
+		code = (code ^ 0xc761c23c) ^ (code >>> 19);
+		code = (code + 0x165667b1) + (code << 5);
+		code = (code + 0xd3a2646c) ^ (code << 9);
+		code = (code + 0xfd7046c5) + (code << 3);
+		code = (code ^ 0xb55a4f09) ^ (code >>> 16);
+		return code >= 0 ? code : -(code + 1);
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Iterator that follows the chains of all buckets, so that replaced and removed entries are skipped.
+	 */
+	private final class EntryIterator implements MutableObjectIterator<T> {
+
+		private int bucket = -1;
+
+		private long pointer = END_OF_CHAIN;
+
+		@Override
+		public T next(T reuse) throws IOException {
+			final InPlaceMutableHashTable<T> table = InPlaceMutableHashTable.this;
+
+			while (this.pointer == END_OF_CHAIN) {
+				if (++this.bucket >= table.numBuckets) {
+					return null;
+				}
+				this.pointer = table.buckets[this.bucket >>> table.bucketsPerSegmentBits]
+						.getLong((this.bucket & table.bucketsPerSegmentMask) << 3);
+			}
+
+			table.recordsView.setReadPosition(this.pointer + ENTRY_HEADER_SIZE);
+			reuse = table.serializer.deserialize(reuse, table.recordsView);
+
+			this.pointer = table.records[(int) (this.pointer >>> table.segmentSizeBits)]
+					.getLong((int) (this.pointer & table.segmentSizeMask));
+			return reuse;
+		}
+	}
+}
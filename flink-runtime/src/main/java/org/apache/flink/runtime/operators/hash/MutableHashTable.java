@@ -25,6 +25,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,6 +43,10 @@ import org.apache.flink.runtime.io.disk.iomanager.ChannelReaderInputView;
 import org.apache.flink.runtime.io.disk.iomanager.HeaderlessChannelReaderInputView;
 import org.apache.flink.runtime.io.disk.iomanager.IOManager;
 import org.apache.flink.runtime.iterative.io.HashPartitionIterator;
+import org.apache.flink.runtime.jobgraph.tasks.AbstractInvokable;
+import org.apache.flink.runtime.memorymanager.MemoryManager;
+import org.apache.flink.runtime.memorymanager.SpillRequestCallback;
+import org.apache.flink.runtime.operators.util.BloomFilter;
 import org.apache.flink.runtime.util.MathUtils;
 import org.apache.flink.util.MutableObjectIterator;
 
@@ -89,7 +94,7 @@ import org.apache.flink.util.MutableObjectIterator;
  * @param <BT> The type of records from the build side that are stored in the hash table.
  * @param <PT> The type of records from the probe side that are stored in the hash table.
  */
-public class MutableHashTable<BT, PT> implements MemorySegmentSource {
+public class MutableHashTable<BT, PT> implements MemorySegmentSource, SpillRequestCallback {
 	
 	private static final Logger LOG = LoggerFactory.getLogger(MutableHashTable.class);
 	
@@ -160,6 +165,11 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 	
 	private static final int BUCKET_POINTER_START_OFFSET = BUCKET_HEADER_LENGTH + (NUM_ENTRIES_PER_BUCKET * HASH_CODE_LEN);
 	
+	/**
+	 * The number of bits that the Bloom filter of a spilled bucket sets per hash code.
+	 */
+	private static final int NUM_BLOOM_FILTER_HASH_FUNCTIONS = 3;
+	
 	// ------------------------------ Bucket Header Fields ------------------------------
 	
 	/**
@@ -188,7 +198,12 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 	 */
 	private static final long BUCKET_FORWARD_POINTER_NOT_SET = ~0x0L;
 	
-//	private static final byte BUCKET_STATUS_SPILLED = 1;
+	/**
+	 * Constant for the bucket status, indicating that the bucket's partition is spilled. Instead of
+	 * hash codes and pointers, the bucket holds a Bloom filter over the hash codes of the partition's
+	 * build-side records that belong to the bucket.
+	 */
+	private static final byte BUCKET_STATUS_SPILLED = 1;
 	
 	/**
 	 * Constant for the bucket status, indicating that the bucket is in memory.
@@ -248,7 +263,7 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 	/**
 	 * The total number of memory segments available to the hash join.
 	 */
-	private final int totalNumBuffers;
+	private int totalNumBuffers;
 	
 	/**
 	 * The number of write-behind buffers used.
@@ -273,6 +288,16 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 	 */
 	private final int avgRecordLen;
 	
+	/**
+	 * The Bloom filter accessor for the buckets of spilled partitions.
+	 */
+	private final BloomFilter bloomFilter;
+	
+	/**
+	 * Scratch space for the hash codes of a bucket that is turned into a Bloom filter.
+	 */
+	private final int[] bucketHashCodes;
+	
 	// ------------------------------------------------------------------------
 	
 	/**
@@ -347,6 +372,21 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 	protected boolean furtherPartitioning = false;
 	
 	private boolean running = true;
+	
+	/**
+	 * The memory manager from which the hash join borrowed memory beyond its own share, if any.
+	 */
+	private MemoryManager borrowedFrom;
+	
+	/**
+	 * The number of memory segments that the hash join holds as borrowed memory.
+	 */
+	private int numBorrowedBuffers;
+	
+	/**
+	 * The number of borrowed memory segments that the memory manager requested back.
+	 */
+	private final AtomicInteger numBuffersRequestedBack = new AtomicInteger();
 
 	// ------------------------------------------------------------------------
 	//                         Construction and Teardown
@@ -407,11 +447,50 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 		this.partitionsBeingBuilt = new ArrayList<HashPartition<BT, PT>>();
 		this.partitionsPending = new ArrayList<HashPartition<BT, PT>>();
 		
+		this.bloomFilter = new BloomFilter(HASH_BUCKET_SIZE - BUCKET_HEADER_LENGTH, NUM_BLOOM_FILTER_HASH_FUNCTIONS);
+		this.bucketHashCodes = new int[NUM_ENTRIES_PER_BUCKET];
+		
 		// because we allow to open and close multiple times, the state is initially closed
 		this.closed.set(true);
 	}
 	
 	
+	/**
+	 * Borrows memory beyond the share of the hash join from the given memory manager, if other slots
+	 * currently do not use it. The borrowed memory is given back when the memory manager requests it,
+	 * by spilling partitions where necessary. The borrowed memory is returned together with the
+	 * hash join's own memory through {@link #getFreedMemory()}.
+	 * <p>
+	 * This method must be called before the hash join is opened.
+	 * 
+	 * @param memManager The memory manager to borrow the memory from.
+	 * @param owner The owner of the borrowed memory.
+	 * @param maxPages The maximal number of memory segments to borrow.
+	 * @return The number of borrowed memory segments.
+	 */
+	public int borrowMemory(MemoryManager memManager, AbstractInvokable owner, int maxPages) {
+		if (!this.closed.get()) {
+			throw new IllegalStateException("Cannot borrow memory while join is open.");
+		}
+		
+		final int numBorrowed = memManager.borrowPages(owner, this.availableMemory, maxPages, this);
+		if (numBorrowed > 0) {
+			this.borrowedFrom = memManager;
+			this.numBorrowedBuffers += numBorrowed;
+			this.totalNumBuffers += numBorrowed;
+			
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("Hash join borrowed " + numBorrowed + " memory segments.");
+			}
+		}
+		return numBorrowed;
+	}
+	
+	@Override
+	public void requestSpill(int numPages) {
+		this.numBuffersRequestedBack.addAndGet(numPages);
+	}
+	
 	// ------------------------------------------------------------------------
 	//                              Life-Cycle
 	// ------------------------------------------------------------------------
@@ -450,6 +529,11 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 		final ProbeIterator<PT> probeIter = this.probeIterator;
 		final TypeComparator<PT> probeAccessors = this.probeSideComparator;
 		
+		// the matches of the previous probe record have been consumed, so partitions may be spilled here
+		if (this.numBuffersRequestedBack.get() > 0) {
+			giveBackBorrowedBuffersWhileProbing();
+		}
+		
 		PT next;
 		while ((next = probeIter.next()) != null) {
 			final int hash = hash(probeAccessors.hash(next), this.currentRecursionDepth);
@@ -464,13 +548,16 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 			final int partitionNumber = bucket.get(bucketInSegmentOffset + HEADER_PARTITION_OFFSET);
 			final HashPartition<BT, PT> p = this.partitionsBeingBuilt.get(partitionNumber);
 			
-			// for an in-memory partition, process set the return iterators, else spill the probe records
+			// for an in-memory partition, process set the return iterators, else spill the probe records.
+			// probe records that no build-side record can match are dropped before they are spilled
 			if (p.isInMemory()) {
 				this.recordComparator.setReference(next);
 				this.bucketIterator.set(bucket, p.overflowSegments, p, hash, bucketInSegmentOffset);
 				return true;
 			}
-			else {
+			else if (bucket.get(bucketInSegmentOffset + HEADER_STATUS_OFFSET) != BUCKET_STATUS_SPILLED ||
+					testBloomFilter(bucket, bucketInSegmentOffset, hash))
+			{
 				p.insertIntoProbeBuffer(next);
 			}
 		}
@@ -493,6 +580,10 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 		this.writeBehindBuffersAvailable += buffersAvailable;
 		
 		releaseTable();
+		
+		if (this.numBuffersRequestedBack.get() > 0) {
+			giveBackBorrowedBuffers(false);
+		}
 
 		if (this.currentSpilledProbeSide != null) {
 			this.currentSpilledProbeSide.closeAndDelete();
@@ -696,6 +787,10 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 		while (this.running && ((record = input.next(record)) != null)) {
 			final int hashCode = hash(buildTypeComparator.hash(record), 0);
 			insertIntoTable(record, hashCode);
+			
+			if (this.numBuffersRequestedBack.get() > 0) {
+				giveBackBorrowedBuffers(true);
+			}
 		}
 		
 		if (!this.running) {
@@ -852,6 +947,10 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 			// record was inserted into an in-memory partition. a pointer must be inserted into the buckets
 			insertBucketEntry(p, bucket, bucketInSegmentPos, hashCode, pointer);
 		}
+		else if (bucket.get(bucketInSegmentPos + HEADER_STATUS_OFFSET) == BUCKET_STATUS_SPILLED) {
+			// record went to a spilled partition. the bucket's Bloom filter must know its hash code
+			addToBloomFilter(bucket, bucketInSegmentPos, hashCode);
+		}
 	}
 	
 	/**
@@ -922,7 +1021,9 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 					// no memory available to create overflow bucket. we need to spill a partition
 					final int spilledPart = spillPartition();
 					if (spilledPart == p.getPartitionNumber()) {
-						// this bucket is no longer in-memory
+						// this bucket is no longer in-memory. the current entry was not part of it, when it
+						// was turned into a Bloom filter
+						addToBloomFilter(bucket, bucketInSegmentPos, hashCode);
 						return;
 					}
 					overflowSeg = getNextBuffer();
@@ -1086,6 +1187,9 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 		}
 		final HashPartition<BT, PT> p = partitions.get(largestPartNum);
 		
+		// turn the partition's buckets into Bloom filters, while the overflow buckets are still present
+		buildBloomFiltersForBucketsInPartition(largestPartNum, p);
+		
 		// spill the partition
 		int numBuffersFreed = p.spillPartition(this.availableMemory, this.ioManager, 
 										this.currentEnumerator.next(), this.writeBehindBuffers);
@@ -1099,6 +1203,158 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 		return largestPartNum;
 	}
 	
+	/**
+	 * Gives borrowed memory segments back to the memory manager, as far as it requested them back.
+	 * Free segments are given back first. If those do not suffice, partitions are spilled, if permitted.
+	 * Segments that cannot be given back right now are given back when the hash join is closed and
+	 * its memory is released.
+	 * 
+	 * @param spillIfNecessary True, if partitions may be spilled to free segments, false otherwise.
+	 */
+	protected void giveBackBorrowedBuffers(boolean spillIfNecessary) throws IOException {
+		while (this.numBorrowedBuffers > 0 && this.numBuffersRequestedBack.get() > 0) {
+			MemorySegment seg = getNextBuffer();
+			if (seg == null) {
+				if (!spillIfNecessary || !hasInMemoryPartition()) {
+					return;
+				}
+				spillPartition();
+				if ((seg = getNextBuffer()) == null) {
+					return;
+				}
+			}
+			
+			this.borrowedFrom.release(seg);
+			this.numBorrowedBuffers--;
+			this.totalNumBuffers--;
+			this.numBuffersRequestedBack.decrementAndGet();
+		}
+		
+		if (this.numBorrowedBuffers == 0) {
+			// nothing left to give back
+			this.numBuffersRequestedBack.set(0);
+		}
+	}
+	
+	/**
+	 * Gives borrowed memory segments back to the memory manager while the probe side is processed. Free
+	 * segments are given back first. If those do not suffice, in-memory partitions are spilled. The probe
+	 * records that come afterwards for a spilled partition are joined when that partition is processed.
+	 * Partitions are not spilled, if the build side partitions must be kept for re-opening the table.
+	 */
+	protected void giveBackBorrowedBuffersWhileProbing() throws IOException {
+		giveBackBorrowedBuffers(false);
+		
+		while (this.numBorrowedBuffers > 0 && this.numBuffersRequestedBack.get() > 0 &&
+				!this.keepBuildSidePartitions && hasInMemoryPartition())
+		{
+			spillPartitionWhileProbing();
+			giveBackBorrowedBuffers(false);
+		}
+	}
+	
+	/**
+	 * Spills the largest in-memory partition while the probe side is processed.
+	 */
+	protected void spillPartitionWhileProbing() throws IOException {
+		final ArrayList<HashPartition<BT, PT>> partitions = this.partitionsBeingBuilt;
+		int largestNumBlocks = 0;
+		int largestPartNum = -1;
+		
+		for (int i = 0; i < partitions.size(); i++) {
+			HashPartition<BT, PT> p = partitions.get(i);
+			if (p.isInMemory() && p.getBuildSideBlockCount() > largestNumBlocks) {
+				largestNumBlocks = p.getBuildSideBlockCount();
+				largestPartNum = i;
+			}
+		}
+		final HashPartition<BT, PT> p = partitions.get(largestPartNum);
+		
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Spilling partition " + largestPartNum + " with " + largestNumBlocks + 
+				" buffers while probing, to give back borrowed memory.");
+		}
+		
+		int numBuffersFreed = p.spillInProbePhase(this.availableMemory, this.ioManager, 
+				this.currentEnumerator.next(), this.currentEnumerator.next(), this.writeBehindBuffers);
+		this.writeBehindBuffersAvailable += numBuffersFreed;
+		
+		// grab as many buffers as are available directly
+		MemorySegment currBuff = null;
+		while (this.writeBehindBuffersAvailable > 0 && (currBuff = this.writeBehindBuffers.poll()) != null) {
+			this.availableMemory.add(currBuff);
+			this.writeBehindBuffersAvailable--;
+		}
+	}
+	
+	private boolean hasInMemoryPartition() {
+		for (int i = 0; i < this.partitionsBeingBuilt.size(); i++) {
+			final HashPartition<BT, PT> p = this.partitionsBeingBuilt.get(i);
+			if (p.isInMemory() && p.getBuildSideBlockCount() > 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Replaces the hash codes and pointers in all buckets of the given partition by a Bloom filter over the
+	 * hash codes, including those in the overflow buckets. The partition must be about to be spilled.
+	 * 
+	 * @param partNum The number of the partition.
+	 * @param p The partition.
+	 */
+	final void buildBloomFiltersForBucketsInPartition(int partNum, HashPartition<BT, PT> p) {
+		// the buckets are assigned to the partitions round robin
+		final int numPartitions = this.partitionsBeingBuilt.size();
+		final int[] hashCodes = this.bucketHashCodes;
+		
+		for (int bucketNum = partNum; bucketNum < this.numBuckets; bucketNum += numPartitions) {
+			final MemorySegment bucket = this.buckets[bucketNum >> this.bucketsPerSegmentBits];
+			final int bucketInSegmentPos = (bucketNum & this.bucketsPerSegmentMask) << NUM_INTRA_BUCKET_BITS;
+			
+			// the filter overwrites the hash codes, so save them first
+			final int count = bucket.getShort(bucketInSegmentPos + HEADER_COUNT_OFFSET);
+			for (int i = 0; i < count; i++) {
+				hashCodes[i] = bucket.getInt(bucketInSegmentPos + BUCKET_HEADER_LENGTH + (i * HASH_CODE_LEN));
+			}
+			
+			final BloomFilter filter = this.bloomFilter;
+			filter.setBitsLocation(bucket, bucketInSegmentPos + BUCKET_HEADER_LENGTH);
+			filter.reset();
+			for (int i = 0; i < count; i++) {
+				filter.addHash(hashCodes[i]);
+			}
+			
+			// add the hash codes from the chain of overflow buckets
+			long forwardPointer = bucket.getLong(bucketInSegmentPos + HEADER_FORWARD_OFFSET);
+			while (forwardPointer != BUCKET_FORWARD_POINTER_NOT_SET) {
+				final MemorySegment overflowSeg = p.overflowSegments[(int) (forwardPointer >>> 32)];
+				final int overflowBucketPos = (int) forwardPointer;
+				
+				final int overflowCount = overflowSeg.getShort(overflowBucketPos + HEADER_COUNT_OFFSET);
+				for (int i = 0; i < overflowCount; i++) {
+					filter.addHash(overflowSeg.getInt(overflowBucketPos + BUCKET_HEADER_LENGTH + (i * HASH_CODE_LEN)));
+				}
+				forwardPointer = overflowSeg.getLong(overflowBucketPos + HEADER_FORWARD_OFFSET);
+			}
+			
+			bucket.put(bucketInSegmentPos + HEADER_STATUS_OFFSET, BUCKET_STATUS_SPILLED);
+			bucket.putShort(bucketInSegmentPos + HEADER_COUNT_OFFSET, (short) 0);
+			bucket.putLong(bucketInSegmentPos + HEADER_FORWARD_OFFSET, BUCKET_FORWARD_POINTER_NOT_SET);
+		}
+	}
+	
+	private void addToBloomFilter(MemorySegment bucket, int bucketInSegmentPos, int hashCode) {
+		this.bloomFilter.setBitsLocation(bucket, bucketInSegmentPos + BUCKET_HEADER_LENGTH);
+		this.bloomFilter.addHash(hashCode);
+	}
+	
+	private boolean testBloomFilter(MemorySegment bucket, int bucketInSegmentPos, int hashCode) {
+		this.bloomFilter.setBitsLocation(bucket, bucketInSegmentPos + BUCKET_HEADER_LENGTH);
+		return this.bloomFilter.testHash(hashCode);
+	}
+	
 	/**
 	 * This method makes sure that at least a certain number of memory segments is in the list of free segments.
 	 * Free memory can be in the list of free segments, or in the return-queue where segments used to write behind are
@@ -141,7 +141,8 @@ public class CombiningUnilateralSortMerger<E> extends UnilateralSortMerger<E> {
 	throws IOException, MemoryAllocationException
 	{
 		super(memoryManager, ioManager, input, parentTask, serializerFactory, comparator,
-			memoryFraction, numSortBuffers, maxNumFileHandles, startSpillingFraction, false);
+			memoryFraction, numSortBuffers, maxNumFileHandles, startSpillingFraction, false,
+			getConfiguredNumSortThreads());
 		
 		this.combineStub = combineStub;
 	}
@@ -183,6 +184,15 @@ public class CombiningUnilateralSortMerger<E> extends UnilateralSortMerger<E> {
 			this.comparator2 = comparator.duplicate();
 		}
 
+		/**
+		 * The merges share the combiner and its grouping comparator, so they are always performed one
+		 * after another.
+		 */
+		@Override
+		protected boolean canMergeConcurrently() {
+			return false;
+		}
+
 		/**
 		 * Entry point of the thread.
 		 */
@@ -234,7 +244,7 @@ public class CombiningUnilateralSortMerger<E> extends UnilateralSortMerger<E> {
 								
 				// iterate buffers and collect a set of iterators
 				for (CircularElement<E> cached : cache) {
-					iterators.add(cached.buffer.getIterator());
+					iterators.add(getCachedBufferIterator(cached));
 				}
 				
 				// release the remaining sort-buffers
@@ -359,8 +369,7 @@ public class CombiningUnilateralSortMerger<E> extends UnilateralSortMerger<E> {
 				channelIDs.add(new ChannelWithBlockCount(channel, output.getBlockCount()));
 
 				// pass empty sort-buffer to reading thread
-				element.buffer.reset();
-				this.queues.empty.add(element);
+				recycleSortBuffer(element);
 			}
 
 			// done with the spilling
@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.operators.sort;
+
+/**
+ * An {@link IndexedSortable} whose elements carry fixed-length binary keys. If the keys fully determine the
+ * order of the elements, a sort may look at the key bytes directly, rather than comparing elements.
+ */
+public interface NormalizedKeySortable extends IndexedSortable {
+
+	/**
+	 * Checks whether the binary keys fully determine the order of the elements. If not, elements with equal
+	 * keys must be ordered through {@link #compare(int, int)}.
+	 * 
+	 * @return True, if the keys fully determine the order, false otherwise.
+	 */
+	boolean isNormalizedKeyFullyDetermining();
+
+	/**
+	 * Gets the number of bytes of the binary key of each element.
+	 * 
+	 * @return The number of key bytes.
+	 */
+	int getNumNormalizedKeyBytes();
+
+	/**
+	 * Gets a byte of the binary key of the element at the given address. The bytes are returned as unsigned
+	 * values, such that ascending byte values correspond to the sort order of the elements, even if the key
+	 * is stored inverted.
+	 * 
+	 * @param i The address of the element.
+	 * @param keyByte The position of the byte in the key.
+	 * @return The key byte, between 0 and 255.
+	 */
+	int getNormalizedKeyByte(int i, int keyByte);
+}
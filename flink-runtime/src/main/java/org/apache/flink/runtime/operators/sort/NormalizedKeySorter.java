@@ -36,7 +36,7 @@ import org.apache.flink.util.MutableObjectIterator;
 /**
  * 
  */
-public final class NormalizedKeySorter<T> implements InMemorySorter<T> {
+public final class NormalizedKeySorter<T> implements InMemorySorter<T>, NormalizedKeySortable {
 	
 	private static final int OFFSET_LEN = 8;
 	
@@ -387,6 +387,25 @@ public final class NormalizedKeySorter<T> implements InMemorySorter<T> {
 	public int size() {
 		return this.numRecords;
 	}
+	
+	@Override
+	public boolean isNormalizedKeyFullyDetermining() {
+		return this.normalizedKeyFullyDetermines;
+	}
+	
+	@Override
+	public int getNumNormalizedKeyBytes() {
+		return this.numKeyBytes;
+	}
+	
+	@Override
+	public int getNormalizedKeyByte(int i, int keyByte) {
+		final int bufferNum = i / this.indexEntriesPerSegment;
+		final int segmentOffset = (i % this.indexEntriesPerSegment) * this.indexEntrySize;
+		
+		final int b = this.sortIndex.get(bufferNum).get(segmentOffset + OFFSET_LEN + keyByte) & 0xff;
+		return this.useNormKeyUninverted ? b : 0xff - b;
+	}
 
 	// -------------------------------------------------------------------------
 	
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.operators.sort;
+
+import java.util.Arrays;
+
+/**
+ * An in-place most-significant-digit radix sort (American flag sort) over the binary keys of a
+ * {@link NormalizedKeySortable}. Each pass counts the occurrences of one key byte in a sequential scan and then
+ * swaps every element directly into its bucket, so the sort needs no comparisons and no additional memory
+ * besides the bucket counters.
+ * <p>
+ * Buckets with few elements are sorted with {@link QuickSort}, which is faster on small ranges. Sortables
+ * whose keys do not fully determine the order of the elements are sorted entirely with {@link QuickSort}.
+ */
+public final class RadixSort implements IndexedSorter {
+	
+	/**
+	 * Ranges with fewer elements are sorted by the fallback sort.
+	 */
+	private static final int SMALL_RANGE_THRESHOLD = 64;
+	
+	private static final int NUM_BUCKETS = 256;
+	
+	private final IndexedSorter fallback = new QuickSort();
+	
+	
+	@Override
+	public void sort(IndexedSortable s) {
+		sort(s, 0, s.size());
+	}
+
+	@Override
+	public void sort(IndexedSortable s, int p, int r) {
+		if (s instanceof NormalizedKeySortable) {
+			final NormalizedKeySortable sortable = (NormalizedKeySortable) s;
+			final int numKeyBytes = sortable.getNumNormalizedKeyBytes();
+			
+			if (numKeyBytes > 0 && sortable.isNormalizedKeyFullyDetermining()) {
+				// one set of bucket boundaries per key byte, because the passes recurse
+				final int[][] bucketBounds = new int[numKeyBytes][NUM_BUCKETS + 1];
+				sortInternal(sortable, p, r, 0, bucketBounds, new int[NUM_BUCKETS]);
+				return;
+			}
+		}
+		this.fallback.sort(s, p, r);
+	}
+	
+	private void sortInternal(NormalizedKeySortable s, int p, int r, int keyByte, int[][] bucketBounds, int[] heads) {
+		final int numKeyBytes = bucketBounds.length;
+		
+		while (true) {
+			if (r - p < SMALL_RANGE_THRESHOLD) {
+				this.fallback.sort(s, p, r);
+				return;
+			}
+			
+			// count the elements per bucket. bounds[b] is the start of bucket b, bounds[b + 1] its end
+			final int[] bounds = bucketBounds[keyByte];
+			Arrays.fill(bounds, 0);
+			for (int i = p; i < r; i++) {
+				bounds[s.getNormalizedKeyByte(i, keyByte) + 1]++;
+			}
+			
+			bounds[0] = p;
+			boolean singleBucket = false;
+			for (int b = 1; b <= NUM_BUCKETS; b++) {
+				singleBucket |= bounds[b] == r - p;
+				bounds[b] += bounds[b - 1];
+			}
+			
+			if (singleBucket) {
+				// all elements share this byte, continue directly with the next one
+				if (++keyByte == numKeyBytes) {
+					return;
+				}
+				continue;
+			}
+			
+			// move every element into its bucket
+			System.arraycopy(bounds, 0, heads, 0, NUM_BUCKETS);
+			for (int b = 0; b < NUM_BUCKETS; b++) {
+				final int end = bounds[b + 1];
+				while (heads[b] < end) {
+					final int target = s.getNormalizedKeyByte(heads[b], keyByte);
+					if (target == b) {
+						heads[b]++;
+					} else {
+						s.swap(heads[b], heads[target]++);
+					}
+				}
+			}
+			
+			// sort the buckets by the next key byte
+			if (keyByte + 1 < numKeyBytes) {
+				for (int b = 0; b < NUM_BUCKETS; b++) {
+					if (bounds[b + 1] - bounds[b] > 1) {
+						sortInternal(s, bounds[b], bounds[b + 1], keyByte + 1, bucketBounds, heads);
+					}
+				}
+			}
+			return;
+		}
+	}
+}
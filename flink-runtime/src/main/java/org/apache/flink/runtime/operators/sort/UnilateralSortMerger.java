@@ -22,12 +22,19 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 
 import org.slf4j.Logger;
@@ -35,6 +42,8 @@ import org.slf4j.LoggerFactory;
 import org.apache.flink.api.common.typeutils.TypeComparator;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.api.common.typeutils.TypeSerializerFactory;
+import org.apache.flink.configuration.ConfigConstants;
+import org.apache.flink.configuration.GlobalConfiguration;
 import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.runtime.io.disk.ChannelReaderInputViewIterator;
 import org.apache.flink.runtime.io.disk.iomanager.FileIOChannel;
@@ -47,7 +56,9 @@ import org.apache.flink.runtime.io.disk.iomanager.FileIOChannel.ID;
 import org.apache.flink.runtime.jobgraph.tasks.AbstractInvokable;
 import org.apache.flink.runtime.memorymanager.MemoryAllocationException;
 import org.apache.flink.runtime.memorymanager.MemoryManager;
+import org.apache.flink.runtime.memorymanager.SpillRequestCallback;
 import org.apache.flink.runtime.util.EmptyMutableObjectIterator;
+import org.apache.flink.runtime.util.ExecutorThreadFactory;
 import org.apache.flink.util.Collector;
 import org.apache.flink.util.MutableObjectIterator;
 
@@ -107,6 +118,17 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 	 */
 	private final ThreadBase<E> spillThread;
 	
+	/**
+	 * The pool of threads that sort buffers and perform intermediate merges concurrently, or null, if
+	 * the sorting and spilling threads do all the work themselves.
+	 */
+	protected final ExecutorService workers;
+	
+	/**
+	 * The number of threads that sort buffers and perform intermediate merges.
+	 */
+	protected final int numSortThreads;
+	
 	// ------------------------------------------------------------------------
 	//                                   Memory
 	// ------------------------------------------------------------------------
@@ -122,6 +144,21 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 	 */
 	protected final ArrayList<MemorySegment> writeMemory;
 	
+	/**
+	 * The memory segments borrowed beyond the sorter's share, forming an additional sort buffer.
+	 */
+	protected final ArrayList<MemorySegment> borrowedMemory;
+	
+	/**
+	 * The sort buffer that uses the borrowed memory, or null, if no memory was borrowed.
+	 */
+	private final CircularElement<E> borrowedBuffer;
+	
+	/**
+	 * Flag indicating that the memory manager requested the borrowed memory back.
+	 */
+	private volatile boolean borrowedMemoryRequested;
+	
 	/**
 	 * The memory manager through which memory is allocated and released.
 	 */
@@ -134,12 +171,12 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 	/**
 	 * Collection of all currently open channels, to be closed and deleted during cleanup.
 	 */
-	private final HashSet<FileIOChannel> openChannels;
+	private final Set<FileIOChannel> openChannels;
 	
 	/**
 	 * Collection of all temporary files created and to be removed when closing the sorter.
 	 */
-	private final HashSet<FileIOChannel.ID> channelsToDeleteAtShutdown;
+	private final Set<FileIOChannel.ID> channelsToDeleteAtShutdown;
 	
 	/**
 	 * The monitor which guards the iterator field.
@@ -225,7 +262,41 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 	throws IOException, MemoryAllocationException
 	{
 		this(memoryManager, ioManager, input, parentTask, serializerFactory, comparator,
-			memoryFraction, numSortBuffers, maxNumFileHandles, startSpillingFraction, false);
+			memoryFraction, numSortBuffers, maxNumFileHandles, startSpillingFraction, getConfiguredNumSortThreads());
+	}
+	
+	/**
+	 * Creates a new sorter that reads the data from a given reader and provides an iterator returning that
+	 * data in a sorted manner. The memory is divided among sort buffers, write buffers and read buffers
+	 * automatically. The sort buffers are sorted and the intermediate merges are performed by
+	 * {@code numSortThreads} concurrent threads.
+	 * 
+	 * @param memoryManager The memory manager from which to allocate the memory.
+	 * @param ioManager The I/O manager, which is used to write temporary files to disk.
+	 * @param input The input that is sorted by this sorter.
+	 * @param parentTask The parent task, which owns all resources used by this sorter.
+	 * @param serializerFactory The type serializer.
+	 * @param comparator The type comparator establishing the order relation.
+	 * @param memoryFraction The fraction of memory dedicated to sorting, merging and I/O.
+	 * @param numSortBuffers The number of distinct buffers to use creation of the initial runs.
+	 * @param maxNumFileHandles The maximum number of files to be merged at once.
+	 * @param startSpillingFraction The faction of the buffers that have to be filled before the spilling thread
+	 *                              actually begins spilling data to disk.
+	 * @param numSortThreads The number of threads that sort buffers and merge runs concurrently.
+	 * 
+	 * @throws IOException Thrown, if an error occurs initializing the resources for external sorting.
+	 * @throws MemoryAllocationException Thrown, if not enough memory can be obtained from the memory manager to
+	 *                                   perform the sort.
+	 */
+	public UnilateralSortMerger(MemoryManager memoryManager, IOManager ioManager,
+			MutableObjectIterator<E> input, AbstractInvokable parentTask, 
+			TypeSerializerFactory<E> serializerFactory, TypeComparator<E> comparator,
+			double memoryFraction, int numSortBuffers, int maxNumFileHandles,
+			float startSpillingFraction, int numSortThreads)
+	throws IOException, MemoryAllocationException
+	{
+		this(memoryManager, ioManager, input, parentTask, serializerFactory, comparator,
+			memoryFraction, numSortBuffers, maxNumFileHandles, startSpillingFraction, false, numSortThreads);
 	}
 	
 	/**
@@ -244,6 +315,7 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 	 *                              actually begins spilling data to disk.
 	 * @param noSpillingMemory When set to true, no memory will be allocated for writing and no spilling thread
 	 *                   will be spawned.
+	 * @param numSortThreads The number of threads that sort buffers and merge runs concurrently.
 	 * 
 	 * @throws IOException Thrown, if an error occurs initializing the resources for external sorting.
 	 * @throws MemoryAllocationException Thrown, if not enough memory can be obtained from the memory manager to
@@ -253,7 +325,7 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 			MutableObjectIterator<E> input, AbstractInvokable parentTask, 
 			TypeSerializerFactory<E> serializerFactory, TypeComparator<E> comparator,
 			double memoryFraction, int numSortBuffers, int maxNumFileHandles,
-			float startSpillingFraction, boolean noSpillingMemory)
+			float startSpillingFraction, boolean noSpillingMemory, int numSortThreads)
 	throws IOException, MemoryAllocationException
 	{
 		// sanity checks
@@ -266,6 +338,9 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 		if (maxNumFileHandles < 2) {
 			throw new IllegalArgumentException("Merger cannot work with less than two file handles.");
 		}
+		if (numSortThreads < 1) {
+			throw new IllegalArgumentException("The sorter needs at least one sorting thread.");
+		}
 		
 		this.memoryManager = memoryManager;
 		
@@ -322,6 +397,12 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 			else {
 				numSortBuffers = 1;
 			}
+			
+			// concurrent sorting threads only pay off if there are enough filled buffers to work on
+			if (numSortThreads > 1) {
+				numSortBuffers = Math.max(numSortBuffers,
+					Math.min(numSortThreads + 1, sortMemPages / MIN_NUM_SORT_MEM_SEGMENTS));
+			}
 		}
 		final int numSegmentsPerSortBuffer = sortMemPages / numSortBuffers;
 		
@@ -330,7 +411,7 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 				sortMemory + " bytes total) divided over " + numSortBuffers + " sort buffers (" + 
 				numSegmentsPerSortBuffer + " pages per buffer). Using " + numWriteBuffers + 
 				" buffers for writing sorted results and merging maximally " + maxNumFileHandles +
-				" streams at once.");
+				" streams at once. Sorting and merging with " + numSortThreads + " threads.");
 		}
 		
 		this.writeMemory = new ArrayList<MemorySegment>(numWriteBuffers);
@@ -357,22 +438,50 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 				sortSegments.add(segments.next());
 			}
 			
-			final TypeComparator<E> comp = comparator.duplicate();
-			final InMemorySorter<E> buffer;
-			
-			// instantiate a fix-length in-place sorter, if possible, otherwise the out-of-place sorter
-			if (comp.supportsSerializationWithKeyNormalization() &&
-					serializer.getLength() > 0 && serializer.getLength() <= THRESHOLD_FOR_IN_PLACE_SORTING)
-			{
-				buffer = new FixedLengthRecordSorter<E>(serializerFactory.getSerializer(), comp, sortSegments);
-			} else {
-				buffer = new NormalizedKeySorter<E>(serializerFactory.getSerializer(), comp, sortSegments);
-			}
+			final InMemorySorter<E> buffer = createSortBuffer(serializerFactory, comparator, sortSegments);
 
 			// add to empty queue
 			CircularElement<E> element = new CircularElement<E>(i, buffer);
 			circularQueues.empty.add(element);
 		}
+		
+		// borrow memory for an additional sort buffer, if other slots currently do not use it. if the memory
+		// manager requests it back, the buffer is handed back right away when it is empty, or else after it was
+		// spilled, or when its sorted data is read in memory, after the remaining records were spilled. 
+		this.borrowedMemory = new ArrayList<MemorySegment>();
+		if (!noSpillingMemory) {
+			memoryManager.borrowPages(parentTask, this.borrowedMemory, numSegmentsPerSortBuffer, new SpillRequestCallback() {
+				@Override
+				public void requestSpill(int numPages) {
+					borrowedMemoryRequested = true;
+					releaseBorrowedBufferIfEmpty(circularQueues);
+				}
+			});
+		}
+		
+		if (this.borrowedMemory.size() >= MIN_NUM_SORT_MEM_SEGMENTS) {
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("Borrowed " + this.borrowedMemory.size() + " pages for an additional sort buffer.");
+			}
+			
+			final InMemorySorter<E> buffer = createSortBuffer(serializerFactory, comparator,
+				new ArrayList<MemorySegment>(this.borrowedMemory));
+			this.borrowedBuffer = new CircularElement<E>(numSortBuffers, buffer);
+			circularQueues.empty.add(this.borrowedBuffer);
+			
+			// the memory may have been requested back already
+			if (this.borrowedMemoryRequested) {
+				releaseBorrowedBufferIfEmpty(circularQueues);
+			}
+		}
+		else {
+			// too little to be of use
+			if (!this.borrowedMemory.isEmpty()) {
+				memoryManager.release(this.borrowedMemory);
+				this.borrowedMemory.clear();
+			}
+			this.borrowedBuffer = null;
+		}
 
 		// exception handling
 		ExceptionHandler<IOException> exceptionHandler = new ExceptionHandler<IOException>() {
@@ -385,9 +494,15 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 			}
 		};
 		
-		// create sets that track the channels we need to clean up when closing the sorter
-		this.channelsToDeleteAtShutdown = new HashSet<FileIOChannel.ID>(64);
-		this.openChannels = new HashSet<FileIOChannel>(64);
+		// create sets that track the channels we need to clean up when closing the sorter. the sets are
+		// modified concurrently by the merges running in the worker threads
+		this.channelsToDeleteAtShutdown = Collections.synchronizedSet(new HashSet<FileIOChannel.ID>(64));
+		this.openChannels = Collections.synchronizedSet(new HashSet<FileIOChannel>(64));
+		
+		// the threads that sort buffers and perform merges concurrently, if more than one is configured
+		this.numSortThreads = numSortThreads;
+		this.workers = numSortThreads > 1 ?
+			Executors.newFixedThreadPool(numSortThreads, ExecutorThreadFactory.INSTANCE) : null;
 
 		// start the thread that reads the input channels
 		this.readThread = getReadingThread(exceptionHandler, input, circularQueues, parentTask,
@@ -404,6 +519,25 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 		startThreads();
 	}
 	
+	/**
+	 * Creates an in-memory sort buffer on the given memory. The buffer is a fix-length in-place sorter,
+	 * if possible, otherwise an out-of-place sorter.
+	 */
+	private InMemorySorter<E> createSortBuffer(TypeSerializerFactory<E> serializerFactory,
+			TypeComparator<E> comparator, List<MemorySegment> memory)
+	{
+		final TypeSerializer<E> serializer = serializerFactory.getSerializer();
+		final TypeComparator<E> comp = comparator.duplicate();
+		
+		if (comp.supportsSerializationWithKeyNormalization() &&
+				serializer.getLength() > 0 && serializer.getLength() <= THRESHOLD_FOR_IN_PLACE_SORTING)
+		{
+			return new FixedLengthRecordSorter<E>(serializer, comp, memory);
+		} else {
+			return new NormalizedKeySorter<E>(serializer, comp, memory);
+		}
+	}
+	
 	/**
 	 * Starts all the threads that are used by this sort-merger.
 	 */
@@ -476,6 +610,13 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 					LOG.error("Error shutting down spilling thread: " + t.getMessage(), t);
 				}
 			}
+			if (this.workers != null) {
+				try {
+					this.workers.shutdownNow();
+				} catch (Throwable t) {
+					LOG.error("Error shutting down sort worker threads: " + t.getMessage(), t);
+				}
+			}
 
 			try {
 				if (this.readThread != null) {
@@ -515,6 +656,11 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 			}
 			catch (Throwable t) {}
 			
+			try {
+				releaseBorrowedMemory();
+			}
+			catch (Throwable t) {}
+			
 			// we have to loop this, because it may fail with a concurrent modification exception
 			while (!this.openChannels.isEmpty()) {
 				try {
@@ -546,6 +692,41 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 		}
 	}
 
+	/**
+	 * Gets the number of sorting threads from the global configuration.
+	 */
+	protected static int getConfiguredNumSortThreads() {
+		return Math.max(1, GlobalConfiguration.getInteger(ConfigConstants.DEFAULT_SORT_NUM_THREADS_KEY,
+			ConfigConstants.DEFAULT_SORT_NUM_THREADS));
+	}
+
+	/**
+	 * Gives the borrowed memory back to the memory manager, if it has not been given back before.
+	 */
+	protected final void releaseBorrowedMemory() {
+		synchronized (this.borrowedMemory) {
+			if (!this.borrowedMemory.isEmpty()) {
+				this.memoryManager.release(this.borrowedMemory);
+				this.borrowedMemory.clear();
+			}
+		}
+	}
+	
+	/**
+	 * Gives the borrowed memory back, if the sort buffer that uses it waits empty for the reading thread.
+	 * Taking the buffer out of the queue of empty buffers ensures that no thread uses it any more.
+	 */
+	private void releaseBorrowedBufferIfEmpty(CircularQueues<E> queues) {
+		final CircularElement<E> buffer = this.borrowedBuffer;
+		if (buffer != null && queues.empty.remove(buffer)) {
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("Giving back borrowed memory of empty sort buffer " + buffer.id + ".");
+			}
+			buffer.buffer.dispose();
+			releaseBorrowedMemory();
+		}
+	}
+
 	// ------------------------------------------------------------------------
 	//                           Factory Methods
 	// ------------------------------------------------------------------------
@@ -584,7 +765,7 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 	protected ThreadBase<E> getSortingThread(ExceptionHandler<IOException> exceptionHandler, CircularQueues<E> queues,
 			AbstractInvokable parentTask)
 	{
-		return new SortingThread<E>(exceptionHandler, queues, parentTask);
+		return new SortingThread<E>(exceptionHandler, queues, parentTask, this.workers);
 	}
 
 
@@ -1064,11 +1245,17 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 	}
 
 	/**
-	 * The thread that sorts filled buffers.
+	 * The thread that sorts filled buffers. If a pool of worker threads is given, the buffers are sorted
+	 * concurrently by the workers, which hand them on to the spilling thread in the order in which they
+	 * finish. Markers are forwarded only after all buffers received before them are sorted.
 	 */
 	protected static class SortingThread<E> extends ThreadBase<E> {
 		
 		private final IndexedSorter sorter;
+		
+		private final ExecutorService workers;
+		
+		private final List<Future<?>> pendingSorts;
 
 		/**
 		 * Creates a new sorting thread.
@@ -1079,10 +1266,25 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 		 */
 		public SortingThread(ExceptionHandler<IOException> exceptionHandler, CircularQueues<E> queues,
 				AbstractInvokable parentTask) {
+			this(exceptionHandler, queues, parentTask, null);
+		}
+		
+		/**
+		 * Creates a new sorting thread that sorts the buffers with the given worker threads.
+		 * 
+		 * @param exceptionHandler The exception handler to call for all exceptions.
+		 * @param queues The queues used to pass buffers between the threads.
+		 * @param parentTask The task that started this thread. If non-null, it is used to register this thread.
+		 * @param workers The threads that sort the buffers, or null, if this thread sorts them itself.
+		 */
+		public SortingThread(ExceptionHandler<IOException> exceptionHandler, CircularQueues<E> queues,
+				AbstractInvokable parentTask, ExecutorService workers) {
 			super(exceptionHandler, "SortMerger sorting thread", queues, parentTask);
 
 			// members
-			this.sorter = new QuickSort();
+			this.sorter = new RadixSort();
+			this.workers = workers;
+			this.pendingSorts = new ArrayList<Future<?>>();
 		}
 
 		/**
@@ -1113,17 +1315,19 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 				}
 
 				if (element != EOF_MARKER && element != SPILLING_MARKER) {
-					if (LOG.isDebugEnabled()) {
-						LOG.debug("Sorting buffer " + element.id + ".");
-					}
-					
-					this.sorter.sort(element.buffer);
-					
-					if (LOG.isDebugEnabled()) {
-						LOG.debug("Sorted buffer " + element.id + ".");
+					if (this.workers != null) {
+						removeFinishedSorts();
+						this.pendingSorts.add(this.workers.submit(new SortTask(element)));
+						continue;
 					}
+					sortBuffer(element);
 				}
-				else if (element == EOF_MARKER) {
+				else if (!awaitPendingSorts()) {
+					// everything before a marker must be handed on before the marker
+					return;
+				}
+				
+				if (element == EOF_MARKER) {
 					if (LOG.isDebugEnabled()) {
 						LOG.debug("Sorting thread done.");
 					}
@@ -1132,6 +1336,84 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 				this.queues.spill.add(element);
 			}
 		}
+		
+		private void sortBuffer(CircularElement<E> element) {
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("Sorting buffer " + element.id + ".");
+			}
+			
+			this.sorter.sort(element.buffer);
+			
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("Sorted buffer " + element.id + ".");
+			}
+		}
+		
+		/**
+		 * Waits until the workers have sorted all buffers handed to them.
+		 * 
+		 * @return False, if the thread was shut down while waiting, true otherwise.
+		 */
+		private boolean awaitPendingSorts() throws IOException {
+			while (!this.pendingSorts.isEmpty()) {
+				try {
+					getSortResult(this.pendingSorts.get(this.pendingSorts.size() - 1));
+					this.pendingSorts.remove(this.pendingSorts.size() - 1);
+				}
+				catch (InterruptedException iex) {
+					if (isRunning()) {
+						LOG.error("Sorting thread was interrupted (without being shut down) while waiting for " +
+								"buffers to be sorted. Retrying to wait...");
+					} else {
+						return false;
+					}
+				}
+			}
+			return true;
+		}
+		
+		private void removeFinishedSorts() throws IOException {
+			for (Iterator<Future<?>> sorts = this.pendingSorts.iterator(); sorts.hasNext(); ) {
+				final Future<?> sort = sorts.next();
+				if (sort.isDone()) {
+					try {
+						getSortResult(sort);
+					}
+					catch (InterruptedException iex) {
+						// cannot happen, the sort is done
+					}
+					sorts.remove();
+				}
+			}
+		}
+		
+		private void getSortResult(Future<?> sort) throws IOException, InterruptedException {
+			try {
+				sort.get();
+			}
+			catch (ExecutionException eex) {
+				final Throwable cause = eex.getCause();
+				throw new IOException("Sorting a buffer failed: " + cause.getMessage(), cause);
+			}
+		}
+		
+		/**
+		 * Sorts a buffer in a worker thread and hands it on to the spilling thread.
+		 */
+		private final class SortTask implements Runnable {
+			
+			private final CircularElement<E> element;
+			
+			private SortTask(CircularElement<E> element) {
+				this.element = element;
+			}
+
+			@Override
+			public void run() {
+				sortBuffer(this.element);
+				queues.spill.add(this.element);
+			}
+		}
 	}
 
 	/**
@@ -1238,7 +1520,7 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 				// iterate buffers and collect a set of iterators
 				for (CircularElement<E> cached : cache) {
 					// note: the yielded iterator only operates on the buffer heap (and disregards the stack)
-					iterators.add(cached.buffer.getIterator());
+					iterators.add(getCachedBufferIterator(cached));
 				}
 				
 				// release the remaining sort-buffers
@@ -1309,8 +1591,7 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 				channelIDs.add(new ChannelWithBlockCount(channel, output.getBlockCount()));
 
 				// pass empty sort-buffer to reading thread
-				element.buffer.reset();
-				this.queues.empty.add(element);
+				recycleSortBuffer(element);
 			}
 
 			// done with the spilling
@@ -1365,9 +1646,13 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 		{
 			while (!this.queues.empty.isEmpty()) {
 				try {
-					final InMemorySorter<?> sorter = this.queues.empty.take().buffer;
-					final List<MemorySegment> sorterMem = sorter.dispose();
-					if (releaseMemory) {
+					final CircularElement<E> element = this.queues.empty.take();
+					final List<MemorySegment> sorterMem = element.buffer.dispose();
+					if (element == borrowedBuffer) {
+						// borrowed memory is never kept for merging
+						releaseBorrowedMemory();
+					}
+					else if (releaseMemory) {
 						this.memManager.release(sorterMem);
 					}
 				}
@@ -1383,6 +1668,34 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 			}
 		}
 		
+		/**
+		 * Resets a spilled sort buffer and passes it back to the reading thread. If the buffer uses borrowed
+		 * memory that the memory manager requested back, the buffer is disposed and its memory released instead.
+		 */
+		protected final void recycleSortBuffer(CircularElement<E> element) {
+			if (element == borrowedBuffer && borrowedMemoryRequested) {
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("Giving back borrowed memory of sort buffer " + element.id + ".");
+				}
+				element.buffer.dispose();
+				releaseBorrowedMemory();
+			}
+			else {
+				element.buffer.reset();
+				this.queues.empty.add(element);
+			}
+		}
+		
+		/**
+		 * Gets an iterator over the sorted records of a buffer that is merged in memory. For the buffer that
+		 * uses borrowed memory, the iterator spills the remaining records and gives back the memory, once the
+		 * memory manager requests it back.
+		 */
+		protected final MutableObjectIterator<E> getCachedBufferIterator(CircularElement<E> element) {
+			final MutableObjectIterator<E> iterator = element.buffer.getIterator();
+			return element == borrowedBuffer ? new BorrowedBufferIterator(element, iterator) : iterator;
+		}
+		
 		protected final CircularElement<E> takeNext(BlockingQueue<CircularElement<E>> queue, Queue<CircularElement<E>> cache)
 				throws InterruptedException {
 			return cache.isEmpty() ? queue.take() : cache.poll();
@@ -1449,6 +1762,17 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 			final double numMerges = Math.ceil(channelIDs.size() / ((double) this.maxNumFileHandles));
 			final int channelsToMergePerStep = (int) Math.ceil(channelIDs.size() / numMerges);
 			
+			// determine how many merges can run at the same time, each with its own share of the memory
+			int numConcurrentMerges = 1;
+			if (workers != null && canMergeConcurrently()) {
+				numConcurrentMerges = Math.min(Math.min(numSortThreads, (int) numMerges),
+					Math.min(allReadBuffers.size() / channelsToMergePerStep, writeBuffers.size() / MIN_NUM_WRITE_BUFFERS));
+			}
+			if (numConcurrentMerges > 1) {
+				return mergeChannelListConcurrently(channelIDs, allReadBuffers, writeBuffers,
+					channelsToMergePerStep, numConcurrentMerges);
+			}
+			
 			// allocate the memory for the merging step
 			final List<List<MemorySegment>> readBuffers = new ArrayList<List<MemorySegment>>(channelsToMergePerStep);
 			getSegmentsForReaders(readBuffers, allReadBuffers, channelsToMergePerStep);
@@ -1476,6 +1800,126 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 			
 			return mergedChannelIDs;
 		}
+		
+		/**
+		 * Merges the given sorted runs to a smaller number of sorted runs, running several independent merges
+		 * at the same time in the worker threads. The read and write buffers are divided among the concurrent
+		 * merges.
+		 * 
+		 * @param channelIDs The IDs of the sorted runs that need to be merged.
+		 * @param allReadBuffers The buffers to be divided among the readers.
+		 * @param writeBuffers The buffers to be divided among the writers.
+		 * @param channelsToMergePerStep The number of runs merged into one run.
+		 * @param numConcurrentMerges The number of merges to run at the same time.
+		 * @return A list of the IDs of the merged channels.
+		 * @throws IOException Thrown, if the readers or writers encountered an I/O problem.
+		 */
+		private List<ChannelWithBlockCount> mergeChannelListConcurrently(final List<ChannelWithBlockCount> channelIDs,
+				final List<MemorySegment> allReadBuffers, final List<MemorySegment> writeBuffers,
+				final int channelsToMergePerStep, final int numConcurrentMerges)
+		throws IOException
+		{
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("Merging " + channelIDs.size() + " sorted runs with " + numConcurrentMerges +
+					" concurrent merges.");
+			}
+			
+			// give every concurrent merge its own share of the read and write memory
+			final List<List<MemorySegment>> readShares = new ArrayList<List<MemorySegment>>(numConcurrentMerges);
+			final List<List<MemorySegment>> writeShares = new ArrayList<List<MemorySegment>>(numConcurrentMerges);
+			getSegmentsForReaders(readShares, allReadBuffers, numConcurrentMerges);
+			getSegmentsForReaders(writeShares, writeBuffers, numConcurrentMerges);
+			
+			final List<List<List<MemorySegment>>> readBuffers = new ArrayList<List<List<MemorySegment>>>(numConcurrentMerges);
+			for (List<MemorySegment> share : readShares) {
+				final List<List<MemorySegment>> readBuffersForMerge = new ArrayList<List<MemorySegment>>(channelsToMergePerStep);
+				getSegmentsForReaders(readBuffersForMerge, share, channelsToMergePerStep);
+				readBuffers.add(readBuffersForMerge);
+			}
+			
+			// the list containing the IDs of the merged channels
+			final ArrayList<ChannelWithBlockCount> mergedChannelIDs = new ArrayList<ChannelWithBlockCount>();
+			final List<Future<ChannelWithBlockCount>> merges = new ArrayList<Future<ChannelWithBlockCount>>(numConcurrentMerges);
+			
+			int channelNum = 0;
+			while (isRunning() && channelNum < channelIDs.size()) {
+				// start one merge per memory share
+				for (int m = 0; m < numConcurrentMerges && channelNum < channelIDs.size(); m++) {
+					final List<ChannelWithBlockCount> channelsToMerge = new ArrayList<ChannelWithBlockCount>(channelsToMergePerStep);
+					for (int i = 0; i < channelsToMergePerStep && channelNum < channelIDs.size(); i++, channelNum++) {
+						channelsToMerge.add(channelIDs.get(channelNum));
+					}
+					
+					// merge only, if there is more than one channel
+					if (channelsToMerge.size() < 2) {
+						mergedChannelIDs.addAll(channelsToMerge);
+					}
+					else {
+						final List<List<MemorySegment>> mergeReadBuffers = readBuffers.get(m);
+						final List<MemorySegment> mergeWriteBuffers = writeShares.get(m);
+						
+						merges.add(workers.submit(new Callable<ChannelWithBlockCount>() {
+							@Override
+							public ChannelWithBlockCount call() throws IOException {
+								return mergeChannels(channelsToMerge, mergeReadBuffers, mergeWriteBuffers);
+							}
+						}));
+					}
+				}
+				
+				// wait for the merges before their memory is reused
+				for (Future<ChannelWithBlockCount> merge : merges) {
+					final ChannelWithBlockCount merged = awaitMerge(merge);
+					if (merged == null) {
+						return mergedChannelIDs;
+					}
+					mergedChannelIDs.add(merged);
+				}
+				merges.clear();
+			}
+			
+			return mergedChannelIDs;
+		}
+		
+		/**
+		 * Waits for a merge running in a worker thread to finish.
+		 * 
+		 * @return The merged channel, or null, if the thread was shut down while waiting.
+		 * @throws IOException Thrown, if the merge failed.
+		 */
+		private ChannelWithBlockCount awaitMerge(Future<ChannelWithBlockCount> merge) throws IOException {
+			while (true) {
+				try {
+					return merge.get();
+				}
+				catch (ExecutionException eex) {
+					final Throwable cause = eex.getCause();
+					if (cause instanceof IOException) {
+						throw (IOException) cause;
+					}
+					throw new IOException("Merging sorted runs failed: " + cause.getMessage(), cause);
+				}
+				catch (InterruptedException iex) {
+					if (isRunning()) {
+						LOG.error("Spilling thread was interrupted (without being shut down) while waiting for a merge. " +
+								"Retrying to wait...");
+					} else {
+						merge.cancel(true);
+						return null;
+					}
+				}
+			}
+		}
+		
+		/**
+		 * Checks whether several merges may run at the same time. The merges share the serializer, which is
+		 * therefore required to be stateless.
+		 * 
+		 * @return True, if the merges can run concurrently, false otherwise.
+		 */
+		protected boolean canMergeConcurrently() {
+			return !this.serializer.isStateful();
+		}
 
 		/**
 		 * Merges the sorted runs described by the given Channel IDs into a single sorted run. The merging process
@@ -1563,6 +2007,63 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 			}
 		}
 		
+		/**
+		 * Iterator over the sorted records of the sort buffer that uses borrowed memory. When the memory manager
+		 * requests the memory back, the records that have not been returned yet are spilled to disk with the
+		 * write memory, and are read back with the sort-read memory, which both are unused by the in-memory merge.
+		 */
+		private final class BorrowedBufferIterator implements MutableObjectIterator<E> {
+			
+			private final CircularElement<E> element;
+			
+			private MutableObjectIterator<E> current;
+			
+			private boolean spilled;
+			
+			BorrowedBufferIterator(CircularElement<E> element, MutableObjectIterator<E> inMemory) {
+				this.element = element;
+				this.current = inMemory;
+			}
+			
+			@Override
+			public E next(E reuse) throws IOException {
+				if (!this.spilled && borrowedMemoryRequested) {
+					spillRemaining();
+				}
+				return this.current.next(reuse);
+			}
+			
+			private void spillRemaining() throws IOException {
+				this.spilled = true;
+				
+				final FileIOChannel.ID channel = ioManager.createChannelEnumerator().next();
+				registerChannelToBeRemovedAtShudown(channel);
+				
+				final BlockChannelWriter writer = ioManager.createBlockChannelWriter(channel);
+				registerOpenChannelToBeRemovedAtShudown(writer);
+				final ChannelWriterOutputView output = new ChannelWriterOutputView(writer, writeMemory, memManager.getPageSize());
+				
+				E record = serializer.createInstance();
+				while ((record = this.current.next(record)) != null) {
+					serializer.serialize(record, output);
+				}
+				output.close();
+				unregisterOpenChannelToBeRemovedAtShudown(writer);
+				
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("Giving back borrowed memory of sort buffer " + this.element.id + " after spilling its remaining records.");
+				}
+				this.element.buffer.dispose();
+				releaseBorrowedMemory();
+				
+				final BlockChannelReader reader = ioManager.createBlockChannelReader(channel);
+				registerOpenChannelToBeRemovedAtShudown(reader);
+				final ChannelReaderInputView inView = new ChannelReaderInputView(reader, 
+						new ArrayList<MemorySegment>(sortReadMemory), output.getBlockCount(), false);
+				this.current = new ChannelReaderInputViewIterator<E>(inView, null, serializer);
+			}
+		}
+		
 		// ------------------------------------------------------------------------
 		//              Cleanup of Temp Files and Allocated Memory
 		// ------------------------------------------------------------------------
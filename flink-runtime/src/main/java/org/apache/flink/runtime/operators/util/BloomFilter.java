@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.operators.util;
+
+import org.apache.flink.core.memory.MemorySegment;
+
+/**
+ * A Bloom filter over 32 bit hash codes. The filter does not own its bits, but operates on a region of a
+ * memory segment, which is set through {@link #setBitsLocation(MemorySegment, int)}. That way, a single
+ * instance can serve many small filters, for example one per hash table bucket.
+ * <p>
+ * The hash codes are expected to be well distributed already. The positions of the bits are derived from
+ * the hash code through double hashing.
+ */
+public final class BloomFilter {
+
+	private final int numBytes;				// the number of bytes in the filter region
+
+	private final int numBits;				// the number of bits in the filter region
+
+	private final int numHashFunctions;		// the number of bits set per hash code
+
+	private MemorySegment memory;			// the segment holding the bits
+
+	private int offset;						// the offset of the bits in the segment
+
+	/**
+	 * Creates a new Bloom filter that operates on regions of the given size.
+	 *
+	 * @param numBytes The size of the memory region holding the bits, in bytes.
+	 * @param numHashFunctions The number of bits set per hash code.
+	 */
+	public BloomFilter(int numBytes, int numHashFunctions) {
+		if (numBytes <= 0) {
+			throw new IllegalArgumentException("The filter must have at least one byte.");
+		}
+		if (numHashFunctions <= 0) {
+			throw new IllegalArgumentException("The number of hash functions must be positive.");
+		}
+
+		this.numBytes = numBytes;
+		this.numBits = numBytes << 3;
+		this.numHashFunctions = numHashFunctions;
+	}
+
+	/**
+	 * Sets the memory region on which the filter operates.
+	 *
+	 * @param memory The memory segment holding the bits.
+	 * @param offset The offset of the bits in the memory segment.
+	 */
+	public void setBitsLocation(MemorySegment memory, int offset) {
+		this.memory = memory;
+		this.offset = offset;
+	}
+
+	/**
+	 * Clears all bits of the current memory region.
+	 */
+	public void reset() {
+		final MemorySegment memory = this.memory;
+		for (int i = this.offset, end = this.offset + this.numBytes; i < end; i++) {
+			memory.put(i, (byte) 0);
+		}
+	}
+
+	/**
+	 * Adds the given hash code to the filter.
+	 *
+	 * @param hash The hash code to add.
+	 */
+	public void addHash(int hash) {
+		final int hash2 = hash >>> 16;
+
+		for (int i = 1; i <= this.numHashFunctions; i++) {
+			final int bit = getBitIndex(hash + i * hash2);
+			final int pos = this.offset + (bit >>> 3);
+			this.memory.put(pos, (byte) (this.memory.get(pos) | (1 << (bit & 0x7))));
+		}
+	}
+
+	/**
+	 * Checks whether the given hash code may have been added to the filter. A return value of false means
+	 * that the hash code has definitely not been added.
+	 *
+	 * @param hash The hash code to test.
+	 * @return True, if the hash code may have been added, false, if it has definitely not been added.
+	 */
+	public boolean testHash(int hash) {
+		final int hash2 = hash >>> 16;
+
+		for (int i = 1; i <= this.numHashFunctions; i++) {
+			final int bit = getBitIndex(hash + i * hash2);
+			if ((this.memory.get(this.offset + (bit >>> 3)) & (1 << (bit & 0x7))) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private int getBitIndex(int combinedHash) {
+		return (combinedHash < 0 ? ~combinedHash : combinedHash) % this.numBits;
+	}
+}
@@ -19,6 +19,7 @@
 package org.apache.flink.runtime.protocols;
 
 import java.io.IOException;
+import java.util.List;
 
 import org.apache.flink.core.io.InputSplit;
 import org.apache.flink.core.protocols.VersionedProtocol;
@@ -32,4 +33,11 @@ import org.apache.flink.runtime.jobgraph.JobVertexID;
 public interface InputSplitProviderProtocol extends VersionedProtocol {
 
 	InputSplit requestNextInputSplit(JobID jobID, JobVertexID vertex, ExecutionAttemptID executionAttempt) throws IOException;
+	
+	/**
+	 * Requests up to the given number of next input splits at once. The returned list is empty if the
+	 * execution attempt shall not consume any further splits.
+	 */
+	List<InputSplit> requestNextInputSplits(JobID jobID, JobVertexID vertex, ExecutionAttemptID executionAttempt,
+			int maxNumSplits) throws IOException;
 }
@@ -24,6 +24,7 @@ import org.apache.flink.runtime.instance.HardwareDescription;
 import org.apache.flink.runtime.instance.InstanceConnectionInfo;
 import org.apache.flink.runtime.instance.InstanceID;
 import org.apache.flink.runtime.taskmanager.TaskExecutionState;
+import org.apache.flink.runtime.taskmanager.TaskProgressReport;
 
 /**
  * The job manager protocol is implemented by the job manager and offers functionality
@@ -36,9 +37,10 @@ public interface JobManagerProtocol extends ServiceDiscoveryProtocol {
 	 * Sends a heart beat to the job manager.
 	 * 
 	 * @param taskManagerId The ID identifying the task manager.
+	 * @param progress The progress of the tasks running on the task manager.
 	 * @throws IOException Thrown if an error occurs during this remote procedure call.
 	 */
-	boolean sendHeartbeat(InstanceID taskManagerId) throws IOException;
+	boolean sendHeartbeat(InstanceID taskManagerId, TaskProgressReport progress) throws IOException;
 
 	/**
 	 * Registers a task manager at the JobManager.
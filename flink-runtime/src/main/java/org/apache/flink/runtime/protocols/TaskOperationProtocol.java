@@ -23,6 +23,8 @@ import java.io.IOException;
 import org.apache.flink.core.protocols.VersionedProtocol;
 import org.apache.flink.runtime.deployment.TaskDeploymentDescriptor;
 import org.apache.flink.runtime.executiongraph.ExecutionAttemptID;
+import org.apache.flink.runtime.io.network.channels.ChannelID;
+import org.apache.flink.runtime.jobgraph.JobID;
 import org.apache.flink.runtime.taskmanager.TaskOperationResult;
 
 /**
@@ -36,5 +38,28 @@ public interface TaskOperationProtocol extends VersionedProtocol {
 
 	TaskOperationResult cancelTask(ExecutionAttemptID executionId) throws IOException;
 
+	/**
+	 * Starts to replay a persistent partition of a blocking result, which has been written by a task on this
+	 * task manager, to a receiver.
+	 * 
+	 * @param jobId The ID of the job the partition belongs to.
+	 * @param partitionId The ID of the output channel which has written the partition.
+	 * @param outputChannelId The ID of the output channel to replay the partition with.
+	 * @param inputChannelId The ID of the receiving input channel.
+	 * @param receiverId The ID of the execution receiving the partition.
+	 * @return The result of the operation, which is not successful if the partition does not exist.
+	 * @throws IOException Thrown, if an error occurs during this remote procedure call.
+	 */
+	TaskOperationResult replayPersistentPartition(JobID jobId, ChannelID partitionId, ChannelID outputChannelId,
+			ChannelID inputChannelId, ExecutionAttemptID receiverId) throws IOException;
+
+	/**
+	 * Deletes all persistent partitions of the given job from this task manager.
+	 * 
+	 * @param jobId The ID of the job whose partitions are no longer needed.
+	 * @throws IOException Thrown, if an error occurs during this remote procedure call.
+	 */
+	void releasePersistentPartitions(JobID jobId) throws IOException;
+
 	void killTaskManager() throws IOException;
 }
@@ -19,6 +19,8 @@
 package org.apache.flink.runtime.taskmanager;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.List;
 
 import org.apache.flink.core.io.InputSplit;
 import org.apache.flink.runtime.executiongraph.ExecutionAttemptID;
@@ -27,6 +29,11 @@ import org.apache.flink.runtime.jobgraph.JobVertexID;
 import org.apache.flink.runtime.jobgraph.tasks.InputSplitProvider;
 import org.apache.flink.runtime.protocols.InputSplitProviderProtocol;
 
+/**
+ * Provides the input splits to a task by requesting them from the job manager. If more than one split is to be
+ * prefetched, the splits are requested in batches of that size and kept in a local queue, which saves a round trip to the job
+ * manager per split.
+ */
 public class TaskInputSplitProvider implements InputSplitProvider {
 
 	private final InputSplitProviderProtocol protocol;
@@ -37,17 +44,45 @@ public class TaskInputSplitProvider implements InputSplitProvider {
 	
 	private final ExecutionAttemptID executionAttempt;
 	
+	private final int numPrefetchedSplits;
+	
+	private final ArrayDeque<InputSplit> prefetchedSplits = new ArrayDeque<InputSplit>();
+	
+	private boolean exhausted;		// guarded by the queue of prefetched splits
+	
 	public TaskInputSplitProvider(InputSplitProviderProtocol protocol, JobID jobId, JobVertexID vertexId, ExecutionAttemptID executionAttempt) {
+		this(protocol, jobId, vertexId, executionAttempt, 0);
+	}
+	
+	public TaskInputSplitProvider(InputSplitProviderProtocol protocol, JobID jobId, JobVertexID vertexId, ExecutionAttemptID executionAttempt,
+			int numPrefetchedSplits) {
 		this.protocol = protocol;
 		this.jobId = jobId;
 		this.vertexId = vertexId;
 		this.executionAttempt = executionAttempt;
+		this.numPrefetchedSplits = numPrefetchedSplits;
 	}
 
 	@Override
 	public InputSplit getNextInputSplit() {
 		try {
-			return protocol.requestNextInputSplit(jobId, vertexId, executionAttempt);
+			if (this.numPrefetchedSplits <= 1) {
+				return protocol.requestNextInputSplit(jobId, vertexId, executionAttempt);
+			}
+			
+			synchronized (this.prefetchedSplits) {
+				if (this.prefetchedSplits.isEmpty() && !this.exhausted) {
+					List<InputSplit> splits = protocol.requestNextInputSplits(jobId, vertexId, executionAttempt, numPrefetchedSplits);
+					
+					// an empty batch means that there are no more splits for this task
+					if (splits == null || splits.isEmpty()) {
+						this.exhausted = true;
+					} else {
+						this.prefetchedSplits.addAll(splits);
+					}
+				}
+				return this.prefetchedSplits.poll();
+			}
 		}
 		catch (IOException e) {
 			throw new RuntimeException("Requesting the next InputSplit failed.", e);
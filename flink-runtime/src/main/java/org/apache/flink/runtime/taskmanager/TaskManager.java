@@ -41,6 +41,9 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -77,6 +80,8 @@ import org.apache.flink.runtime.instance.InstanceID;
 import org.apache.flink.runtime.io.disk.iomanager.IOManager;
 import org.apache.flink.runtime.io.disk.iomanager.IOManagerAsync;
 import org.apache.flink.runtime.io.network.ChannelManager;
+import org.apache.flink.runtime.io.network.channels.ChannelID;
+import org.apache.flink.runtime.io.network.partition.PartitionReplayException;
 import org.apache.flink.runtime.io.network.LocalConnectionManager;
 import org.apache.flink.runtime.io.network.NetworkConnectionManager;
 import org.apache.flink.runtime.io.network.netty.NettyConnectionManager;
@@ -121,6 +126,10 @@ public class TaskManager implements TaskOperationProtocol {
 	
 	private static final int DELAY_AFTER_LOST_CONNECTION = 10000;
 	
+	private static final ThreadGroup REPLAY_THREADS = new ThreadGroup("Partition Replay Threads");
+	
+	private static final long REPLAY_THREAD_KEEP_ALIVE = 1000;
+	
 	
 	public final static String ARG_CONF_DIR = "tempDir";
 	
@@ -158,6 +167,12 @@ public class TaskManager implements TaskOperationProtocol {
 	/** The {@link ChannelManager} sets up and cleans up the data exchange channels of the tasks. */
 	private final ChannelManager channelManager;
 
+	/** Runs the replays of persistent partitions, a bounded number at a time. */
+	private final ExecutorService replayExecutor;
+
+	/** The pending and running replays of persistent partitions, with the IDs of the jobs the partitions belong to. */
+	private final ConcurrentHashMap<FutureTask<Void>, JobID> partitionReplays = new ConcurrentHashMap<FutureTask<Void>, JobID>();
+
 	/** Instance of the task manager profile if profiling is enabled. */
 	private final TaskManagerProfiler profiler;
 
@@ -167,6 +182,9 @@ public class TaskManager implements TaskOperationProtocol {
 
 	private final int numberOfSlots;
 
+	/** The number of input splits that the data sources request at once and keep in a local queue. */
+	private final int numPrefetchedSplits;
+
 	private final Thread heartbeatThread;
 	
 	private final AtomicBoolean shutdownStarted = new AtomicBoolean(false);
@@ -197,6 +215,31 @@ public class TaskManager implements TaskOperationProtocol {
 		this.lookupService = channelLookup;
 		this.globalInputSplitProvider = splitProvider;
 		this.accumulatorProtocolProxy = accumulators;
+		this.numPrefetchedSplits = GlobalConfiguration.getInteger(ConfigConstants.TASK_MANAGER_INPUT_SPLIT_PREFETCH_KEY,
+			ConfigConstants.DEFAULT_TASK_MANAGER_INPUT_SPLIT_PREFETCH);
+		
+		// a replay holds its thread and buffers until the receiver has consumed the partition,
+		// so the number of threads bounds both
+		{
+			int numReplayThreads = GlobalConfiguration.getInteger(ConfigConstants.TASK_MANAGER_NET_NUM_REPLAY_THREADS_KEY,
+					ConfigConstants.DEFAULT_TASK_MANAGER_NET_NUM_REPLAY_THREADS);
+			if (numReplayThreads <= 0) {
+				throw new Exception("The number of replay threads (" + ConfigConstants.TASK_MANAGER_NET_NUM_REPLAY_THREADS_KEY
+						+ ") must be positive.");
+			}
+			// replays are rare, so the threads are not kept when idle
+			ThreadPoolExecutor replayExecutor = new ThreadPoolExecutor(numReplayThreads, numReplayThreads,
+					REPLAY_THREAD_KEEP_ALIVE, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+						@Override
+						public Thread newThread(Runnable r) {
+							Thread t = new Thread(REPLAY_THREADS, r, "Partition Replay Thread");
+							t.setDaemon(true);
+							return t;
+						}
+					});
+			replayExecutor.allowCoreThreadTimeOut(true);
+			this.replayExecutor = replayExecutor;
+		}
 		
 		// initialize the number of slots
 		{
@@ -290,9 +333,13 @@ public class TaskManager implements TaskOperationProtocol {
 	
 					int highWaterMark = GlobalConfiguration.getInteger(ConfigConstants.TASK_MANAGER_NET_NETTY_HIGH_WATER_MARK,
 							ConfigConstants.DEFAULT_TASK_MANAGER_NET_NETTY_HIGH_WATER_MARK);
+
+					String bufferCodec = GlobalConfiguration.getString(ConfigConstants.TASK_MANAGER_NET_COMPRESSION_CODEC_KEY,
+							ConfigConstants.DEFAULT_TASK_MANAGER_NET_COMPRESSION_CODEC);
 	
 					networkConnectionManager = new NettyConnectionManager(localInstanceConnectionInfo.address(),
-							localInstanceConnectionInfo.dataPort(), bufferSize, numInThreads, numOutThreads, lowWaterMark, highWaterMark);
+							localInstanceConnectionInfo.dataPort(), bufferSize, numInThreads, numOutThreads, lowWaterMark, highWaterMark,
+							bufferCodec);
 					break;
 			}
 
@@ -306,9 +353,16 @@ public class TaskManager implements TaskOperationProtocol {
 		{
 			// Check whether the memory size has been explicitly configured.
 			final long configuredMemorySize = GlobalConfiguration.getInteger(ConfigConstants.TASK_MANAGER_MEMORY_SIZE_KEY, -1);
+			final boolean offHeap = GlobalConfiguration.getBoolean(ConfigConstants.TASK_MANAGER_MEMORY_OFF_HEAP_KEY,
+					ConfigConstants.DEFAULT_TASK_MANAGER_MEMORY_OFF_HEAP);
 			final long memorySize;
 			
-			if (configuredMemorySize == -1) {
+			if (configuredMemorySize == -1 && offHeap) {
+				// a fraction of the heap is no meaningful size for memory outside the heap
+				throw new Exception("The memory manager size (" + ConfigConstants.TASK_MANAGER_MEMORY_SIZE_KEY +
+						") must be configured explicitly when allocating off-heap memory.");
+			}
+			else if (configuredMemorySize == -1) {
 				// no manually configured memory. take a relative fraction of the free heap space
 				float fraction = GlobalConfiguration.getFloat(ConfigConstants.TASK_MANAGER_MEMORY_FRACTION_KEY, ConfigConstants.DEFAULT_MEMORY_MANAGER_MEMORY_FRACTION);
 				memorySize = (long) (EnvironmentInformation.getSizeOfFreeHeapMemoryWithDefrag() * fraction);
@@ -325,15 +379,17 @@ public class TaskManager implements TaskOperationProtocol {
 					ConfigConstants.DEFAULT_TASK_MANAGER_NETWORK_BUFFER_SIZE);
 
 			// Initialize the memory manager
-			LOG.info("Initializing memory manager with " + (memorySize >>> 20) + " megabytes of memory. " +
-					"Page size is " + pageSize + " bytes.");
+			LOG.info("Initializing memory manager with " + (memorySize >>> 20) + " megabytes of " +
+					(offHeap ? "off-heap" : "heap") + " memory. Page size is " + pageSize + " bytes.");
 			
 			try {
-				@SuppressWarnings("unused")
 				final boolean lazyAllocation = GlobalConfiguration.getBoolean(ConfigConstants.TASK_MANAGER_MEMORY_LAZY_ALLOCATION_KEY,
 					ConfigConstants.DEFAULT_TASK_MANAGER_MEMORY_LAZY_ALLOCATION);
+				final boolean memorySharing = GlobalConfiguration.getBoolean(ConfigConstants.TASK_MANAGER_MEMORY_SHARING_KEY,
+					ConfigConstants.DEFAULT_TASK_MANAGER_MEMORY_SHARING);
 				
-				this.memoryManager = new DefaultMemoryManager(memorySize, this.numberOfSlots, pageSize);
+				this.memoryManager = new DefaultMemoryManager(memorySize, this.numberOfSlots, pageSize, offHeap,
+					lazyAllocation || memorySharing, memorySharing);
 			} catch (Throwable t) {
 				LOG.error("Unable to initialize memory manager with " + (memorySize >>> 20) + " megabytes of memory.", t);
 				throw new Exception("Unable to initialize memory manager.", t);
@@ -358,7 +414,11 @@ public class TaskManager implements TaskOperationProtocol {
 						(blobServerAddress), GlobalConfiguration.getConfiguration());
 			}
 		}
-		this.ioManager = new IOManagerAsync(tmpDirPaths);
+		this.ioManager = new IOManagerAsync(tmpDirPaths,
+				GlobalConfiguration.getInteger(ConfigConstants.TASK_MANAGER_IO_THREADS_PER_DIR_KEY,
+						ConfigConstants.DEFAULT_TASK_MANAGER_IO_THREADS_PER_DIR),
+				GlobalConfiguration.getInteger(ConfigConstants.TASK_MANAGER_IO_MAX_BATCH_SIZE_KEY,
+						ConfigConstants.DEFAULT_TASK_MANAGER_IO_MAX_BATCH_SIZE));
 		
 		// start the heart beats
 		{
@@ -456,6 +516,8 @@ public class TaskManager implements TaskOperationProtocol {
 			this.profiler.shutdown();
 		}
 
+		this.replayExecutor.shutdownNow();
+
 		// Shut down the channel manager
 		try {
 			this.channelManager.shutdown();
@@ -573,6 +635,62 @@ public class TaskManager implements TaskOperationProtocol {
 		return new TaskOperationResult(executionId, true);
 	}
 
+	@Override
+	public TaskOperationResult replayPersistentPartition(final JobID jobId, final ChannelID partitionId,
+			final ChannelID outputChannelId, final ChannelID inputChannelId, final ExecutionAttemptID receiverId) {
+
+		if (!this.channelManager.hasPersistentPartition(partitionId)) {
+			return new TaskOperationResult(receiverId, false, "No persistent partition with ID " + partitionId + " was found.");
+		}
+
+		final FutureTask<Void> replay = new FutureTask<Void>(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					channelManager.replayPersistentPartition(jobId, partitionId, outputChannelId, inputChannelId, ioManager);
+				}
+				catch (CancelTaskException e) {
+					// the receiver has been canceled or failed in the meantime
+				}
+				catch (InterruptedException e) {
+					// the partitions of the job have been released
+				}
+				catch (Throwable t) {
+					LOG.error("Replay of persistent partition " + partitionId + " failed.", t);
+					try {
+						jobManager.updateTaskExecutionState(new TaskExecutionState(jobId, receiverId, ExecutionState.FAILED,
+								new PartitionReplayException(partitionId, t)));
+					}
+					catch (Throwable tt) {
+						LOG.error("Error sending the failed replay of a persistent partition to the JobManager.", tt);
+					}
+				}
+			}
+		}, null) {
+			@Override
+			protected void done() {
+				partitionReplays.remove(this);
+			}
+		};
+
+		this.partitionReplays.put(replay, jobId);
+		this.replayExecutor.execute(replay);
+
+		return new TaskOperationResult(receiverId, true);
+	}
+
+	@Override
+	public void releasePersistentPartitions(JobID jobId) {
+		// drops the pending replays and interrupts the running ones
+		for (Map.Entry<FutureTask<Void>, JobID> replay : this.partitionReplays.entrySet()) {
+			if (replay.getValue().equals(jobId)) {
+				replay.getKey().cancel(true);
+			}
+		}
+
+		this.channelManager.releasePersistentPartitions(jobId);
+	}
+
 
 	@Override
 	public TaskOperationResult submitTask(TaskDeploymentDescriptor tdd) {
@@ -607,7 +725,8 @@ public class TaskManager implements TaskOperationProtocol {
 				throw new Exception("TaskManager contains already a task with executionId " + executionId);
 			}
 			
-			final InputSplitProvider splitProvider = new TaskInputSplitProvider(this.globalInputSplitProvider, jobID, vertexId, executionId);
+			final InputSplitProvider splitProvider = new TaskInputSplitProvider(this.globalInputSplitProvider, jobID, vertexId, executionId,
+				this.numPrefetchedSplits);
 			final RuntimeEnvironment env = new RuntimeEnvironment(task, tdd, userCodeClassLoader, this.memoryManager, this.ioManager, splitProvider, this.accumulatorProtocolProxy, this.bcVarManager);
 			task.setEnvironment(env);
 			
@@ -842,7 +961,7 @@ public class TaskManager implements TaskOperationProtocol {
 	
 				// send heart beat
 				try {
-					boolean accepted = this.jobManager.sendHeartbeat(resultId);
+					boolean accepted = this.jobManager.sendHeartbeat(resultId, createProgressReport());
 					
 					if (accepted) {
 						// reset the unsuccessful heart beats
@@ -886,6 +1005,21 @@ public class TaskManager implements TaskOperationProtocol {
 		} // end while not shutdown
 	}
 	
+	/**
+	 * Creates the report of the input progress of the running tasks, which is sent with the heart beats.
+	 */
+	private TaskProgressReport createProgressReport() {
+		TaskProgressReport report = new TaskProgressReport();
+		
+		for (Task task : this.runningTasks.values()) {
+			RuntimeEnvironment environment = task.getEnvironment();
+			if (environment != null && task.getExecutionState() == ExecutionState.RUNNING) {
+				report.addTask(task.getJobID(), task.getExecutionId(), environment.getInputProgress());
+			}
+		}
+		return report;
+	}
+	
 	// --------------------------------------------------------------------------------------------
 	//  Memory and Garbage Collection Debugging Utilities
 	// --------------------------------------------------------------------------------------------
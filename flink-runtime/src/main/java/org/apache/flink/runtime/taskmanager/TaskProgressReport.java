@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.taskmanager;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.flink.core.io.IOReadableWritable;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.runtime.executiongraph.ExecutionAttemptID;
+import org.apache.flink.runtime.jobgraph.JobID;
+
+/**
+ * The progress of the tasks running on a TaskManager, sent to the JobManager with the heart beats. The
+ * progress of a task is the amount of input it has read so far, in bytes for tasks reading from input
+ * gates, or in records for data sources.
+ */
+public class TaskProgressReport implements IOReadableWritable {
+
+	private final List<JobID> jobIds = new ArrayList<JobID>();
+
+	private final List<ExecutionAttemptID> executionIds = new ArrayList<ExecutionAttemptID>();
+
+	private final List<Long> progress = new ArrayList<Long>();
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Adds the progress of a task to the report.
+	 * 
+	 * @param jobId The ID of the job the task belongs to.
+	 * @param executionId The ID of the task execution.
+	 * @param inputProgress The amount of input read by the task.
+	 */
+	public void addTask(JobID jobId, ExecutionAttemptID executionId, long inputProgress) {
+		if (jobId == null || executionId == null) {
+			throw new NullPointerException();
+		}
+
+		this.jobIds.add(jobId);
+		this.executionIds.add(executionId);
+		this.progress.add(inputProgress);
+	}
+
+	public int getNumberOfTasks() {
+		return this.executionIds.size();
+	}
+
+	public JobID getJobId(int task) {
+		return this.jobIds.get(task);
+	}
+
+	public ExecutionAttemptID getExecutionId(int task) {
+		return this.executionIds.get(task);
+	}
+
+	public long getInputProgress(int task) {
+		return this.progress.get(task);
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	@Override
+	public void read(DataInputView in) throws IOException {
+		this.jobIds.clear();
+		this.executionIds.clear();
+		this.progress.clear();
+
+		final int numTasks = in.readInt();
+		for (int i = 0; i < numTasks; i++) {
+			JobID jobId = new JobID();
+			jobId.read(in);
+			ExecutionAttemptID executionId = new ExecutionAttemptID();
+			executionId.read(in);
+
+			addTask(jobId, executionId, in.readLong());
+		}
+	}
+
+	@Override
+	public void write(DataOutputView out) throws IOException {
+		out.writeInt(this.executionIds.size());
+		for (int i = 0; i < this.executionIds.size(); i++) {
+			this.jobIds.get(i).write(out);
+			this.executionIds.get(i).write(out);
+			out.writeLong(this.progress.get(i));
+		}
+	}
+
+	@Override
+	public String toString() {
+		return String.format("TaskProgressReport with %d tasks", this.executionIds.size());
+	}
+}
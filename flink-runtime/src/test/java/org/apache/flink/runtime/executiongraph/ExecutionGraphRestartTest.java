@@ -71,7 +71,7 @@ public class ExecutionGraphRestartTest {
 			assertEquals(JobStatus.RUNNING, eg.getState());
 			
 			for (ExecutionVertex v : eg.getAllExecutionVertices()) {
-				v.executionFinished();
+				v.executionFinished(v.getCurrentExecutionAttempt());
 			}
 			assertEquals(JobStatus.FINISHED, eg.getState());
 		}
@@ -115,7 +115,7 @@ public class ExecutionGraphRestartTest {
 			assertEquals(JobStatus.RUNNING, eg.getState());
 			
 			for (ExecutionVertex v : eg.getAllExecutionVertices()) {
-				v.executionFinished();
+				v.executionFinished(v.getCurrentExecutionAttempt());
 			}
 			assertEquals(JobStatus.FINISHED, eg.getState());
 		}
@@ -62,7 +62,7 @@ public class ExecutionStateProgressTest {
 			
 			// finish all
 			for (ExecutionVertex ee : ejv.getTaskVertices()) {
-				ee.executionFinished();
+				ee.executionFinished(ee.getCurrentExecutionAttempt());
 			}
 			
 			assertTrue(ejv.isInFinalState());
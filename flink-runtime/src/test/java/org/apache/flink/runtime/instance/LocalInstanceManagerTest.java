@@ -33,6 +33,7 @@ import org.apache.flink.runtime.ipc.RPC;
 import org.apache.flink.runtime.ipc.RPC.Server;
 import org.apache.flink.runtime.protocols.JobManagerProtocol;
 import org.apache.flink.runtime.taskmanager.TaskExecutionState;
+import org.apache.flink.runtime.taskmanager.TaskProgressReport;
 import org.apache.flink.runtime.taskmanager.TaskManager;
 
 import org.junit.After;
@@ -156,7 +157,7 @@ public class LocalInstanceManagerTest {
 		}
 
 		@Override
-		public boolean sendHeartbeat(InstanceID taskManagerId) {
+		public boolean sendHeartbeat(InstanceID taskManagerId, TaskProgressReport progress) {
 			return true;
 		}
 
@@ -196,6 +196,79 @@ public class IOManagerTest {
 		}
 	}
 
+	/**
+	 * Tests that blocks are read and written in order when the I/O manager runs several threads per
+	 * directory and combines queued requests into vectored I/O calls.
+	 */
+	@Test
+	public void channelReadWriteMultipleChannelsBatched() {
+		final int NUM_CHANNELS = 6;
+		final int NUM_IOS = 257;
+		final int NUM_SEGS = 8;
+		
+		final IOManager batchingIOManager = new IOManagerAsync(
+				new String[] { System.getProperty("java.io.tmpdir") }, 3, 4);
+		try {
+			final FileIOChannel.ID[] channelIDs = new FileIOChannel.ID[NUM_CHANNELS];
+			final BlockChannelWriter[] writers = new BlockChannelWriter[NUM_CHANNELS];
+			final List<MemorySegment> memSegs = this.memoryManager.allocatePages(new DummyInvokable(), NUM_CHANNELS * NUM_SEGS);
+			
+			for (int c = 0; c < NUM_CHANNELS; c++) {
+				channelIDs[c] = batchingIOManager.createChannel();
+				writers[c] = batchingIOManager.createBlockChannelWriter(channelIDs[c]);
+			}
+			
+			// write the channels interleaved, such that each writer has several blocks in flight
+			for (int i = 0; i < NUM_IOS; i++) {
+				for (int c = 0; c < NUM_CHANNELS; c++) {
+					final MemorySegment memSeg = i < NUM_SEGS ? memSegs.remove(0) : writers[c].getNextReturnedSegment();
+					for (int pos = 0; pos < memSeg.size(); pos += 4) {
+						memSeg.putInt(pos, c * NUM_IOS + i);
+					}
+					writers[c].writeBlock(memSeg);
+				}
+			}
+			for (int c = 0; c < NUM_CHANNELS; c++) {
+				writers[c].close();
+				for (int i = 0; i < NUM_SEGS; i++) {
+					memSegs.add(writers[c].getNextReturnedSegment());
+				}
+			}
+			
+			// read the channels back, each with several blocks in flight
+			for (int c = 0; c < NUM_CHANNELS; c++) {
+				final BlockChannelReader reader = batchingIOManager.createBlockChannelReader(channelIDs[c]);
+				for (int i = 0; i < NUM_SEGS; i++) {
+					reader.readBlock(memSegs.remove(0));
+				}
+				for (int i = 0; i < NUM_IOS; i++) {
+					final MemorySegment memSeg = reader.getNextReturnedSegment();
+					for (int pos = 0; pos < memSeg.size(); pos += 4) {
+						if (memSeg.getInt(pos) != c * NUM_IOS + i) {
+							Assert.fail("Read memory segment contains invalid data.");
+						}
+					}
+					if (i < NUM_IOS - NUM_SEGS) {
+						reader.readBlock(memSeg);
+					} else {
+						memSegs.add(memSeg);
+					}
+				}
+				reader.closeAndDelete();
+			}
+			
+			this.memoryManager.release(memSegs);
+		}
+		catch (Exception ex) {
+			ex.printStackTrace();
+			Assert.fail("Test encountered an exception: " + ex.getMessage());
+		}
+		finally {
+			batchingIOManager.shutdown();
+			Assert.assertTrue("IO Manager has not properly shut down.", batchingIOManager.isProperlyShutDown());
+		}
+	}
+
 	// ============================================================================================
 	
 	final class FailingSegmentReadRequest implements ReadRequest {
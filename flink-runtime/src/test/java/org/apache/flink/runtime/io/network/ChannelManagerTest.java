@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.InetAddress;
+import java.util.Map;
+
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.runtime.instance.InstanceConnectionInfo;
+import org.apache.flink.runtime.io.network.bufferprovider.LocalBufferPool;
+import org.apache.flink.runtime.io.network.channels.Channel;
+import org.apache.flink.runtime.io.network.channels.ChannelID;
+import org.apache.flink.runtime.io.network.channels.InputChannel;
+import org.apache.flink.runtime.jobgraph.JobID;
+import org.apache.flink.runtime.protocols.ChannelLookupProtocol;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.powermock.reflect.Whitebox;
+
+public class ChannelManagerTest {
+
+	@Test
+	public void testLocalReceiverGetsBufferWithoutCopy() {
+		try {
+			final ChannelManager channelManager = new ChannelManager(mock(ChannelLookupProtocol.class),
+					new InstanceConnectionInfo(InetAddress.getLocalHost(), 6122, 6121), 4, 1024,
+					mock(NetworkConnectionManager.class));
+			try {
+				final JobID jobId = new JobID();
+				final ChannelID sender = new ChannelID();
+				final ChannelID receiver = new ChannelID();
+
+				InputChannel<?> inputChannel = mock(InputChannel.class);
+				when(inputChannel.isInputChannel()).thenReturn(true);
+
+				Map<ChannelID, Channel> channels = Whitebox.getInternalState(channelManager, "channels");
+				Map<ChannelID, EnvelopeReceiverList> receiverCache = Whitebox.getInternalState(channelManager, "receiverCache");
+				channels.put(receiver, inputChannel);
+				receiverCache.put(sender, new EnvelopeReceiverList(receiver));
+
+				LocalBufferPool senderPool = new LocalBufferPool(channelManager.getGlobalBufferPool(), 1);
+				Buffer buffer = senderPool.requestBuffer(1024);
+				MemorySegment segment = buffer.getMemorySegment();
+
+				Envelope envelope = new Envelope(0, jobId, sender);
+				envelope.setBuffer(buffer);
+				channelManager.dispatchFromOutputChannel(envelope);
+
+				// the receiver gets the sender's memory segment
+				ArgumentCaptor<Envelope> received = ArgumentCaptor.forClass(Envelope.class);
+				verify(inputChannel).queueEnvelope(received.capture());
+				assertSame(segment, received.getValue().getBuffer().getMemorySegment());
+
+				// the segment goes back to the sender's pool only once the receiver recycles it
+				assertEquals(0, senderPool.numAvailableBuffers());
+				received.getValue().getBuffer().recycleBuffer();
+				assertEquals(1, senderPool.numAvailableBuffers());
+
+				senderPool.destroy();
+			}
+			finally {
+				channelManager.shutdown();
+			}
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.api;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.runtime.execution.Environment;
+import org.apache.flink.runtime.io.network.Buffer;
+import org.apache.flink.runtime.io.network.BufferRecycler;
+import org.apache.flink.runtime.io.network.bufferprovider.BufferProvider;
+import org.apache.flink.runtime.io.network.gates.OutputGate;
+import org.apache.flink.runtime.io.network.serialization.AdaptiveSpanningRecordDeserializer;
+import org.apache.flink.runtime.io.network.serialization.RecordDeserializer;
+import org.apache.flink.runtime.io.network.serialization.types.IntType;
+import org.apache.flink.runtime.jobgraph.tasks.AbstractInvokable;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class RecordWriterTest {
+
+	private static final int NUM_CHANNELS = 3;
+
+	private static final int BUFFER_SIZE = 32;
+
+	private OutputGate outputGate;
+
+	private AbstractInvokable invokable;
+
+	private int numRequestedBuffers;
+
+	@Before
+	public void setup() throws Exception {
+		this.outputGate = mock(OutputGate.class);
+		when(this.outputGate.getNumChannels()).thenReturn(NUM_CHANNELS);
+
+		BufferProvider bufferProvider = mock(BufferProvider.class);
+		when(bufferProvider.getBufferSize()).thenReturn(BUFFER_SIZE);
+		when(bufferProvider.requestBufferBlocking(anyInt())).thenAnswer(new Answer<Buffer>() {
+			@Override
+			public Buffer answer(InvocationOnMock invocation) {
+				numRequestedBuffers++;
+				return new Buffer(new MemorySegment(new byte[BUFFER_SIZE]), BUFFER_SIZE, mock(BufferRecycler.class));
+			}
+		});
+
+		Environment environment = mock(Environment.class);
+		when(environment.createAndRegisterOutputGate()).thenReturn(this.outputGate);
+		when(environment.getOutputBufferProvider()).thenReturn(bufferProvider);
+
+		this.invokable = mock(AbstractInvokable.class);
+		when(this.invokable.getEnvironment()).thenReturn(environment);
+	}
+
+	@Test
+	public void testBroadcastSerializesOnce() {
+		try {
+			RecordWriter<IntType> writer = new RecordWriter<IntType>(this.invokable, new AllChannelsSelector());
+			writer.initializeSerializers();
+
+			// 12 records of 8 bytes each fill 3 buffers, which are shared by all channels
+			for (int i = 0; i < 12; i++) {
+				writer.emit(new IntType(i));
+			}
+			writer.flush();
+
+			ArgumentCaptor<Buffer> buffers = ArgumentCaptor.forClass(Buffer.class);
+			verify(this.outputGate, times(3)).broadcastBuffer(buffers.capture());
+			verify(this.outputGate, never()).sendBuffer(any(Buffer.class), anyInt());
+			Assert.assertEquals(4, this.numRequestedBuffers);
+
+			RecordDeserializer<IntType> deserializer = new AdaptiveSpanningRecordDeserializer<IntType>();
+			List<Integer> values = new ArrayList<Integer>();
+			for (Buffer buffer : buffers.getAllValues()) {
+				deserializer.setNextMemorySegment(buffer.getMemorySegment(), buffer.size());
+				IntType record = new IntType();
+				while (deserializer.hasUnfinishedData() && deserializer.getNextRecord(record).isFullRecord()) {
+					values.add(record.hashCode());
+				}
+			}
+			Assert.assertEquals(12, values.size());
+			for (int i = 0; i < 12; i++) {
+				Assert.assertEquals(i, values.get(i).intValue());
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testBroadcastKeepsOrderWithSingleChannelRecords() {
+		try {
+			SwitchingSelector selector = new SwitchingSelector();
+			RecordWriter<IntType> writer = new RecordWriter<IntType>(this.invokable, selector);
+			writer.initializeSerializers();
+
+			selector.toAll = false;
+			writer.emit(new IntType(1));
+
+			selector.toAll = true;
+			writer.emit(new IntType(2));
+
+			selector.toAll = false;
+			writer.emit(new IntType(3));
+			writer.flush();
+
+			// the pending record of channel 1 goes before the shared buffer, which goes before the last record
+			InOrder order = inOrder(this.outputGate);
+			order.verify(this.outputGate).sendBuffer(any(Buffer.class), eq(1));
+			order.verify(this.outputGate).broadcastBuffer(any(Buffer.class));
+			order.verify(this.outputGate).sendBuffer(any(Buffer.class), eq(1));
+		} catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		}
+	}
+
+	// -----------------------------------------------------------------------------------------------------------------
+
+	private static final class AllChannelsSelector implements ChannelSelector<IntType> {
+
+		@Override
+		public int[] selectChannels(IntType record, int numberOfOutputChannels) {
+			int[] channels = new int[numberOfOutputChannels];
+			for (int i = 0; i < numberOfOutputChannels; i++) {
+				channels[i] = i;
+			}
+			return channels;
+		}
+	}
+
+	private static final class SwitchingSelector implements ChannelSelector<IntType> {
+
+		private boolean toAll;
+
+		@Override
+		public int[] selectChannels(IntType record, int numberOfOutputChannels) {
+			return this.toAll ? new AllChannelsSelector().selectChannels(record, numberOfOutputChannels) : new int[] { 1 };
+		}
+	}
+}
@@ -375,6 +375,83 @@ public class InboundEnvelopeDecoderTest {
 		buf.release();
 	}
 
+	@Test
+	public void testEncodeDecodeCompressed() throws Exception {
+		final EmbeddedChannel ch = new EmbeddedChannel(
+				new OutboundEnvelopeEncoder(new Lz4BufferCodec()), new InboundEnvelopeDecoder(this.bufferProviderBroker));
+
+		when(this.bufferProviderBroker.getBufferProvider(anyJobId(), anyChannelId()))
+				.thenReturn(this.bufferProvider);
+
+		when(this.bufferProvider.requestBuffer(anyInt())).thenAnswer(new Answer<Object>() {
+			@Override
+			public Object answer(InvocationOnMock invocation) throws Throwable {
+				// fulfill the buffer request
+				return allocBuffer((Integer) invocation.getArguments()[0]);
+			}
+		});
+
+		// --------------------------------------------------------------------
+
+		Envelope[] envelopes = new Envelope[]{
+				nextCompressibleEnvelope(32768),
+				nextEnvelope(8192), // random data, goes out uncompressed
+				nextCompressibleEnvelope(100, new TestEvent1(34872527)),
+				nextEnvelope(0, new TestEvent2(34563456)),
+				nextCompressibleEnvelope(3),
+				nextCompressibleEnvelope(16384)
+		};
+
+		int bufferBytes = 0;
+		for (Envelope env : envelopes) {
+			bufferBytes += env.getBuffer() != null ? env.getBuffer().size() : 0;
+		}
+
+		ByteBuf buf = encode(ch, envelopes);
+
+		Assert.assertTrue(buf.readableBytes() < bufferBytes / 2);
+
+		// 1. complete ByteBuf as input
+		int refCount = buf.retain().refCnt();
+
+		decodeAndVerify(ch, buf, envelopes);
+		Assert.assertEquals(refCount - 1, buf.refCnt());
+
+		// 2. random slices
+		buf.readerIndex(0);
+		ByteBuf[] slices = randomSlices(buf);
+
+		ch.writeInbound((Object[]) slices);
+
+		decodeAndVerify(ch, envelopes);
+
+		buf.release();
+	}
+
+	@Test
+	public void testBufferPoolDestroyedSkipsCompressedBytes() throws Exception {
+		final EmbeddedChannel ch = new EmbeddedChannel(
+				new OutboundEnvelopeEncoder(new Lz4BufferCodec()), new InboundEnvelopeDecoder(this.bufferProviderBroker));
+
+		when(this.bufferProviderBroker.getBufferProvider(anyJobId(), anyChannelId()))
+				.thenReturn(this.bufferProvider);
+
+		when(this.bufferProvider.requestBuffer(anyInt()))
+				.thenReturn(null);
+
+		when(this.bufferProvider.registerBufferAvailabilityListener(Matchers.<BufferAvailabilityListener>anyObject()))
+				.thenReturn(BufferAvailabilityRegistration.FAILED_BUFFER_POOL_DESTROYED);
+
+		// --------------------------------------------------------------------
+
+		Envelope[] envelopes = new Envelope[]{nextCompressibleEnvelope(32768), nextEnvelope(), nextEnvelope()};
+
+		ByteBuf buf = encode(ch, envelopes);
+
+		decodeAndVerify(ch, buf, envelopes[1], envelopes[2]);
+		Assert.assertEquals(0, buf.refCnt());
+	}
+
 	@Test
 	public void testEncodeDecodeRandomEnvelopes() throws Exception {
 		final InboundEnvelopeDecoder decoder = new InboundEnvelopeDecoder(this.bufferProviderBroker);
@@ -497,6 +574,31 @@ public class InboundEnvelopeDecoderTest {
 		return env;
 	}
 
+	/**
+	 * Returns an envelope with a buffer of text-like data that compresses well.
+	 */
+	private Envelope nextCompressibleEnvelope(int bufferSize, AbstractEvent... events) {
+		final String[] words = {"flink ", "stream ", "batch ", "network ", "buffer ", "envelope ", "the ", "a "};
+
+		Envelope env = new Envelope(random.nextInt(), new JobID(), new ChannelID());
+
+		byte[] data = new byte[bufferSize];
+		int pos = 0;
+		while (pos < bufferSize) {
+			byte[] word = words[random.nextInt(words.length)].getBytes();
+			int len = Math.min(word.length, bufferSize - pos);
+			System.arraycopy(word, 0, data, pos, len);
+			pos += len;
+		}
+		env.setBuffer(spy(new Buffer(new MemorySegment(data), bufferSize, RECYCLER)));
+
+		if (events != null && events.length > 0) {
+			env.serializeEventList(Arrays.asList(events));
+		}
+
+		return env;
+	}
+
 	private Envelope nextEnvelope(boolean withBuffer, boolean withEvents) {
 		int bufferSize = 0;
 		AbstractEvent[] events = null;
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.io.network.netty;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class Lz4BufferCodecTest {
+
+	private static final long SEED = 649180756312423613L;
+
+	private final Random random = new Random(SEED);
+
+	@Test
+	public void testRandomData() {
+		for (int size : new int[] {0, 1, 5, 12, 13, 17, 100, 8192, 32768}) {
+			byte[] data = new byte[size];
+			this.random.nextBytes(data);
+			roundTrip(data);
+		}
+	}
+
+	@Test
+	public void testRepetitiveData() {
+		// long runs need the extended match lengths
+		roundTrip(new byte[32768]);
+
+		byte[] data = new byte[32768];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = (byte) (i % 7);
+		}
+		Assert.assertTrue(roundTrip(data) < data.length / 10);
+	}
+
+	@Test
+	public void testTextData() {
+		final String[] words = {"lorem ", "ipsum ", "dolor ", "sit ", "amet ", "consectetur ", "adipiscing ", "elit "};
+
+		StringBuilder text = new StringBuilder();
+		while (text.length() < 32768) {
+			text.append(words[this.random.nextInt(words.length)]);
+			if (this.random.nextInt(10) == 0) {
+				// a run of random characters needs the extended literal lengths
+				for (int i = this.random.nextInt(300); i > 0; i--) {
+					text.append((char) ('a' + this.random.nextInt(26)));
+				}
+			}
+		}
+
+		byte[] data = text.toString().getBytes();
+		Assert.assertTrue(roundTrip(data) < data.length);
+	}
+
+	@Test
+	public void testCompressAtOffsets() throws IOException {
+		final Lz4BufferCodec codec = new Lz4BufferCodec();
+
+		byte[] data = new byte[1000];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = (byte) (i % 13);
+		}
+
+		byte[] compressed = new byte[7 + codec.getMaxCompressedLength(900)];
+		int compressedLength = codec.compress(data, 50, 900, compressed, 7);
+
+		byte[] restored = new byte[1000];
+		Assert.assertEquals(900, codec.decompress(compressed, 7, compressedLength, restored, 11, 900));
+		Assert.assertArrayEquals(Arrays.copyOfRange(data, 50, 950), Arrays.copyOfRange(restored, 11, 911));
+	}
+
+	@Test
+	public void testMalformedData() {
+		final Lz4BufferCodec codec = new Lz4BufferCodec();
+
+		byte[] data = new byte[4096];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = (byte) (i % 5);
+		}
+		byte[] compressed = new byte[codec.getMaxCompressedLength(data.length)];
+		int compressedLength = codec.compress(data, 0, data.length, compressed, 0);
+
+		// truncated input
+		try {
+			codec.decompress(compressed, 0, compressedLength - 3, new byte[data.length], 0, data.length);
+			Assert.fail("Expected IOException not thrown");
+		}
+		catch (IOException e) {
+			// expected
+		}
+
+		// target too small
+		try {
+			codec.decompress(compressed, 0, compressedLength, new byte[data.length - 1], 0, data.length - 1);
+			Assert.fail("Expected IOException not thrown");
+		}
+		catch (IOException e) {
+			// expected
+		}
+	}
+
+	private static int roundTrip(byte[] data) {
+		try {
+			final Lz4BufferCodec codec = new Lz4BufferCodec();
+
+			byte[] compressed = new byte[codec.getMaxCompressedLength(data.length)];
+			int compressedLength = codec.compress(data, 0, data.length, compressed, 0);
+			Assert.assertTrue(compressedLength <= compressed.length);
+
+			byte[] restored = new byte[data.length];
+			Assert.assertEquals(data.length, codec.decompress(compressed, 0, compressedLength, restored, 0, data.length));
+			Assert.assertArrayEquals(data, restored);
+
+			return compressedLength;
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+			return -1;
+		}
+	}
+}
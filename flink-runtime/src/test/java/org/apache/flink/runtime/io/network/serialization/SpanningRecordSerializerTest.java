@@ -27,6 +27,7 @@ import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.runtime.io.network.Buffer;
 import org.apache.flink.runtime.io.network.serialization.SpanningRecordSerializer;
 import org.apache.flink.runtime.io.network.serialization.RecordSerializer.SerializationResult;
+import org.apache.flink.runtime.io.network.serialization.types.IntType;
 import org.apache.flink.runtime.io.network.serialization.types.SerializationTestType;
 import org.apache.flink.runtime.io.network.serialization.types.SerializationTestTypeFactory;
 import org.apache.flink.runtime.io.network.serialization.types.Util;
@@ -182,6 +183,39 @@ public class SpanningRecordSerializerTest {
 		}
 	}
 
+	@Test
+	public void testRecordsWrittenIntoSegment() {
+		final int SEGMENT_SIZE = 20;
+
+		final SpanningRecordSerializer<SerializationTestType> serializer = new SpanningRecordSerializer<SerializationTestType>();
+		final MemorySegment segment = new MemorySegment(new byte[SEGMENT_SIZE]);
+		final Buffer buffer = new Buffer(segment, SEGMENT_SIZE, null);
+
+		try {
+			serializer.setNextBuffer(buffer);
+
+			// two records fit into the segment, each behind its length
+			Assert.assertEquals(SerializationResult.FULL_RECORD, serializer.addRecord(new IntType(42)));
+			Assert.assertEquals(SerializationResult.FULL_RECORD, serializer.addRecord(new IntType(7)));
+			Assert.assertEquals(4, segment.getIntBigEndian(0));
+			Assert.assertEquals(42, segment.getIntBigEndian(4));
+			Assert.assertEquals(4, segment.getIntBigEndian(8));
+			Assert.assertEquals(7, segment.getIntBigEndian(12));
+
+			// only the length of the third record fits, its data spans into the next segment
+			Assert.assertEquals(SerializationResult.PARTIAL_RECORD_MEMORY_SEGMENT_FULL, serializer.addRecord(new IntType(-1)));
+			Assert.assertEquals(4, segment.getIntBigEndian(16));
+			Assert.assertEquals(SEGMENT_SIZE, serializer.getCurrentBuffer().size());
+
+			Assert.assertEquals(SerializationResult.FULL_RECORD, serializer.setNextBuffer(buffer));
+			Assert.assertEquals(-1, segment.getIntBigEndian(0));
+			Assert.assertEquals(4, serializer.getCurrentBuffer().size());
+		} catch (IOException e) {
+			e.printStackTrace();
+			Assert.fail("Test encountered an unexpected exception.");
+		}
+	}
+
 	// -----------------------------------------------------------------------------------------------------------------
 
 	/**
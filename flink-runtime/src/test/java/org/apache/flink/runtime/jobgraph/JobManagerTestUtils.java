@@ -98,7 +98,8 @@ public class JobManagerTestUtils {
 				continue;
 			}
 			ThreadGroup tg = t.getThreadGroup();
-			if (tg != null && tg.getName() != null && tg.getName().equals("Task Threads")) {
+			if (tg != null && tg.getName() != null &&
+					(tg.getName().equals("Task Threads") || tg.getName().equals("Partition Replay Threads"))) {
 				t.join();
 			}
 		}
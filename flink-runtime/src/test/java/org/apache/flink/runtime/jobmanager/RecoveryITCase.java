@@ -28,12 +28,14 @@ import org.apache.flink.configuration.Configuration;
 import org.apache.flink.runtime.client.AbstractJobResult;
 import org.apache.flink.runtime.client.JobSubmissionResult;
 import org.apache.flink.runtime.executiongraph.ExecutionGraph;
+import org.apache.flink.runtime.executiongraph.ExecutionVertex;
 import org.apache.flink.runtime.instance.LocalInstanceManager;
 import org.apache.flink.runtime.io.network.bufferprovider.GlobalBufferPool;
 import org.apache.flink.runtime.jobgraph.AbstractJobVertex;
 import org.apache.flink.runtime.jobgraph.DistributionPattern;
 import org.apache.flink.runtime.jobgraph.JobGraph;
 import org.apache.flink.runtime.jobgraph.JobStatus;
+import org.apache.flink.runtime.jobgraph.ResultPartitionType;
 import org.apache.flink.runtime.jobmanager.scheduler.SlotSharingGroup;
 import org.apache.flink.runtime.jobmanager.tasks.ReceiverBlockingOnce;
 import org.apache.flink.runtime.jobmanager.tasks.ReceiverFailingOnce;
@@ -193,6 +195,86 @@ public class RecoveryITCase {
 		}
 	}
 	
+	@Test
+	public void testForwardJobWithBlockingResult() {
+		
+		ReceiverFailingOnce.resetFailedBefore();
+		
+		final int NUM_TASKS = 31;
+		
+		JobManager jm = null;
+		
+		try {
+			final AbstractJobVertex sender = new AbstractJobVertex("Sender");
+			final AbstractJobVertex receiver = new AbstractJobVertex("Receiver");
+			
+			sender.setInvokableClass(Sender.class);
+			receiver.setInvokableClass(ReceiverFailingOnce.class);
+			
+			sender.setParallelism(NUM_TASKS);
+			receiver.setParallelism(NUM_TASKS);
+			
+			receiver.connectNewDataSetAsInput(sender, DistributionPattern.POINTWISE, ResultPartitionType.BLOCKING);
+			
+			final JobGraph jobGraph = new JobGraph("Pointwise Job", sender, receiver);
+			jobGraph.setNumberOfExecutionRetries(1);
+			
+			jm = startJobManager(2 * NUM_TASKS);
+			
+			final GlobalBufferPool bp = ((LocalInstanceManager) jm.getInstanceManager())
+					.getTaskManagers()[0].getChannelManager().getGlobalBufferPool();
+			
+			JobSubmissionResult result = jm.submitJob(jobGraph);
+
+			if (result.getReturnCode() != AbstractJobResult.ReturnCode.SUCCESS) {
+				System.out.println(result.getDescription());
+			}
+			assertEquals(AbstractJobResult.ReturnCode.SUCCESS, result.getReturnCode());
+			
+			// monitor the execution
+			ExecutionGraph eg = jm.getCurrentJobs().get(jobGraph.getJobID());
+			
+			if (eg != null) {
+				eg.waitForJobEnd();
+				
+				if (eg.getState() != JobStatus.FINISHED) {
+					Throwable t = eg.getFailureCause();
+					String message = null;
+					
+					if (t != null) {
+						t.printStackTrace();
+						message = t.getMessage();
+					}
+					fail("Execution failed despite recovery: " + message);
+				}
+				
+				// only the failed receiver is executed again, it re-reads the persisted partition
+				for (ExecutionVertex ev : eg.getJobVertex(sender.getID()).getTaskVertices()) {
+					assertEquals(0, ev.getCurrentExecutionAttempt().getAttemptNumber());
+				}
+				for (ExecutionVertex ev : eg.getJobVertex(receiver.getID()).getTaskVertices()) {
+					assertEquals(ev.getParallelSubtaskIndex() == 0 ? 1 : 0, ev.getCurrentExecutionAttempt().getAttemptNumber());
+				}
+			}
+			else {
+				// already done, that was fast;
+			}
+			
+			// make sure that in any case, the network buffers are all returned
+			waitForTaskThreadsToBeTerminated();
+			assertEquals(bp.numBuffers(), bp.numAvailableBuffers());
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+		finally {
+			if (jm != null) {
+				jm.shutdown();
+			}
+		}
+	}
+	
 	@Test
 	public void testRecoverTaskManagerFailure() {
 		
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.jobmanager;
+
+import static org.apache.flink.runtime.jobgraph.JobManagerTestUtils.startJobManager;
+import static org.apache.flink.runtime.jobgraph.JobManagerTestUtils.waitForTaskThreadsToBeTerminated;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import org.apache.flink.configuration.ConfigConstants;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.runtime.client.AbstractJobResult;
+import org.apache.flink.runtime.client.JobSubmissionResult;
+import org.apache.flink.runtime.executiongraph.ExecutionGraph;
+import org.apache.flink.runtime.executiongraph.ExecutionVertex;
+import org.apache.flink.runtime.instance.LocalInstanceManager;
+import org.apache.flink.runtime.io.network.bufferprovider.GlobalBufferPool;
+import org.apache.flink.runtime.jobgraph.AbstractJobVertex;
+import org.apache.flink.runtime.jobgraph.DistributionPattern;
+import org.apache.flink.runtime.jobgraph.JobGraph;
+import org.apache.flink.runtime.jobgraph.JobStatus;
+import org.apache.flink.runtime.jobgraph.ResultPartitionType;
+import org.apache.flink.runtime.jobmanager.tasks.ForwarderStragglingOnce;
+import org.apache.flink.runtime.jobmanager.tasks.Receiver;
+import org.apache.flink.runtime.jobmanager.tasks.Sender;
+import org.apache.flink.runtime.taskmanager.TaskManager;
+import org.junit.Test;
+
+/**
+ * Tests that straggling subtasks are overtaken by backup executions on other instances.
+ */
+public class SpeculativeExecutionITCase {
+	
+	@Test
+	public void testStragglerOvertakenByBackup() {
+		
+		ForwarderStragglingOnce.resetStraggledBefore();
+		
+		final int NUM_TASKS = 4;
+		
+		JobManager jm = null;
+		
+		try {
+			final AbstractJobVertex sender = new AbstractJobVertex("Sender");
+			final AbstractJobVertex forwarder = new AbstractJobVertex("Forwarder");
+			final AbstractJobVertex receiver = new AbstractJobVertex("Receiver");
+			
+			sender.setInvokableClass(Sender.class);
+			forwarder.setInvokableClass(ForwarderStragglingOnce.class);
+			receiver.setInvokableClass(Receiver.class);
+			
+			sender.setParallelism(NUM_TASKS);
+			forwarder.setParallelism(NUM_TASKS);
+			receiver.setParallelism(NUM_TASKS);
+			
+			forwarder.connectNewDataSetAsInput(sender, DistributionPattern.POINTWISE, ResultPartitionType.BLOCKING);
+			receiver.connectNewDataSetAsInput(forwarder, DistributionPattern.POINTWISE, ResultPartitionType.BLOCKING);
+			
+			final JobGraph jobGraph = new JobGraph("Speculative Job", sender, forwarder, receiver);
+			
+			// back up the stragglers once half of the subtasks are finished
+			Configuration cfg = new Configuration();
+			cfg.setBoolean(ConfigConstants.JOB_MANAGER_SPECULATIVE_EXECUTION_KEY, true);
+			cfg.setFloat(ConfigConstants.JOB_MANAGER_SPECULATIVE_EXECUTION_QUANTILE_KEY, 0.5f);
+			
+			jm = startJobManager(2, NUM_TASKS, cfg);
+			
+			JobSubmissionResult result = jm.submitJob(jobGraph);
+
+			if (result.getReturnCode() != AbstractJobResult.ReturnCode.SUCCESS) {
+				System.out.println(result.getDescription());
+			}
+			assertEquals(AbstractJobResult.ReturnCode.SUCCESS, result.getReturnCode());
+			
+			// monitor the execution
+			ExecutionGraph eg = jm.getCurrentJobs().get(jobGraph.getJobID());
+			
+			if (eg != null) {
+				eg.waitForJobEnd();
+				
+				if (eg.getState() != JobStatus.FINISHED) {
+					Throwable t = eg.getFailureCause();
+					String message = null;
+					
+					if (t != null) {
+						t.printStackTrace();
+						message = t.getMessage();
+					}
+					fail("Execution failed despite the straggler: " + message);
+				}
+				
+				// only the straggler is backed up, and the backup finished first
+				for (ExecutionVertex ev : eg.getJobVertex(sender.getID()).getTaskVertices()) {
+					assertEquals(0, ev.getCurrentExecutionAttempt().getAttemptNumber());
+				}
+				for (ExecutionVertex ev : eg.getJobVertex(forwarder.getID()).getTaskVertices()) {
+					assertEquals(ev.getParallelSubtaskIndex() == 0 ? 1 : 0, ev.getCurrentExecutionAttempt().getAttemptNumber());
+					assertNull(ev.getSpeculativeExecutionAttempt());
+				}
+				for (ExecutionVertex ev : eg.getJobVertex(receiver.getID()).getTaskVertices()) {
+					assertEquals(0, ev.getCurrentExecutionAttempt().getAttemptNumber());
+				}
+			}
+			else {
+				// already done, that was fast;
+			}
+			
+			// make sure that in any case, the network buffers are all returned
+			waitForTaskThreadsToBeTerminated();
+			for (TaskManager tm : ((LocalInstanceManager) jm.getInstanceManager()).getTaskManagers()) {
+				GlobalBufferPool bp = tm.getChannelManager().getGlobalBufferPool();
+				assertEquals(bp.numBuffers(), bp.numAvailableBuffers());
+			}
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+		finally {
+			if (jm != null) {
+				jm.shutdown();
+			}
+		}
+	}
+}
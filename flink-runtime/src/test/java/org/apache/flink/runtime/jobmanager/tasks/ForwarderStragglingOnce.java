@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.jobmanager.tasks;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.flink.runtime.io.network.api.RecordReader;
+import org.apache.flink.runtime.io.network.api.RecordWriter;
+import org.apache.flink.runtime.jobgraph.tasks.AbstractInvokable;
+import org.apache.flink.runtime.types.IntegerRecord;
+
+/**
+ * Forwards its input, except for the first execution of the first subtask, which blocks until it is canceled.
+ */
+public final class ForwarderStragglingOnce extends AbstractInvokable {
+	
+	private static final AtomicBoolean hasStraggledBefore = new AtomicBoolean();
+
+	private RecordReader<IntegerRecord> reader;
+	
+	private RecordWriter<IntegerRecord> writer;
+	
+	@Override
+	public void registerInputOutput() {
+		reader = new RecordReader<IntegerRecord>(this, IntegerRecord.class);
+		writer = new RecordWriter<IntegerRecord>(this);
+	}
+
+	@Override
+	public void invoke() throws Exception {
+		if (getEnvironment().getIndexInSubtaskGroup() == 0 && hasStraggledBefore.compareAndSet(false, true)) {
+			Object o = new Object();
+			synchronized (o) {
+				o.wait();
+			}
+		}
+		
+		try {
+			writer.initializeSerializers();
+			
+			IntegerRecord record;
+			while ((record = reader.next()) != null) {
+				writer.emit(record);
+			}
+			writer.flush();
+		}
+		finally {
+			writer.clearBuffers();
+		}
+	}
+	
+	public static void resetStraggledBefore() {
+		hasStraggledBefore.set(false);
+	}
+}
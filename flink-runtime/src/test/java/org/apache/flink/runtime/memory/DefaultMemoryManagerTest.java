@@ -22,6 +22,9 @@ package org.apache.flink.runtime.memory;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.junit.Assert;
 
@@ -29,6 +32,7 @@ import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.runtime.jobgraph.tasks.AbstractInvokable;
 import org.apache.flink.runtime.memorymanager.DefaultMemoryManager;
 import org.apache.flink.runtime.memorymanager.MemoryAllocationException;
+import org.apache.flink.runtime.memorymanager.SpillRequestCallback;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -164,6 +168,223 @@ public class DefaultMemoryManagerTest
 		}
 	}
 	
+	@Test
+	public void allocateOffHeap()
+	{
+		final DefaultMemoryManager offHeapManager = new DefaultMemoryManager(MEMORY_SIZE / 8, 1, PAGE_SIZE, true);
+		
+		try {
+			final AbstractInvokable mockInvoke = new DummyInvokable();
+			
+			List<MemorySegment> segs = offHeapManager.allocatePages(mockInvoke, NUM_PAGES / 8);
+			for (MemorySegment seg : segs) {
+				Assert.assertTrue("Segment is not backed by off-heap memory.", seg.isOffHeap());
+				Assert.assertEquals(PAGE_SIZE, seg.size());
+			}
+			
+			try {
+				offHeapManager.allocatePages(mockInvoke, 1);
+				Assert.fail("Expected MemoryAllocationException.");
+			} catch (MemoryAllocationException maex) {
+				// expected
+			}
+			
+			// write and read through the same accessors as heap segments
+			final MemorySegment seg = segs.get(0);
+			seg.putLong(PAGE_SIZE - 8, 0x1234567890abcdefL);
+			seg.putInt(4, -17);
+			Assert.assertEquals(0x1234567890abcdefL, seg.getLong(PAGE_SIZE - 8));
+			Assert.assertEquals(-17, seg.getInt(4));
+			
+			offHeapManager.releaseAll(mockInvoke);
+			Assert.assertTrue("Released memory segments have not been destroyed.", allMemorySegmentsFreed(segs));
+			Assert.assertTrue("Memory manager is not empty after releasing all memory.", offHeapManager.verifyEmpty());
+			
+			// memory is allocated again after it has been given up
+			segs = offHeapManager.allocatePages(mockInvoke, NUM_PAGES / 8);
+			Assert.assertTrue("The allocated segments were not valid.", allMemorySegmentsValid(segs));
+			offHeapManager.release(segs);
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail("Test encountered an exception: " + e.getMessage());
+		}
+		finally {
+			offHeapManager.shutdown();
+		}
+	}
+	
+	@Test
+	public void borrowAndReclaim()
+	{
+		final DefaultMemoryManager sharingManager = new DefaultMemoryManager(MEMORY_SIZE, 2, PAGE_SIZE, false, true, true);
+		final AbstractInvokable borrower = new DummyInvokable();
+		final AbstractInvokable other = new DummyInvokable();
+		
+		try {
+			final List<MemorySegment> own = sharingManager.allocatePages(borrower, NUM_PAGES / 2);
+			final List<MemorySegment> borrowed = new ArrayList<MemorySegment>();
+			
+			// the borrower gives back pages right away when asked
+			final SpillRequestCallback callback = new SpillRequestCallback() {
+				@Override
+				public void requestSpill(int numPages) {
+					for (int i = 0; i < numPages; i++) {
+						sharingManager.release(borrowed.remove(borrowed.size() - 1));
+					}
+				}
+			};
+			
+			// only the free memory can be borrowed
+			Assert.assertEquals(NUM_PAGES / 2, sharingManager.borrowPages(borrower, borrowed, NUM_PAGES, callback));
+			Assert.assertEquals(NUM_PAGES / 2, borrowed.size());
+			Assert.assertEquals(0, sharingManager.borrowPages(borrower, borrowed, NUM_PAGES, callback));
+			
+			// the other slot gets its share back from the borrower
+			final List<MemorySegment> otherSegs = sharingManager.allocatePages(other, NUM_PAGES / 4);
+			Assert.assertTrue("The allocated segments were not valid.", allMemorySegmentsValid(otherSegs));
+			Assert.assertEquals(NUM_PAGES / 4, borrowed.size());
+			
+			// more than the total memory can still not be allocated
+			try {
+				sharingManager.allocatePages(other, NUM_PAGES / 2);
+				Assert.fail("Expected a MemoryAllocationException.");
+			} catch (MemoryAllocationException maex) {
+				// expected
+			}
+			
+			sharingManager.release(otherSegs);
+			sharingManager.release(own);
+			sharingManager.release(borrowed);
+			Assert.assertTrue("Memory manager is not empty after releasing all memory.", sharingManager.verifyEmpty());
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail("Test encountered an exception: " + e.getMessage());
+		}
+		finally {
+			sharingManager.shutdown();
+		}
+	}
+	
+	@Test
+	public void reclaimFromBorrowerThatGivesBackLater()
+	{
+		final DefaultMemoryManager sharingManager = new DefaultMemoryManager(MEMORY_SIZE, 2, PAGE_SIZE, false, true, true);
+		final AbstractInvokable borrower = new DummyInvokable();
+		final AbstractInvokable other = new DummyInvokable();
+		
+		try {
+			final List<MemorySegment> own = sharingManager.allocatePages(borrower, NUM_PAGES / 2);
+			final List<MemorySegment> borrowed = new ArrayList<MemorySegment>();
+			
+			// the borrower only notes the request and gives back the pages later from its own thread
+			final Thread giveBack = new Thread() {
+				@Override
+				public void run() {
+					try {
+						Thread.sleep(200);
+					} catch (InterruptedException e) {}
+					sharingManager.release(new ArrayList<MemorySegment>(borrowed));
+				}
+			};
+			final SpillRequestCallback callback = new SpillRequestCallback() {
+				@Override
+				public void requestSpill(int numPages) {
+					giveBack.start();
+				}
+			};
+			
+			Assert.assertEquals(NUM_PAGES / 2, sharingManager.borrowPages(borrower, borrowed, NUM_PAGES, callback));
+			
+			// the allocation waits for the borrower instead of failing
+			final List<MemorySegment> otherSegs = sharingManager.allocatePages(other, NUM_PAGES / 2);
+			Assert.assertTrue("The allocated segments were not valid.", allMemorySegmentsValid(otherSegs));
+			Assert.assertTrue("The borrowed segments were not given back.", allMemorySegmentsFreed(borrowed));
+			giveBack.join();
+			
+			sharingManager.release(otherSegs);
+			sharingManager.release(own);
+			Assert.assertTrue("Memory manager is not empty after releasing all memory.", sharingManager.verifyEmpty());
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail("Test encountered an exception: " + e.getMessage());
+		}
+		finally {
+			sharingManager.shutdown();
+		}
+	}
+	
+	@Test
+	public void reclaimFailsIfBorrowerIsBlockedOnInput()
+	{
+		final DefaultMemoryManager sharingManager = new DefaultMemoryManager(MEMORY_SIZE, 2, PAGE_SIZE, false, true, true);
+		sharingManager.setReclaimTimeout(500);
+		final AbstractInvokable borrower = new DummyInvokable();
+		final AbstractInvokable producer = new DummyInvokable();
+		
+		try {
+			final List<MemorySegment> own = sharingManager.allocatePages(borrower, NUM_PAGES / 2);
+			final List<MemorySegment> borrowed = new ArrayList<MemorySegment>();
+			
+			// the borrower gives back the pages only when it gets its next input record,
+			// which the allocating producer would only send after its allocation
+			final BlockingQueue<Integer> input = new ArrayBlockingQueue<Integer>(1);
+			final AtomicBoolean requested = new AtomicBoolean();
+			final Thread consumer = new Thread() {
+				@Override
+				public void run() {
+					try {
+						input.take();
+						if (requested.get()) {
+							sharingManager.release(new ArrayList<MemorySegment>(borrowed));
+						}
+					} catch (InterruptedException e) {}
+				}
+			};
+			final SpillRequestCallback callback = new SpillRequestCallback() {
+				@Override
+				public void requestSpill(int numPages) {
+					requested.set(true);
+				}
+			};
+			
+			Assert.assertEquals(NUM_PAGES / 2, sharingManager.borrowPages(borrower, borrowed, NUM_PAGES, callback));
+			consumer.start();
+			
+			// the allocation fails instead of waiting forever for the blocked borrower
+			try {
+				sharingManager.allocatePages(producer, NUM_PAGES / 2);
+				Assert.fail("The allocation should have failed.");
+			}
+			catch (MemoryAllocationException e) {
+				// expected
+			}
+			Assert.assertTrue(requested.get());
+			
+			// once the borrower makes progress, it gives back the pages
+			input.put(1);
+			consumer.join();
+			Assert.assertTrue("The borrowed segments were not given back.", allMemorySegmentsFreed(borrowed));
+			
+			sharingManager.release(own);
+			Assert.assertTrue("Memory manager is not empty after releasing all memory.", sharingManager.verifyEmpty());
+			
+			// the pages that were awaited may be lent out again
+			final List<MemorySegment> borrowedAgain = new ArrayList<MemorySegment>();
+			Assert.assertEquals(NUM_PAGES, sharingManager.borrowPages(borrower, borrowedAgain, NUM_PAGES, callback));
+			sharingManager.release(borrowedAgain);
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail("Test encountered an exception: " + e.getMessage());
+		}
+		finally {
+			sharingManager.shutdown();
+		}
+	}
+	
 	private boolean allMemorySegmentsValid(List<MemorySegment> memSegs)
 	{
 		for (MemorySegment seg : memSegs) {
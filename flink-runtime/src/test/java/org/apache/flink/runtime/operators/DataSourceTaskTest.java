@@ -31,6 +31,9 @@ import java.util.List;
 import org.junit.Assert;
 
 import org.apache.flink.api.java.record.io.DelimitedInputFormat;
+import org.apache.flink.configuration.ConfigConstants;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.GlobalConfiguration;
 import org.apache.flink.core.fs.Path;
 import org.apache.flink.runtime.operators.testutils.NirvanaOutputList;
 import org.apache.flink.runtime.operators.testutils.TaskCancelThread;
@@ -115,6 +118,66 @@ public class DataSourceTaskTest extends TaskTestBase {
 		
 	}
 	
+	@Test
+	public void testDataSourceTaskWithSplitPrefetching() {
+		int keyCnt = 100;
+		int valCnt = 20;
+		
+		this.outList = new ArrayList<Record>();
+		
+		try {
+			InputFilePreparator.prepareInputFile(new UniformRecordGenerator(keyCnt, valCnt, false), 
+				this.tempTestPath, true);
+		} catch (IOException e1) {
+			Assert.fail("Unable to set-up test input file");
+		}
+		
+		Configuration cfg = new Configuration();
+		cfg.setInteger(ConfigConstants.TASK_MANAGER_INPUT_SPLIT_PREFETCH_KEY, 2);
+		GlobalConfiguration.includeConfiguration(cfg);
+		
+		try {
+			super.initEnvironment(MEMORY_MANAGER_SIZE, NETWORK_BUFFER_SIZE);
+			super.addOutput(this.outList);
+			
+			DataSourceTask<Record> testTask = new DataSourceTask<Record>();
+			
+			super.registerFileInputTask(testTask, MockInputFormat.class, new File(tempTestPath).toURI().toString(), "\n");
+			
+			try {
+				testTask.invoke();
+			} catch (Exception e) {
+				System.err.println(e);
+				Assert.fail("Invoke method caused exception.");
+			}
+		}
+		finally {
+			cfg.setInteger(ConfigConstants.TASK_MANAGER_INPUT_SPLIT_PREFETCH_KEY,
+				ConfigConstants.DEFAULT_TASK_MANAGER_INPUT_SPLIT_PREFETCH);
+			GlobalConfiguration.includeConfiguration(cfg);
+		}
+		
+		Assert.assertEquals("Invalid output size.", keyCnt * valCnt, this.outList.size());
+		
+		HashMap<Integer,HashSet<Integer>> keyValueCountMap = new HashMap<Integer, HashSet<Integer>>(keyCnt);
+		
+		for (Record kvp : this.outList) {
+			int key = kvp.getField(0, IntValue.class).getValue();
+			int val = kvp.getField(1, IntValue.class).getValue();
+			
+			if(!keyValueCountMap.containsKey(key)) {
+				keyValueCountMap.put(key,new HashSet<Integer>());
+			}
+			keyValueCountMap.get(key).add(val);
+		}
+		
+		Assert.assertEquals("Invalid key count in out file.", keyCnt, keyValueCountMap.keySet().size());
+		
+		for(Integer mapKey : keyValueCountMap.keySet()) {
+			Assert.assertEquals("Invalid value count for key: " + mapKey, valCnt, keyValueCountMap.get(mapKey).size());
+		}
+	}
+	
 	@Test
 	public void testFailingDataSourceTask() {
 		int keyCnt = 20;
@@ -0,0 +1,314 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.operators.drivers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.flink.api.common.functions.ReduceFunction;
+import org.apache.flink.api.common.functions.RichReduceFunction;
+import org.apache.flink.api.common.typeutils.TypeComparator;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.api.java.typeutils.TupleTypeInfo;
+import org.apache.flink.api.java.typeutils.TypeExtractor;
+import org.apache.flink.runtime.io.disk.iomanager.IOManager;
+import org.apache.flink.runtime.io.disk.iomanager.IOManagerAsync;
+import org.apache.flink.runtime.operators.DriverStrategy;
+import org.apache.flink.runtime.operators.HashReduceCombineDriver;
+import org.apache.flink.runtime.operators.HashReduceDriver;
+import org.apache.flink.runtime.util.EmptyMutableObjectIterator;
+import org.apache.flink.runtime.util.RegularToMutableObjectIterator;
+import org.apache.flink.util.MutableObjectIterator;
+import org.junit.Assert;
+import org.junit.Test;
+
+@SuppressWarnings("serial")
+public class HashReduceDriverTest {
+
+	@Test
+	public void testEmpty() {
+		try {
+			TestTaskContext<ReduceFunction<Tuple2<String, Integer>>, Tuple2<String, Integer>> context =
+					new TestTaskContext<ReduceFunction<Tuple2<String,Integer>>, Tuple2<String,Integer>>(1024 * 1024);
+			context.getTaskConfig().setRelativeMemoryDriver(0.5);
+
+			List<Tuple2<String, Integer>> data = DriverTestData.createReduceImmutableData();
+			TupleTypeInfo<Tuple2<String, Integer>> typeInfo = (TupleTypeInfo<Tuple2<String, Integer>>) TypeExtractor.getForObject(data.get(0));
+			MutableObjectIterator<Tuple2<String, Integer>> input = EmptyMutableObjectIterator.get();
+			TypeComparator<Tuple2<String, Integer>> comparator = typeInfo.createComparator(new int[]{0}, new boolean[] {true}, 0);
+
+			GatheringCollector<Tuple2<String, Integer>> result = new GatheringCollector<Tuple2<String,Integer>>(typeInfo.createSerializer());
+
+			context.setDriverStrategy(DriverStrategy.HASH_REDUCE);
+			context.setInput1(input, typeInfo.createSerializer());
+			context.setComparator1(comparator);
+			context.setCollector(result);
+			context.setUdf(new SumReducer());
+
+			HashReduceDriver<Tuple2<String, Integer>> driver = new HashReduceDriver<Tuple2<String,Integer>>();
+			driver.setup(context);
+			driver.prepare();
+			driver.run();
+			driver.cleanup();
+
+			Assert.assertEquals(0, result.getList().size());
+			Assert.assertTrue(context.getMemoryManager().verifyEmpty());
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testReduceDriver() {
+		try {
+			TestTaskContext<ReduceFunction<Tuple2<String, Integer>>, Tuple2<String, Integer>> context =
+					new TestTaskContext<ReduceFunction<Tuple2<String,Integer>>, Tuple2<String,Integer>>(1024 * 1024);
+			context.getTaskConfig().setRelativeMemoryDriver(0.5);
+
+			List<Tuple2<String, Integer>> data = DriverTestData.createReduceImmutableData();
+			Collections.shuffle(data);
+
+			TupleTypeInfo<Tuple2<String, Integer>> typeInfo = (TupleTypeInfo<Tuple2<String, Integer>>) TypeExtractor.getForObject(data.get(0));
+			MutableObjectIterator<Tuple2<String, Integer>> input = new RegularToMutableObjectIterator<Tuple2<String, Integer>>(data.iterator(), typeInfo.createSerializer());
+			TypeComparator<Tuple2<String, Integer>> comparator = typeInfo.createComparator(new int[]{0}, new boolean[] {true}, 0);
+
+			GatheringCollector<Tuple2<String, Integer>> result = new GatheringCollector<Tuple2<String,Integer>>(typeInfo.createSerializer());
+
+			context.setDriverStrategy(DriverStrategy.HASH_REDUCE);
+			context.setInput1(input, typeInfo.createSerializer());
+			context.setComparator1(comparator);
+			context.setCollector(result);
+			context.setUdf(new SumReducer());
+
+			HashReduceDriver<Tuple2<String, Integer>> driver = new HashReduceDriver<Tuple2<String,Integer>>();
+			driver.setup(context);
+			driver.prepare();
+			driver.run();
+			driver.cleanup();
+
+			List<Tuple2<String, Integer>> res = sortByKey(result.getList());
+			Assert.assertEquals(6, res.size());
+			Assert.assertEquals(new Tuple2<String, Integer>("a", 1), res.get(0));
+			Assert.assertEquals(new Tuple2<String, Integer>("d", 9), res.get(3));
+			Assert.assertEquals(new Tuple2<String, Integer>("e", 21), res.get(4));
+			Assert.assertEquals(new Tuple2<String, Integer>("f", 42), res.get(5));
+			Assert.assertTrue(context.getMemoryManager().verifyEmpty());
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testReduceDriverFallsBackToSorting() {
+		final IOManager ioManager = new IOManagerAsync();
+		try {
+			final int numKeys = 40000;
+			final int numValuesPerKey = 3;
+
+			TestTaskContext<ReduceFunction<Tuple2<Integer, Integer>>, Tuple2<Integer, Integer>> context =
+					new TestTaskContext<ReduceFunction<Tuple2<Integer,Integer>>, Tuple2<Integer,Integer>>(1024 * 1024);
+			context.getTaskConfig().setRelativeMemoryDriver(0.5);
+			context.getTaskConfig().setFilehandlesDriver(64);
+			context.getTaskConfig().setSpillingThresholdDriver(0.8f);
+			context.setIOManager(ioManager);
+
+			List<Tuple2<Integer, Integer>> data = createKeyValueData(numKeys, numValuesPerKey);
+
+			TupleTypeInfo<Tuple2<Integer, Integer>> typeInfo = (TupleTypeInfo<Tuple2<Integer, Integer>>) TypeExtractor.getForObject(data.get(0));
+			MutableObjectIterator<Tuple2<Integer, Integer>> input = new RegularToMutableObjectIterator<Tuple2<Integer, Integer>>(data.iterator(), typeInfo.createSerializer());
+			TypeComparator<Tuple2<Integer, Integer>> comparator = typeInfo.createComparator(new int[]{0}, new boolean[] {true}, 0);
+
+			GatheringCollector<Tuple2<Integer, Integer>> result = new GatheringCollector<Tuple2<Integer,Integer>>(typeInfo.createSerializer());
+
+			context.setDriverStrategy(DriverStrategy.HASH_REDUCE);
+			context.setInput1(input, typeInfo.createSerializer());
+			context.setComparator1(comparator);
+			context.setCollector(result);
+			context.setUdf(new IntSumReducer());
+
+			HashReduceDriver<Tuple2<Integer, Integer>> driver = new HashReduceDriver<Tuple2<Integer,Integer>>();
+			driver.setup(context);
+			driver.prepare();
+			driver.run();
+			driver.cleanup();
+
+			// every key exactly once, with the sum of its values
+			Assert.assertEquals(numKeys, result.getList().size());
+			boolean[] seen = new boolean[numKeys];
+			for (Tuple2<Integer, Integer> t : result.getList()) {
+				Assert.assertFalse("Key " + t.f0 + " was emitted twice.", seen[t.f0]);
+				seen[t.f0] = true;
+				Assert.assertEquals(numValuesPerKey * t.f0, t.f1.intValue());
+			}
+			Assert.assertTrue(context.getMemoryManager().verifyEmpty());
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		}
+		finally {
+			ioManager.shutdown();
+		}
+	}
+
+	@Test
+	public void testCombineDriver() {
+		try {
+			TestTaskContext<ReduceFunction<Tuple2<String, Integer>>, Tuple2<String, Integer>> context =
+					new TestTaskContext<ReduceFunction<Tuple2<String,Integer>>, Tuple2<String,Integer>>(1024 * 1024);
+			context.getTaskConfig().setRelativeMemoryDriver(0.5);
+
+			List<Tuple2<String, Integer>> data = DriverTestData.createReduceImmutableData();
+			Collections.shuffle(data);
+
+			TupleTypeInfo<Tuple2<String, Integer>> typeInfo = (TupleTypeInfo<Tuple2<String, Integer>>) TypeExtractor.getForObject(data.get(0));
+			MutableObjectIterator<Tuple2<String, Integer>> input = new RegularToMutableObjectIterator<Tuple2<String, Integer>>(data.iterator(), typeInfo.createSerializer());
+			TypeComparator<Tuple2<String, Integer>> comparator = typeInfo.createComparator(new int[]{0}, new boolean[] {true}, 0);
+
+			GatheringCollector<Tuple2<String, Integer>> result = new GatheringCollector<Tuple2<String,Integer>>(typeInfo.createSerializer());
+
+			context.setDriverStrategy(DriverStrategy.HASH_PARTIAL_REDUCE);
+			context.setInput1(input, typeInfo.createSerializer());
+			context.setComparator1(comparator);
+			context.setCollector(result);
+			context.setUdf(new SumReducer());
+
+			HashReduceCombineDriver<Tuple2<String, Integer>> driver = new HashReduceCombineDriver<Tuple2<String,Integer>>();
+			driver.setup(context);
+			driver.prepare();
+			driver.run();
+			driver.cleanup();
+
+			List<Tuple2<String, Integer>> res = sortByKey(result.getList());
+			Assert.assertEquals(6, res.size());
+			Assert.assertEquals(new Tuple2<String, Integer>("c", 3), res.get(2));
+			Assert.assertEquals(new Tuple2<String, Integer>("f", 42), res.get(5));
+			Assert.assertTrue(context.getMemoryManager().verifyEmpty());
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testCombineDriverEmitsWhenFull() {
+		try {
+			final int numKeys = 40000;
+			final int numValuesPerKey = 3;
+
+			TestTaskContext<ReduceFunction<Tuple2<Integer, Integer>>, Tuple2<Integer, Integer>> context =
+					new TestTaskContext<ReduceFunction<Tuple2<Integer,Integer>>, Tuple2<Integer,Integer>>(1024 * 1024);
+			context.getTaskConfig().setRelativeMemoryDriver(0.125);
+
+			// the values of a key are close to each other, so that the combiner can aggregate them
+			List<Tuple2<Integer, Integer>> data = new ArrayList<Tuple2<Integer, Integer>>(numKeys * numValuesPerKey);
+			for (int k = 0; k < numKeys; k++) {
+				for (int v = 0; v < numValuesPerKey; v++) {
+					data.add(new Tuple2<Integer, Integer>(k, k));
+				}
+			}
+
+			TupleTypeInfo<Tuple2<Integer, Integer>> typeInfo = (TupleTypeInfo<Tuple2<Integer, Integer>>) TypeExtractor.getForObject(data.get(0));
+			MutableObjectIterator<Tuple2<Integer, Integer>> input = new RegularToMutableObjectIterator<Tuple2<Integer, Integer>>(data.iterator(), typeInfo.createSerializer());
+			TypeComparator<Tuple2<Integer, Integer>> comparator = typeInfo.createComparator(new int[]{0}, new boolean[] {true}, 0);
+
+			GatheringCollector<Tuple2<Integer, Integer>> result = new GatheringCollector<Tuple2<Integer,Integer>>(typeInfo.createSerializer());
+
+			context.setDriverStrategy(DriverStrategy.HASH_PARTIAL_REDUCE);
+			context.setInput1(input, typeInfo.createSerializer());
+			context.setComparator1(comparator);
+			context.setCollector(result);
+			context.setUdf(new IntSumReducer());
+
+			HashReduceCombineDriver<Tuple2<Integer, Integer>> driver = new HashReduceCombineDriver<Tuple2<Integer,Integer>>();
+			driver.setup(context);
+			driver.prepare();
+			driver.run();
+			driver.cleanup();
+
+			// the combiner may emit partial aggregates, but they must add up to the full sums
+			Assert.assertTrue(result.getList().size() >= numKeys);
+			Assert.assertTrue(result.getList().size() < data.size());
+			long[] sums = new long[numKeys];
+			for (Tuple2<Integer, Integer> t : result.getList()) {
+				sums[t.f0] += t.f1;
+			}
+			for (int i = 0; i < numKeys; i++) {
+				Assert.assertEquals(numValuesPerKey * i, sums[i]);
+			}
+			Assert.assertTrue(context.getMemoryManager().verifyEmpty());
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		}
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	private static List<Tuple2<Integer, Integer>> createKeyValueData(int numKeys, int numValuesPerKey) {
+		List<Tuple2<Integer, Integer>> data = new ArrayList<Tuple2<Integer, Integer>>(numKeys * numValuesPerKey);
+		for (int v = 0; v < numValuesPerKey; v++) {
+			for (int k = 0; k < numKeys; k++) {
+				data.add(new Tuple2<Integer, Integer>(k, k));
+			}
+		}
+		return data;
+	}
+
+	private static List<Tuple2<String, Integer>> sortByKey(List<Tuple2<String, Integer>> list) {
+		List<Tuple2<String, Integer>> sorted = new ArrayList<Tuple2<String, Integer>>(list);
+		Collections.sort(sorted, new Comparator<Tuple2<String, Integer>>() {
+			@Override
+			public int compare(Tuple2<String, Integer> o1, Tuple2<String, Integer> o2) {
+				return o1.f0.compareTo(o2.f0);
+			}
+		});
+		return sorted;
+	}
+
+	// --------------------------------------------------------------------------------------------
+	//  Test UDFs
+	// --------------------------------------------------------------------------------------------
+
+	public static final class SumReducer extends RichReduceFunction<Tuple2<String, Integer>> {
+
+		@Override
+		public Tuple2<String, Integer> reduce(Tuple2<String, Integer> value1, Tuple2<String, Integer> value2) {
+			value1.f1 = value1.f1 + value2.f1;
+			return value1;
+		}
+	}
+
+	public static final class IntSumReducer extends RichReduceFunction<Tuple2<Integer, Integer>> {
+
+		@Override
+		public Tuple2<Integer, Integer> reduce(Tuple2<Integer, Integer> value1, Tuple2<Integer, Integer> value2) {
+			value2.f1 = value1.f1 + value2.f1;
+			return value2;
+		}
+	}
+}
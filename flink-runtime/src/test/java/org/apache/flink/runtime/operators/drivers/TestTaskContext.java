@@ -58,6 +58,8 @@ public class TestTaskContext<S, T> implements PactTaskContext<S, T> {
 	private Collector<T> outputCollector;
 	
 	private MemoryManager memoryManager;
+	
+	private IOManager ioManager;
 
 	// --------------------------------------------------------------------------------------------
 	//  Constructors
@@ -123,6 +125,10 @@ public class TestTaskContext<S, T> implements PactTaskContext<S, T> {
 		this.config.setMutableObjectMode(mutableObjectMode);
 	}
 	
+	public void setIOManager(IOManager ioManager) {
+		this.ioManager = ioManager;
+	}
+	
 	// --------------------------------------------------------------------------------------------
 	//  Context Methods
 	// --------------------------------------------------------------------------------------------
@@ -144,7 +150,7 @@ public class TestTaskContext<S, T> implements PactTaskContext<S, T> {
 
 	@Override
 	public IOManager getIOManager() {
-		return null;
+		return this.ioManager;
 	}
 
 	@Override
@@ -785,6 +785,66 @@ public class HashTableITCase {
 		this.memManager.release(join.getFreedMemory());
 	}
 	
+	@Test
+	public void testGiveBackBorrowedMemoryWhileProbing() throws Exception
+	{
+		final int NUM_KEYS = 500000;
+		final int BUILD_VALS_PER_KEY = 2;
+		final int PROBE_VALS_PER_KEY = 3;
+		final int NUM_OWN_PAGES = 400;
+		
+		MutableObjectIterator<IntPair> buildInput = new UniformIntPairGenerator(NUM_KEYS, BUILD_VALS_PER_KEY, false);
+		MutableObjectIterator<IntPair> probeInput = new UniformIntPairGenerator(NUM_KEYS, PROBE_VALS_PER_KEY, true);
+		
+		// two slots that may lend memory to each other
+		final MemoryManager sharingManager = new DefaultMemoryManager(64 * 1024 * 1024, 2, 
+			DefaultMemoryManager.DEFAULT_PAGE_SIZE, false, false, true);
+		
+		try {
+			final List<MemorySegment> memSegments = sharingManager.allocatePages(MEM_OWNER, NUM_OWN_PAGES);
+			
+			final MutableHashTable<IntPair, IntPair> join = new MutableHashTable<IntPair, IntPair>(
+				this.pairBuildSideAccesssor, this.pairProbeSideAccesssor, 
+				this.pairBuildSideComparator, this.pairProbeSideComparator, this.pairComparator,
+				memSegments, ioManager);
+			final int numBorrowed = join.borrowMemory(sharingManager, MEM_OWNER, 1024);
+			Assert.assertTrue("No memory was borrowed.", numBorrowed > 0);
+			
+			// the table is built in memory, with the help of the borrowed memory
+			join.open(buildInput, probeInput);
+			
+			final IntPair recordReuse = new IntPair();
+			int numRecordsInJoinResult = 0;
+			boolean requested = false;
+			
+			while (join.nextRecord()) {
+				HashBucketIterator<IntPair, IntPair> buildSide = join.getBuildSideIterator();
+				while (buildSide.next(recordReuse) != null) {
+					numRecordsInJoinResult++;
+				}
+				
+				// request all borrowed memory back, which the own memory does not suffice to keep the table.
+				// partitions are spilled and the remaining probe records for them are joined later
+				if (!requested) {
+					join.requestSpill(numBorrowed);
+					requested = true;
+				}
+			}
+			Assert.assertEquals("Wrong number of records in join result.", NUM_KEYS * BUILD_VALS_PER_KEY * PROBE_VALS_PER_KEY, numRecordsInJoinResult);
+			
+			join.close();
+			
+			// only the own memory is left
+			final List<MemorySegment> freed = join.getFreedMemory();
+			Assert.assertEquals("Borrowed memory was not given back.", NUM_OWN_PAGES, freed.size());
+			sharingManager.release(freed);
+			Assert.assertTrue("Not all memory was properly released to the memory manager.", sharingManager.verifyEmpty());
+		}
+		finally {
+			sharingManager.shutdown();
+		}
+	}
+	
 	@Test
 	public void testSpillingHashJoinOneRecursionPerformanceIntPair() throws IOException
 	{
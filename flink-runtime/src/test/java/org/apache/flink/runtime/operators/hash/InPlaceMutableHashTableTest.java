@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.operators.hash;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.flink.api.common.typeutils.TypeComparator;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.api.java.typeutils.TupleTypeInfo;
+import org.apache.flink.api.java.typeutils.TypeExtractor;
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.util.MutableObjectIterator;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class InPlaceMutableHashTableTest {
+
+	private static final int PAGE_SIZE = 4 * 1024;
+
+	private final TupleTypeInfo<Tuple2<Integer, String>> typeInfo;
+
+	private final TypeSerializer<Tuple2<Integer, String>> serializer;
+
+	private final TypeComparator<Tuple2<Integer, String>> comparator;
+
+
+	@SuppressWarnings("unchecked")
+	public InPlaceMutableHashTableTest() {
+		this.typeInfo = (TupleTypeInfo<Tuple2<Integer, String>>) TypeExtractor.getForObject(new Tuple2<Integer, String>(0, ""));
+		this.serializer = this.typeInfo.createSerializer();
+		this.comparator = this.typeInfo.createComparator(new int[] {0}, new boolean[] {true}, 0);
+	}
+
+	@Test
+	public void testInsertAndUpdate() {
+		try {
+			final int numKeys = 1000;
+			final InPlaceMutableHashTable<Tuple2<Integer, String>> table =
+					new InPlaceMutableHashTable<Tuple2<Integer, String>>(this.serializer, this.comparator, getMemory(64));
+			Assert.assertTrue(table.isEmpty());
+
+			for (int i = 0; i < numKeys; i++) {
+				Assert.assertTrue(table.insert(new Tuple2<Integer, String>(i, "x")));
+			}
+			Assert.assertFalse(table.isEmpty());
+
+			// update all keys twice: once in place, once with a longer record that needs to be relocated
+			for (int round = 0; round < 2; round++) {
+				for (int i = 0; i < numKeys; i++) {
+					Tuple2<Integer, String> match = table.getMatchFor(new Tuple2<Integer, String>(i, ""), new Tuple2<Integer, String>());
+					Assert.assertNotNull("No match for key " + i, match);
+					Assert.assertEquals(i, match.f0.intValue());
+					match.f1 = round == 0 ? "y" : "yyyyyyyy";
+					Assert.assertTrue(table.updateMatch(match));
+				}
+			}
+
+			Assert.assertNull(table.getMatchFor(new Tuple2<Integer, String>(numKeys, ""), new Tuple2<Integer, String>()));
+
+			// every key must be contained exactly once, with its last value
+			boolean[] seen = new boolean[numKeys];
+			MutableObjectIterator<Tuple2<Integer, String>> entries = table.getEntryIterator();
+			Tuple2<Integer, String> next;
+			while ((next = entries.next(new Tuple2<Integer, String>())) != null) {
+				Assert.assertFalse(seen[next.f0]);
+				seen[next.f0] = true;
+				Assert.assertEquals("yyyyyyyy", next.f1);
+			}
+			for (boolean b : seen) {
+				Assert.assertTrue(b);
+			}
+
+			Assert.assertEquals(64, table.dispose().size());
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testRemoveMatch() {
+		try {
+			final InPlaceMutableHashTable<Tuple2<Integer, String>> table =
+					new InPlaceMutableHashTable<Tuple2<Integer, String>>(this.serializer, this.comparator, getMemory(4));
+
+			for (int i = 0; i < 100; i++) {
+				Assert.assertTrue(table.insert(new Tuple2<Integer, String>(i, "value")));
+			}
+			for (int i = 0; i < 100; i += 2) {
+				Assert.assertNotNull(table.getMatchFor(new Tuple2<Integer, String>(i, ""), new Tuple2<Integer, String>()));
+				table.removeMatch();
+			}
+			for (int i = 0; i < 100; i++) {
+				Tuple2<Integer, String> match = table.getMatchFor(new Tuple2<Integer, String>(i, ""), new Tuple2<Integer, String>());
+				Assert.assertEquals(i % 2 == 1, match != null);
+			}
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testFullTableAndReset() {
+		try {
+			final InPlaceMutableHashTable<Tuple2<Integer, String>> table =
+					new InPlaceMutableHashTable<Tuple2<Integer, String>>(this.serializer, this.comparator, getMemory(2));
+
+			int numInserted = 0;
+			while (table.insert(new Tuple2<Integer, String>(numInserted, "some value"))) {
+				numInserted++;
+			}
+			Assert.assertTrue(numInserted > 0);
+
+			// the full table still answers lookups
+			Assert.assertNotNull(table.getMatchFor(new Tuple2<Integer, String>(0, ""), new Tuple2<Integer, String>()));
+
+			table.reset();
+			Assert.assertTrue(table.isEmpty());
+			Assert.assertNull(table.getMatchFor(new Tuple2<Integer, String>(0, ""), new Tuple2<Integer, String>()));
+			Assert.assertNull(table.getEntryIterator().next(new Tuple2<Integer, String>()));
+
+			for (int i = 0; i < numInserted; i++) {
+				Assert.assertTrue(table.insert(new Tuple2<Integer, String>(i, "some value")));
+			}
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		}
+	}
+
+	private static List<MemorySegment> getMemory(int numPages) {
+		List<MemorySegment> memory = new ArrayList<MemorySegment>(numPages);
+		for (int i = 0; i < numPages; i++) {
+			memory.add(new MemorySegment(new byte[PAGE_SIZE]));
+		}
+		return memory;
+	}
+}
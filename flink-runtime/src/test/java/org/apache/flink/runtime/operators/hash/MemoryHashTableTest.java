@@ -27,6 +27,8 @@ import org.apache.flink.api.common.typeutils.TypeComparator;
 import org.apache.flink.api.common.typeutils.TypePairComparator;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.runtime.io.disk.iomanager.IOManager;
+import org.apache.flink.runtime.io.disk.iomanager.IOManagerAsync;
 import org.apache.flink.runtime.operators.hash.AbstractHashTableProber;
 import org.apache.flink.runtime.operators.hash.AbstractMutableHashTable;
 import org.apache.flink.runtime.operators.hash.CompactingHashTable;
@@ -440,6 +442,146 @@ public class MemoryHashTableTest {
 		}
 	}
 	
+	@Test
+	public void testSpillingBuildProbeAndUpdate() {
+		final IOManager ioManager = new IOManagerAsync();
+		try {
+			final int NUM_LISTS = 20000;
+			final int NUM_MEM_PAGES = SIZE * NUM_LISTS / PAGE_SIZE / 2;
+			
+			final IntList[] lists = getRandomizedIntLists(NUM_LISTS, rnd);
+			
+			CompactingHashTable<IntList> table = new CompactingHashTable<IntList>(serializerV, comparatorV, getMemory(NUM_MEM_PAGES, PAGE_SIZE), ioManager);
+			table.open();
+			
+			int result = 0;
+			for (int i = 0; i < NUM_LISTS; i++) {
+				table.insert(lists[i]);
+				result += lists[i].getKey();
+			}
+			
+			// the records do not fit into memory, so some partitions must have been evicted
+			List<InMemoryPartition<IntList>> partitions = Whitebox.getInternalState(table, "partitions");
+			int numEvicted = 0;
+			for (InMemoryPartition<IntList> p : partitions) {
+				if (!p.isInMemory()) {
+					numEvicted++;
+				}
+			}
+			assertTrue("No partition was evicted.", numEvicted > 0);
+			
+			final IntList[] overwriteLists = getRandomizedIntLists(NUM_LISTS, rnd);
+			
+			AbstractHashTableProber<IntList, IntList> prober = table.getProber(comparatorV, pairComparatorV);
+			IntList target = new IntList();
+			
+			for (int i = 0; i < NUM_LISTS; i++) {
+				assertNotNull("" + i, prober.getMatchFor(lists[i], target));
+				assertArrayEquals(lists[i].getValue(), target.getValue());
+				prober.updateMatch(overwriteLists[i]);
+			}
+			
+			IntList tempHolder = new IntList();
+			for (int i = 0; i < NUM_LISTS; i += 2) {
+				table.insertOrReplaceRecord(lists[i], tempHolder);
+				overwriteLists[i] = lists[i];
+			}
+			
+			for (int i = 0; i < NUM_LISTS; i++) {
+				assertNotNull("" + i, prober.getMatchFor(overwriteLists[i], target));
+				assertArrayEquals(overwriteLists[i].getValue(), target.getValue());
+			}
+			
+			MutableObjectIterator<IntList> iter = table.getEntryIterator();
+			int sum = 0;
+			int count = 0;
+			while((target = iter.next(target)) != null) {
+				sum += target.getKey();
+				count++;
+			}
+			assertEquals(NUM_LISTS, count);
+			assertEquals(result, sum);
+			
+			table.close();
+			assertEquals("Memory lost", NUM_MEM_PAGES, table.getFreeMemory().size());
+		} catch (Exception e) {
+			e.printStackTrace();
+			fail("Error: " + e.getMessage());
+		} finally {
+			ioManager.shutdown();
+		}
+	}
+	
+	@Test
+	public void testSpilledPartitionsServeSingleRecords() {
+		final IOManager ioManager = new IOManagerAsync();
+		try {
+			final int NUM_LISTS = 20000;
+			final int NUM_MEM_PAGES = SIZE * NUM_LISTS / PAGE_SIZE / 2;
+			
+			final IntList[] lists = getRandomizedIntLists(NUM_LISTS, rnd);
+			
+			final List<MemorySegment> memory = getMemory(NUM_MEM_PAGES, PAGE_SIZE);
+			final List<MemorySegment> givenMemory = new ArrayList<MemorySegment>(memory);
+			CompactingHashTable<IntList> table = new CompactingHashTable<IntList>(serializerV, comparatorV, memory, ioManager);
+			table.open();
+			
+			// insert the first half, so that some partitions are evicted
+			for (int i = 0; i < NUM_LISTS / 2; i++) {
+				table.insert(lists[i]);
+			}
+			List<InMemoryPartition<IntList>> partitions = Whitebox.getInternalState(table, "partitions");
+			boolean[] evicted = new boolean[partitions.size()];
+			for (int i = 0; i < partitions.size(); i++) {
+				evicted[i] = !partitions.get(i).isInMemory();
+			}
+			
+			// the records of evicted partitions are read into one of the table's own pages
+			MemorySegment readBuffer = Whitebox.getInternalState(table, "spilledRecordBuffer");
+			boolean ownPage = false;
+			for (MemorySegment segment : givenMemory) {
+				ownPage |= segment == readBuffer;
+			}
+			assertTrue("The read buffer is not part of the table's memory.", ownPage);
+			
+			// a few random lookups are read from the spill files and do not read the partitions back
+			AbstractHashTableProber<IntList, IntList> prober = table.getProber(comparatorV, pairComparatorV);
+			IntList target = new IntList();
+			for (int i = 0; i < 10; i++) {
+				final IntList list = lists[rnd.nextInt(NUM_LISTS / 2)];
+				assertNotNull(prober.getMatchFor(list, target));
+				assertArrayEquals(list.getValue(), target.getValue());
+			}
+			for (int i = 0; i < partitions.size(); i++) {
+				assertEquals("Partition " + i + " changed its eviction state.", evicted[i], !partitions.get(i).isInMemory());
+			}
+			
+			// records appended to evicted partitions, and records replaced in them, are found again
+			for (int i = NUM_LISTS / 2; i < NUM_LISTS; i++) {
+				table.insert(lists[i]);
+			}
+			final IntList[] overwriteLists = getRandomizedIntLists(NUM_LISTS, rnd);
+			IntList tempHolder = new IntList();
+			for (int i = 0; i < NUM_LISTS; i += 3) {
+				table.insertOrReplaceRecord(overwriteLists[i], tempHolder);
+				lists[i] = overwriteLists[i];
+			}
+			
+			for (int i = 0; i < NUM_LISTS; i++) {
+				assertNotNull("" + i, prober.getMatchFor(lists[i], target));
+				assertArrayEquals(lists[i].getValue(), target.getValue());
+			}
+			
+			table.close();
+			assertEquals("Memory lost", NUM_MEM_PAGES, table.getFreeMemory().size());
+		} catch (Exception e) {
+			e.printStackTrace();
+			fail("Error: " + e.getMessage());
+		} finally {
+			ioManager.shutdown();
+		}
+	}
+	
 	@Test
 	public void testResize() {
 		try {
@@ -239,7 +239,50 @@ public class ExternalSortITCase {
 			rec2 = tmp;
 		}
 		Assert.assertTrue(NUM_PAIRS == pairsEmitted);
-		
+
+		merger.close();
+	}
+
+	@Test
+	public void testSpillingSortWithConcurrentSortingAndMerging() throws Exception {
+		// comparator
+		final Comparator<TestData.Key> keyComparator = new TestData.KeyComparator();
+
+		final TestData.Generator generator = new TestData.Generator(SEED, KEY_MAX, VALUE_LENGTH, KeyMode.RANDOM, ValueMode.CONSTANT, VAL);
+		final MutableObjectIterator<Record> source = new TestData.GeneratorIterator(generator, NUM_PAIRS);
+
+		// merge iterator, with a small fan-in to force concurrent intermediate merges
+		LOG.debug("Initializing sortmerger...");
+
+		Sorter<Record> merger = new UnilateralSortMerger<Record>(this.memoryManager, this.ioManager,
+				source, this.parentTask, this.pactRecordSerializer, this.pactRecordComparator,
+				(double)16/78, -1, 3, 0.7f, 4);
+
+		// check order
+		MutableObjectIterator<Record> iterator = merger.getIterator();
+
+		LOG.debug("Checking results...");
+		int pairsEmitted = 1;
+
+		Record rec1 = new Record();
+		Record rec2 = new Record();
+
+		Assert.assertTrue((rec1 = iterator.next(rec1)) != null);
+		while ((rec2 = iterator.next(rec2)) != null) {
+			final Key k1 = rec1.getField(0, TestData.Key.class);
+			final Key k2 = rec2.getField(0, TestData.Key.class);
+			pairsEmitted++;
+
+			Assert.assertTrue(keyComparator.compare(k1, k2) <= 0);
+
+			Record tmp = rec1;
+			rec1 = rec2;
+			k1.setKey(k2.getKey());
+
+			rec2 = tmp;
+		}
+		Assert.assertEquals(NUM_PAIRS, pairsEmitted);
+
 		merger.close();
 	}
 
@@ -28,6 +28,7 @@ import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.runtime.memorymanager.DefaultMemoryManager;
 import org.apache.flink.runtime.operators.sort.NormalizedKeySorter;
 import org.apache.flink.runtime.operators.sort.QuickSort;
+import org.apache.flink.runtime.operators.sort.RadixSort;
 import org.apache.flink.runtime.operators.testutils.DummyInvokable;
 import org.apache.flink.runtime.operators.testutils.TestData;
 import org.apache.flink.runtime.operators.testutils.TestData.Key;
@@ -368,6 +369,67 @@ public class NormalizedKeySorterTest
 		this.memoryManager.release(sorter.dispose());
 	}
 	
+	@Test
+	public void testRadixSort() throws Exception
+	{
+		// few distinct keys produce many equal keys and buckets that hold all elements
+		testRadixSort(KEY_MAX, true);
+		testRadixSort(100, true);
+		testRadixSort(KEY_MAX, false);
+	}
+	
+	private void testRadixSort(int keyMax, boolean ascending) throws Exception
+	{
+		final int numSegments = MEMORY_SIZE / MEMORY_PAGE_SIZE;
+		final List<MemorySegment> memory = this.memoryManager.allocatePages(new DummyInvokable(), numSegments);
+		
+		@SuppressWarnings("unchecked")
+		RecordComparator accessors = new RecordComparator(new int[] {0}, new Class[]{Key.class}, new boolean[] {ascending});
+		NormalizedKeySorter<Record> sorter = new NormalizedKeySorter<Record>(RecordSerializer.get(), accessors, memory);
+		Assert.assertTrue(sorter.isNormalizedKeyFullyDetermining());
+		
+		TestData.Generator generator = new TestData.Generator(SEED, keyMax, VALUE_LENGTH, KeyMode.RANDOM,
+			ValueMode.RANDOM_LENGTH);
+		
+		// write the records
+		Record record = new Record();
+		do {
+			generator.next(record);
+		}
+		while (sorter.write(record));
+		
+		RadixSort rs = new RadixSort();
+		rs.sort(sorter);
+		
+		MutableObjectIterator<Record> iter = sorter.getIterator();
+		Record readTarget = new Record();
+		
+		Key current = new Key();
+		Key last = new Key();
+		
+		iter.next(readTarget);
+		readTarget.getFieldInto(0, last);
+		
+		int num = 1;
+		while ((readTarget = iter.next(readTarget)) != null) {
+			readTarget.getFieldInto(0, current);
+			num++;
+			
+			final int cmp = last.compareTo(current);
+			if (ascending ? cmp > 0 : cmp < 0) {
+				Assert.fail("Keys are not in sort order.");
+			}
+			
+			Key tmp = current;
+			current = last;
+			last = tmp;
+		}
+		Assert.assertEquals(sorter.size(), num);
+		
+		// release the memory occupied by the buffers
+		this.memoryManager.release(sorter.dispose());
+	}
+	
 	@Test
 	public void testSortShortStringKeys() throws Exception
 	{
@@ -364,4 +364,7 @@ public class MockEnvironment implements Environment, BufferProvider, LocalBuffer
 	public BroadcastVariableManager getBroadcastVariableManager() {
 		return this.bcVarManager;
 	}
+
+	@Override
+	public void reportRecordsRead(long numRecords) {}
 }
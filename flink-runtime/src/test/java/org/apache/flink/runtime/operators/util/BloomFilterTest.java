@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.runtime.operators.util;
+
+import java.util.Random;
+
+import org.apache.flink.core.memory.MemorySegment;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BloomFilterTest {
+
+	private static final long SEED = 649823751235L;
+
+	private static final int FILTER_BYTES = 112;
+
+	@Test
+	public void testNoFalseNegatives() {
+		final MemorySegment memory = new MemorySegment(new byte[4 * FILTER_BYTES]);
+		final BloomFilter filter = new BloomFilter(FILTER_BYTES, 3);
+		final Random rnd = new Random(SEED);
+
+		final int[] hashes = new int[50];
+		for (int i = 0; i < hashes.length; i++) {
+			hashes[i] = rnd.nextInt();
+		}
+
+		filter.setBitsLocation(memory, 2 * FILTER_BYTES);
+		filter.reset();
+		for (int hash : hashes) {
+			filter.addHash(hash);
+		}
+		for (int hash : hashes) {
+			Assert.assertTrue("Bloom filter reported an added hash code as absent.", filter.testHash(hash));
+		}
+
+		// the bits outside the region must be untouched
+		for (int i = 0; i < 2 * FILTER_BYTES; i++) {
+			Assert.assertEquals(0, memory.get(i));
+		}
+		for (int i = 3 * FILTER_BYTES; i < 4 * FILTER_BYTES; i++) {
+			Assert.assertEquals(0, memory.get(i));
+		}
+	}
+
+	@Test
+	public void testFiltersAbsentHashes() {
+		final MemorySegment memory = new MemorySegment(new byte[FILTER_BYTES]);
+		final BloomFilter filter = new BloomFilter(FILTER_BYTES, 3);
+		final Random rnd = new Random(SEED);
+
+		filter.setBitsLocation(memory, 0);
+		filter.reset();
+		for (int i = 0; i < 10; i++) {
+			filter.addHash(rnd.nextInt());
+		}
+
+		int numFalsePositives = 0;
+		for (int i = 0; i < 10000; i++) {
+			if (filter.testHash(rnd.nextInt())) {
+				numFalsePositives++;
+			}
+		}
+		Assert.assertTrue("Too many false positives: " + numFalsePositives, numFalsePositives < 100);
+
+		// after a reset, the filter is empty
+		filter.reset();
+		Assert.assertFalse(filter.testHash(rnd.nextInt()));
+	}
+}
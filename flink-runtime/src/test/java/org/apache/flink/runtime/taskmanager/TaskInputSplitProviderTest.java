@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.taskmanager;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.flink.core.io.GenericInputSplit;
+import org.apache.flink.core.io.InputSplit;
+import org.apache.flink.runtime.executiongraph.ExecutionAttemptID;
+import org.apache.flink.runtime.jobgraph.JobID;
+import org.apache.flink.runtime.jobgraph.JobVertexID;
+import org.apache.flink.runtime.protocols.InputSplitProviderProtocol;
+import org.junit.Test;
+
+public class TaskInputSplitProviderTest {
+
+	@Test
+	public void testPrefetchedSplitsAreServedFromQueue() {
+		try {
+			final JobID jid = new JobID();
+			final JobVertexID vid = new JobVertexID();
+			final ExecutionAttemptID eid = new ExecutionAttemptID();
+
+			final InputSplit s1 = new GenericInputSplit(0, 3);
+			final InputSplit s2 = new GenericInputSplit(1, 3);
+			final InputSplit s3 = new GenericInputSplit(2, 3);
+
+			InputSplitProviderProtocol protocol = mock(InputSplitProviderProtocol.class);
+			when(protocol.requestNextInputSplits(jid, vid, eid, 2))
+				.thenReturn(Arrays.asList(s1, s2))
+				.thenReturn(Collections.singletonList(s3))
+				.thenReturn(Collections.<InputSplit>emptyList());
+
+			TaskInputSplitProvider provider = new TaskInputSplitProvider(protocol, jid, vid, eid, 2);
+
+			assertEquals(s1, provider.getNextInputSplit());
+			assertEquals(s2, provider.getNextInputSplit());
+			assertEquals(s3, provider.getNextInputSplit());
+			assertNull(provider.getNextInputSplit());
+
+			// the provider is exhausted, so the job manager is not asked again
+			assertNull(provider.getNextInputSplit());
+			assertNull(provider.getNextInputSplit());
+
+			verify(protocol, times(3)).requestNextInputSplits(jid, vid, eid, 2);
+			verify(protocol, never()).requestNextInputSplit(any(JobID.class), any(JobVertexID.class), any(ExecutionAttemptID.class));
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testSingleSplitsWithoutPrefetching() {
+		try {
+			final JobID jid = new JobID();
+			final JobVertexID vid = new JobVertexID();
+			final ExecutionAttemptID eid = new ExecutionAttemptID();
+
+			final InputSplit s1 = new GenericInputSplit(0, 1);
+
+			InputSplitProviderProtocol protocol = mock(InputSplitProviderProtocol.class);
+			when(protocol.requestNextInputSplit(jid, vid, eid)).thenReturn(s1).thenReturn(null);
+
+			TaskInputSplitProvider provider = new TaskInputSplitProvider(protocol, jid, vid, eid, 1);
+
+			assertEquals(s1, provider.getNextInputSplit());
+			assertNull(provider.getNextInputSplit());
+
+			verify(protocol, times(2)).requestNextInputSplit(jid, vid, eid);
+			verify(protocol, never()).requestNextInputSplits(any(JobID.class), any(JobVertexID.class),
+					any(ExecutionAttemptID.class), anyInt());
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+}
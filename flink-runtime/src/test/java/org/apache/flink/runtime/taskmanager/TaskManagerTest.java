@@ -416,7 +416,7 @@ public class TaskManagerTest {
 		when(jm.registerTaskManager(Matchers.any(InstanceConnectionInfo.class), Matchers.any(HardwareDescription.class), Matchers.anyInt()))
 			.thenReturn(iid);
 		
-		when(jm.sendHeartbeat(iid)).thenReturn(true);
+		when(jm.sendHeartbeat(Matchers.eq(iid), Matchers.any(TaskProgressReport.class))).thenReturn(true);
 		
 		when(jm.updateTaskExecutionState(any(TaskExecutionState.class))).thenReturn(true);
 		